@@ -188,4 +188,31 @@ public interface OperationContext extends Serializable {
      * Returns the current max number of items per page.
      */
     int getMaxItemsPerPage();
+
+    /**
+     * Sets the number of pages that are fetched in the background while the
+     * current page of a list is being iterated.
+     * 
+     * @param prefetchPages
+     *            number of pages (0 disables prefetching)
+     */
+    void setPrefetchPages(int prefetchPages);
+
+    /**
+     * Returns the number of pages that are fetched in the background.
+     */
+    int getPrefetchPages();
+
+    /**
+     * Returns if lightweight objects should be created.
+     */
+    boolean isLightweight();
+
+    /**
+     * Sets if lightweight objects should be created. Lightweight objects are
+     * read-only snapshots that need less memory than regular objects. They
+     * share this operation context, convert their properties on first access
+     * and cannot be refreshed. Use them for reading large result sets.
+     */
+    void setLightweight(boolean lightweight);
 }
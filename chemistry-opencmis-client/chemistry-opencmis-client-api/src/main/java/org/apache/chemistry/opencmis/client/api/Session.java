@@ -19,6 +19,7 @@
 package org.apache.chemistry.opencmis.client.api;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -233,6 +234,28 @@ public interface Session extends Serializable {
      */
     CmisObject getObject(String objectId, OperationContext context);
 
+    /**
+     * Returns the CMIS objects with the given ids. Objects that are in the
+     * session cache are taken from the cache. The remaining objects are loaded
+     * from the repository in batches, one batch per page, and are put into the
+     * cache unless the given {@link OperationContext} has caching turned off.
+     * If the repository supports queries and the property filter of the
+     * {@link OperationContext} only selects properties of the base types,
+     * documents and folders may be loaded with a query instead. Those objects
+     * are not put into the cache.
+     * <p>
+     * The objects are returned in the order of the given ids. If an object
+     * doesn't exist, the iterable contains <code>null</code> at its position.
+     * 
+     * @param objectIds
+     *            the object ids
+     * @param context
+     *            the {@link OperationContext} to use
+     * 
+     * @see #getObject(ObjectId, OperationContext)
+     */
+    ItemIterable<CmisObject> getObjects(Collection<? extends ObjectId> objectIds, OperationContext context);
+
     /**
      * Returns a CMIS object from the session cache. If the object is not in the
      * cache or the cache is turned off per default {@link OperationContext}, it
@@ -21,6 +21,8 @@ package org.apache.chemistry.opencmis.client.bindings;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCmisBinding;
+import org.apache.chemistry.opencmis.client.bindings.async.impl.AsyncCmisBindingImpl;
 import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingImpl;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
@@ -220,6 +222,15 @@ public class CmisBindingFactory {
         return new CmisBindingImpl(sessionParameters);
     }
 
+    /**
+     * Creates an asynchronous companion of a CMIS binding instance. The calls
+     * are executed by a pool of <code>threads</code> threads and at most
+     * <code>queueSize</code> calls wait for a free thread.
+     */
+    public AsyncCmisBinding createAsyncCmisBinding(CmisBinding binding, int threads, int queueSize) {
+        return new AsyncCmisBindingImpl(binding, threads, queueSize);
+    }
+
     // ---- internal ----
 
     /**
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async;
+
+import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
+
+/**
+ * Asynchronous companion of a {@link CmisBinding}. The calls are executed by
+ * a bounded executor. When all threads are busy and the queue is full, new
+ * calls block until there is room again, so a caller can't pile up an
+ * unbounded number of requests.
+ */
+public interface AsyncCmisBinding {
+
+    /**
+     * Returns the binding the calls are executed with.
+     */
+    CmisBinding getBinding();
+
+    /**
+     * Returns the asynchronous repository service.
+     */
+    AsyncRepositoryService getRepositoryService();
+
+    /**
+     * Returns the asynchronous navigation service.
+     */
+    AsyncNavigationService getNavigationService();
+
+    /**
+     * Returns the asynchronous object service.
+     */
+    AsyncObjectService getObjectService();
+
+    /**
+     * Returns the asynchronous discovery service.
+     */
+    AsyncDiscoveryService getDiscoveryService();
+
+    /**
+     * Stops accepting new calls. Calls that have already been submitted are
+     * still executed. The binding itself is not closed.
+     */
+    void shutdown();
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async;
+
+import java.math.BigInteger;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
+
+/**
+ * Asynchronous companion of the Discovery Service. Each call is executed by the
+ * executor of the {@link AsyncCmisBinding} and returns immediately. The
+ * callback is optional and is called by the executor thread when the call is
+ * done. {@link Holder} arguments are updated before the
+ * future is done.
+ */
+public interface AsyncDiscoveryService {
+
+    /**
+     * Asynchronous version of {@link DiscoveryService#query}.
+     */
+    Future<ObjectList> query(String repositoryId, String statement, Boolean searchAllVersions,
+            Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+            BigInteger maxItems, BigInteger skipCount, ExtensionsData extension, AsyncCallback<ObjectList> callback);
+
+    /**
+     * Asynchronous version of {@link DiscoveryService#getContentChanges}.
+     */
+    Future<ObjectList> getContentChanges(String repositoryId, Holder<String> changeLogToken, Boolean includeProperties,
+            String filter, Boolean includePolicyIds, Boolean includeAcl, BigInteger maxItems, ExtensionsData extension,
+            AsyncCallback<ObjectList> callback);
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.ObjectParentData;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.spi.NavigationService;
+
+/**
+ * Asynchronous companion of the Navigation Service. Each call is executed by
+ * the executor of the {@link AsyncCmisBinding} and returns immediately. The
+ * callback is optional and is called by the executor thread when the call is
+ * done.
+ */
+public interface AsyncNavigationService {
+
+    /**
+     * Asynchronous version of {@link NavigationService#getChildren}.
+     */
+    Future<ObjectInFolderList> getChildren(String repositoryId, String folderId, String filter, String orderBy,
+            Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+            Boolean includePathSegment, BigInteger maxItems, BigInteger skipCount, ExtensionsData extension,
+            AsyncCallback<ObjectInFolderList> callback);
+
+    /**
+     * Asynchronous version of {@link NavigationService#getDescendants}.
+     */
+    Future<List<ObjectInFolderContainer>> getDescendants(String repositoryId, String folderId, BigInteger depth,
+            String filter, Boolean includeAllowableActions, IncludeRelationships includeRelationships,
+            String renditionFilter, Boolean includePathSegment, ExtensionsData extension,
+            AsyncCallback<List<ObjectInFolderContainer>> callback);
+
+    /**
+     * Asynchronous version of {@link NavigationService#getFolderTree}.
+     */
+    Future<List<ObjectInFolderContainer>> getFolderTree(String repositoryId, String folderId, BigInteger depth,
+            String filter, Boolean includeAllowableActions, IncludeRelationships includeRelationships,
+            String renditionFilter, Boolean includePathSegment, ExtensionsData extension,
+            AsyncCallback<List<ObjectInFolderContainer>> callback);
+
+    /**
+     * Asynchronous version of {@link NavigationService#getObjectParents}.
+     */
+    Future<List<ObjectParentData>> getObjectParents(String repositoryId, String objectId, String filter,
+            Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+            Boolean includeRelativePathSegment, ExtensionsData extension,
+            AsyncCallback<List<ObjectParentData>> callback);
+
+    /**
+     * Asynchronous version of {@link NavigationService#getFolderParent}.
+     */
+    Future<ObjectData> getFolderParent(String repositoryId, String folderId, String filter, ExtensionsData extension,
+            AsyncCallback<ObjectData> callback);
+
+    /**
+     * Asynchronous version of {@link NavigationService#getCheckedOutDocs}.
+     */
+    Future<ObjectList> getCheckedOutDocs(String repositoryId, String folderId, String filter, String orderBy,
+            Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
+            BigInteger maxItems, BigInteger skipCount, ExtensionsData extension, AsyncCallback<ObjectList> callback);
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.commons.data.Acl;
+import org.apache.chemistry.opencmis.commons.data.AllowableActions;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.FailedToDeleteData;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.Properties;
+import org.apache.chemistry.opencmis.commons.data.RenditionData;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.commons.spi.ObjectService;
+
+/**
+ * Asynchronous companion of the Object Service. Each call is executed by the
+ * executor of the {@link AsyncCmisBinding} and returns immediately. The
+ * callback is optional and is called by the executor thread when the call is
+ * done. {@link Holder} arguments are updated before the
+ * future is done.
+ */
+public interface AsyncObjectService {
+
+    /**
+     * Asynchronous version of {@link ObjectService#createDocument}.
+     */
+    Future<String> createDocument(String repositoryId, Properties properties, String folderId,
+            ContentStream contentStream, VersioningState versioningState, List<String> policies, Acl addAces,
+            Acl removeAces, ExtensionsData extension, AsyncCallback<String> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#createDocumentFromSource}.
+     */
+    Future<String> createDocumentFromSource(String repositoryId, String sourceId, Properties properties,
+            String folderId, VersioningState versioningState, List<String> policies, Acl addAces, Acl removeAces,
+            ExtensionsData extension, AsyncCallback<String> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#createFolder}.
+     */
+    Future<String> createFolder(String repositoryId, Properties properties, String folderId, List<String> policies,
+            Acl addAces, Acl removeAces, ExtensionsData extension, AsyncCallback<String> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#createRelationship}.
+     */
+    Future<String> createRelationship(String repositoryId, Properties properties, List<String> policies, Acl addAces,
+            Acl removeAces, ExtensionsData extension, AsyncCallback<String> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#createPolicy}.
+     */
+    Future<String> createPolicy(String repositoryId, Properties properties, String folderId, List<String> policies,
+            Acl addAces, Acl removeAces, ExtensionsData extension, AsyncCallback<String> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#getAllowableActions}.
+     */
+    Future<AllowableActions> getAllowableActions(String repositoryId, String objectId, ExtensionsData extension,
+            AsyncCallback<AllowableActions> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#getObject}.
+     */
+    Future<ObjectData> getObject(String repositoryId, String objectId, String filter, Boolean includeAllowableActions,
+            IncludeRelationships includeRelationships, String renditionFilter, Boolean includePolicyIds,
+            Boolean includeAcl, ExtensionsData extension, AsyncCallback<ObjectData> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#getProperties}.
+     */
+    Future<Properties> getProperties(String repositoryId, String objectId, String filter, ExtensionsData extension,
+            AsyncCallback<Properties> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#getRenditions}.
+     */
+    Future<List<RenditionData>> getRenditions(String repositoryId, String objectId, String renditionFilter,
+            BigInteger maxItems, BigInteger skipCount, ExtensionsData extension,
+            AsyncCallback<List<RenditionData>> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#getObjectByPath}.
+     */
+    Future<ObjectData> getObjectByPath(String repositoryId, String path, String filter, Boolean includeAllowableActions,
+            IncludeRelationships includeRelationships, String renditionFilter, Boolean includePolicyIds,
+            Boolean includeAcl, ExtensionsData extension, AsyncCallback<ObjectData> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#getContentStream}.
+     */
+    Future<ContentStream> getContentStream(String repositoryId, String objectId, String streamId, BigInteger offset,
+            BigInteger length, ExtensionsData extension, AsyncCallback<ContentStream> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#updateProperties}.
+     */
+    Future<Void> updateProperties(String repositoryId, Holder<String> objectId, Holder<String> changeToken,
+            Properties properties, ExtensionsData extension, AsyncCallback<Void> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#moveObject}.
+     */
+    Future<Void> moveObject(String repositoryId, Holder<String> objectId, String targetFolderId, String sourceFolderId,
+            ExtensionsData extension, AsyncCallback<Void> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#deleteObject}.
+     */
+    Future<Void> deleteObject(String repositoryId, String objectId, Boolean allVersions, ExtensionsData extension,
+            AsyncCallback<Void> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#deleteTree}.
+     */
+    Future<FailedToDeleteData> deleteTree(String repositoryId, String folderId, Boolean allVersions,
+            UnfileObject unfileObjects, Boolean continueOnFailure, ExtensionsData extension,
+            AsyncCallback<FailedToDeleteData> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#setContentStream}.
+     */
+    Future<Void> setContentStream(String repositoryId, Holder<String> objectId, Boolean overwriteFlag,
+            Holder<String> changeToken, ContentStream contentStream, ExtensionsData extension,
+            AsyncCallback<Void> callback);
+
+    /**
+     * Asynchronous version of {@link ObjectService#deleteContentStream}.
+     */
+    Future<Void> deleteContentStream(String repositoryId, Holder<String> objectId, Holder<String> changeToken,
+            ExtensionsData extension, AsyncCallback<Void> callback);
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
+import org.apache.chemistry.opencmis.commons.spi.RepositoryService;
+
+/**
+ * Asynchronous companion of the Repository Service. Each call is executed by the
+ * executor of the {@link AsyncCmisBinding} and returns immediately. The
+ * callback is optional and is called by the executor thread when the call is
+ * done.
+ */
+public interface AsyncRepositoryService {
+
+    /**
+     * Asynchronous version of {@link RepositoryService#getRepositoryInfos}.
+     */
+    Future<List<RepositoryInfo>> getRepositoryInfos(ExtensionsData extension,
+            AsyncCallback<List<RepositoryInfo>> callback);
+
+    /**
+     * Asynchronous version of {@link RepositoryService#getRepositoryInfo}.
+     */
+    Future<RepositoryInfo> getRepositoryInfo(String repositoryId, ExtensionsData extension,
+            AsyncCallback<RepositoryInfo> callback);
+
+    /**
+     * Asynchronous version of {@link RepositoryService#getTypeChildren}.
+     */
+    Future<TypeDefinitionList> getTypeChildren(String repositoryId, String typeId, Boolean includePropertyDefinitions,
+            BigInteger maxItems, BigInteger skipCount, ExtensionsData extension,
+            AsyncCallback<TypeDefinitionList> callback);
+
+    /**
+     * Asynchronous version of {@link RepositoryService#getTypeDescendants}.
+     */
+    Future<List<TypeDefinitionContainer>> getTypeDescendants(String repositoryId, String typeId, BigInteger depth,
+            Boolean includePropertyDefinitions, ExtensionsData extension,
+            AsyncCallback<List<TypeDefinitionContainer>> callback);
+
+    /**
+     * Asynchronous version of {@link RepositoryService#getTypeDefinition}.
+     */
+    Future<TypeDefinition> getTypeDefinition(String repositoryId, String typeId, ExtensionsData extension,
+            AsyncCallback<TypeDefinition> callback);
+}
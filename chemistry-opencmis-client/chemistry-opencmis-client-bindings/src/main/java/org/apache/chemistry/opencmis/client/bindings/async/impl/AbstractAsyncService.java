@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class of the asynchronous services.
+ */
+public abstract class AbstractAsyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractAsyncService.class);
+
+    private final Executor executor;
+
+    protected AbstractAsyncService(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Hands a call to the executor.
+     */
+    protected <T> Future<T> submit(Callable<T> call, final AsyncCallback<T> callback) {
+        FutureTask<T> task = new FutureTask<T>(call) {
+            @Override
+            protected void done() {
+                if ((callback == null) || isCancelled()) {
+                    return;
+                }
+
+                T result;
+                try {
+                    result = get();
+                } catch (ExecutionException e) {
+                    notifyFailure(callback, e.getCause());
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                try {
+                    callback.onSuccess(result);
+                } catch (RuntimeException e) {
+                    log.warn("Callback failed: " + e.getMessage(), e);
+                }
+            }
+        };
+
+        executor.execute(task);
+
+        return task;
+    }
+
+    private static void notifyFailure(AsyncCallback<?> callback, Throwable cause) {
+        try {
+            callback.onFailure(cause);
+        } catch (RuntimeException e) {
+            log.warn("Callback failed: " + e.getMessage(), e);
+        }
+    }
+}
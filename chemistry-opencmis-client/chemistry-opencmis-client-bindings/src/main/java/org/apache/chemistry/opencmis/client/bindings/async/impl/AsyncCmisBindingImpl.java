@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCmisBinding;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncDiscoveryService;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncNavigationService;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncObjectService;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncRepositoryService;
+import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
+
+/**
+ * Default implementation of the asynchronous binding.
+ */
+public class AsyncCmisBindingImpl implements AsyncCmisBinding {
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final CmisBinding binding;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+
+    private final AsyncRepositoryService repositoryService;
+    private final AsyncNavigationService navigationService;
+    private final AsyncObjectService objectService;
+    private final AsyncDiscoveryService discoveryService;
+
+    /**
+     * Creates an asynchronous binding with its own executor.
+     * 
+     * @param binding
+     *            the binding
+     * @param threads
+     *            the number of threads, which is the max. number of calls in
+     *            flight
+     * @param queueSize
+     *            the max. number of calls waiting for a thread
+     */
+    public AsyncCmisBindingImpl(CmisBinding binding, int threads, int queueSize) {
+        this(binding, createExecutor(threads, queueSize), true);
+    }
+
+    /**
+     * Creates an asynchronous binding that uses the given executor. The
+     * executor is not shut down by {@link #shutdown()}.
+     */
+    public AsyncCmisBindingImpl(CmisBinding binding, ExecutorService executor) {
+        this(binding, executor, false);
+    }
+
+    private AsyncCmisBindingImpl(CmisBinding binding, ExecutorService executor, boolean ownExecutor) {
+        if (binding == null) {
+            throw new IllegalArgumentException("Binding must be set!");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must be set!");
+        }
+
+        this.binding = binding;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+
+        repositoryService = new AsyncRepositoryServiceImpl(binding.getRepositoryService(), executor);
+        navigationService = new AsyncNavigationServiceImpl(binding.getNavigationService(), executor);
+        objectService = new AsyncObjectServiceImpl(binding.getObjectService(), executor);
+        discoveryService = new AsyncDiscoveryServiceImpl(binding.getDiscoveryService(), executor);
+    }
+
+    public CmisBinding getBinding() {
+        return binding;
+    }
+
+    public AsyncRepositoryService getRepositoryService() {
+        return repositoryService;
+    }
+
+    public AsyncNavigationService getNavigationService() {
+        return navigationService;
+    }
+
+    public AsyncObjectService getObjectService() {
+        return objectService;
+    }
+
+    public AsyncDiscoveryService getDiscoveryService() {
+        return discoveryService;
+    }
+
+    public void shutdown() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Creates an executor with a fixed number of daemon threads and a bounded
+     * queue. If the queue is full, the submitting thread waits. Waiting
+     * submissions are rejected when the executor is shut down.
+     */
+    private static ExecutorService createExecutor(int threads, int queueSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive!");
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("Queue size must be positive!");
+        }
+
+        final int poolNumber = POOL_NUMBER.incrementAndGet();
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "OpenCMIS async binding " + poolNumber + "-"
+                        + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        RejectedExecutionHandler blockingHandler = new RejectedExecutionHandler() {
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                try {
+                    while (true) {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Asynchronous binding has been shut down!");
+                        }
+
+                        // wake up regularly to notice a shutdown
+                        if (executor.getQueue().offer(r, 100, TimeUnit.MILLISECONDS)) {
+                            // the workers may already be gone
+                            if (executor.isShutdown() && executor.remove(r)) {
+                                throw new RejectedExecutionException("Asynchronous binding has been shut down!");
+                            }
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for a free slot!", e);
+                }
+            }
+        };
+
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+                queueSize), threadFactory, blockingHandler);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async.impl;
+
+import java.math.BigInteger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCallback;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncDiscoveryService;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
+
+/**
+ * Runs the calls of a {@link DiscoveryService} on an executor.
+ */
+public class AsyncDiscoveryServiceImpl extends AbstractAsyncService implements AsyncDiscoveryService {
+
+    private final DiscoveryService service;
+
+    public AsyncDiscoveryServiceImpl(DiscoveryService service, Executor executor) {
+        super(executor);
+        this.service = service;
+    }
+
+    public Future<ObjectList> query(final String repositoryId, final String statement, final Boolean searchAllVersions,
+            final Boolean includeAllowableActions, final IncludeRelationships includeRelationships,
+            final String renditionFilter, final BigInteger maxItems, final BigInteger skipCount,
+            final ExtensionsData extension, AsyncCallback<ObjectList> callback) {
+        return submit(new Callable<ObjectList>() {
+            public ObjectList call() throws Exception {
+                return service.query(repositoryId, statement, searchAllVersions, includeAllowableActions,
+                        includeRelationships, renditionFilter, maxItems, skipCount, extension);
+            }
+        }, callback);
+    }
+
+    public Future<ObjectList> getContentChanges(final String repositoryId, final Holder<String> changeLogToken,
+            final Boolean includeProperties, final String filter, final Boolean includePolicyIds,
+            final Boolean includeAcl, final BigInteger maxItems, final ExtensionsData extension,
+            AsyncCallback<ObjectList> callback) {
+        return submit(new Callable<ObjectList>() {
+            public ObjectList call() throws Exception {
+                return service.getContentChanges(repositoryId, changeLogToken, includeProperties, filter,
+                        includePolicyIds, includeAcl, maxItems, extension);
+            }
+        }, callback);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async.impl;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCallback;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncNavigationService;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.ObjectParentData;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.spi.NavigationService;
+
+/**
+ * Runs the calls of a {@link NavigationService} on an executor.
+ */
+public class AsyncNavigationServiceImpl extends AbstractAsyncService implements AsyncNavigationService {
+
+    private final NavigationService service;
+
+    public AsyncNavigationServiceImpl(NavigationService service, Executor executor) {
+        super(executor);
+        this.service = service;
+    }
+
+    public Future<ObjectInFolderList> getChildren(final String repositoryId, final String folderId, final String filter,
+            final String orderBy, final Boolean includeAllowableActions,
+            final IncludeRelationships includeRelationships, final String renditionFilter,
+            final Boolean includePathSegment, final BigInteger maxItems, final BigInteger skipCount,
+            final ExtensionsData extension, AsyncCallback<ObjectInFolderList> callback) {
+        return submit(new Callable<ObjectInFolderList>() {
+            public ObjectInFolderList call() throws Exception {
+                return service.getChildren(repositoryId, folderId, filter, orderBy, includeAllowableActions,
+                        includeRelationships, renditionFilter, includePathSegment, maxItems, skipCount, extension);
+            }
+        }, callback);
+    }
+
+    public Future<List<ObjectInFolderContainer>> getDescendants(final String repositoryId, final String folderId,
+            final BigInteger depth, final String filter, final Boolean includeAllowableActions,
+            final IncludeRelationships includeRelationships, final String renditionFilter,
+            final Boolean includePathSegment, final ExtensionsData extension,
+            AsyncCallback<List<ObjectInFolderContainer>> callback) {
+        return submit(new Callable<List<ObjectInFolderContainer>>() {
+            public List<ObjectInFolderContainer> call() throws Exception {
+                return service.getDescendants(repositoryId, folderId, depth, filter, includeAllowableActions,
+                        includeRelationships, renditionFilter, includePathSegment, extension);
+            }
+        }, callback);
+    }
+
+    public Future<List<ObjectInFolderContainer>> getFolderTree(final String repositoryId, final String folderId,
+            final BigInteger depth, final String filter, final Boolean includeAllowableActions,
+            final IncludeRelationships includeRelationships, final String renditionFilter,
+            final Boolean includePathSegment, final ExtensionsData extension,
+            AsyncCallback<List<ObjectInFolderContainer>> callback) {
+        return submit(new Callable<List<ObjectInFolderContainer>>() {
+            public List<ObjectInFolderContainer> call() throws Exception {
+                return service.getFolderTree(repositoryId, folderId, depth, filter, includeAllowableActions,
+                        includeRelationships, renditionFilter, includePathSegment, extension);
+            }
+        }, callback);
+    }
+
+    public Future<List<ObjectParentData>> getObjectParents(final String repositoryId, final String objectId,
+            final String filter, final Boolean includeAllowableActions, final IncludeRelationships includeRelationships,
+            final String renditionFilter, final Boolean includeRelativePathSegment, final ExtensionsData extension,
+            AsyncCallback<List<ObjectParentData>> callback) {
+        return submit(new Callable<List<ObjectParentData>>() {
+            public List<ObjectParentData> call() throws Exception {
+                return service.getObjectParents(repositoryId, objectId, filter, includeAllowableActions,
+                        includeRelationships, renditionFilter, includeRelativePathSegment, extension);
+            }
+        }, callback);
+    }
+
+    public Future<ObjectData> getFolderParent(final String repositoryId, final String folderId, final String filter,
+            final ExtensionsData extension, AsyncCallback<ObjectData> callback) {
+        return submit(new Callable<ObjectData>() {
+            public ObjectData call() throws Exception {
+                return service.getFolderParent(repositoryId, folderId, filter, extension);
+            }
+        }, callback);
+    }
+
+    public Future<ObjectList> getCheckedOutDocs(final String repositoryId, final String folderId, final String filter,
+            final String orderBy, final Boolean includeAllowableActions,
+            final IncludeRelationships includeRelationships, final String renditionFilter, final BigInteger maxItems,
+            final BigInteger skipCount, final ExtensionsData extension, AsyncCallback<ObjectList> callback) {
+        return submit(new Callable<ObjectList>() {
+            public ObjectList call() throws Exception {
+                return service.getCheckedOutDocs(repositoryId, folderId, filter, orderBy, includeAllowableActions,
+                        includeRelationships, renditionFilter, maxItems, skipCount, extension);
+            }
+        }, callback);
+    }
+}
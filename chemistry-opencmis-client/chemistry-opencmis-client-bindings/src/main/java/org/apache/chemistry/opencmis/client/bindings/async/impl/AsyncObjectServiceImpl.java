@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async.impl;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCallback;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncObjectService;
+import org.apache.chemistry.opencmis.commons.data.Acl;
+import org.apache.chemistry.opencmis.commons.data.AllowableActions;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.FailedToDeleteData;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.Properties;
+import org.apache.chemistry.opencmis.commons.data.RenditionData;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.enums.UnfileObject;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.commons.spi.ObjectService;
+
+/**
+ * Runs the calls of a {@link ObjectService} on an executor.
+ */
+public class AsyncObjectServiceImpl extends AbstractAsyncService implements AsyncObjectService {
+
+    private final ObjectService service;
+
+    public AsyncObjectServiceImpl(ObjectService service, Executor executor) {
+        super(executor);
+        this.service = service;
+    }
+
+    public Future<String> createDocument(final String repositoryId, final Properties properties, final String folderId,
+            final ContentStream contentStream, final VersioningState versioningState, final List<String> policies,
+            final Acl addAces, final Acl removeAces, final ExtensionsData extension, AsyncCallback<String> callback) {
+        return submit(new Callable<String>() {
+            public String call() throws Exception {
+                return service.createDocument(repositoryId, properties, folderId, contentStream, versioningState,
+                        policies, addAces, removeAces, extension);
+            }
+        }, callback);
+    }
+
+    public Future<String> createDocumentFromSource(final String repositoryId, final String sourceId,
+            final Properties properties, final String folderId, final VersioningState versioningState,
+            final List<String> policies, final Acl addAces, final Acl removeAces, final ExtensionsData extension,
+            AsyncCallback<String> callback) {
+        return submit(new Callable<String>() {
+            public String call() throws Exception {
+                return service.createDocumentFromSource(repositoryId, sourceId, properties, folderId, versioningState,
+                        policies, addAces, removeAces, extension);
+            }
+        }, callback);
+    }
+
+    public Future<String> createFolder(final String repositoryId, final Properties properties, final String folderId,
+            final List<String> policies, final Acl addAces, final Acl removeAces, final ExtensionsData extension,
+            AsyncCallback<String> callback) {
+        return submit(new Callable<String>() {
+            public String call() throws Exception {
+                return service.createFolder(repositoryId, properties, folderId, policies, addAces, removeAces,
+                        extension);
+            }
+        }, callback);
+    }
+
+    public Future<String> createRelationship(final String repositoryId, final Properties properties,
+            final List<String> policies, final Acl addAces, final Acl removeAces, final ExtensionsData extension,
+            AsyncCallback<String> callback) {
+        return submit(new Callable<String>() {
+            public String call() throws Exception {
+                return service.createRelationship(repositoryId, properties, policies, addAces, removeAces, extension);
+            }
+        }, callback);
+    }
+
+    public Future<String> createPolicy(final String repositoryId, final Properties properties, final String folderId,
+            final List<String> policies, final Acl addAces, final Acl removeAces, final ExtensionsData extension,
+            AsyncCallback<String> callback) {
+        return submit(new Callable<String>() {
+            public String call() throws Exception {
+                return service.createPolicy(repositoryId, properties, folderId, policies, addAces, removeAces,
+                        extension);
+            }
+        }, callback);
+    }
+
+    public Future<AllowableActions> getAllowableActions(final String repositoryId, final String objectId,
+            final ExtensionsData extension, AsyncCallback<AllowableActions> callback) {
+        return submit(new Callable<AllowableActions>() {
+            public AllowableActions call() throws Exception {
+                return service.getAllowableActions(repositoryId, objectId, extension);
+            }
+        }, callback);
+    }
+
+    public Future<ObjectData> getObject(final String repositoryId, final String objectId, final String filter,
+            final Boolean includeAllowableActions, final IncludeRelationships includeRelationships,
+            final String renditionFilter, final Boolean includePolicyIds, final Boolean includeAcl,
+            final ExtensionsData extension, AsyncCallback<ObjectData> callback) {
+        return submit(new Callable<ObjectData>() {
+            public ObjectData call() throws Exception {
+                return service.getObject(repositoryId, objectId, filter, includeAllowableActions, includeRelationships,
+                        renditionFilter, includePolicyIds, includeAcl, extension);
+            }
+        }, callback);
+    }
+
+    public Future<Properties> getProperties(final String repositoryId, final String objectId, final String filter,
+            final ExtensionsData extension, AsyncCallback<Properties> callback) {
+        return submit(new Callable<Properties>() {
+            public Properties call() throws Exception {
+                return service.getProperties(repositoryId, objectId, filter, extension);
+            }
+        }, callback);
+    }
+
+    public Future<List<RenditionData>> getRenditions(final String repositoryId, final String objectId,
+            final String renditionFilter, final BigInteger maxItems, final BigInteger skipCount,
+            final ExtensionsData extension, AsyncCallback<List<RenditionData>> callback) {
+        return submit(new Callable<List<RenditionData>>() {
+            public List<RenditionData> call() throws Exception {
+                return service.getRenditions(repositoryId, objectId, renditionFilter, maxItems, skipCount, extension);
+            }
+        }, callback);
+    }
+
+    public Future<ObjectData> getObjectByPath(final String repositoryId, final String path, final String filter,
+            final Boolean includeAllowableActions, final IncludeRelationships includeRelationships,
+            final String renditionFilter, final Boolean includePolicyIds, final Boolean includeAcl,
+            final ExtensionsData extension, AsyncCallback<ObjectData> callback) {
+        return submit(new Callable<ObjectData>() {
+            public ObjectData call() throws Exception {
+                return service.getObjectByPath(repositoryId, path, filter, includeAllowableActions,
+                        includeRelationships, renditionFilter, includePolicyIds, includeAcl, extension);
+            }
+        }, callback);
+    }
+
+    public Future<ContentStream> getContentStream(final String repositoryId, final String objectId,
+            final String streamId, final BigInteger offset, final BigInteger length, final ExtensionsData extension,
+            AsyncCallback<ContentStream> callback) {
+        return submit(new Callable<ContentStream>() {
+            public ContentStream call() throws Exception {
+                return service.getContentStream(repositoryId, objectId, streamId, offset, length, extension);
+            }
+        }, callback);
+    }
+
+    public Future<Void> updateProperties(final String repositoryId, final Holder<String> objectId,
+            final Holder<String> changeToken, final Properties properties, final ExtensionsData extension,
+            AsyncCallback<Void> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                service.updateProperties(repositoryId, objectId, changeToken, properties, extension);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> moveObject(final String repositoryId, final Holder<String> objectId,
+            final String targetFolderId, final String sourceFolderId, final ExtensionsData extension,
+            AsyncCallback<Void> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                service.moveObject(repositoryId, objectId, targetFolderId, sourceFolderId, extension);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> deleteObject(final String repositoryId, final String objectId, final Boolean allVersions,
+            final ExtensionsData extension, AsyncCallback<Void> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                service.deleteObject(repositoryId, objectId, allVersions, extension);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<FailedToDeleteData> deleteTree(final String repositoryId, final String folderId,
+            final Boolean allVersions, final UnfileObject unfileObjects, final Boolean continueOnFailure,
+            final ExtensionsData extension, AsyncCallback<FailedToDeleteData> callback) {
+        return submit(new Callable<FailedToDeleteData>() {
+            public FailedToDeleteData call() throws Exception {
+                return service.deleteTree(repositoryId, folderId, allVersions, unfileObjects, continueOnFailure,
+                        extension);
+            }
+        }, callback);
+    }
+
+    public Future<Void> setContentStream(final String repositoryId, final Holder<String> objectId,
+            final Boolean overwriteFlag, final Holder<String> changeToken, final ContentStream contentStream,
+            final ExtensionsData extension, AsyncCallback<Void> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                service.setContentStream(repositoryId, objectId, overwriteFlag, changeToken, contentStream, extension);
+                return null;
+            }
+        }, callback);
+    }
+
+    public Future<Void> deleteContentStream(final String repositoryId, final Holder<String> objectId,
+            final Holder<String> changeToken, final ExtensionsData extension, AsyncCallback<Void> callback) {
+        return submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                service.deleteContentStream(repositoryId, objectId, changeToken, extension);
+                return null;
+            }
+        }, callback);
+    }
+}
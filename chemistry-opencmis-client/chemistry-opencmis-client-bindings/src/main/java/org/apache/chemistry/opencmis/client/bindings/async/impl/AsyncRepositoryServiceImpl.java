@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async.impl;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncCallback;
+import org.apache.chemistry.opencmis.client.bindings.async.AsyncRepositoryService;
+import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
+import org.apache.chemistry.opencmis.commons.spi.RepositoryService;
+
+/**
+ * Runs the calls of a {@link RepositoryService} on an executor.
+ */
+public class AsyncRepositoryServiceImpl extends AbstractAsyncService implements AsyncRepositoryService {
+
+    private final RepositoryService service;
+
+    public AsyncRepositoryServiceImpl(RepositoryService service, Executor executor) {
+        super(executor);
+        this.service = service;
+    }
+
+    public Future<List<RepositoryInfo>> getRepositoryInfos(final ExtensionsData extension,
+            AsyncCallback<List<RepositoryInfo>> callback) {
+        return submit(new Callable<List<RepositoryInfo>>() {
+            public List<RepositoryInfo> call() throws Exception {
+                return service.getRepositoryInfos(extension);
+            }
+        }, callback);
+    }
+
+    public Future<RepositoryInfo> getRepositoryInfo(final String repositoryId, final ExtensionsData extension,
+            AsyncCallback<RepositoryInfo> callback) {
+        return submit(new Callable<RepositoryInfo>() {
+            public RepositoryInfo call() throws Exception {
+                return service.getRepositoryInfo(repositoryId, extension);
+            }
+        }, callback);
+    }
+
+    public Future<TypeDefinitionList> getTypeChildren(final String repositoryId, final String typeId,
+            final Boolean includePropertyDefinitions, final BigInteger maxItems, final BigInteger skipCount,
+            final ExtensionsData extension, AsyncCallback<TypeDefinitionList> callback) {
+        return submit(new Callable<TypeDefinitionList>() {
+            public TypeDefinitionList call() throws Exception {
+                return service.getTypeChildren(repositoryId, typeId, includePropertyDefinitions, maxItems, skipCount,
+                        extension);
+            }
+        }, callback);
+    }
+
+    public Future<List<TypeDefinitionContainer>> getTypeDescendants(final String repositoryId, final String typeId,
+            final BigInteger depth, final Boolean includePropertyDefinitions, final ExtensionsData extension,
+            AsyncCallback<List<TypeDefinitionContainer>> callback) {
+        return submit(new Callable<List<TypeDefinitionContainer>>() {
+            public List<TypeDefinitionContainer> call() throws Exception {
+                return service.getTypeDescendants(repositoryId, typeId, depth, includePropertyDefinitions, extension);
+            }
+        }, callback);
+    }
+
+    public Future<TypeDefinition> getTypeDefinition(final String repositoryId, final String typeId,
+            final ExtensionsData extension, AsyncCallback<TypeDefinition> callback) {
+        return submit(new Callable<TypeDefinition>() {
+            public TypeDefinition call() throws Exception {
+                return service.getTypeDefinition(repositoryId, typeId, extension);
+            }
+        }, callback);
+    }
+}
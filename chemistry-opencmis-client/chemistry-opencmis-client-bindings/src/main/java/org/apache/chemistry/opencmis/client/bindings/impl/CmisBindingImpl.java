@@ -24,6 +24,8 @@ import java.util.Map;
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.bindings.spi.CmisSpi;
 import org.apache.chemistry.opencmis.client.bindings.spi.SessionAwareAuthenticationProvider;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpResponseCache;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
 import org.apache.chemistry.opencmis.commons.spi.AclService;
@@ -217,6 +219,12 @@ public class CmisBindingImpl implements CmisBinding, Serializable {
 
             CmisSpi spi = CmisBindingsHelper.getSPI(session);
             spi.clearAllCaches();
+
+            HttpResponseCache httpCache = (HttpResponseCache) session
+                    .get(CmisBindingsHelper.HTTP_RESPONSE_CACHE_OBJECT);
+            if (httpCache != null) {
+                httpCache.clear();
+            }
         } finally {
             session.writeUnlock();
         }
@@ -253,6 +261,17 @@ public class CmisBindingImpl implements CmisBinding, Serializable {
         try {
             CmisSpi spi = CmisBindingsHelper.getSPI(session);
             spi.close();
+
+            HttpInvoker invoker = (HttpInvoker) session.get(CmisBindingsHelper.HTTP_INVOKER_OBJECT);
+            if (invoker != null) {
+                invoker.close();
+            }
+
+            HttpResponseCache httpCache = (HttpResponseCache) session
+                    .get(CmisBindingsHelper.HTTP_RESPONSE_CACHE_OBJECT);
+            if (httpCache != null) {
+                httpCache.close();
+            }
         } finally {
             session.writeUnlock();
             session = null;
@@ -22,6 +22,9 @@ import java.lang.reflect.Constructor;
 
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.bindings.spi.CmisSpi;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.DefaultHttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpResponseCache;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
@@ -38,6 +41,8 @@ public final class CmisBindingsHelper {
     public static final String SPI_OBJECT = "org.apache.chemistry.opencmis.binding.spi.object";
     public static final String AUTHENTICATION_PROVIDER_OBJECT = "org.apache.chemistry.opencmis.binding.auth.object";
     public static final String ACCEPT_LANGUAGE = "org.apache.chemistry.opencmis.binding.acceptLanguage";
+    public static final String HTTP_INVOKER_OBJECT = "org.apache.chemistry.opencmis.binding.httpinvoker.object";
+    public static final String HTTP_RESPONSE_CACHE_OBJECT = "org.apache.chemistry.opencmis.binding.httpcache.object";
 
     /**
      * Private constructor.
@@ -90,6 +95,91 @@ public final class CmisBindingsHelper {
         return spi;
     }
 
+    /**
+     * Gets the HTTP invoker object for the given session. If there is already
+     * a HTTP invoker object in the session it will be returned. If there is no
+     * HTTP invoker object it will be created and put into the session.
+     * 
+     * @param session
+     *            the session object
+     * 
+     * @return the HTTP invoker object
+     */
+    public static HttpInvoker getHttpInvoker(BindingSession session) {
+        // fetch from session
+        HttpInvoker invoker = (HttpInvoker) session.get(HTTP_INVOKER_OBJECT);
+        if (invoker != null) {
+            return invoker;
+        }
+
+        session.writeLock();
+        try {
+            // try again
+            invoker = (HttpInvoker) session.get(HTTP_INVOKER_OBJECT);
+            if (invoker != null) {
+                return invoker;
+            }
+
+            // ok, we have to create it...
+            try {
+                String invokerName = (String) session.get(SessionParameter.HTTP_INVOKER_CLASS);
+                if (invokerName == null) {
+                    invokerName = DefaultHttpInvoker.class.getName();
+                }
+                Constructor<?> c = Class.forName(invokerName).getConstructor(BindingSession.class);
+                invoker = (HttpInvoker) c.newInstance(session);
+            } catch (CmisBaseException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CmisRuntimeException("HTTP invoker cannot be initialized: " + e.getMessage(), e);
+            }
+
+            // we have an invoker object -> put it into the session
+            session.put(HTTP_INVOKER_OBJECT, invoker, true);
+        } finally {
+            session.writeUnlock();
+        }
+
+        return invoker;
+    }
+
+    /**
+     * Gets the HTTP response cache for the given session. The cache is created
+     * on first use if it is enabled with {@link SessionParameter#HTTP_CACHE}.
+     * 
+     * @param session
+     *            the session object
+     * 
+     * @return the HTTP response cache or <code>null</code> if the cache is
+     *         disabled
+     */
+    public static HttpResponseCache getHttpResponseCache(BindingSession session) {
+        // fetch from session
+        HttpResponseCache cache = (HttpResponseCache) session.get(HTTP_RESPONSE_CACHE_OBJECT);
+        if (cache != null) {
+            return cache;
+        }
+
+        Object enabled = session.get(SessionParameter.HTTP_CACHE);
+        if ((enabled == null) || !Boolean.parseBoolean(enabled.toString())) {
+            return null;
+        }
+
+        session.writeLock();
+        try {
+            // try again
+            cache = (HttpResponseCache) session.get(HTTP_RESPONSE_CACHE_OBJECT);
+            if (cache == null) {
+                cache = new HttpResponseCache(session);
+                session.put(HTTP_RESPONSE_CACHE_OBJECT, cache, true);
+            }
+        } finally {
+            session.writeUnlock();
+        }
+
+        return cache;
+    }
+
     /**
      * Returns the authentication provider from the session or <code>null</code>
      * if no authentication provider is set.
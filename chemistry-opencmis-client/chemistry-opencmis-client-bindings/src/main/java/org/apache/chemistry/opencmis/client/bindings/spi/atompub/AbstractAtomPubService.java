@@ -573,6 +573,15 @@ public abstract class AbstractAtomPubService implements LinkAccess {
         return resp;
     }
 
+    /**
+     * Performs a POST on an URL, checks the response code and consumes the
+     * response.
+     */
+    protected void postAndConsume(UrlBuilder url, String contentType, HttpUtils.Output writer) {
+        HttpUtils.Response resp = post(url, contentType, writer);
+        HttpUtils.consumeAndClose(resp.getStream());
+    }
+
     /**
      * Performs a PUT on an URL, checks the response code and returns the
      * result.
@@ -127,6 +127,9 @@ public class AtomEntryWriter {
         writer.writeCharacters(getUpdated());
         writer.writeEndElement();
 
+        // object (before the content, so that servers can stream the content)
+        JaxBHelper.marshal(JaxBHelper.CMIS_EXTRA_OBJECT_FACTORY.createObject(object), writer, true);
+
         // content
         if (stream != null) {
             writer.writeStartElement(Constants.NAMESPACE_RESTATOM, TAG_CONTENT);
@@ -142,9 +145,6 @@ public class AtomEntryWriter {
             writer.writeEndElement();
         }
 
-        // object
-        JaxBHelper.marshal(JaxBHelper.CMIS_EXTRA_OBJECT_FACTORY.createObject(object), writer, true);
-
         // end entry
         writer.writeEndElement();
 
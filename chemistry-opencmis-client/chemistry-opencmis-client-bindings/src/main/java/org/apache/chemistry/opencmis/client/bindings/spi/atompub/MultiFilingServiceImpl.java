@@ -61,7 +61,7 @@ public class MultiFilingServiceImpl extends AbstractAtomPubService implements Mu
         final AtomEntryWriter entryWriter = new AtomEntryWriter(createIdObject(objectId));
 
         // post addObjectToFolder request
-        post(url, Constants.MEDIATYPE_ENTRY, new HttpUtils.Output() {
+        postAndConsume(url, Constants.MEDIATYPE_ENTRY, new HttpUtils.Output() {
             public void write(OutputStream out) throws Exception {
                 entryWriter.write(out);
             }
@@ -87,7 +87,7 @@ public class MultiFilingServiceImpl extends AbstractAtomPubService implements Mu
         final AtomEntryWriter entryWriter = new AtomEntryWriter(createIdObject(objectId));
 
         // post removeObjectFromFolder request
-        post(url, Constants.MEDIATYPE_ENTRY, new HttpUtils.Output() {
+        postAndConsume(url, Constants.MEDIATYPE_ENTRY, new HttpUtils.Output() {
             public void write(OutputStream out) throws Exception {
                 entryWriter.write(out);
             }
@@ -400,6 +400,7 @@ public class ObjectServiceImpl extends AbstractAtomPubService implements ObjectS
 
         // check response code
         if (resp.getResponseCode() == 200 || resp.getResponseCode() == 202 || resp.getResponseCode() == 204) {
+            HttpUtils.consumeAndClose(resp.getStream());
             return new FailedToDeleteDataImpl();
         }
 
@@ -633,6 +634,8 @@ public class ObjectServiceImpl extends AbstractAtomPubService implements ObjectS
             throw convertStatusCode(resp.getResponseCode(), resp.getResponseMessage(), resp.getErrorContent(), null);
         }
 
+        HttpUtils.consumeAndClose(resp.getStream());
+
         objectId.setValue(null);
         if (changeToken != null) {
             changeToken.setValue(null);
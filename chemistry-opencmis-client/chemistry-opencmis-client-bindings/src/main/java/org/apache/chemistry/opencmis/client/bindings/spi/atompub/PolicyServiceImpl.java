@@ -67,7 +67,7 @@ public class PolicyServiceImpl extends AbstractAtomPubService implements PolicyS
         final AtomEntryWriter entryWriter = new AtomEntryWriter(createIdObject(objectId));
 
         // post applyPolicy request
-        post(url, Constants.MEDIATYPE_ENTRY, new HttpUtils.Output() {
+        postAndConsume(url, Constants.MEDIATYPE_ENTRY, new HttpUtils.Output() {
             public void write(OutputStream out) throws Exception {
                 entryWriter.write(out);
             }
@@ -27,8 +27,14 @@ import java.util.Map;
 
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.bindings.spi.LinkAccess;
+import org.apache.chemistry.opencmis.client.bindings.spi.browser.StreamingJSONParser.ElementConverter;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
@@ -52,9 +58,13 @@ import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.JSONConstants;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoBrowserBindingImpl;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.ContainerFactory;
+import org.json.simple.parser.ContentHandler;
 import org.json.simple.parser.JSONParser;
 
 /**
@@ -74,6 +84,24 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
         }
     };
 
+    private static final ElementConverter<ObjectData> OBJECT_CONVERTER = new ElementConverter<ObjectData>() {
+        public ObjectData convert(Object json) {
+            return JSONConverter.convertObject(JSONConverter.getMap(json));
+        }
+    };
+
+    private static final ElementConverter<ObjectInFolderData> OBJECT_IN_FOLDER_CONVERTER = new ElementConverter<ObjectInFolderData>() {
+        public ObjectInFolderData convert(Object json) {
+            return JSONConverter.convertObjectInFolder(JSONConverter.getMap(json));
+        }
+    };
+
+    private static final ElementConverter<ObjectInFolderContainer> DESCENDANT_CONVERTER = new ElementConverter<ObjectInFolderContainer>() {
+        public ObjectInFolderContainer convert(Object json) {
+            return JSONConverter.convertDescendant(JSONConverter.getMap(json));
+        }
+    };
+
     private BindingSession session;
 
     /**
@@ -282,6 +310,18 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
      * Parses an input stream.
      */
     protected Object parse(InputStream stream, String charset, ContainerFactory containerFactory) {
+        return parse(stream, charset, containerFactory, null);
+    }
+
+    /**
+     * Parses an input stream and hands the tokens to the given handler.
+     */
+    protected void parse(InputStream stream, String charset, ContentHandler handler) {
+        parse(stream, charset, null, handler);
+    }
+
+    private Object parse(InputStream stream, String charset, ContainerFactory containerFactory,
+            ContentHandler handler) {
 
         InputStreamReader reader = null;
 
@@ -289,7 +329,13 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
         try {
             reader = new InputStreamReader(stream, charset);
             JSONParser parser = new JSONParser();
-            obj = parser.parse(reader, containerFactory);
+            if (handler == null) {
+                obj = parser.parse(reader, containerFactory);
+            } else {
+                parser.parse(reader, handler);
+            }
+        } catch (CmisBaseException e) {
+            throw e;
         } catch (Exception e) {
             throw new CmisConnectionException("Parsing exception!", e);
         } finally {
@@ -312,6 +358,94 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
         return obj;
     }
 
+    /**
+     * Parses an object list. The objects are converted while the stream is
+     * parsed.
+     */
+    protected ObjectList parseObjectList(InputStream stream, String charset, Holder<String> changeLogToken) {
+        StreamingJSONParser<ObjectData> handler = new StreamingJSONParser<ObjectData>(
+                JSONConstants.JSON_OBJECTLIST_OBJECTS, OBJECT_CONVERTER);
+        Map<String, Object> json = parseStreamingObject(stream, charset, handler);
+
+        if (changeLogToken != null) {
+            Object token = json.get(JSONConstants.JSON_OBJECTLIST_CHANGE_LOG_TOKEN);
+            if (token instanceof String) {
+                changeLogToken.setValue((String) token);
+            }
+        }
+
+        ObjectListImpl result = new ObjectListImpl();
+        result.setObjects(handler.getResults() == null ? new ArrayList<ObjectData>() : handler.getResults());
+        result.setHasMoreItems(JSONConverter.getBoolean(json, JSONConstants.JSON_OBJECTLIST_HAS_MORE_ITEMS));
+        result.setNumItems(JSONConverter.getInteger(json, JSONConstants.JSON_OBJECTLIST_NUM_ITEMS));
+
+        JSONConverter.convertExtension(json, result, JSONConstants.OBJECTLIST_KEYS);
+
+        return result;
+    }
+
+    /**
+     * Parses the children of a folder. The children are converted while the
+     * stream is parsed.
+     */
+    protected ObjectInFolderList parseObjectInFolderList(InputStream stream, String charset) {
+        StreamingJSONParser<ObjectInFolderData> handler = new StreamingJSONParser<ObjectInFolderData>(
+                JSONConstants.JSON_OBJECTINFOLDERLIST_OBJECTS, OBJECT_IN_FOLDER_CONVERTER);
+        Map<String, Object> json = parseStreamingObject(stream, charset, handler);
+
+        ObjectInFolderListImpl result = new ObjectInFolderListImpl();
+        result.setObjects(handler.getResults() == null ? new ArrayList<ObjectInFolderData>() : handler.getResults());
+        result.setHasMoreItems(JSONConverter.getBoolean(json, JSONConstants.JSON_OBJECTINFOLDERLIST_HAS_MORE_ITEMS));
+        result.setNumItems(JSONConverter.getInteger(json, JSONConstants.JSON_OBJECTINFOLDERLIST_NUM_ITEMS));
+
+        JSONConverter.convertExtension(json, result, JSONConstants.OBJECTINFOLDERLIST_KEYS);
+
+        return result;
+    }
+
+    /**
+     * Parses a descendants tree. Each top level subtree is converted as soon
+     * as it has been parsed.
+     */
+    protected List<ObjectInFolderContainer> parseDescendants(InputStream stream, String charset) {
+        StreamingJSONParser<ObjectInFolderContainer> handler = new StreamingJSONParser<ObjectInFolderContainer>(
+                null, DESCENDANT_CONVERTER);
+        parseStreamingArray(stream, charset, handler);
+
+        return handler.getResults();
+    }
+
+    /**
+     * Parses an array of objects. The objects are converted while the stream
+     * is parsed.
+     */
+    protected List<ObjectData> parseObjects(InputStream stream, String charset) {
+        StreamingJSONParser<ObjectData> handler = new StreamingJSONParser<ObjectData>(null, OBJECT_CONVERTER);
+        parseStreamingArray(stream, charset, handler);
+
+        return handler.getResults();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> parseStreamingObject(InputStream stream, String charset,
+            StreamingJSONParser<?> handler) {
+        parse(stream, charset, handler);
+
+        if (handler.getRoot() instanceof Map) {
+            return (Map<String, Object>) handler.getRoot();
+        }
+
+        throw new CmisConnectionException("Unexpected object!");
+    }
+
+    private void parseStreamingArray(InputStream stream, String charset, StreamingJSONParser<?> handler) {
+        parse(stream, charset, handler);
+
+        if (!(handler.getRoot() instanceof List)) {
+            throw new CmisConnectionException("Unexpected object!");
+        }
+    }
+
     /**
      * Performs a GET on an URL, checks the response code and returns the
      * result.
@@ -350,20 +484,7 @@ public abstract class AbstractBrowserBindingService implements LinkAccess {
      */
     protected void postAndConsume(UrlBuilder url, String contentType, HttpUtils.Output writer) {
         HttpUtils.Response resp = post(url, contentType, writer);
-
-        InputStream stream = resp.getStream();
-        try {
-            byte[] buffer = new byte[4096];
-            while (stream.read(buffer) > -1) {
-            }
-        } catch (Exception e) {
-            // ignore
-        } finally {
-            try {
-                stream.close();
-            } catch (Exception e) {
-            }
-        }
+        HttpUtils.consumeAndClose(resp.getStream());
     }
 
     // ---- URL ----
@@ -20,7 +20,6 @@ package org.apache.chemistry.opencmis.client.bindings.spi.browser;
 
 import java.io.OutputStream;
 import java.math.BigInteger;
-import java.util.Map;
 
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
@@ -28,8 +27,6 @@ import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
-import org.apache.chemistry.opencmis.commons.impl.JSONConstants;
-import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
@@ -69,8 +66,7 @@ public class DiscoveryServiceImpl extends AbstractBrowserBindingService implemen
             }
         });
 
-        Map<String, Object> json = parseObject(resp.getStream(), resp.getCharset());
-        return JSONConverter.convertObjectList(json);
+        return parseObjectList(resp.getStream(), resp.getCharset(), null);
     }
 
     public ObjectList getContentChanges(String repositoryId, Holder<String> changeLogToken, Boolean includeProperties,
@@ -87,15 +83,6 @@ public class DiscoveryServiceImpl extends AbstractBrowserBindingService implemen
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        Map<String, Object> json = parseObject(resp.getStream(), resp.getCharset());
-
-        if (changeLogToken != null && json != null) {
-            Object token = json.get(JSONConstants.JSON_OBJECTLIST_CHANGE_LOG_TOKEN);
-            if (token instanceof String) {
-                changeLogToken.setValue((String) token);
-            }
-        }
-
-        return JSONConverter.convertObjectList(json);
+        return parseObjectList(resp.getStream(), resp.getCharset(), changeLogToken);
     }
 }
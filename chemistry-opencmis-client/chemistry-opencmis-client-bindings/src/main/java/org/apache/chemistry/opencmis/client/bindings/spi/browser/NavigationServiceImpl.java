@@ -64,9 +64,7 @@ public class NavigationServiceImpl extends AbstractBrowserBindingService impleme
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        Map<String, Object> json = parseObject(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertObjectInFolderList(json);
+        return parseObjectInFolderList(resp.getStream(), resp.getCharset());
     }
 
     public List<ObjectInFolderContainer> getDescendants(String repositoryId, String folderId, BigInteger depth,
@@ -83,9 +81,7 @@ public class NavigationServiceImpl extends AbstractBrowserBindingService impleme
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        List<Object> json = parseArray(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertDescendants(json);
+        return parseDescendants(resp.getStream(), resp.getCharset());
     }
 
     public List<ObjectInFolderContainer> getFolderTree(String repositoryId, String folderId, BigInteger depth,
@@ -102,9 +98,7 @@ public class NavigationServiceImpl extends AbstractBrowserBindingService impleme
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        List<Object> json = parseArray(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertDescendants(json);
+        return parseDescendants(resp.getStream(), resp.getCharset());
     }
 
     public List<ObjectParentData> getObjectParents(String repositoryId, String objectId, String filter,
@@ -153,8 +147,6 @@ public class NavigationServiceImpl extends AbstractBrowserBindingService impleme
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        Map<String, Object> json = parseObject(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertObjectList(json);
+        return parseObjectList(resp.getStream(), resp.getCharset(), null);
     }
 }
@@ -27,7 +27,6 @@ import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
 import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
-import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.spi.PolicyService;
 
@@ -83,8 +82,6 @@ public class PolicyServiceImpl extends AbstractBrowserBindingService implements
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        List<Object> json = parseArray(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertObjects(json);
+        return parseObjects(resp.getStream(), resp.getCharset());
     }
 }
@@ -19,7 +19,6 @@
 package org.apache.chemistry.opencmis.client.bindings.spi.browser;
 
 import java.math.BigInteger;
-import java.util.Map;
 
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
@@ -27,7 +26,6 @@ import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
-import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.spi.RelationshipService;
 
@@ -58,8 +56,6 @@ public class RelationshipServiceImpl extends AbstractBrowserBindingService imple
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        Map<String, Object> json = parseObject(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertObjectList(json);
+        return parseObjectList(resp.getStream(), resp.getCharset(), null);
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.browser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.parser.ContentHandler;
+
+/**
+ * JSON content handler that converts the elements of one array while the
+ * response is parsed.
+ * <p>
+ * The handler builds the same maps and lists as the container based parser,
+ * except for the elements of the selected array. Each of these elements is
+ * handed to an {@link ElementConverter} as soon as it is complete and only the
+ * converted object is kept. Only one element of a large list exists as a JSON
+ * map at any time instead of the whole list.
+ * <p>
+ * The selected array is either the top level array of the response or the
+ * array that is the value of a given key of the top level object.
+ */
+public class StreamingJSONParser<T> implements ContentHandler {
+
+    /**
+     * Converts a JSON element.
+     */
+    public interface ElementConverter<T> {
+        /**
+         * @return the converted element or <code>null</code> to drop it
+         */
+        T convert(Object json);
+    }
+
+    private final String listKey;
+    private final ElementConverter<T> converter;
+
+    private final LinkedList<Object> containers = new LinkedList<Object>();
+    private final LinkedList<String> keys = new LinkedList<String>();
+    private List<T> results;
+    private Object listContainer;
+    private Object root;
+
+    /**
+     * Creates a handler.
+     * 
+     * @param listKey
+     *            the key of the array in the top level object or
+     *            <code>null</code> if the response is an array
+     * @param converter
+     *            the converter for the array elements
+     */
+    public StreamingJSONParser(String listKey, ElementConverter<T> converter) {
+        this.listKey = listKey;
+        this.converter = converter;
+    }
+
+    /**
+     * Returns the parsed JSON value without the elements of the selected
+     * array.
+     */
+    public Object getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the converted elements of the selected array or
+     * <code>null</code> if the response didn't contain the array.
+     */
+    public List<T> getResults() {
+        return results;
+    }
+
+    public void startJSON() {
+        containers.clear();
+        keys.clear();
+        results = null;
+        listContainer = null;
+        root = null;
+    }
+
+    public void endJSON() {
+    }
+
+    public boolean startObject() {
+        containers.addLast(new LinkedHashMap<String, Object>());
+        return true;
+    }
+
+    public boolean endObject() {
+        add(containers.removeLast());
+        return true;
+    }
+
+    public boolean startObjectEntry(String key) {
+        keys.addLast(key);
+        return true;
+    }
+
+    public boolean endObjectEntry() {
+        keys.removeLast();
+        return true;
+    }
+
+    public boolean startArray() {
+        List<Object> list = new ArrayList<Object>();
+
+        if ((results == null) && isSelectedArray()) {
+            listContainer = list;
+            results = new ArrayList<T>();
+        }
+
+        containers.addLast(list);
+        return true;
+    }
+
+    public boolean endArray() {
+        add(containers.removeLast());
+        return true;
+    }
+
+    public boolean primitive(Object value) {
+        add(value);
+        return true;
+    }
+
+    private boolean isSelectedArray() {
+        if (listKey == null) {
+            return containers.isEmpty();
+        }
+
+        return (containers.size() == 1) && (containers.getLast() instanceof Map) && listKey.equals(keys.getLast());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(Object value) {
+        if (containers.isEmpty()) {
+            root = value;
+            return;
+        }
+
+        Object parent = containers.getLast();
+        if (parent instanceof Map) {
+            ((Map<String, Object>) parent).put(keys.getLast(), value);
+        } else if (parent == listContainer) {
+            T converted = converter.convert(value);
+            if (converted != null) {
+                results.add(converted);
+            }
+        } else {
+            ((List<Object>) parent).add(value);
+        }
+    }
+}
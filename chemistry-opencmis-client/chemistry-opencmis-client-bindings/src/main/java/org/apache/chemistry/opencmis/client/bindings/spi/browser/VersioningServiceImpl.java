@@ -169,8 +169,6 @@ public class VersioningServiceImpl extends AbstractBrowserBindingService impleme
 
         // read and parse
         HttpUtils.Response resp = read(url);
-        List<Object> json = parseArray(resp.getStream(), resp.getCharset());
-
-        return JSONConverter.convertObjects(json);
+        return parseObjects(resp.getStream(), resp.getCharset());
     }
 }
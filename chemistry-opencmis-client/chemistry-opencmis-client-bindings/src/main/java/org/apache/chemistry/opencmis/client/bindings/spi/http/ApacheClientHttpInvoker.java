@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ProxySelector;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
+import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.params.CookiePolicy;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.ProxySelectorRoutePlanner;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.params.HttpProtocolParams;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HTTP invoker based on Apache HttpClient that keeps a bounded pool of
+ * persistent connections.
+ * <p>
+ * The pool is configured with the session parameters
+ * {@link SessionParameter#HTTP_POOL_MAX_TOTAL},
+ * {@link SessionParameter#HTTP_POOL_MAX_PER_HOST} and
+ * {@link SessionParameter#HTTP_POOL_IDLE_TIMEOUT}. Requests wait for a free
+ * connection if the limits are reached. Idle connections are closed by a
+ * background timer. Apache HttpClient is an optional dependency and has to be
+ * added to the class path when this invoker is used.
+ */
+public class ApacheClientHttpInvoker implements ConditionalHttpInvoker {
+
+    private static final Logger log = LoggerFactory.getLogger(ApacheClientHttpInvoker.class);
+
+    private static final int BUFFER_SIZE = 2 * 1024 * 1024;
+
+    public static final int DEFAULT_MAX_TOTAL = 20;
+    public static final int DEFAULT_MAX_PER_HOST = 10;
+    public static final int DEFAULT_IDLE_TIMEOUT = 60 * 1000;
+
+    private final ThreadSafeClientConnManager connectionManager;
+    private final DefaultHttpClient httpClient;
+    private final Timer idleConnectionTimer;
+
+    private final AtomicLong connectionsOpened = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+
+    public ApacheClientHttpInvoker(BindingSession session) {
+        int maxTotal = session.get(SessionParameter.HTTP_POOL_MAX_TOTAL, DEFAULT_MAX_TOTAL);
+        int maxPerHost = session.get(SessionParameter.HTTP_POOL_MAX_PER_HOST, DEFAULT_MAX_PER_HOST);
+        final int idleTimeout = session.get(SessionParameter.HTTP_POOL_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+
+        SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
+
+        connectionManager = new ThreadSafeClientConnManager(schemeRegistry) {
+            @Override
+            protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schreg) {
+                return new DefaultClientConnectionOperator(schreg) {
+                    @Override
+                    public void openConnection(OperatedClientConnection conn, HttpHost target, InetAddress local,
+                            HttpContext context, HttpParams params) throws IOException {
+                        super.openConnection(conn, target, local, context, params);
+                        connectionsOpened.incrementAndGet();
+                    }
+                };
+            }
+        };
+        connectionManager.setMaxTotal(Math.max(1, maxTotal));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, Math.min(maxPerHost, maxTotal)));
+
+        HttpParams params = new BasicHttpParams();
+        HttpProtocolParams.setUserAgent(params, ClientVersion.OPENCMIS_CLIENT);
+        HttpProtocolParams.setUseExpectContinue(params, false);
+        // cookies are handled by the authentication provider
+        HttpClientParams.setCookiePolicy(params, CookiePolicy.IGNORE_COOKIES);
+
+        httpClient = new DefaultHttpClient(connectionManager, params);
+        httpClient.setRoutePlanner(new ProxySelectorRoutePlanner(schemeRegistry, ProxySelector.getDefault()));
+
+        if (idleTimeout > 0) {
+            idleConnectionTimer = new Timer("OpenCMIS HTTP idle connection monitor", true);
+            idleConnectionTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+                }
+            }, idleTimeout, idleTimeout);
+        } else {
+            idleConnectionTimer = null;
+        }
+    }
+
+    public HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session) {
+        return invoke(url, new HttpGet(url.toString()), null, null, null, session, null, null);
+    }
+
+    public HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session, BigInteger offset, BigInteger length) {
+        return invoke(url, new HttpGet(url.toString()), null, null, null, session, offset, length);
+    }
+
+    public HttpUtils.Response invokeGET(UrlBuilder url, Map<String, String> headers, BindingSession session) {
+        return invoke(url, new HttpGet(url.toString()), null, headers, null, session, null, null);
+    }
+
+    public HttpUtils.Response invokePOST(UrlBuilder url, String contentType, HttpUtils.Output writer,
+            BindingSession session) {
+        return invoke(url, new HttpPost(url.toString()), contentType, null, writer, session, null, null);
+    }
+
+    public HttpUtils.Response invokePUT(UrlBuilder url, String contentType, Map<String, String> headers,
+            HttpUtils.Output writer, BindingSession session) {
+        return invoke(url, new HttpPut(url.toString()), contentType, headers, writer, session, null, null);
+    }
+
+    public HttpUtils.Response invokeDELETE(UrlBuilder url, BindingSession session) {
+        return invoke(url, new HttpDelete(url.toString()), null, null, null, session, null, null);
+    }
+
+    /**
+     * Returns the current state of the connection pool.
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        return new ConnectionPoolStatistics(connectionManager.getMaxTotal(),
+                connectionManager.getDefaultMaxPerRoute(), connectionManager.getConnectionsInPool(),
+                connectionsOpened.get(), requests.get(), failedRequests.get());
+    }
+
+    public void close() {
+        if (idleConnectionTimer != null) {
+            idleConnectionTimer.cancel();
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Closing HTTP invoker. " + getStatistics());
+        }
+
+        connectionManager.shutdown();
+    }
+
+    private HttpUtils.Response invoke(UrlBuilder url, HttpRequestBase request, String contentType,
+            Map<String, String> headers, HttpUtils.Output writer, BindingSession session,
+            BigInteger offset, BigInteger length) {
+        requests.incrementAndGet();
+
+        try {
+            // log before connect
+            if (log.isDebugEnabled()) {
+                log.debug(request.getMethod() + " " + url);
+            }
+
+            // timeouts
+            int connectTimeout = session.get(SessionParameter.CONNECT_TIMEOUT, -1);
+            if (connectTimeout >= 0) {
+                HttpConnectionParams.setConnectionTimeout(request.getParams(), connectTimeout);
+            }
+
+            int readTimeout = session.get(SessionParameter.READ_TIMEOUT, -1);
+            if (readTimeout >= 0) {
+                HttpConnectionParams.setSoTimeout(request.getParams(), readTimeout);
+            }
+
+            // headers
+            Map<String, List<String>> requestHeaders = HttpUtils.getRequestHeaders(url, contentType, headers,
+                    session, offset, length);
+            for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+                for (String value : header.getValue()) {
+                    request.addHeader(header.getKey(), value);
+                }
+            }
+
+            // send data
+            if (writer != null) {
+                boolean clientCompression = HttpUtils.isClientCompression(session);
+                if (clientCompression) {
+                    request.setHeader("Content-Encoding", "gzip");
+                }
+
+                AbstractHttpEntity entity = new WriterEntity(writer, clientCompression);
+                entity.setChunked(true);
+                ((HttpEntityEnclosingRequestBase) request).setEntity(entity);
+            }
+
+            // connect
+            HttpResponse response = httpClient.execute(request);
+
+            int respCode = response.getStatusLine().getStatusCode();
+            Map<String, List<String>> responseHeaders = getHeaders(response);
+
+            // log after connect
+            if (log.isTraceEnabled()) {
+                log.trace(request.getMethod() + " " + url + " > Headers: " + responseHeaders);
+            }
+
+            // forward response HTTP headers
+            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+            if (authProvider != null) {
+                authProvider.putResponseHeaders(url.toString(), respCode, responseHeaders);
+            }
+
+            // get stream, if present
+            // the connection goes back to the pool when the stream has been
+            // consumed or closed
+            InputStream inputStream = null;
+            InputStream errorStream = null;
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                if ((respCode == 200) || (respCode == 201) || (respCode == 203) || (respCode == 206)) {
+                    inputStream = entity.getContent();
+                } else {
+                    errorStream = entity.getContent();
+                }
+            }
+
+            // get the response
+            return new HttpUtils.Response(respCode, response.getStatusLine().getReasonPhrase(), responseHeaders,
+                    inputStream, errorStream);
+        } catch (Exception e) {
+            failedRequests.incrementAndGet();
+            request.abort();
+            throw new CmisConnectionException("Cannot access " + url + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, List<String>> getHeaders(HttpResponse response) {
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+
+        for (Header header : response.getAllHeaders()) {
+            List<String> values = result.get(header.getName());
+            if (values == null) {
+                values = new ArrayList<String>();
+                result.put(header.getName(), values);
+            }
+            values.add(header.getValue());
+        }
+
+        return result;
+    }
+
+    /**
+     * Request body produced by a {@link HttpUtils.Output}. The body is
+     * streamed to the connection. If the content is requested, for example by
+     * a retry handler, the body is written into a buffer once and the buffer
+     * is used from then on.
+     */
+    private static class WriterEntity extends AbstractHttpEntity {
+        private final HttpUtils.Output writer;
+        private final boolean compression;
+        private byte[] buffer;
+
+        public WriterEntity(HttpUtils.Output writer, boolean compression) {
+            this.writer = writer;
+            this.compression = compression;
+        }
+
+        public boolean isRepeatable() {
+            return buffer != null;
+        }
+
+        public long getContentLength() {
+            return buffer == null ? -1 : buffer.length;
+        }
+
+        public synchronized InputStream getContent() throws IOException {
+            if (buffer == null) {
+                ByteArrayOutputStream bufferStream = new ByteArrayOutputStream();
+                writeBody(bufferStream);
+                buffer = bufferStream.toByteArray();
+            }
+
+            return new ByteArrayInputStream(buffer);
+        }
+
+        public boolean isStreaming() {
+            return false;
+        }
+
+        public synchronized void writeTo(OutputStream outstream) throws IOException {
+            if (buffer != null) {
+                outstream.write(buffer);
+                outstream.flush();
+            } else {
+                writeBody(outstream);
+            }
+        }
+
+        private void writeBody(OutputStream outstream) throws IOException {
+            OutputStream connOut = compression ? new GZIPOutputStream(outstream, 4096) : outstream;
+            OutputStream out = new BufferedOutputStream(connOut, BUFFER_SIZE);
+            try {
+                writer.write(out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CmisConnectionException("Cannot write request body: " + e.getMessage(), e);
+            }
+            out.flush();
+            if (connOut instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) connOut).finish();
+            }
+        }
+    }
+}
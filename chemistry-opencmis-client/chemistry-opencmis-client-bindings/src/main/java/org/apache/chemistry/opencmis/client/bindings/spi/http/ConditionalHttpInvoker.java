@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+/**
+ * Optional interface of a {@link HttpInvoker} that can send GET requests with
+ * additional request headers. The {@link HttpResponseCache} needs it to
+ * revalidate cached responses and is only used with invokers that implement
+ * this interface.
+ */
+public interface ConditionalHttpInvoker extends HttpInvoker {
+
+    /**
+     * Sends a GET request with additional request headers, for example the
+     * validators of a conditional request.
+     */
+    HttpUtils.Response invokeGET(UrlBuilder url, Map<String, String> headers, BindingSession session);
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the state of a HTTP connection pool.
+ */
+public class ConnectionPoolStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxTotal;
+    private final int maxPerHost;
+    private final int connectionsInPool;
+    private final long connectionsOpened;
+    private final long requests;
+    private final long failedRequests;
+
+    public ConnectionPoolStatistics(int maxTotal, int maxPerHost, int connectionsInPool, long connectionsOpened,
+            long requests, long failedRequests) {
+        this.maxTotal = maxTotal;
+        this.maxPerHost = maxPerHost;
+        this.connectionsInPool = connectionsInPool;
+        this.connectionsOpened = connectionsOpened;
+        this.requests = requests;
+        this.failedRequests = failedRequests;
+    }
+
+    /**
+     * Returns the max. number of connections of the pool.
+     */
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * Returns the max. number of connections per host.
+     */
+    public int getMaxPerHost() {
+        return maxPerHost;
+    }
+
+    /**
+     * Returns the number of open connections, leased and idle.
+     */
+    public int getConnectionsInPool() {
+        return connectionsInPool;
+    }
+
+    /**
+     * Returns the number of connections that have been opened so far. Each of
+     * them cost a TCP and, for HTTPS, a TLS handshake.
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * Returns the number of requests sent so far.
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the number of requests that failed with a connection error.
+     */
+    public long getFailedRequests() {
+        return failedRequests;
+    }
+
+    /**
+     * Returns the share of requests that reused a pooled connection.
+     */
+    public double getReuseRatio() {
+        if (requests == 0) {
+            return 0.0;
+        }
+
+        return Math.max(0.0, (double) (requests - connectionsOpened) / requests);
+    }
+
+    @Override
+    public String toString() {
+        return "Connection pool [max total=" + maxTotal + ", max per host=" + maxPerHost + ", in pool="
+                + connectionsInPool + ", opened=" + connectionsOpened + ", requests=" + requests + ", failed="
+                + failedRequests + "]";
+    }
+}
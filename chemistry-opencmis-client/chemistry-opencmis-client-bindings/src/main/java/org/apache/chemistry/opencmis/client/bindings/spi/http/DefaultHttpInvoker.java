@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
+import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HTTP invoker based on {@link HttpURLConnection}. Connection reuse is left to
+ * the keep-alive cache of the JVM.
+ */
+public class DefaultHttpInvoker implements ConditionalHttpInvoker {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultHttpInvoker.class);
+
+    private static final int BUFFER_SIZE = 2 * 1024 * 1024;
+
+    public DefaultHttpInvoker(BindingSession session) {
+    }
+
+    public HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session) {
+        return invoke(url, "GET", null, null, null, session, null, null);
+    }
+
+    public HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session, BigInteger offset, BigInteger length) {
+        return invoke(url, "GET", null, null, null, session, offset, length);
+    }
+
+    public HttpUtils.Response invokeGET(UrlBuilder url, Map<String, String> headers, BindingSession session) {
+        return invoke(url, "GET", null, headers, null, session, null, null);
+    }
+
+    public HttpUtils.Response invokePOST(UrlBuilder url, String contentType, HttpUtils.Output writer,
+            BindingSession session) {
+        return invoke(url, "POST", contentType, null, writer, session, null, null);
+    }
+
+    public HttpUtils.Response invokePUT(UrlBuilder url, String contentType, Map<String, String> headers,
+            HttpUtils.Output writer, BindingSession session) {
+        return invoke(url, "PUT", contentType, headers, writer, session, null, null);
+    }
+
+    public HttpUtils.Response invokeDELETE(UrlBuilder url, BindingSession session) {
+        return invoke(url, "DELETE", null, null, null, session, null, null);
+    }
+
+    public void close() {
+    }
+
+    private HttpUtils.Response invoke(UrlBuilder url, String method, String contentType, Map<String, String> headers,
+            HttpUtils.Output writer, BindingSession session, BigInteger offset, BigInteger length) {
+        try {
+            // log before connect
+            if (log.isDebugEnabled()) {
+                log.debug(method + " " + url);
+            }
+
+            // connect
+            HttpURLConnection conn = (HttpURLConnection) (new URL(url.toString())).openConnection();
+            conn.setRequestMethod(method);
+            conn.setDoInput(true);
+            conn.setDoOutput(writer != null);
+            conn.setAllowUserInteraction(false);
+            conn.setUseCaches(false);
+            conn.setRequestProperty("User-Agent", ClientVersion.OPENCMIS_CLIENT);
+
+            // timeouts
+            int connectTimeout = session.get(SessionParameter.CONNECT_TIMEOUT, -1);
+            if (connectTimeout >= 0) {
+                conn.setConnectTimeout(connectTimeout);
+            }
+
+            int readTimeout = session.get(SessionParameter.READ_TIMEOUT, -1);
+            if (readTimeout >= 0) {
+                conn.setReadTimeout(readTimeout);
+            }
+
+            // headers
+            Map<String, List<String>> requestHeaders = HttpUtils.getRequestHeaders(url, contentType, headers,
+                    session, offset, length);
+            for (Map.Entry<String, List<String>> header : requestHeaders.entrySet()) {
+                for (String value : header.getValue()) {
+                    conn.addRequestProperty(header.getKey(), value);
+                }
+            }
+
+            // send data
+            if (writer != null) {
+                conn.setChunkedStreamingMode((64 * 1024) - 1);
+
+                OutputStream connOut = null;
+
+                if (HttpUtils.isClientCompression(session)) {
+                    conn.setRequestProperty("Content-Encoding", "gzip");
+                    connOut = new GZIPOutputStream(conn.getOutputStream(), 4096);
+                } else {
+                    connOut = conn.getOutputStream();
+                }
+
+                OutputStream out = new BufferedOutputStream(connOut, BUFFER_SIZE);
+                writer.write(out);
+                out.flush();
+            }
+
+            // connect
+            conn.connect();
+
+            // get stream, if present
+            int respCode = conn.getResponseCode();
+            InputStream inputStream = null;
+            if ((respCode == 200) || (respCode == 201) || (respCode == 203) || (respCode == 206)) {
+                inputStream = conn.getInputStream();
+            }
+
+            // log after connect
+            if (log.isTraceEnabled()) {
+                log.trace(method + " " + url + " > Headers: " + conn.getHeaderFields());
+            }
+
+            // forward response HTTP headers
+            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+            if (authProvider != null) {
+                authProvider.putResponseHeaders(url.toString(), respCode, conn.getHeaderFields());
+            }
+
+            // get the response
+            return new HttpUtils.Response(respCode, conn.getResponseMessage(), conn.getHeaderFields(), inputStream,
+                    conn.getErrorStream());
+        } catch (Exception e) {
+            throw new CmisConnectionException("Cannot access " + url + ": " + e.getMessage(), e);
+        }
+    }
+}
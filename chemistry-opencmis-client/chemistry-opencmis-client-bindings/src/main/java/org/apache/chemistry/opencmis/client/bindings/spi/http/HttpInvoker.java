@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+/**
+ * Sends the HTTP requests of the AtomPub and the Browser binding.
+ * <p>
+ * Implementations must provide a constructor that takes a
+ * {@link BindingSession} and must be thread safe. The class name is set with
+ * the session parameter
+ * {@link org.apache.chemistry.opencmis.commons.SessionParameter#HTTP_INVOKER_CLASS}
+ * , the default is {@link DefaultHttpInvoker}. Invokers that also implement
+ * {@link ConditionalHttpInvoker} support the {@link HttpResponseCache}.
+ */
+public interface HttpInvoker {
+
+    /**
+     * Sends a GET request.
+     */
+    HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session);
+
+    /**
+     * Sends a GET request for a range of the response body.
+     */
+    HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session, BigInteger offset, BigInteger length);
+
+    /**
+     * Sends a POST request.
+     */
+    HttpUtils.Response invokePOST(UrlBuilder url, String contentType, HttpUtils.Output writer,
+            BindingSession session);
+
+    /**
+     * Sends a PUT request.
+     */
+    HttpUtils.Response invokePUT(UrlBuilder url, String contentType, Map<String, String> headers,
+            HttpUtils.Output writer, BindingSession session);
+
+    /**
+     * Sends a DELETE request.
+     */
+    HttpUtils.Response invokeDELETE(UrlBuilder url, BindingSession session);
+
+    /**
+     * Releases all resources held by the invoker, for example pooled
+     * connections.
+     */
+    void close();
+}
@@ -0,0 +1,528 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.http;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk based cache for the responses of GET requests of the AtomPub and the
+ * Browser binding.
+ * <p>
+ * Responses that carry an <code>ETag</code> or a <code>Last-Modified</code>
+ * header are written to a file while the caller reads them. Cached responses
+ * are always revalidated with <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code>. If the server answers with
+ * <code>304 Not Modified</code>, the body is served from the file and the
+ * validators and headers of the entry are updated from the 304 response.
+ * <p>
+ * The cache needs an invoker that implements {@link ConditionalHttpInvoker}.
+ * <p>
+ * Content streams and AtomPub or JSON responses are kept in two separate
+ * regions. Each region is bounded by the session parameters
+ * {@link SessionParameter#HTTP_CACHE_CONTENT_SIZE} and
+ * {@link SessionParameter#HTTP_CACHE_METADATA_SIZE} and evicts the least
+ * recently used entries. The cache is enabled with the session parameter
+ * {@link SessionParameter#HTTP_CACHE} and is bound to a binding session. Its
+ * files are deleted when the binding is closed.
+ */
+public class HttpResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    public static final long DEFAULT_CONTENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_METADATA_SIZE = 16 * 1024 * 1024;
+
+    private final File directory;
+    private final Region contentRegion;
+    private final Region metadataRegion;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public HttpResponseCache(BindingSession session) {
+        Object parentName = session.get(SessionParameter.HTTP_CACHE_DIRECTORY);
+        File parent = new File(parentName == null ? System.getProperty("java.io.tmpdir") : parentName.toString());
+
+        try {
+            directory = File.createTempFile("opencmis-httpcache", "", parent);
+        } catch (IOException e) {
+            throw new CmisRuntimeException("Cannot create HTTP cache directory in " + parent + ": " + e.getMessage(),
+                    e);
+        }
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new CmisRuntimeException("Cannot create HTTP cache directory " + directory);
+        }
+
+        contentRegion = new Region(getSize(session, SessionParameter.HTTP_CACHE_CONTENT_SIZE, DEFAULT_CONTENT_SIZE));
+        metadataRegion = new Region(getSize(session, SessionParameter.HTTP_CACHE_METADATA_SIZE,
+                DEFAULT_METADATA_SIZE));
+    }
+
+    private static long getSize(BindingSession session, String key, long defValue) {
+        Object value = session.get(key);
+        if (value == null) {
+            return defValue;
+        }
+
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new CmisRuntimeException("Invalid size for " + key + ": " + value, e);
+        }
+    }
+
+    /**
+     * Sends a GET request, revalidating a cached response if there is one.
+     * 
+     * @param content
+     *            <code>true</code> if a content stream is requested,
+     *            <code>false</code> for AtomPub and JSON responses
+     */
+    public HttpUtils.Response invokeGET(ConditionalHttpInvoker invoker, UrlBuilder url, BindingSession session,
+            boolean content) {
+        Region region = (content ? contentRegion : metadataRegion);
+        String key = url.toString();
+
+        Entry entry = region.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return store(region, key, invoker.invokeGET(url, null, session));
+        }
+
+        Map<String, String> headers = new HashMap<String, String>();
+        if (entry.eTag != null) {
+            headers.put("If-None-Match", entry.eTag);
+        }
+        if (entry.lastModified != null) {
+            headers.put("If-Modified-Since", entry.lastModified);
+        }
+
+        HttpUtils.Response resp = invoker.invokeGET(url, headers, session);
+        if (resp.getResponseCode() == 304) {
+            Entry refreshed = entry.refresh(resp);
+            InputStream stream = region.open(key, entry, refreshed);
+            if (stream != null) {
+                hits.incrementAndGet();
+                if (log.isDebugEnabled()) {
+                    log.debug("HTTP cache hit: " + key);
+                }
+
+                return new HttpUtils.Response(200, "OK", refreshed.headers, stream, null);
+            }
+
+            // the entry has been evicted in the meantime
+            resp = invoker.invokeGET(url, null, session);
+        } else {
+            region.remove(key, entry);
+        }
+
+        misses.incrementAndGet();
+        return store(region, key, resp);
+    }
+
+    /**
+     * Wraps the stream of a cacheable response so that the body is written to
+     * the cache while it is read.
+     */
+    private HttpUtils.Response store(Region region, String key, HttpUtils.Response resp) {
+        if ((resp.getResponseCode() != 200) || (resp.getStream() == null) || (region.maxSize <= 0)) {
+            return resp;
+        }
+
+        String eTag = resp.getHeader("ETag");
+        String lastModified = resp.getHeader("Last-Modified");
+        if ((eTag == null) && (lastModified == null)) {
+            return resp;
+        }
+
+        String cacheControl = resp.getHeader("Cache-Control");
+        if ((cacheControl != null) && (cacheControl.toLowerCase(Locale.ENGLISH).indexOf("no-store") > -1)) {
+            return resp;
+        }
+
+        BigInteger length = resp.getContentLength();
+        if ((length != null) && (length.compareTo(BigInteger.valueOf(region.maxSize)) > 0)) {
+            return resp;
+        }
+
+        Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        copyHeaders(resp.getHeaders(), headers);
+
+        File file = null;
+        OutputStream out = null;
+        try {
+            file = File.createTempFile("entry", ".bin", directory);
+            out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+        } catch (IOException e) {
+            log.warn("Cannot create HTTP cache file: " + e.getMessage(), e);
+            if (file != null) {
+                file.delete();
+            }
+            return resp;
+        }
+
+        Entry entry = new Entry(file, eTag, lastModified, headers);
+
+        if (length != null) {
+            headers.put("content-length", Collections.singletonList(length.toString()));
+        }
+
+        return new HttpUtils.Response(200, resp.getResponseMessage(), headers, new CachingInputStream(
+                resp.getStream(), out, region, key, entry), null);
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        contentRegion.clear();
+        metadataRegion.clear();
+    }
+
+    /**
+     * Removes all entries and deletes the cache directory.
+     */
+    public void close() {
+        clear();
+        if (!directory.delete()) {
+            directory.deleteOnExit();
+        }
+    }
+
+    /**
+     * Returns how many responses have been served from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many responses had to be fetched from the server.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of bytes of all cached responses.
+     */
+    public long getSize() {
+        return contentRegion.getSize() + metadataRegion.getSize();
+    }
+
+    /**
+     * Copies the response headers that describe the cached body. The stream of
+     * the response has already been decoded and the cache sets the length.
+     */
+    private static void copyHeaders(Map<String, List<String>> source, Map<String, List<String>> target) {
+        for (Map.Entry<String, List<String>> header : source.entrySet()) {
+            String name = header.getKey();
+            if ((name == null) || name.equals("content-encoding") || name.equals("content-transfer-encoding")
+                    || name.equals("transfer-encoding") || name.equals("content-length")) {
+                continue;
+            }
+            target.put(name, header.getValue());
+        }
+    }
+
+    private static void delete(File file) {
+        if (!file.delete()) {
+            // still open on some platforms
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * A cached response.
+     */
+    private static class Entry {
+        private final File file;
+        private final String eTag;
+        private final String lastModified;
+        private final Map<String, List<String>> headers;
+        private long length;
+
+        public Entry(File file, String eTag, String lastModified, Map<String, List<String>> headers) {
+            this.file = file;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+        }
+
+        /**
+         * Returns a copy of this entry with the validators and headers of a
+         * 304 response. The copy shares the cache file.
+         */
+        public Entry refresh(HttpUtils.Response resp) {
+            String newETag = resp.getHeader("ETag");
+            String newLastModified = resp.getHeader("Last-Modified");
+
+            Map<String, List<String>> newHeaders = new HashMap<String, List<String>>(headers);
+            copyHeaders(resp.getHeaders(), newHeaders);
+
+            Entry result = new Entry(file, newETag == null ? eTag : newETag, newLastModified == null ? lastModified
+                    : newLastModified, newHeaders);
+            result.length = length;
+
+            return result;
+        }
+    }
+
+    /**
+     * A size bounded set of cached responses with LRU eviction.
+     */
+    private static class Region {
+        private final long maxSize;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        private long size;
+
+        public Region(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public synchronized Entry get(String key) {
+            return entries.get(key);
+        }
+
+        /**
+         * Opens the file of an entry and replaces the entry with its refreshed
+         * copy.
+         */
+        public synchronized InputStream open(String key, Entry entry, Entry refreshed) {
+            if (entries.get(key) != entry) {
+                return null;
+            }
+
+            try {
+                InputStream stream = new FileInputStream(entry.file);
+                entries.put(key, refreshed);
+                return stream;
+            } catch (FileNotFoundException e) {
+                remove(key, entry);
+                return null;
+            }
+        }
+
+        public synchronized void put(String key, Entry entry) {
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                size -= old.length;
+                delete(old.file);
+            }
+            size += entry.length;
+
+            // evict least recently used entries
+            Iterator<Entry> iterator = entries.values().iterator();
+            while ((size > maxSize) && iterator.hasNext()) {
+                Entry eldest = iterator.next();
+                iterator.remove();
+                size -= eldest.length;
+                delete(eldest.file);
+            }
+        }
+
+        public synchronized void remove(String key, Entry entry) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+                size -= entry.length;
+                delete(entry.file);
+            }
+        }
+
+        public synchronized void clear() {
+            for (Entry entry : entries.values()) {
+                delete(entry.file);
+            }
+            entries.clear();
+            size = 0;
+        }
+
+        public synchronized long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Copies the stream to the cache file and adds the entry to the cache
+     * when the end of the stream has been reached.
+     */
+    private class CachingInputStream extends FilterInputStream {
+        private final Region region;
+        private final String key;
+        private final Entry entry;
+        private OutputStream out;
+        private long count;
+
+        public CachingInputStream(InputStream in, OutputStream out, Region region, String key, Entry entry) {
+            super(in);
+            this.out = out;
+            this.region = region;
+            this.key = key;
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                commit();
+            } else if (out != null) {
+                try {
+                    out.write(b);
+                    count++;
+                    checkSize();
+                } catch (IOException e) {
+                    abort();
+                }
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                commit();
+            } else if (out != null) {
+                try {
+                    out.write(b, off, n);
+                    count += n;
+                    checkSize();
+                } catch (IOException e) {
+                    abort();
+                }
+            }
+
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes have to be cached, too
+            byte[] buffer = new byte[4096];
+            long skipped = 0;
+            while (skipped < n) {
+                int b = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (b == -1) {
+                    break;
+                }
+                skipped += b;
+            }
+
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("Mark not supported!");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // parsers often stop before the end of an AtomPub or JSON
+                // document, content streams are only cached if they have been
+                // read completely
+                if ((out != null) && (region == metadataRegion)) {
+                    byte[] buffer = new byte[4096];
+                    while ((out != null) && (read(buffer) > -1)) {
+                    }
+                }
+            } catch (IOException e) {
+                // ignore
+            } finally {
+                abort();
+                super.close();
+            }
+        }
+
+        private void checkSize() {
+            if (count > region.maxSize) {
+                abort();
+            }
+        }
+
+        private void commit() {
+            if (out == null) {
+                return;
+            }
+
+            try {
+                out.close();
+            } catch (IOException e) {
+                abort();
+                return;
+            }
+            out = null;
+
+            entry.length = count;
+            entry.headers.put("content-length", Collections.singletonList(String.valueOf(count)));
+            region.put(key, entry);
+        }
+
+        private void abort() {
+            if (out == null) {
+                return;
+            }
+
+            try {
+                out.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            out = null;
+
+            delete(entry.file);
+        }
+    }
+}
@@ -18,195 +18,182 @@
  */
 package org.apache.chemistry.opencmis.client.bindings.spi.http;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.math.BigInteger;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
-import org.apache.chemistry.opencmis.client.bindings.impl.ClientVersion;
 import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
 import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
-import org.apache.chemistry.opencmis.commons.exceptions.CmisConnectionException;
 import org.apache.chemistry.opencmis.commons.impl.Base64;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
 import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * HTTP helper methods.
  */
 public class HttpUtils {
 
-    private static final Logger log = LoggerFactory.getLogger(HttpUtils.class);
-
-    private static final int BUFFER_SIZE = 2 * 1024 * 1024;
-
     private HttpUtils() {
     }
 
     public static Response invokeGET(UrlBuilder url, BindingSession session) {
-        return invoke(url, "GET", null, null, null, session, null, null);
+        HttpInvoker invoker = CmisBindingsHelper.getHttpInvoker(session);
+
+        // the cache needs conditional requests
+        if (invoker instanceof ConditionalHttpInvoker) {
+            HttpResponseCache cache = CmisBindingsHelper.getHttpResponseCache(session);
+            if (cache != null) {
+                return cache.invokeGET((ConditionalHttpInvoker) invoker, url, session, false);
+            }
+        }
+
+        return invoker.invokeGET(url, session);
     }
 
     public static Response invokeGET(UrlBuilder url, BindingSession session, BigInteger offset, BigInteger length) {
-        return invoke(url, "GET", null, null, null, session, offset, length);
+        HttpInvoker invoker = CmisBindingsHelper.getHttpInvoker(session);
+
+        // range requests are not cached, the cache needs conditional requests
+        if ((offset == null) && (length == null) && (invoker instanceof ConditionalHttpInvoker)) {
+            HttpResponseCache cache = CmisBindingsHelper.getHttpResponseCache(session);
+            if (cache != null) {
+                return cache.invokeGET((ConditionalHttpInvoker) invoker, url, session, true);
+            }
+        }
+
+        return invoker.invokeGET(url, session, offset, length);
     }
 
     public static Response invokePOST(UrlBuilder url, String contentType, Output writer, BindingSession session) {
-        return invoke(url, "POST", contentType, null, writer, session, null, null);
+        return CmisBindingsHelper.getHttpInvoker(session).invokePOST(url, contentType, writer, session);
     }
 
     public static Response invokePUT(UrlBuilder url, String contentType, Map<String, String> headers, Output writer,
             BindingSession session) {
-        return invoke(url, "PUT", contentType, headers, writer, session, null, null);
+        return CmisBindingsHelper.getHttpInvoker(session).invokePUT(url, contentType, headers, writer, session);
     }
 
     public static Response invokeDELETE(UrlBuilder url, BindingSession session) {
-        return invoke(url, "DELETE", null, null, null, session, null, null);
+        return CmisBindingsHelper.getHttpInvoker(session).invokeDELETE(url, session);
     }
 
-    private static Response invoke(UrlBuilder url, String method, String contentType, Map<String, String> headers,
-            Output writer, BindingSession session, BigInteger offset, BigInteger length) {
-        try {
-            // log before connect
-            if (log.isDebugEnabled()) {
-                log.debug(method + " " + url);
-            }
-
-            // connect
-            HttpURLConnection conn = (HttpURLConnection) (new URL(url.toString())).openConnection();
-            conn.setRequestMethod(method);
-            conn.setDoInput(true);
-            conn.setDoOutput(writer != null);
-            conn.setAllowUserInteraction(false);
-            conn.setUseCaches(false);
-            conn.setRequestProperty("User-Agent", ClientVersion.OPENCMIS_CLIENT);
-
-            // timeouts
-            int connectTimeout = session.get(SessionParameter.CONNECT_TIMEOUT, -1);
-            if (connectTimeout >= 0) {
-                conn.setConnectTimeout(connectTimeout);
-            }
-
-            int readTimeout = session.get(SessionParameter.READ_TIMEOUT, -1);
-            if (readTimeout >= 0) {
-                conn.setReadTimeout(readTimeout);
-            }
+    /**
+     * Compiles the request headers that all HTTP invokers send: the content
+     * type, the given headers, the authentication headers, the range and the
+     * compression and locale settings of the session.
+     */
+    public static Map<String, List<String>> getRequestHeaders(UrlBuilder url, String contentType,
+            Map<String, String> headers, BindingSession session, BigInteger offset, BigInteger length) {
+        Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
 
-            // set content type
-            if (contentType != null) {
-                conn.setRequestProperty("Content-Type", contentType);
-            }
-            // set other headers
-            if (headers != null) {
-                for (Map.Entry<String, String> header : headers.entrySet()) {
-                    conn.addRequestProperty(header.getKey(), header.getValue());
-                }
+        // set content type
+        if (contentType != null) {
+            addHeader(result, "Content-Type", contentType);
+        }
+        // set other headers
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                addHeader(result, header.getKey(), header.getValue());
             }
+        }
 
-            // authenticate
-            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
-            if (authProvider != null) {
-                Map<String, List<String>> httpHeaders = authProvider.getHTTPHeaders(url.toString());
-                if (httpHeaders != null) {
-                    for (Map.Entry<String, List<String>> header : httpHeaders.entrySet()) {
-                        if (header.getValue() != null) {
-                            for (String value : header.getValue()) {
-                                conn.addRequestProperty(header.getKey(), value);
-                            }
+        // authenticate
+        AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+        if (authProvider != null) {
+            Map<String, List<String>> httpHeaders = authProvider.getHTTPHeaders(url.toString());
+            if (httpHeaders != null) {
+                for (Map.Entry<String, List<String>> header : httpHeaders.entrySet()) {
+                    if (header.getValue() != null) {
+                        for (String value : header.getValue()) {
+                            addHeader(result, header.getKey(), value);
                         }
                     }
                 }
             }
+        }
 
-            // range
-            if ((offset != null) || (length != null)) {
-                StringBuilder sb = new StringBuilder("bytes=");
-
-                if ((offset == null) || (offset.signum() == -1)) {
-                    offset = BigInteger.ZERO;
-                }
-
-                sb.append(offset.toString());
-                sb.append("-");
-
-                if ((length != null) && (length.signum() == 1)) {
-                    sb.append(offset.add(length.subtract(BigInteger.ONE)).toString());
-                }
+        // range
+        if ((offset != null) || (length != null)) {
+            StringBuilder sb = new StringBuilder("bytes=");
 
-                conn.setRequestProperty("Range", sb.toString());
+            if ((offset == null) || (offset.signum() == -1)) {
+                offset = BigInteger.ZERO;
             }
 
-            // compression
-            Object compression = session.get(SessionParameter.COMPRESSION);
-            if ((compression != null) && Boolean.parseBoolean(compression.toString())) {
-                conn.setRequestProperty("Accept-Encoding", "gzip,deflate");
-            }
+            sb.append(offset.toString());
+            sb.append("-");
 
-            // locale
-            if (session.get(CmisBindingsHelper.ACCEPT_LANGUAGE) instanceof String) {
-                conn.setRequestProperty("Accept-Language", session.get(CmisBindingsHelper.ACCEPT_LANGUAGE).toString());
+            if ((length != null) && (length.signum() == 1)) {
+                sb.append(offset.add(length.subtract(BigInteger.ONE)).toString());
             }
 
-            // send data
-            if (writer != null) {
-                conn.setChunkedStreamingMode((64 * 1024) - 1);
+            addHeader(result, "Range", sb.toString());
+        }
 
-                OutputStream connOut = null;
+        // compression
+        Object compression = session.get(SessionParameter.COMPRESSION);
+        if ((compression != null) && Boolean.parseBoolean(compression.toString())) {
+            addHeader(result, "Accept-Encoding", "gzip,deflate");
+        }
 
-                Object clientCompression = session.get(SessionParameter.CLIENT_COMPRESSION);
-                if ((clientCompression != null) && Boolean.parseBoolean(clientCompression.toString())) {
-                    conn.setRequestProperty("Content-Encoding", "gzip");
-                    connOut = new GZIPOutputStream(conn.getOutputStream(), 4096);
-                } else {
-                    connOut = conn.getOutputStream();
-                }
+        // locale
+        if (session.get(CmisBindingsHelper.ACCEPT_LANGUAGE) instanceof String) {
+            addHeader(result, "Accept-Language", session.get(CmisBindingsHelper.ACCEPT_LANGUAGE).toString());
+        }
 
-                OutputStream out = new BufferedOutputStream(connOut, BUFFER_SIZE);
-                writer.write(out);
-                out.flush();
-            }
+        return result;
+    }
 
-            // connect
-            conn.connect();
+    /**
+     * Returns whether the request body should be gzip compressed.
+     */
+    public static boolean isClientCompression(BindingSession session) {
+        Object clientCompression = session.get(SessionParameter.CLIENT_COMPRESSION);
+        return (clientCompression != null) && Boolean.parseBoolean(clientCompression.toString());
+    }
 
-            // get stream, if present
-            int respCode = conn.getResponseCode();
-            InputStream inputStream = null;
-            if ((respCode == 200) || (respCode == 201) || (respCode == 203) || (respCode == 206)) {
-                inputStream = conn.getInputStream();
-            }
+    /**
+     * Reads the remainder of a response stream and closes it, so that the
+     * connection can be reused.
+     */
+    public static void consumeAndClose(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
 
-            // log after connect
-            if (log.isTraceEnabled()) {
-                log.trace(method + " " + url + " > Headers: " + conn.getHeaderFields());
+        try {
+            byte[] buffer = new byte[4096];
+            while (stream.read(buffer) > -1) {
             }
-
-            // forward response HTTP headers
-            if (authProvider != null) {
-                authProvider.putResponseHeaders(url.toString(), respCode, conn.getHeaderFields());
+        } catch (Exception e) {
+            // ignore
+        } finally {
+            try {
+                stream.close();
+            } catch (Exception e) {
             }
+        }
+    }
 
-            // get the response
-            return new Response(respCode, conn.getResponseMessage(), conn.getHeaderFields(), inputStream,
-                    conn.getErrorStream());
-        } catch (Exception e) {
-            throw new CmisConnectionException("Cannot access " + url + ": " + e.getMessage(), e);
+    private static void addHeader(Map<String, List<String>> headers, String name, String value) {
+        List<String> values = headers.get(name);
+        if (values == null) {
+            values = new ArrayList<String>();
+            headers.put(name, values);
         }
+        values.add(value);
     }
 
     /**
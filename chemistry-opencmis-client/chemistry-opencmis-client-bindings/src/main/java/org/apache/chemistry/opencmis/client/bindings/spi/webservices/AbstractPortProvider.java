@@ -21,8 +21,10 @@ package org.apache.chemistry.opencmis.client.bindings.spi.webservices;
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.ws.BindingProvider;
@@ -79,10 +81,23 @@ public abstract class AbstractPortProvider {
 
     protected static final int CHUNK_SIZE = (64 * 1024) - 1;
 
+    /** Default max number of idle port objects per service. */
+    public static final int DEFAULT_PORT_POOL_SIZE = 8;
+
+    private static final String[] SERVICE_KEYS = new String[] { SessionParameter.WEBSERVICES_REPOSITORY_SERVICE,
+            SessionParameter.WEBSERVICES_NAVIGATION_SERVICE, SessionParameter.WEBSERVICES_OBJECT_SERVICE,
+            SessionParameter.WEBSERVICES_VERSIONING_SERVICE, SessionParameter.WEBSERVICES_DISCOVERY_SERVICE,
+            SessionParameter.WEBSERVICES_MULTIFILING_SERVICE, SessionParameter.WEBSERVICES_RELATIONSHIP_SERVICE,
+            SessionParameter.WEBSERVICES_POLICY_SERVICE, SessionParameter.WEBSERVICES_ACL_SERVICE };
+
     private BindingSession session;
     protected boolean useCompression;
     protected boolean useClientCompression;
     protected String acceptLanguage;
+    protected int portPoolSize = DEFAULT_PORT_POOL_SIZE;
+
+    private final Map<String, PortPool> portPools = new ConcurrentHashMap<String, PortPool>();
+    private final Map<Object, PortPool> borrowedPorts = new IdentityHashMap<Object, PortPool>();
 
     public BindingSession getSession() {
         return session;
@@ -100,6 +115,43 @@ public abstract class AbstractPortProvider {
         if (session.get(CmisBindingsHelper.ACCEPT_LANGUAGE) instanceof String) {
             acceptLanguage = session.get(CmisBindingsHelper.ACCEPT_LANGUAGE).toString();
         }
+
+        portPoolSize = session.get(SessionParameter.WEBSERVICES_PORT_POOL_SIZE, DEFAULT_PORT_POOL_SIZE);
+    }
+
+    /**
+     * Creates the given number of port objects for each configured service
+     * and puts them into the port pools.
+     */
+    public void warmUp(int portsPerService) {
+        int count = Math.min(portsPerService, portPoolSize);
+        if (count <= 0) {
+            return;
+        }
+
+        for (String serviceKey : SERVICE_KEYS) {
+            if (session.get(serviceKey) == null) {
+                continue;
+            }
+
+            PortPool pool = getPortPool(serviceKey);
+            for (int i = pool.getIdleCount(); i < count; i++) {
+                Object portObject = createPortObject(pool.getService());
+                pool.created(portObject);
+                pool.offer(portObject);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Warmed up: " + pool);
+            }
+        }
+    }
+
+    /**
+     * Returns the port pools of all services that have been used so far.
+     */
+    public Map<String, PortPool> getPortPools() {
+        return Collections.unmodifiableMap(portPools);
     }
 
     /**
@@ -165,26 +217,85 @@ public abstract class AbstractPortProvider {
         return (ACLServicePort) getPortObject(SessionParameter.WEBSERVICES_ACL_SERVICE);
     }
 
+    /**
+     * Must be called after each call. Hands the port object back to its pool.
+     */
     public void endCall(Object portObject) {
-        AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
-        if (authProvider != null) {
-            BindingProvider bp = (BindingProvider) portObject;
-            String url = (String) bp.getRequestContext().get(BindingProvider.ENDPOINT_ADDRESS_PROPERTY);
-            @SuppressWarnings("unchecked")
-            Map<String, List<String>> headers = (Map<String, List<String>>) bp.getResponseContext().get(
-                    MessageContext.HTTP_RESPONSE_HEADERS);
-            Integer statusCode = (Integer) bp.getResponseContext().get(MessageContext.HTTP_RESPONSE_CODE);
-            authProvider.putResponseHeaders(url, statusCode == null ? -1 : statusCode, headers);
+        try {
+            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+            if (authProvider != null) {
+                BindingProvider bp = (BindingProvider) portObject;
+                String url = (String) bp.getRequestContext().get(BindingProvider.ENDPOINT_ADDRESS_PROPERTY);
+                @SuppressWarnings("unchecked")
+                Map<String, List<String>> headers = (Map<String, List<String>>) bp.getResponseContext().get(
+                        MessageContext.HTTP_RESPONSE_HEADERS);
+                Integer statusCode = (Integer) bp.getResponseContext().get(MessageContext.HTTP_RESPONSE_CODE);
+                authProvider.putResponseHeaders(url, statusCode == null ? -1 : statusCode, headers);
+            }
+        } finally {
+            PortPool pool;
+            synchronized (borrowedPorts) {
+                pool = borrowedPorts.remove(portObject);
+            }
+
+            if (pool != null) {
+                pool.offer(portObject);
+            }
         }
     }
 
     // ---- internal ----
 
     /**
-     * Gets a port object from the session or (re-)initializes the port objects.
+     * Takes a port object from the pool or creates a new one.
      */
-    @SuppressWarnings("unchecked")
     protected Object getPortObject(String serviceKey) {
+        PortPool pool = getPortPool(serviceKey);
+
+        Object portObject = pool.poll();
+        if (portObject == null) {
+            portObject = createPortObject(pool.getService());
+            pool.created(portObject);
+        } else {
+            try {
+                refreshPortObject(portObject, pool.getService());
+            } catch (RuntimeException e) {
+                pool.offer(portObject);
+                throw e;
+            }
+        }
+
+        synchronized (borrowedPorts) {
+            borrowedPorts.put(portObject, pool);
+        }
+
+        return portObject;
+    }
+
+    /**
+     * Returns the port pool of a service.
+     */
+    protected PortPool getPortPool(String serviceKey) {
+        PortPool pool = portPools.get(serviceKey);
+        if (pool == null) {
+            synchronized (portPools) {
+                pool = portPools.get(serviceKey);
+                if (pool == null) {
+                    pool = new PortPool(serviceKey, getServiceObject(serviceKey), portPoolSize);
+                    portPools.put(serviceKey, pool);
+                }
+            }
+        }
+
+        return pool;
+    }
+
+    /**
+     * Gets a service object from the session or (re-)initializes the service
+     * objects.
+     */
+    @SuppressWarnings("unchecked")
+    protected Service getServiceObject(String serviceKey) {
         Map<String, Service> serviceMap = (Map<String, Service>) session.get(SpiSessionParameter.SERVICES);
 
         // does the service map exist?
@@ -194,20 +305,19 @@ public abstract class AbstractPortProvider {
                 // try again
                 serviceMap = (Map<String, Service>) session.get(SpiSessionParameter.SERVICES);
                 if (serviceMap == null) {
-                    serviceMap = Collections.synchronizedMap(new HashMap<String, Service>());
+                    serviceMap = new ConcurrentHashMap<String, Service>();
                     session.put(SpiSessionParameter.SERVICES, serviceMap, true);
                 }
 
                 if (serviceMap.containsKey(serviceKey)) {
-                    return createPortObject(serviceMap.get(serviceKey));
+                    return serviceMap.get(serviceKey);
                 }
 
                 // create service object
                 Service serviceObject = initServiceObject(serviceKey);
                 serviceMap.put(serviceKey, serviceObject);
 
-                // create port object
-                return createPortObject(serviceObject);
+                return serviceObject;
             } finally {
                 session.writeUnlock();
             }
@@ -219,20 +329,20 @@ public abstract class AbstractPortProvider {
             try {
                 // try again
                 if (serviceMap.containsKey(serviceKey)) {
-                    return createPortObject(serviceMap.get(serviceKey));
+                    return serviceMap.get(serviceKey);
                 }
 
                 // create object
                 Service serviceObject = initServiceObject(serviceKey);
                 serviceMap.put(serviceKey, serviceObject);
 
-                return createPortObject(serviceObject);
+                return serviceObject;
             } finally {
                 session.writeUnlock();
             }
         }
 
-        return createPortObject(serviceMap.get(serviceKey));
+        return serviceMap.get(serviceKey);
     }
 
     /**
@@ -321,4 +431,19 @@ public abstract class AbstractPortProvider {
      * Creates a port object.
      */
     protected abstract Object createPortObject(Service service);
+
+    /**
+     * Prepares a pooled port object for the next call. The request context
+     * has already been reset to the state after {@link #createPortObject}.
+     * This implementation refreshes the HTTP headers.
+     */
+    protected void refreshPortObject(Object portObject, Service service) {
+        AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(session);
+        Map<String, List<String>> httpHeaders = null;
+        if (authProvider != null) {
+            httpHeaders = authProvider.getHTTPHeaders(service.getWSDLDocumentLocation().toString());
+        }
+
+        setHTTPHeaders(portObject, httpHeaders);
+    }
 }
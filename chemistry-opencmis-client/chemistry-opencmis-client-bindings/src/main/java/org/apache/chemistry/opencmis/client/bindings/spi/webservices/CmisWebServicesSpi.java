@@ -79,6 +79,7 @@ public class CmisWebServicesSpi implements CmisSpi {
         }
 
         portProvider.setSession(session);
+        portProvider.warmUp(session.get(SessionParameter.WEBSERVICES_PORT_POOL_WARMUP, 0));
 
         repositoryService = new RepositoryServiceImpl(session, portProvider);
         navigationService = new NavigationServiceImpl(session, portProvider);
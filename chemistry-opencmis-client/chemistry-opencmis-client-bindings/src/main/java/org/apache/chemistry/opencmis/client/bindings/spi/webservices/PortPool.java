@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.spi.webservices;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.Service;
+
+/**
+ * Bounded pool of reusable port objects of one Web Service.
+ * <p>
+ * Port objects are handed out exclusively to one caller at a time. When a port
+ * object is returned, its request context is reset to the state it had right
+ * after it has been created. If the pool is full, returned port objects are
+ * discarded.
+ */
+public class PortPool {
+
+    private final String serviceKey;
+    private final Service service;
+    private final int maxIdle;
+
+    private final LinkedList<Object> idlePorts = new LinkedList<Object>();
+    private final Map<Object, Map<String, Object>> initialContexts = new IdentityHashMap<Object, Map<String, Object>>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    /**
+     * Constructor.
+     * 
+     * @param serviceKey
+     *            the session parameter key of the service
+     * @param service
+     *            the service object the port objects belong to
+     * @param maxIdle
+     *            the max number of port objects that are kept in the pool
+     */
+    public PortPool(String serviceKey, Service service, int maxIdle) {
+        this.serviceKey = serviceKey;
+        this.service = service;
+        this.maxIdle = maxIdle < 0 ? 0 : maxIdle;
+    }
+
+    public String getServiceKey() {
+        return serviceKey;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Takes an idle port object out of the pool.
+     * 
+     * @return the port object or <code>null</code> if the pool is empty
+     */
+    public Object poll() {
+        Object portObject;
+        synchronized (idlePorts) {
+            portObject = idlePorts.poll();
+        }
+
+        if (portObject != null) {
+            reused.incrementAndGet();
+        }
+
+        return portObject;
+    }
+
+    /**
+     * Registers a newly created port object and remembers its initial request
+     * context.
+     */
+    public void created(Object portObject) {
+        created.incrementAndGet();
+
+        if (maxIdle == 0) {
+            return;
+        }
+
+        Map<String, Object> initialContext = new HashMap<String, Object>(((BindingProvider) portObject)
+                .getRequestContext());
+        synchronized (idlePorts) {
+            initialContexts.put(portObject, initialContext);
+        }
+    }
+
+    /**
+     * Returns a port object to the pool.
+     * 
+     * @return <code>true</code> if the port object has been pooled,
+     *         <code>false</code> if it has been discarded
+     */
+    public boolean offer(Object portObject) {
+        Map<String, Object> initialContext;
+        synchronized (idlePorts) {
+            initialContext = initialContexts.get(portObject);
+        }
+
+        if (initialContext != null) {
+            // reset the request context
+            Map<String, Object> requestContext = ((BindingProvider) portObject).getRequestContext();
+            requestContext.clear();
+            requestContext.putAll(initialContext);
+
+            synchronized (idlePorts) {
+                if (idlePorts.size() < maxIdle) {
+                    idlePorts.add(portObject);
+                    return true;
+                }
+
+                initialContexts.remove(portObject);
+            }
+        }
+
+        discarded.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Discards all idle port objects.
+     */
+    public void clear() {
+        synchronized (idlePorts) {
+            for (Object portObject : idlePorts) {
+                initialContexts.remove(portObject);
+            }
+            idlePorts.clear();
+        }
+    }
+
+    /**
+     * Returns the number of port objects that are currently in the pool.
+     */
+    public int getIdleCount() {
+        synchronized (idlePorts) {
+            return idlePorts.size();
+        }
+    }
+
+    /**
+     * Returns the number of port objects that have been created.
+     */
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    /**
+     * Returns the number of times a pooled port object has been reused.
+     */
+    public long getReusedCount() {
+        return reused.get();
+    }
+
+    /**
+     * Returns the number of port objects that have been discarded because the
+     * pool was full or disabled.
+     */
+    public long getDiscardedCount() {
+        return discarded.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Port pool [" + serviceKey + "]: idle=" + getIdleCount() + ", max idle=" + maxIdle + ", created="
+                + getCreatedCount() + ", reused=" + getReusedCount() + ", discarded=" + getDiscardedCount();
+    }
+}
@@ -99,21 +99,7 @@ public class PortProvider extends AbstractPortProvider {
             }
 
             // add SOAP and HTTP authentication headers
-            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(getSession());
-            Map<String, List<String>> httpHeaders = null;
-            if (authProvider != null) {
-                // SOAP header
-                Element soapHeader = authProvider.getSOAPHeaders(portObject);
-                if (soapHeader != null) {
-                    ((WSBindingProvider) portObject).setOutboundHeaders(Headers.create(soapHeader));
-                }
-
-                // HTTP header
-                httpHeaders = authProvider.getHTTPHeaders(service.getWSDLDocumentLocation().toString());
-            }
-
-            // set HTTP headers
-            setHTTPHeaders(portObject, httpHeaders);
+            setHeaders(portObject, service);
 
             // timeouts
             int connectTimeout = getSession().get(SessionParameter.CONNECT_TIMEOUT, -1);
@@ -133,4 +119,39 @@ public class PortProvider extends AbstractPortProvider {
 
         return portObject;
     }
+
+    /**
+     * Refreshes the authentication and HTTP headers of a pooled port object.
+     */
+    @Override
+    protected void refreshPortObject(Object portObject, Service service) {
+        try {
+            setHeaders(portObject, service);
+        } catch (CmisBaseException ce) {
+            throw ce;
+        } catch (Exception e) {
+            throw new CmisConnectionException("Cannot refresh Web Services port object: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sets the SOAP and HTTP authentication headers and the HTTP headers.
+     */
+    private void setHeaders(Object portObject, Service service) throws Exception {
+        AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(getSession());
+        Map<String, List<String>> httpHeaders = null;
+        if (authProvider != null) {
+            // SOAP header
+            Element soapHeader = authProvider.getSOAPHeaders(portObject);
+            if (soapHeader != null) {
+                ((WSBindingProvider) portObject).setOutboundHeaders(Headers.create(soapHeader));
+            }
+
+            // HTTP header
+            httpHeaders = authProvider.getHTTPHeaders(service.getWSDLDocumentLocation().toString());
+        }
+
+        // set HTTP headers
+        setHTTPHeaders(portObject, httpHeaders);
+    }
 }
@@ -95,31 +95,7 @@ public class WebSpherePortProvider extends AbstractPortProvider {
             }
 
             // add SOAP and HTTP authentication headers
-            AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(getSession());
-            Map<String, List<String>> httpHeaders = null;
-            if (authProvider != null) {
-                // SOAP header
-                Element soapHeader = authProvider.getSOAPHeaders(portObject);
-                if (soapHeader != null) {
-                    TransformerFactory transFactory = TransformerFactory.newInstance();
-                    Transformer transformer = transFactory.newTransformer();
-                    StringWriter headerXml = new StringWriter();
-                    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-                    transformer.transform(new DOMSource(soapHeader), new StreamResult(headerXml));
-
-                    Map<QName, List<String>> header = new HashMap<QName, List<String>>();
-                    header.put(new QName(soapHeader.getNamespaceURI(), soapHeader.getLocalName()),
-                            Collections.singletonList(headerXml.toString()));
-                    ((BindingProvider) portObject).getRequestContext().put("jaxws.binding.soap.headers.outbound",
-                            header);
-                }
-
-                // HTTP header
-                httpHeaders = authProvider.getHTTPHeaders(service.getWSDLDocumentLocation().toString());
-            }
-
-            // set HTTP headers
-            setHTTPHeaders(portObject, httpHeaders);
+            setHeaders(portObject, service);
 
             // timeouts
             int connectTimeout = getSession().get(SessionParameter.CONNECT_TIMEOUT, -1);
@@ -139,4 +115,49 @@ public class WebSpherePortProvider extends AbstractPortProvider {
 
         return portObject;
     }
+
+    /**
+     * Refreshes the authentication and HTTP headers of a pooled port object.
+     */
+    @Override
+    protected void refreshPortObject(Object portObject, Service service) {
+        try {
+            setHeaders(portObject, service);
+        } catch (CmisBaseException ce) {
+            throw ce;
+        } catch (Exception e) {
+            throw new CmisConnectionException("Cannot refresh Web Services port object: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sets the SOAP and HTTP authentication headers and the HTTP headers.
+     */
+    private void setHeaders(Object portObject, Service service) throws Exception {
+        AuthenticationProvider authProvider = CmisBindingsHelper.getAuthenticationProvider(getSession());
+        Map<String, List<String>> httpHeaders = null;
+        if (authProvider != null) {
+            // SOAP header
+            Element soapHeader = authProvider.getSOAPHeaders(portObject);
+            if (soapHeader != null) {
+                TransformerFactory transFactory = TransformerFactory.newInstance();
+                Transformer transformer = transFactory.newTransformer();
+                StringWriter headerXml = new StringWriter();
+                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+                transformer.transform(new DOMSource(soapHeader), new StreamResult(headerXml));
+
+                Map<QName, List<String>> header = new HashMap<QName, List<String>>();
+                header.put(new QName(soapHeader.getNamespaceURI(), soapHeader.getLocalName()),
+                        Collections.singletonList(headerXml.toString()));
+                ((BindingProvider) portObject).getRequestContext().put("jaxws.binding.soap.headers.outbound",
+                        header);
+            }
+
+            // HTTP header
+            httpHeaders = authProvider.getHTTPHeaders(service.getWSDLDocumentLocation().toString());
+        }
+
+        // set HTTP headers
+        setHTTPHeaders(portObject, httpHeaders);
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.async;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.client.bindings.CmisBindingFactory;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl;
+import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
+import org.apache.chemistry.opencmis.commons.spi.ObjectService;
+import org.apache.chemistry.opencmis.commons.spi.RepositoryService;
+
+/**
+ * Tests the asynchronous binding with a binding that simulates slow calls.
+ */
+public class AsyncBindingTest extends TestCase {
+
+    private static final int THREADS = 4;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private AsyncCmisBinding asyncBinding;
+
+    @Override
+    protected void setUp() throws Exception {
+        asyncBinding = CmisBindingFactory.newInstance().createAsyncCmisBinding(createBinding(), THREADS, 2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        release.countDown();
+        asyncBinding.shutdown();
+    }
+
+    public void testBoundedConcurrency() throws Exception {
+        int calls = 50;
+        final CountDownLatch callbacks = new CountDownLatch(calls);
+
+        List<Future<RepositoryInfo>> futures = new ArrayList<Future<RepositoryInfo>>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(asyncBinding.getRepositoryService().getRepositoryInfo("repo" + i, null,
+                    new AsyncCallback<RepositoryInfo>() {
+                        public void onSuccess(RepositoryInfo result) {
+                            callbacks.countDown();
+                        }
+
+                        public void onFailure(Throwable cause) {
+                        }
+                    }));
+        }
+
+        for (int i = 0; i < calls; i++) {
+            assertEquals("repo" + i, futures.get(i).get().getId());
+        }
+
+        assertTrue(callbacks.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= THREADS);
+        assertTrue(maxRunning.get() > 1);
+    }
+
+    public void testFailure() throws Exception {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Future<ObjectData> future = asyncBinding.getObjectService().getObject("repo", "unknown", null, null, null,
+                null, null, null, null, new AsyncCallback<ObjectData>() {
+                    public void onSuccess(ObjectData result) {
+                        done.countDown();
+                    }
+
+                    public void onFailure(Throwable cause) {
+                        failure.set(cause);
+                        done.countDown();
+                    }
+                });
+
+        try {
+            future.get();
+            fail("Call should fail!");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CmisObjectNotFoundException);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof CmisObjectNotFoundException);
+    }
+
+    public void testShutdownWhileWaiting() throws Exception {
+        // occupy all threads and the queue
+        for (int i = 0; i < THREADS + 2; i++) {
+            asyncBinding.getRepositoryService().getRepositoryInfo("blocked", null, null);
+        }
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread submitter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    asyncBinding.getRepositoryService().getRepositoryInfo("waiting", null, null);
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        };
+        submitter.start();
+
+        // wait until the submitter waits for a free slot
+        while (submitter.getState() == Thread.State.NEW || submitter.getState() == Thread.State.RUNNABLE) {
+            Thread.sleep(10);
+        }
+
+        asyncBinding.shutdown();
+        submitter.join(5000);
+
+        assertFalse(submitter.isAlive());
+        assertTrue(failure.get() instanceof RejectedExecutionException);
+    }
+
+    private CmisBinding createBinding() {
+        final RepositoryService repositoryService = (RepositoryService) createProxy(RepositoryService.class,
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("blocked".equals(args[0])) {
+                            release.await();
+                        }
+
+                        int current = running.incrementAndGet();
+                        try {
+                            synchronized (maxRunning) {
+                                if (current > maxRunning.get()) {
+                                    maxRunning.set(current);
+                                }
+                            }
+                            Thread.sleep(20);
+
+                            RepositoryInfoImpl info = new RepositoryInfoImpl();
+                            info.setId((String) args[0]);
+                            return info;
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    }
+                });
+
+        final ObjectService objectService = (ObjectService) createProxy(ObjectService.class,
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        throw new CmisObjectNotFoundException("Object not found!");
+                    }
+                });
+
+        return (CmisBinding) createProxy(CmisBinding.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getName().equals("getRepositoryService")) {
+                    return repositoryService;
+                } else if (method.getName().equals("getObjectService")) {
+                    return objectService;
+                }
+
+                return null;
+            }
+        });
+    }
+
+    private static Object createProxy(Class<?> clazz, InvocationHandler handler) {
+        return Proxy.newProxyInstance(AsyncBindingTest.class.getClassLoader(), new Class<?>[] { clazz }, handler);
+    }
+}
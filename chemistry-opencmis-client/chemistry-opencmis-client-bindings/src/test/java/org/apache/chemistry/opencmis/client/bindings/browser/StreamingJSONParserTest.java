@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.browser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.client.bindings.spi.browser.AbstractBrowserBindingService;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the streaming JSON parser with the container based parser and the
+ * heap both need.
+ */
+public class StreamingJSONParserTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingJSONParserTest.class);
+
+    private static final String CHARSET = "UTF-8";
+
+    private final TestService service = new TestService();
+
+    @Test
+    public void objectInFolderList() throws Exception {
+        byte[] json = createChildren(100).getBytes(CHARSET);
+
+        ObjectInFolderList expected = JSONConverter.convertObjectInFolderList(service.parseTree(json));
+        ObjectInFolderList actual = service.parseObjectInFolderList(json);
+
+        assertEquals(100, actual.getObjects().size());
+        assertEquals(expected.getObjects().size(), actual.getObjects().size());
+        assertEquals(expected.hasMoreItems(), actual.hasMoreItems());
+        assertEquals(expected.getNumItems(), actual.getNumItems());
+
+        for (int i = 0; i < expected.getObjects().size(); i++) {
+            assertEquals(expected.getObjects().get(i).getPathSegment(), actual.getObjects().get(i).getPathSegment());
+            assertObjectEquals(expected.getObjects().get(i).getObject(), actual.getObjects().get(i).getObject());
+        }
+    }
+
+    @Test
+    public void objectList() throws Exception {
+        byte[] json = ("{\"objects\":[" + createObject(1) + "," + createObject(2)
+                + "],\"hasMoreItems\":false,\"numItems\":2,\"changeLogToken\":\"token42\"}").getBytes(CHARSET);
+
+        Holder<String> changeLogToken = new Holder<String>();
+        ObjectList list = service.parseObjectList(json, changeLogToken);
+
+        assertEquals("token42", changeLogToken.getValue());
+        assertEquals(2, list.getObjects().size());
+        assertEquals("id2", list.getObjects().get(1).getId());
+        assertEquals(Boolean.FALSE, list.hasMoreItems());
+        assertEquals(2, list.getNumItems().intValue());
+    }
+
+    @Test
+    public void descendants() throws Exception {
+        byte[] json = ("[{\"object\":{\"object\":" + createObject(1) + ",\"pathSegment\":\"f1\"},\"children\":[{"
+                + "\"object\":{\"object\":" + createObject(2) + ",\"pathSegment\":\"d2\"}}]}]").getBytes(CHARSET);
+
+        List<ObjectInFolderContainer> tree = service.parseDescendants(json);
+
+        assertEquals(1, tree.size());
+        assertEquals("id1", tree.get(0).getObject().getObject().getId());
+        assertEquals(1, tree.get(0).getChildren().size());
+        assertEquals("d2", tree.get(0).getChildren().get(0).getObject().getPathSegment());
+    }
+
+    /**
+     * Checks that the streaming parser needs less heap than the container
+     * based parser, which holds the complete JSON tree and the converted
+     * objects at the same time. Both parsers allocate about the same number
+     * of bytes in total; these are logged if the JVM counts them.
+     */
+    @Test
+    public void memoryBenchmark() throws Exception {
+        int objects = 5000;
+        byte[] json = createChildren(objects).getBytes(CHARSET);
+
+        // warm up
+        for (int i = 0; i < 3; i++) {
+            JSONConverter.convertObjectInFolderList(service.parseTree(json));
+            service.parseObjectInFolderList(json);
+        }
+
+        long baseline = usedHeap();
+        long treeAllocated = allocatedBytes();
+        Map<String, Object> tree = service.parseTree(json);
+        ObjectInFolderList treeResult = JSONConverter.convertObjectInFolderList(tree);
+        treeAllocated = allocatedBytes() - treeAllocated;
+        long treeHeap = usedHeap() - baseline;
+        assertNotNull(tree.get("objects"));
+        assertEquals(objects, treeResult.getObjects().size());
+        tree = null;
+        treeResult = null;
+
+        baseline = usedHeap();
+        long streamingAllocated = allocatedBytes();
+        ObjectInFolderList streamingResult = service.parseObjectInFolderList(json);
+        streamingAllocated = allocatedBytes() - streamingAllocated;
+        long streamingHeap = usedHeap() - baseline;
+        assertEquals(objects, streamingResult.getObjects().size());
+
+        StringBuilder sb = new StringBuilder("JSON parser benchmark (" + objects + " objects), heap per object: tree "
+                + (treeHeap / objects) + " bytes, streaming " + (streamingHeap / objects) + " bytes");
+        if (treeAllocated >= 0 && streamingAllocated >= 0) {
+            sb.append("; allocated per object: tree " + (treeAllocated / objects) + " bytes, streaming "
+                    + (streamingAllocated / objects) + " bytes");
+        }
+        LOG.info(sb.toString());
+
+        assertTrue("Streaming parser needed " + streamingHeap + " bytes, tree parser " + treeHeap + " bytes",
+                streamingHeap < treeHeap);
+    }
+
+    // --- helpers ---
+
+    private static void assertObjectEquals(ObjectData expected, ObjectData actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getProperties().getPropertyList().size(), actual.getProperties().getPropertyList()
+                .size());
+        for (String id : expected.getProperties().getProperties().keySet()) {
+            assertEquals(expected.getProperties().getProperties().get(id).getValues(), actual.getProperties()
+                    .getProperties().get(id).getValues());
+        }
+    }
+
+    private static String createChildren(int count) {
+        StringBuilder sb = new StringBuilder("{\"objects\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"object\":").append(createObject(i)).append(",\"pathSegment\":\"doc").append(i)
+                    .append("\"}");
+        }
+        sb.append("],\"hasMoreItems\":true,\"numItems\":").append(count * 2).append('}');
+
+        return sb.toString();
+    }
+
+    private static String createObject(int i) {
+        return "{\"properties\":{" + createProperty(PropertyIds.OBJECT_ID, "id", "\"id" + i + "\"") + ","
+                + createProperty(PropertyIds.NAME, "string", "\"Document " + i + "\"") + ","
+                + createProperty(PropertyIds.OBJECT_TYPE_ID, "id", "\"cmis:document\"") + ","
+                + createProperty(PropertyIds.BASE_TYPE_ID, "id", "\"cmis:document\"") + ","
+                + createProperty(PropertyIds.CREATED_BY, "string", "\"admin\"") + ","
+                + createProperty(PropertyIds.CREATION_DATE, "datetime", "1318000000000") + ","
+                + createProperty(PropertyIds.CONTENT_STREAM_LENGTH, "integer", String.valueOf(i * 1024)) + "}}";
+    }
+
+    private static String createProperty(String id, String type, String value) {
+        return "\"" + id + "\":{\"id\":\"" + id + "\",\"type\":\"" + type + "\",\"cardinality\":\"single\","
+                + "\"value\":" + value + "}";
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread or -1 if the JVM
+     * doesn't provide this number.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            Method method = bean.getClass().getMethod("getThreadAllocatedBytes", long.class);
+            method.setAccessible(true);
+            return ((Long) method.invoke(bean, Thread.currentThread().getId())).longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static class TestService extends AbstractBrowserBindingService {
+
+        public Map<String, Object> parseTree(byte[] json) {
+            return parseObject(stream(json), CHARSET);
+        }
+
+        public ObjectInFolderList parseObjectInFolderList(byte[] json) {
+            return parseObjectInFolderList(stream(json), CHARSET);
+        }
+
+        public ObjectList parseObjectList(byte[] json, Holder<String> changeLogToken) {
+            return parseObjectList(stream(json), CHARSET, changeLogToken);
+        }
+
+        public List<ObjectInFolderContainer> parseDescendants(byte[] json) {
+            return parseDescendants(stream(json), CHARSET);
+        }
+
+        private static InputStream stream(byte[] json) {
+            return new ByteArrayInputStream(json);
+        }
+    }
+}
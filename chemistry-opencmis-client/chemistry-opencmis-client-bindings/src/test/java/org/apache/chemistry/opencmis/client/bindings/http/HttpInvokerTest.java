@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.ApacheClientHttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.ConnectionPoolStatistics;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.DefaultHttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the HTTP invokers against a local HTTP server.
+ */
+public class HttpInvokerTest extends TestCase {
+
+    private static final byte[] BODY = "Hello CMIS!".getBytes();
+
+    private HttpServer server;
+    private UrlBuilder url;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                ByteArrayOutputStream request = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                int b;
+                while ((b = in.read(buffer)) > -1) {
+                    request.write(buffer, 0, b);
+                }
+
+                byte[] body = exchange.getRequestMethod().equals("POST") ? request.toByteArray() : BODY;
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(exchange.getRequestMethod().equals("POST") ? 201 : 200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+
+        url = new UrlBuilder("http://localhost:" + server.getAddress().getPort() + "/cmis");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    public void testDefaultInvoker() throws Exception {
+        SessionImpl session = new SessionImpl();
+
+        assertTrue(CmisBindingsHelper.getHttpInvoker(session) instanceof DefaultHttpInvoker);
+
+        HttpUtils.Response resp = HttpUtils.invokeGET(url, session);
+        assertEquals(200, resp.getResponseCode());
+        assertEquals(new String(BODY), read(resp.getStream()));
+    }
+
+    public void testPooledInvoker() throws Exception {
+        SessionImpl session = new SessionImpl();
+        session.put(SessionParameter.HTTP_INVOKER_CLASS, ApacheClientHttpInvoker.class.getName());
+        session.put(SessionParameter.HTTP_POOL_MAX_TOTAL, "4");
+        session.put(SessionParameter.HTTP_POOL_MAX_PER_HOST, "2");
+
+        ApacheClientHttpInvoker invoker = (ApacheClientHttpInvoker) CmisBindingsHelper.getHttpInvoker(session);
+        assertSame(invoker, CmisBindingsHelper.getHttpInvoker(session));
+
+        try {
+            int requests = 20;
+            for (int i = 0; i < requests; i++) {
+                HttpUtils.Response resp = HttpUtils.invokeGET(url, session);
+                assertEquals(200, resp.getResponseCode());
+                assertEquals(new String(BODY), read(resp.getStream()));
+            }
+
+            HttpUtils.Response resp = HttpUtils.invokePOST(url, "text/plain", new HttpUtils.Output() {
+                public void write(OutputStream out) throws Exception {
+                    out.write(BODY);
+                }
+            }, session);
+            assertEquals(201, resp.getResponseCode());
+            assertEquals(new String(BODY), read(resp.getStream()));
+
+            // all requests have been sent over the same connection
+            ConnectionPoolStatistics stats = invoker.getStatistics();
+            assertEquals(4, stats.getMaxTotal());
+            assertEquals(2, stats.getMaxPerHost());
+            assertEquals(requests + 1, stats.getRequests());
+            assertEquals(0, stats.getFailedRequests());
+            assertEquals(1, stats.getConnectionsOpened());
+            assertEquals(1, stats.getConnectionsInPool());
+        } finally {
+            invoker.close();
+        }
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int b;
+        while ((b = stream.read(buffer)) > -1) {
+            result.write(buffer, 0, b);
+        }
+        stream.close();
+
+        return new String(result.toByteArray());
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.CmisBindingsHelper;
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.BindingSession;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.DefaultHttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpInvoker;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpResponseCache;
+import org.apache.chemistry.opencmis.client.bindings.spi.http.HttpUtils;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the HTTP response cache against a local HTTP server that supports
+ * conditional requests.
+ */
+public class HttpResponseCacheTest extends TestCase {
+
+    private HttpServer server;
+    private String baseUrl;
+    private volatile String version;
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger revision = new AtomicInteger();
+    private volatile String lastIfNoneMatch;
+
+    @Override
+    protected void setUp() throws Exception {
+        version = "1";
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                byte[] body = (path + " version " + version).getBytes();
+
+                if (!path.startsWith("/plain")) {
+                    String eTag = "\"" + path + "-" + version + "\"";
+                    exchange.getResponseHeaders().add("ETag", eTag);
+
+                    if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModified.incrementAndGet();
+                        exchange.sendResponseHeaders(304, -1);
+                        exchange.close();
+                        return;
+                    }
+                }
+
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        // answers every conditional request with 304 and a new validator
+        server.createContext("/rotate", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                lastIfNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+                int r = revision.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", "W/\"rotate-" + r + "\"");
+                exchange.getResponseHeaders().add("X-Revision", String.valueOf(r));
+
+                if (lastIfNoneMatch != null) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] body = "rotate".getBytes();
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    public void testDisabled() throws Exception {
+        SessionImpl session = new SessionImpl();
+        assertNull(CmisBindingsHelper.getHttpResponseCache(session));
+
+        assertEquals("/a version 1", get("/a", session));
+        assertEquals("/a version 1", get("/a", session));
+        assertEquals(0, notModified.get());
+    }
+
+    public void testRevalidation() throws Exception {
+        SessionImpl session = createSession(null);
+        HttpResponseCache cache = CmisBindingsHelper.getHttpResponseCache(session);
+
+        try {
+            assertEquals("/a version 1", get("/a", session));
+            assertEquals(1, cache.getMisses());
+            assertEquals("/a version 1".length(), cache.getSize());
+
+            // unchanged -> served from the cache
+            for (int i = 0; i < 3; i++) {
+                HttpUtils.Response resp = HttpUtils.invokeGET(new UrlBuilder(baseUrl + "/a"), session);
+                assertEquals(200, resp.getResponseCode());
+                assertEquals(BigInteger.valueOf("/a version 1".length()), resp.getContentLength());
+                assertEquals("text/plain", resp.getContentTypeHeader());
+                assertEquals("/a version 1", read(resp.getStream()));
+            }
+            assertEquals(3, cache.getHits());
+            assertEquals(3, notModified.get());
+
+            // changed -> fetched and cached again
+            version = "2";
+            assertEquals("/a version 2", get("/a", session));
+            assertEquals("/a version 2", get("/a", session));
+            assertEquals(4, cache.getHits());
+            assertEquals(2, cache.getMisses());
+        } finally {
+            cache.close();
+        }
+    }
+
+    public void testRefreshFromNotModified() throws Exception {
+        SessionImpl session = createSession(null);
+        HttpResponseCache cache = CmisBindingsHelper.getHttpResponseCache(session);
+
+        try {
+            assertEquals("rotate", get("/rotate", session));
+            assertNull(lastIfNoneMatch);
+
+            // the 304 response carries a new ETag and a new header
+            HttpUtils.Response resp = HttpUtils.invokeGET(new UrlBuilder(baseUrl + "/rotate"), session);
+            assertEquals("W/\"rotate-1\"", lastIfNoneMatch);
+            assertEquals("2", resp.getHeader("X-Revision"));
+            assertEquals(BigInteger.valueOf("rotate".length()), resp.getContentLength());
+            assertEquals("rotate", read(resp.getStream()));
+
+            // the next request revalidates with the refreshed ETag
+            resp = HttpUtils.invokeGET(new UrlBuilder(baseUrl + "/rotate"), session);
+            assertEquals("W/\"rotate-2\"", lastIfNoneMatch);
+            assertEquals("3", resp.getHeader("X-Revision"));
+            assertEquals("rotate", read(resp.getStream()));
+            assertEquals(2, cache.getHits());
+            assertEquals(1, cache.getMisses());
+        } finally {
+            cache.close();
+        }
+    }
+
+    public void testInvokerWithoutConditionalRequests() throws Exception {
+        SessionImpl session = createSession(null);
+        session.put(SessionParameter.HTTP_INVOKER_CLASS, PlainHttpInvoker.class.getName());
+
+        assertEquals("/a version 1", get("/a", session));
+        assertEquals("/a version 1", get("/a", session));
+        assertEquals("/content version 1", read(HttpUtils.invokeGET(new UrlBuilder(baseUrl + "/content"), session,
+                null, null).getStream()));
+        assertEquals(0, notModified.get());
+        assertNull(session.get(CmisBindingsHelper.HTTP_RESPONSE_CACHE_OBJECT));
+    }
+
+    public void testNotCached() throws Exception {
+        SessionImpl session = createSession(null);
+        HttpResponseCache cache = CmisBindingsHelper.getHttpResponseCache(session);
+
+        try {
+            // no validators
+            assertEquals("/plain version 1", get("/plain", session));
+            assertEquals("/plain version 1", get("/plain", session));
+            assertEquals(0, cache.getSize());
+
+            // partially read content
+            HttpUtils.Response resp = HttpUtils.invokeGET(new UrlBuilder(baseUrl + "/content"), session, null,
+                    null);
+            assertEquals('/', resp.getStream().read());
+            resp.getStream().close();
+            assertEquals(0, cache.getSize());
+
+            // range request
+            assertEquals("/content version 1", read(HttpUtils.invokeGET(new UrlBuilder(baseUrl + "/content"),
+                    session, BigInteger.ZERO, null).getStream()));
+            assertEquals(0, cache.getSize());
+            assertEquals(0, cache.getHits());
+        } finally {
+            cache.close();
+        }
+    }
+
+    public void testContentAndEviction() throws Exception {
+        // room for one metadata response
+        SessionImpl session = createSession("20");
+        HttpResponseCache cache = CmisBindingsHelper.getHttpResponseCache(session);
+
+        try {
+            UrlBuilder content = new UrlBuilder(baseUrl + "/content");
+            assertEquals("/content version 1", read(HttpUtils.invokeGET(content, session, null, null).getStream()));
+
+            assertEquals("/a version 1", get("/a", session));
+            assertEquals("/b version 1", get("/b", session));
+
+            // "/a" has been evicted, the content stream lives in its own region
+            assertEquals("/a version 1", get("/a", session));
+            assertEquals("/content version 1", read(HttpUtils.invokeGET(content, session, null, null).getStream()));
+            assertEquals(1, cache.getHits());
+            assertEquals(4, cache.getMisses());
+        } finally {
+            cache.close();
+        }
+    }
+
+    /**
+     * An invoker that cannot send conditional requests.
+     */
+    public static class PlainHttpInvoker implements HttpInvoker {
+        private final DefaultHttpInvoker delegate;
+
+        public PlainHttpInvoker(BindingSession session) {
+            delegate = new DefaultHttpInvoker(session);
+        }
+
+        public HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session) {
+            return delegate.invokeGET(url, session);
+        }
+
+        public HttpUtils.Response invokeGET(UrlBuilder url, BindingSession session, BigInteger offset,
+                BigInteger length) {
+            return delegate.invokeGET(url, session, offset, length);
+        }
+
+        public HttpUtils.Response invokePOST(UrlBuilder url, String contentType, HttpUtils.Output writer,
+                BindingSession session) {
+            return delegate.invokePOST(url, contentType, writer, session);
+        }
+
+        public HttpUtils.Response invokePUT(UrlBuilder url, String contentType, Map<String, String> headers,
+                HttpUtils.Output writer, BindingSession session) {
+            return delegate.invokePUT(url, contentType, headers, writer, session);
+        }
+
+        public HttpUtils.Response invokeDELETE(UrlBuilder url, BindingSession session) {
+            return delegate.invokeDELETE(url, session);
+        }
+
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private SessionImpl createSession(String metadataSize) {
+        SessionImpl session = new SessionImpl();
+        session.put(SessionParameter.HTTP_CACHE, "true");
+        if (metadataSize != null) {
+            session.put(SessionParameter.HTTP_CACHE_METADATA_SIZE, metadataSize);
+        }
+
+        return session;
+    }
+
+    private String get(String path, SessionImpl session) throws IOException {
+        HttpUtils.Response resp = HttpUtils.invokeGET(new UrlBuilder(baseUrl + path), session);
+        assertEquals(200, resp.getResponseCode());
+
+        return read(resp.getStream());
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int b;
+        while ((b = stream.read(buffer)) > -1) {
+            result.write(buffer, 0, b);
+        }
+        stream.close();
+
+        return new String(result.toByteArray());
+    }
+}
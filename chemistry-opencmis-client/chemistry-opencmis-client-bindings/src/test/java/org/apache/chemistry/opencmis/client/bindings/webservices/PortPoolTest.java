@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.bindings.webservices;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.Service;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.client.bindings.impl.SessionImpl;
+import org.apache.chemistry.opencmis.client.bindings.spi.webservices.AbstractPortProvider;
+import org.apache.chemistry.opencmis.client.bindings.spi.webservices.PortPool;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.apache.chemistry.opencmis.commons.impl.jaxb.RepositoryServicePort;
+
+/**
+ * Tests the port object pool of the Web Services binding.
+ */
+public class PortPoolTest extends TestCase {
+
+    private static final String CUSTOM_KEY = "test.custom";
+
+    public void testReuse() {
+        TestPortProvider portProvider = createPortProvider(2);
+
+        Object port1 = portProvider.getRepositoryServicePort();
+        ((BindingProvider) port1).getRequestContext().put(CUSTOM_KEY, "value");
+        portProvider.endCall(port1);
+
+        Object port2 = portProvider.getRepositoryServicePort();
+        assertSame(port1, port2);
+        assertFalse(((BindingProvider) port2).getRequestContext().containsKey(CUSTOM_KEY));
+        assertNotNull(((BindingProvider) port2).getRequestContext().get(
+                javax.xml.ws.handler.MessageContext.HTTP_REQUEST_HEADERS));
+
+        // a second concurrent caller gets its own port object
+        Object port3 = portProvider.getRepositoryServicePort();
+        assertNotSame(port2, port3);
+
+        portProvider.endCall(port2);
+        portProvider.endCall(port3);
+
+        PortPool pool = portProvider.getPortPools().get(SessionParameter.WEBSERVICES_REPOSITORY_SERVICE);
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(1, pool.getReusedCount());
+        assertEquals(0, pool.getDiscardedCount());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    public void testBounded() {
+        TestPortProvider portProvider = createPortProvider(1);
+
+        Object port1 = portProvider.getRepositoryServicePort();
+        Object port2 = portProvider.getRepositoryServicePort();
+        portProvider.endCall(port1);
+        portProvider.endCall(port2);
+
+        // releasing the same port object twice must not pool it twice
+        portProvider.endCall(port2);
+
+        PortPool pool = portProvider.getPortPools().get(SessionParameter.WEBSERVICES_REPOSITORY_SERVICE);
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(1, pool.getDiscardedCount());
+    }
+
+    public void testDisabled() {
+        TestPortProvider portProvider = createPortProvider(0);
+
+        Object port1 = portProvider.getRepositoryServicePort();
+        portProvider.endCall(port1);
+        Object port2 = portProvider.getRepositoryServicePort();
+        portProvider.endCall(port2);
+
+        assertNotSame(port1, port2);
+        assertEquals(2, portProvider.created);
+    }
+
+    public void testWarmUp() {
+        TestPortProvider portProvider = createPortProvider(4);
+        portProvider.warmUp(3);
+
+        assertEquals(3, portProvider.created);
+        PortPool pool = portProvider.getPortPools().get(SessionParameter.WEBSERVICES_REPOSITORY_SERVICE);
+        assertEquals(3, pool.getIdleCount());
+
+        // not configured services are skipped
+        assertNull(portProvider.getPortPools().get(SessionParameter.WEBSERVICES_OBJECT_SERVICE));
+
+        portProvider.endCall(portProvider.getRepositoryServicePort());
+        assertEquals(3, portProvider.created);
+        assertEquals(1, pool.getReusedCount());
+    }
+
+    private TestPortProvider createPortProvider(int poolSize) {
+        SessionImpl session = new SessionImpl();
+        session.put(SessionParameter.WEBSERVICES_REPOSITORY_SERVICE, "http://localhost/repository?wsdl");
+        session.put(SessionParameter.WEBSERVICES_PORT_POOL_SIZE, String.valueOf(poolSize));
+
+        TestPortProvider portProvider = new TestPortProvider();
+        portProvider.setSession(session);
+
+        return portProvider;
+    }
+
+    /**
+     * Port provider that creates dummy port objects.
+     */
+    private static class TestPortProvider extends AbstractPortProvider {
+
+        private int created = 0;
+
+        @Override
+        protected Service getServiceObject(String serviceKey) {
+            return null;
+        }
+
+        @Override
+        protected Object createPortObject(Service service) {
+            created++;
+
+            final Map<String, Object> requestContext = new HashMap<String, Object>();
+            final Map<String, Object> responseContext = new HashMap<String, Object>();
+
+            Object portObject = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {
+                    RepositoryServicePort.class, BindingProvider.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if ("getRequestContext".equals(method.getName())) {
+                        return requestContext;
+                    } else if ("getResponseContext".equals(method.getName())) {
+                        return responseContext;
+                    } else if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    } else if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+            setHTTPHeaders(portObject, null);
+
+            return portObject;
+        }
+    }
+}
@@ -21,8 +21,8 @@ package org.apache.chemistry.opencmis.client.runtime;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.GregorianCalendar;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -45,17 +45,27 @@ import org.apache.chemistry.opencmis.commons.data.Acl;
 import org.apache.chemistry.opencmis.commons.data.AllowableActions;
 import org.apache.chemistry.opencmis.commons.data.CmisExtensionElement;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.Properties;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
 import org.apache.chemistry.opencmis.commons.data.RenditionData;
 import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
 import org.apache.chemistry.opencmis.commons.enums.ExtensionLevel;
 import org.apache.chemistry.opencmis.commons.enums.Updatability;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 
 /**
  * Base class for all persistent session object impl classes.
+ * <p>
+ * If the {@link OperationContext} requests lightweight objects, the object is
+ * a read-only snapshot: it shares the operation context, has no lock, and
+ * converts its properties only when they are accessed for the first time.
+ * Lightweight objects cannot be refreshed. Operations that change the object
+ * in the repository work, but the snapshot doesn't reflect the changes.
  */
 public abstract class AbstractCmisObject implements CmisObject, Serializable {
 
@@ -63,7 +73,8 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
 
     private SessionImpl session;
     private ObjectType objectType;
-    private Map<String, Property<?>> properties;
+    private volatile Map<String, Property<?>> properties;
+    private Properties propertiesData;
     private AllowableActions allowableActions;
     private List<Rendition> renditions;
     private Acl acl;
@@ -72,8 +83,9 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
     private Map<ExtensionLevel, List<CmisExtensionElement>> extensions;
     private OperationContext creationContext;
     private long refreshTimestamp;
+    private boolean lightweight;
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ReentrantReadWriteLock lock;
 
     /**
      * Initializes the object.
@@ -96,23 +108,37 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
 
         this.session = session;
         this.objectType = objectType;
-        this.extensions = new HashMap<ExtensionLevel, List<CmisExtensionElement>>();
-        this.creationContext = new OperationContextImpl(context);
+        this.extensions = null;
+        this.lightweight = (context != null) && context.isLightweight();
         this.refreshTimestamp = System.currentTimeMillis();
 
+        if (lightweight) {
+            // lightweight objects share the operation context
+            this.creationContext = context;
+        } else {
+            this.creationContext = new OperationContextImpl(context);
+            if (lock == null) {
+                lock = new ReentrantReadWriteLock();
+            }
+        }
+
         ObjectFactory of = getObjectFactory();
 
         if (objectData != null) {
             // handle properties
             if (objectData.getProperties() != null) {
-                this.properties = of.convertProperties(objectType, objectData.getProperties());
-                extensions.put(ExtensionLevel.PROPERTIES, objectData.getProperties().getExtensions());
+                if (lightweight) {
+                    this.propertiesData = objectData.getProperties();
+                } else {
+                    this.properties = of.convertProperties(objectType, objectData.getProperties());
+                }
+                addExtensions(ExtensionLevel.PROPERTIES, objectData.getProperties().getExtensions());
             }
 
             // handle allowable actions
             if (objectData.getAllowableActions() != null) {
                 this.allowableActions = objectData.getAllowableActions();
-                extensions.put(ExtensionLevel.ALLOWABLE_ACTIONS, objectData.getAllowableActions().getExtensions());
+                addExtensions(ExtensionLevel.ALLOWABLE_ACTIONS, objectData.getAllowableActions().getExtensions());
             }
 
             // handle renditions
@@ -126,7 +152,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
             // handle ACL
             if (objectData.getAcl() != null) {
                 acl = objectData.getAcl();
-                extensions.put(ExtensionLevel.ACL, objectData.getAcl().getExtensions());
+                addExtensions(ExtensionLevel.ACL, objectData.getAcl().getExtensions());
             }
 
             // handle policies
@@ -138,7 +164,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
                         policies.add((Policy) policy);
                     }
                 }
-                extensions.put(ExtensionLevel.POLICIES, objectData.getPolicyIds().getExtensions());
+                addExtensions(ExtensionLevel.POLICIES, objectData.getPolicyIds().getExtensions());
             }
 
             // handle relationships
@@ -152,14 +178,40 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
                 }
             }
 
-            extensions.put(ExtensionLevel.OBJECT, objectData.getExtensions());
+            addExtensions(ExtensionLevel.OBJECT, objectData.getExtensions());
+        }
+    }
+
+    /**
+     * Adds the extensions of a level. The map is only created if there are
+     * extensions.
+     */
+    private void addExtensions(ExtensionLevel level, List<CmisExtensionElement> extensionList) {
+        if (extensionList == null) {
+            return;
+        }
+
+        if (extensions == null) {
+            extensions = new EnumMap<ExtensionLevel, List<CmisExtensionElement>>(ExtensionLevel.class);
         }
+
+        extensions.put(level, extensionList);
+    }
+
+    /**
+     * Returns if this object is a lightweight, read-only snapshot.
+     */
+    protected boolean isLightweight() {
+        return lightweight;
     }
 
     /**
      * Acquires a write lock.
      */
     protected void writeLock() {
+        if (lock == null) {
+            throw new CmisRuntimeException("Lightweight objects are read-only!");
+        }
         lock.writeLock().lock();
     }
 
@@ -174,14 +226,28 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
      * Acquires a read lock.
      */
     protected void readLock() {
-        lock.readLock().lock();
+        if (lock != null) {
+            lock.readLock().lock();
+        }
     }
 
     /**
      * Releases a read lock.
      */
     protected void readUnlock() {
-        lock.readLock().unlock();
+        if (lock != null) {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Refreshes this object after it has been changed in the repository.
+     * Lightweight objects are snapshots and are not refreshed.
+     */
+    protected void refreshAfterUpdate() {
+        if (!lightweight) {
+            refresh();
+        }
     }
 
     /**
@@ -320,7 +386,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
         }
 
         if (refresh) {
-            refresh();
+            refreshAfterUpdate();
         }
 
         if (newObjectId == null) {
@@ -381,7 +447,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
     public List<Property<?>> getProperties() {
         readLock();
         try {
-            return Collections.unmodifiableList(new ArrayList<Property<?>>(this.properties.values()));
+            return Collections.unmodifiableList(new ArrayList<Property<?>>(getPropertyMap().values()));
         } finally {
             readUnlock();
         }
@@ -391,7 +457,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
     public <T> Property<T> getProperty(String id) {
         readLock();
         try {
-            return (Property<T>) this.properties.get(id);
+            return (Property<T>) getPropertyMap().get(id);
         } finally {
             readUnlock();
         }
@@ -399,6 +465,22 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
 
     @SuppressWarnings("unchecked")
     public <T> T getPropertyValue(String id) {
+        if (properties == null && propertiesData != null) {
+            // lightweight object: read the value without converting all
+            // properties
+            PropertyData<?> pd = propertiesData.getProperties().get(id);
+            if (pd == null) {
+                return null;
+            }
+
+            PropertyDefinition<?> propDef = objectType.getPropertyDefinitions().get(id);
+            if (propDef != null && propDef.getCardinality() == Cardinality.MULTI) {
+                return (T) pd.getValues();
+            }
+
+            return (T) pd.getFirstValue();
+        }
+
         Property<T> property = getProperty(id);
         if (property == null) {
             return null;
@@ -448,7 +530,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
     public Acl applyAcl(List<Ace> addAces, List<Ace> removeAces, AclPropagation aclPropagation) {
         Acl result = getSession().applyAcl(this, addAces, removeAces, aclPropagation);
 
-        refresh();
+        refreshAfterUpdate();
 
         return result;
     }
@@ -480,7 +562,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
             readUnlock();
         }
 
-        refresh();
+        refreshAfterUpdate();
     }
 
     public void removePolicy(ObjectId... policyIds) {
@@ -491,7 +573,7 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
             readUnlock();
         }
 
-        refresh();
+        refreshAfterUpdate();
     }
 
     public List<Policy> getPolicies() {
@@ -514,9 +596,28 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
         }
     }
 
+    /**
+     * Returns the properties. Lightweight objects convert them on first
+     * access.
+     */
+    private Map<String, Property<?>> getPropertyMap() {
+        Map<String, Property<?>> result = properties;
+        if (result == null && propertiesData != null) {
+            // concurrent callers may convert twice, but the result is the same
+            result = getObjectFactory().convertProperties(objectType, propertiesData);
+            properties = result;
+        }
+
+        return result;
+    }
+
     // --- extensions ---
 
     public List<CmisExtensionElement> getExtensions(ExtensionLevel level) {
+        if (extensions == null) {
+            return null;
+        }
+
         List<CmisExtensionElement> ext = extensions.get(level);
         if (ext == null) {
             return null;
@@ -558,6 +659,10 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
     }
 
     public void refresh() {
+        if (lightweight) {
+            throw new CmisRuntimeException("Lightweight objects are read-only and cannot be refreshed!");
+        }
+
         writeLock();
         try {
             String objectId = getObjectId();
@@ -580,6 +685,10 @@ public abstract class AbstractCmisObject implements CmisObject, Serializable {
     }
 
     public void refreshIfOld(long durationInMillis) {
+        if (lightweight) {
+            throw new CmisRuntimeException("Lightweight objects are read-only and cannot be refreshed!");
+        }
+
         writeLock();
         try {
             if (this.refreshTimestamp < System.currentTimeMillis() - durationInMillis) {
@@ -370,7 +370,12 @@ public abstract class AbstractTransientCmisObject implements TransientCmisObject
     }
 
     public void refreshAndReset() {
-        object.refresh();
+        if (object instanceof AbstractCmisObject) {
+            // lightweight objects are not refreshed
+            ((AbstractCmisObject) object).refreshAfterUpdate();
+        } else {
+            object.refresh();
+        }
         reset();
     }
 
@@ -357,7 +357,7 @@ public class DocumentImpl extends AbstractFilableCmisObject implements Document
         }
 
         if (refresh) {
-            refresh();
+            refreshAfterUpdate();
         }
 
         if (newObjectId == null) {
@@ -397,7 +397,7 @@ public class DocumentImpl extends AbstractFilableCmisObject implements Document
         }
 
         if (refresh) {
-            refresh();
+            refreshAfterUpdate();
         }
 
         if (newObjectId == null) {
@@ -48,6 +48,8 @@ public class OperationContextImpl implements OperationContext, Serializable {
     private boolean cacheEnabled;
     private String cacheKey;
     private int maxItemsPerPage;
+    private int prefetchPages;
+    private boolean lightweight;
 
     /**
      * Default constructor.
@@ -83,6 +85,8 @@ public class OperationContextImpl implements OperationContext, Serializable {
         generateCacheKey();
 
         setMaxItemsPerPage(source.getMaxItemsPerPage());
+        setPrefetchPages(source.getPrefetchPages());
+        setLightweight(source.isLightweight());
     }
 
     /**
@@ -349,6 +353,10 @@ public class OperationContextImpl implements OperationContext, Serializable {
         sb.append("|");
         sb.append(renditionFilter == null ? "" : getRenditionFilterString());
 
+        if (lightweight) {
+            sb.append("|L");
+        }
+
         cacheKey = sb.toString();
     }
 
@@ -363,4 +371,25 @@ public class OperationContextImpl implements OperationContext, Serializable {
 
         this.maxItemsPerPage = maxItemsPerPage;
     }
+
+    public int getPrefetchPages() {
+        return this.prefetchPages;
+    }
+
+    public void setPrefetchPages(int prefetchPages) {
+        if (prefetchPages < 0) {
+            throw new IllegalArgumentException("prefetchPages must be >= 0!");
+        }
+
+        this.prefetchPages = prefetchPages;
+    }
+
+    public boolean isLightweight() {
+        return lightweight;
+    }
+
+    public void setLightweight(boolean lightweight) {
+        this.lightweight = lightweight;
+        generateCacheKey();
+    }
 }
@@ -20,11 +20,18 @@ package org.apache.chemistry.opencmis.client.runtime;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.chemistry.opencmis.client.api.ChangeEvents;
@@ -48,23 +55,30 @@ import org.apache.chemistry.opencmis.client.runtime.cache.CacheImpl;
 import org.apache.chemistry.opencmis.client.runtime.repository.ObjectFactoryImpl;
 import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher;
 import org.apache.chemistry.opencmis.client.runtime.util.CollectionIterable;
+import org.apache.chemistry.opencmis.client.runtime.util.SharedExecutor;
 import org.apache.chemistry.opencmis.client.runtime.util.TreeImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.SessionParameter;
 import org.apache.chemistry.opencmis.commons.data.Ace;
 import org.apache.chemistry.opencmis.commons.data.Acl;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.RepositoryCapabilities;
 import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityQuery;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.RelationshipDirection;
 import org.apache.chemistry.opencmis.commons.enums.Updatability;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.spi.AuthenticationProvider;
 import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
@@ -90,6 +104,9 @@ public class SessionImpl implements Session {
 
     // private static Logger log = LoggerFactory.getLogger(SessionImpl.class);
 
+    /** Maximum number of threads that fetch the objects of one batch. */
+    private static final int GET_OBJECTS_THREADS = 4;
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     /*
@@ -262,7 +279,8 @@ public class SessionImpl implements Session {
         final ObjectFactory objectFactory = getObjectFactory();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<Document>(new AbstractPageFetcher<Document>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<Document>(new AbstractPageFetcher<Document>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<Document> fetchPage(long skipCount) {
@@ -390,7 +408,7 @@ public class SessionImpl implements Session {
         }
 
         // get the object
-        ObjectData objectData = this.binding.getObjectService().getObject(getRepositoryId(), objectId,
+        ObjectData objectData = getBinding().getObjectService().getObject(getRepositoryId(), objectId,
                 context.getFilterString(), context.isIncludeAllowableActions(), context.getIncludeRelationships(),
                 context.getRenditionFilterString(), context.isIncludePolicies(), context.isIncludeAcls(), null);
 
@@ -404,6 +422,246 @@ public class SessionImpl implements Session {
         return result;
     }
 
+    public ItemIterable<CmisObject> getObjects(Collection<? extends ObjectId> objectIds, OperationContext context) {
+        if (objectIds == null) {
+            throw new IllegalArgumentException("Object Ids must be set!");
+        }
+        if (context == null) {
+            throw new IllegalArgumentException("Operation context must be set!");
+        }
+
+        final List<String> ids = new ArrayList<String>(objectIds.size());
+        for (ObjectId objectId : objectIds) {
+            if ((objectId == null) || (objectId.getId() == null)) {
+                throw new IllegalArgumentException("Object Id must be set!");
+            }
+            ids.add(objectId.getId());
+        }
+
+        final OperationContext ctxt = new OperationContextImpl(context);
+
+        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
+
+            @Override
+            protected AbstractPageFetcher.Page<CmisObject> fetchPage(long skipCount) {
+                int from = (int) Math.min(skipCount, ids.size());
+                int to = (int) Math.min(skipCount + this.maxNumItems, ids.size());
+
+                List<CmisObject> page = getObjectBatch(ids.subList(from, to), ctxt);
+
+                return new AbstractPageFetcher.Page<CmisObject>(page, ids.size(), to < ids.size());
+            }
+        });
+    }
+
+    /**
+     * Resolves a batch of object ids. Cached objects are taken from the cache,
+     * the latest versions of documents and folders are fetched with one
+     * <code>IN</code> query per base type if the repository supports queries
+     * and the filter only selects base type properties, and everything else is
+     * fetched with parallel <code>getObject</code> calls.
+     */
+    private List<CmisObject> getObjectBatch(List<String> ids, OperationContext context) {
+        CmisObject[] result = new CmisObject[ids.size()];
+
+        // object id -> positions in the batch
+        Map<String, List<Integer>> missing = new LinkedHashMap<String, List<Integer>>();
+
+        // ask the cache first
+        for (int i = 0; i < ids.size(); i++) {
+            String objectId = ids.get(i);
+
+            if (context.isCacheEnabled()) {
+                result[i] = this.cache.getById(objectId, context.getCacheKey());
+                if (result[i] != null) {
+                    continue;
+                }
+            }
+
+            List<Integer> positions = missing.get(objectId);
+            if (positions == null) {
+                positions = new ArrayList<Integer>(1);
+                missing.put(objectId, positions);
+            }
+            positions.add(i);
+        }
+
+        // query the latest versions of documents and folders
+        if (isQueryByIdsSupported(context)) {
+            queryObjectBatch(BaseTypeId.CMIS_DOCUMENT, missing, result, context);
+            queryObjectBatch(BaseTypeId.CMIS_FOLDER, missing, result, context);
+        }
+
+        // fetch the rest one by one
+        fetchObjectBatch(missing, result, context);
+
+        return new ArrayList<CmisObject>(Arrays.asList(result));
+    }
+
+    private boolean isQueryByIdsSupported(OperationContext context) {
+        // query results don't contain ACLs and policies
+        if (context.isIncludeAcls() || context.isIncludePolicies()) {
+            return false;
+        }
+
+        // a base type query doesn't return the properties of subtypes
+        Set<String> filter = context.getFilter();
+        if (filter == null || filter.contains(OperationContextImpl.PROPERTIES_STAR)) {
+            return false;
+        }
+
+        RepositoryCapabilities capabilities = getRepositoryInfo().getCapabilities();
+        if (capabilities == null) {
+            return false;
+        }
+
+        CapabilityQuery query = capabilities.getQueryCapability();
+        return query == CapabilityQuery.METADATAONLY || query == CapabilityQuery.BOTHCOMBINED
+                || query == CapabilityQuery.BOTHSEPARATE;
+    }
+
+    private void queryObjectBatch(BaseTypeId baseTypeId, Map<String, List<Integer>> missing, CmisObject[] result,
+            OperationContext context) {
+        // a single object is cheaper to get directly
+        if (missing.size() < 2) {
+            return;
+        }
+
+        ObjectList resultList;
+        try {
+            ObjectType type = getTypeDefinition(baseTypeId.value());
+            if (!Boolean.TRUE.equals(type.isQueryable())) {
+                return;
+            }
+
+            // select the filtered properties by their query names, give up if
+            // the filter names a property the base type doesn't define
+            Map<String, PropertyDefinition<?>> propDefs = type.getPropertyDefinitions();
+            if (propDefs == null) {
+                return;
+            }
+
+            StringBuilder select = new StringBuilder();
+            for (String propertyId : context.getFilterString().split(",")) {
+                PropertyDefinition<?> propDef = propDefs.get(propertyId);
+                if (propDef == null || propDef.getQueryName() == null) {
+                    return;
+                }
+                if (select.length() > 0) {
+                    select.append(",");
+                }
+                select.append(propDef.getQueryName());
+            }
+
+            QueryStatement statement = createQueryStatement("SELECT " + select + " FROM " + type.getQueryName()
+                    + " WHERE " + PropertyIds.OBJECT_ID + " IN (?)");
+
+            List<ObjectId> objectIds = new ArrayList<ObjectId>(missing.size());
+            for (String objectId : missing.keySet()) {
+                objectIds.add(createObjectId(objectId));
+            }
+            statement.setId(1, objectIds.toArray(new ObjectId[objectIds.size()]));
+
+            resultList = getBinding().getDiscoveryService().query(getRepositoryId(), statement.toQueryString(),
+                    false, context.isIncludeAllowableActions(), context.getIncludeRelationships(),
+                    context.getRenditionFilterString(), BigInteger.valueOf(missing.size()), null, null);
+        } catch (CmisBaseException e) {
+            // the repository can't answer this query, get the objects directly
+            return;
+        }
+
+        if (resultList == null || resultList.getObjects() == null) {
+            return;
+        }
+
+        for (ObjectData objectData : resultList.getObjects()) {
+            if (objectData == null) {
+                continue;
+            }
+
+            List<Integer> positions = missing.remove(objectData.getId());
+            if (positions == null) {
+                continue;
+            }
+
+            // query results are not cached, they don't carry everything
+            // getObject() returns for the same operation context
+            CmisObject object = getObjectFactory().convertObject(objectData, context);
+
+            for (Integer position : positions) {
+                result[position] = object;
+            }
+        }
+    }
+
+    private void fetchObjectBatch(Map<String, List<Integer>> missing, final CmisObject[] result,
+            final OperationContext context) {
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        final List<Map.Entry<String, List<Integer>>> entries = new ArrayList<Map.Entry<String, List<Integer>>>(
+                missing.entrySet());
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<RuntimeException> error = new AtomicReference<RuntimeException>();
+
+        final Runnable fetcher = new Runnable() {
+            public void run() {
+                int index;
+                while (error.get() == null && (index = next.getAndIncrement()) < entries.size()) {
+                    Map.Entry<String, List<Integer>> entry = entries.get(index);
+
+                    CmisObject object;
+                    try {
+                        object = getObject(entry.getKey(), context);
+                    } catch (CmisObjectNotFoundException e) {
+                        object = null;
+                    } catch (RuntimeException e) {
+                        error.compareAndSet(null, e);
+                        return;
+                    }
+
+                    for (Integer position : entry.getValue()) {
+                        result[position] = object;
+                    }
+                }
+            }
+        };
+
+        // the calling thread fetches objects, too
+        int helpers = Math.min(entries.size(), GET_OBJECTS_THREADS) - 1;
+        final CountDownLatch finished = new CountDownLatch(helpers);
+        for (int i = 0; i < helpers; i++) {
+            try {
+                SharedExecutor.getExecutor().execute(new Runnable() {
+                    public void run() {
+                        try {
+                            fetcher.run();
+                        } finally {
+                            finished.countDown();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                finished.countDown();
+            }
+        }
+
+        fetcher.run();
+
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmisRuntimeException("Interrupted while fetching objects!", e);
+        }
+
+        if (error.get() != null) {
+            throw error.get();
+        }
+    }
+
     public CmisObject getObjectByPath(String path) {
         return getObjectByPath(path, getDefaultContext());
     }
@@ -548,7 +806,8 @@ public class SessionImpl implements Session {
         final ObjectFactory objectFactory = this.getObjectFactory();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<QueryResult>(new AbstractPageFetcher<QueryResult>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<QueryResult>(new AbstractPageFetcher<QueryResult>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<QueryResult> fetchPage(long skipCount) {
@@ -614,7 +873,8 @@ public class SessionImpl implements Session {
             statement.append(orderBy);
         }
 
-        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<CmisObject> fetchPage(long skipCount) {
@@ -850,7 +1110,8 @@ public class SessionImpl implements Session {
         final RelationshipService relationshipService = getBinding().getRelationshipService();
         final OperationContext ctxt = new OperationContextImpl(context);
 
-        return new CollectionIterable<Relationship>(new AbstractPageFetcher<Relationship>(ctxt.getMaxItemsPerPage()) {
+        return new CollectionIterable<Relationship>(new AbstractPageFetcher<Relationship>(ctxt.getMaxItemsPerPage(),
+                ctxt.getPrefetchPages()) {
 
             @Override
             protected AbstractPageFetcher.Page<Relationship> fetchPage(long skipCount) {
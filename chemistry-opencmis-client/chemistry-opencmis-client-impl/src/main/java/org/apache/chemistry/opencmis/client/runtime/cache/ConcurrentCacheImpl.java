@@ -0,0 +1,610 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.cache;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Session;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+
+/**
+ * Concurrent cache implementation for sessions that are shared by many
+ * threads.
+ * <p>
+ * Object and path-to-id entries are spread over lock-striped segments. Reads
+ * never take a lock. Writes only lock the segment the key belongs to. Each
+ * segment evicts in a second-chance (clock) order, which approximates LRU
+ * without reordering entries on every read. Entries expire after the
+ * configured time-to-live.
+ * <p>
+ * Path entries are coupled to the object entry they point to: a path only
+ * resolves while its object is cached, and removing an object also removes
+ * all paths that have been registered for it. An object only remembers the
+ * paths that still point to it.
+ * <p>
+ * This cache can be selected with the session parameter
+ * {@link SessionParameter#CACHE_CLASS}. It understands the same parameters as
+ * {@link CacheImpl}.
+ */
+public class ConcurrentCacheImpl implements Cache {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private int cacheSize;
+    private int cacheTtl;
+    private int pathToIdSize;
+    private int pathToIdTtl;
+
+    private transient volatile Segment<ObjectEntry>[] objectSegments;
+    private transient volatile Segment<PathEntry>[] pathToIdSegments;
+
+    /**
+     * Default constructor.
+     */
+    public ConcurrentCacheImpl() {
+    }
+
+    public void initialize(Session session, Map<String, String> parameters) {
+        // cache size
+        try {
+            cacheSize = Integer.valueOf(parameters.get(SessionParameter.CACHE_SIZE_OBJECTS));
+            if (cacheSize < 0) {
+                cacheSize = 0;
+            }
+        } catch (Exception e) {
+            cacheSize = 1000;
+        }
+
+        // cache time-to-live
+        try {
+            cacheTtl = Integer.valueOf(parameters.get(SessionParameter.CACHE_TTL_OBJECTS));
+            if (cacheTtl < 0) {
+                cacheTtl = 2 * 60 * 60 * 1000;
+            }
+        } catch (Exception e) {
+            cacheTtl = 2 * 60 * 60 * 1000;
+        }
+
+        // path-to-id size
+        try {
+            pathToIdSize = Integer.valueOf(parameters.get(SessionParameter.CACHE_SIZE_PATHTOID));
+            if (pathToIdSize < 0) {
+                pathToIdSize = 0;
+            }
+        } catch (Exception e) {
+            pathToIdSize = 1000;
+        }
+
+        // path-to-id time-to-live
+        try {
+            pathToIdTtl = Integer.valueOf(parameters.get(SessionParameter.CACHE_TTL_PATHTOID));
+            if (pathToIdTtl < 0) {
+                pathToIdTtl = 30 * 60 * 1000;
+            }
+        } catch (Exception e) {
+            pathToIdTtl = 30 * 60 * 1000;
+        }
+
+        initializeInternals();
+    }
+
+    /**
+     * Sets up the internal objects.
+     */
+    private void initializeInternals() {
+        objectSegments = createSegments(cacheSize);
+        pathToIdSegments = createSegments(pathToIdSize);
+    }
+
+    /**
+     * Creates a power-of-two number of segments that share the given capacity.
+     * Small caches get fewer segments so that each segment still holds enough
+     * entries to evict in a meaningful order.
+     */
+    private static <T extends Entry> Segment<T>[] createSegments(int capacity) {
+        int count = 1;
+        while ((count < MAX_SEGMENTS) && (capacity / (count * 2) >= MIN_SEGMENT_SIZE)) {
+            count = count * 2;
+        }
+
+        int segmentCapacity = (capacity + count - 1) / count;
+
+        Segment<T>[] segments = newSegmentArray(count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<T>(segmentCapacity);
+        }
+
+        return segments;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Entry> Segment<T>[] newSegmentArray(int count) {
+        return (Segment<T>[]) Array.newInstance(Segment.class, count);
+    }
+
+    private static <T extends Entry> Segment<T> segmentFor(Segment<T>[] segments, String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+
+        return segments[h & (segments.length - 1)];
+    }
+
+    public void clear() {
+        initializeInternals();
+    }
+
+    public boolean containsId(String objectId, String cacheKey) {
+        if (objectId == null) {
+            return false;
+        }
+
+        return segmentFor(objectSegments, objectId).get(objectId) != null;
+    }
+
+    public boolean containsPath(String path, String cacheKey) {
+        return getIdByPath(path) != null;
+    }
+
+    public CmisObject getById(String objectId, String cacheKey) {
+        if ((objectId == null) || (cacheKey == null)) {
+            return null;
+        }
+
+        ObjectEntry entry = segmentFor(objectSegments, objectId).get(objectId);
+        if (entry == null) {
+            return null;
+        }
+
+        Map<String, CmisObject> item = entry.getObjects();
+        return (item == null ? null : item.get(cacheKey));
+    }
+
+    public CmisObject getByPath(String path, String cacheKey) {
+        String objectId = getIdByPath(path);
+        if (objectId == null) {
+            return null;
+        }
+
+        return getById(objectId, cacheKey);
+    }
+
+    /**
+     * Resolves a path to an object id. A path entry whose object is no longer
+     * cached is dropped.
+     */
+    private String getIdByPath(String path) {
+        if (path == null) {
+            return null;
+        }
+
+        Segment<PathEntry> segment = segmentFor(pathToIdSegments, path);
+
+        PathEntry entry = segment.get(path);
+        if (entry == null) {
+            return null;
+        }
+
+        if (segmentFor(objectSegments, entry.objectId).get(entry.objectId) == null) {
+            segment.remove(path, entry);
+            return null;
+        }
+
+        return entry.objectId;
+    }
+
+    public void put(CmisObject object, String cacheKey) {
+        // no object, no cache key - no cache
+        if ((object == null) || (cacheKey == null)) {
+            return;
+        }
+
+        // no id - no cache
+        String objectId = object.getId();
+        if (objectId == null) {
+            return;
+        }
+
+        Segment<ObjectEntry> segment = segmentFor(objectSegments, objectId);
+
+        segment.lock();
+        try {
+            ObjectEntry entry = segment.get(objectId);
+            if (entry == null) {
+                entry = new ObjectEntry(cacheTtl);
+                entry.putObject(cacheKey, object);
+                segment.add(objectId, entry);
+            } else {
+                entry.putObject(cacheKey, object);
+            }
+        } finally {
+            segment.unlock();
+        }
+
+        // folders may have a path, use it!
+        String path = object.getPropertyValue(PropertyIds.PATH);
+        if (path != null) {
+            putPathInternal(path, objectId);
+        }
+    }
+
+    public void putPath(String path, CmisObject object, String cacheKey) {
+        if (path == null) {
+            return;
+        }
+
+        put(object, cacheKey);
+
+        if ((object != null) && (object.getId() != null) && (cacheKey != null)) {
+            putPathInternal(path, object.getId());
+        }
+    }
+
+    private void putPathInternal(String path, String objectId) {
+        Segment<PathEntry> segment = segmentFor(pathToIdSegments, path);
+
+        segment.lock();
+        try {
+            segment.add(path, new PathEntry(objectId, pathToIdTtl));
+        } finally {
+            segment.unlock();
+        }
+
+        // remember the path at the object, so that both go away together
+        Segment<ObjectEntry> objectSegment = segmentFor(objectSegments, objectId);
+
+        objectSegment.lock();
+        try {
+            ObjectEntry entry = objectSegment.get(objectId);
+            if (entry != null) {
+                // drop paths that have been evicted, expired or reused
+                List<String> paths = new ArrayList<String>();
+                for (String p : entry.getPaths()) {
+                    if (!p.equals(path) && isPathOf(p, objectId)) {
+                        paths.add(p);
+                    }
+                }
+                paths.add(path);
+
+                entry.setPaths(paths);
+            }
+        } finally {
+            objectSegment.unlock();
+        }
+    }
+
+    /**
+     * Checks if a live path entry points to the given object.
+     */
+    private boolean isPathOf(String path, String objectId) {
+        PathEntry entry = segmentFor(pathToIdSegments, path).getRaw(path);
+        return (entry != null) && !entry.isExpired() && objectId.equals(entry.objectId);
+    }
+
+    public void remove(String objectId) {
+        if (objectId == null) {
+            return;
+        }
+
+        Segment<ObjectEntry> objectSegment = segmentFor(objectSegments, objectId);
+
+        ObjectEntry entry;
+        objectSegment.lock();
+        try {
+            entry = objectSegment.remove(objectId);
+        } finally {
+            objectSegment.unlock();
+        }
+
+        if (entry == null) {
+            return;
+        }
+
+        for (String path : entry.getPaths()) {
+            Segment<PathEntry> segment = segmentFor(pathToIdSegments, path);
+
+            segment.lock();
+            try {
+                PathEntry pathEntry = segment.getRaw(path);
+                if ((pathEntry != null) && objectId.equals(pathEntry.objectId)) {
+                    segment.remove(path, pathEntry);
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    // --- serialization ---
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+
+        Map<String, Map<String, CmisObject>> objects = new HashMap<String, Map<String, CmisObject>>();
+        for (Segment<ObjectEntry> segment : objectSegments) {
+            for (Map.Entry<String, ObjectEntry> e : segment.map.entrySet()) {
+                Map<String, CmisObject> item = e.getValue().getObjects();
+                if (item != null) {
+                    objects.put(e.getKey(), item);
+                }
+            }
+        }
+        out.writeObject(objects);
+
+        Map<String, String> paths = new HashMap<String, String>();
+        for (Segment<PathEntry> segment : pathToIdSegments) {
+            for (Map.Entry<String, PathEntry> e : segment.map.entrySet()) {
+                if (!e.getValue().isExpired()) {
+                    paths.put(e.getKey(), e.getValue().objectId);
+                }
+            }
+        }
+        out.writeObject(paths);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        initializeInternals();
+
+        Map<String, Map<String, CmisObject>> objects = (Map<String, Map<String, CmisObject>>) in.readObject();
+        for (Map<String, CmisObject> item : objects.values()) {
+            for (Map.Entry<String, CmisObject> e : item.entrySet()) {
+                put(e.getValue(), e.getKey());
+            }
+        }
+
+        Map<String, String> paths = (Map<String, String>) in.readObject();
+        for (Map.Entry<String, String> e : paths.entrySet()) {
+            putPathInternal(e.getKey(), e.getValue());
+        }
+    }
+
+    // --- segment ---
+
+    /**
+     * A part of the cache. Lookups go straight to a concurrent map. Additions
+     * are serialized by the segment lock and push the new entry to the clock
+     * queue, which is consulted when the segment runs over its capacity.
+     */
+    private static class Segment<T extends Entry> extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final ConcurrentHashMap<String, T> map;
+        private final ConcurrentLinkedQueue<QueueItem<T>> queue;
+        private int queueLength;
+
+        public Segment(int capacity) {
+            this.capacity = capacity;
+            this.map = new ConcurrentHashMap<String, T>();
+            this.queue = new ConcurrentLinkedQueue<QueueItem<T>>();
+            this.queueLength = 0;
+        }
+
+        /**
+         * Returns the live entry for the given key and marks it as recently
+         * used. Doesn't lock.
+         */
+        public T get(String key) {
+            T entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.isExpired()) {
+                map.remove(key, entry);
+                return null;
+            }
+
+            entry.referenced = true;
+
+            return entry;
+        }
+
+        /**
+         * Returns the entry for the given key, regardless of its state.
+         */
+        public T getRaw(String key) {
+            return map.get(key);
+        }
+
+        /**
+         * Adds or replaces an entry. Must be called while holding the lock.
+         */
+        public void add(String key, T entry) {
+            if (capacity == 0) {
+                return;
+            }
+
+            QueueItem<T> added = new QueueItem<T>(key, entry);
+
+            map.put(key, entry);
+            queue.offer(added);
+            queueLength++;
+
+            evict(added);
+        }
+
+        /**
+         * Removes an entry. Must be called while holding the lock.
+         */
+        public T remove(String key) {
+            return map.remove(key);
+        }
+
+        public boolean remove(String key, T entry) {
+            return map.remove(key, entry);
+        }
+
+        /**
+         * Removes entries until the segment is back within its capacity. An
+         * entry that has been read since it was last looked at gets a second
+         * chance and goes back to the end of the queue. The entry that has
+         * just been added is never the victim.
+         */
+        private void evict(QueueItem<T> added) {
+            int size = map.size();
+
+            while (size > capacity) {
+                QueueItem<T> item = queue.poll();
+                if (item == null) {
+                    break;
+                }
+                queueLength--;
+
+                if (map.get(item.key) != item.entry) {
+                    // stale queue item, the entry has been replaced or removed
+                    continue;
+                }
+
+                if ((item == added) || (item.entry.referenced && !item.entry.isExpired())) {
+                    item.entry.referenced = false;
+                    queue.offer(item);
+                    queueLength++;
+                    continue;
+                }
+
+                if (map.remove(item.key, item.entry)) {
+                    size--;
+                }
+            }
+
+            // removed entries leave stale items behind, don't let them pile up
+            if (queueLength > 2 * capacity + MIN_SEGMENT_SIZE) {
+                Iterator<QueueItem<T>> iterator = queue.iterator();
+                while (iterator.hasNext()) {
+                    QueueItem<T> item = iterator.next();
+                    if (map.get(item.key) != item.entry) {
+                        iterator.remove();
+                        queueLength--;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class QueueItem<T extends Entry> {
+        final String key;
+        final T entry;
+
+        public QueueItem(String key, T entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    // --- cache entries ---
+
+    private abstract static class Entry {
+        private final long expiration;
+        volatile boolean referenced;
+
+        public Entry(int ttl) {
+            expiration = System.currentTimeMillis() + ttl;
+        }
+
+        public boolean isExpired() {
+            return expiration < System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Holds all cached representations of one object, keyed by cache key.
+     * The map is never modified after it has been published, writers replace
+     * it with a copy.
+     */
+    private static class ObjectEntry extends Entry {
+        private volatile SoftReference<Map<String, CmisObject>> objects;
+        private volatile List<String> paths;
+
+        public ObjectEntry(int ttl) {
+            super(ttl);
+            objects = new SoftReference<Map<String, CmisObject>>(Collections.<String, CmisObject> emptyMap());
+            paths = Collections.emptyList();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return super.isExpired() || (objects.get() == null);
+        }
+
+        public Map<String, CmisObject> getObjects() {
+            return objects.get();
+        }
+
+        /**
+         * Must be called while holding the segment lock.
+         */
+        public void putObject(String cacheKey, CmisObject object) {
+            Map<String, CmisObject> current = objects.get();
+
+            Map<String, CmisObject> newObjects = (current == null ? new HashMap<String, CmisObject>()
+                    : new HashMap<String, CmisObject>(current));
+            newObjects.put(cacheKey, object);
+
+            objects = new SoftReference<Map<String, CmisObject>>(newObjects);
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Must be called while holding the segment lock. The list must not be
+         * modified afterwards.
+         */
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+    }
+
+    private static class PathEntry extends Entry {
+        final String objectId;
+
+        public PathEntry(String objectId, int ttl) {
+            super(ttl);
+            this.objectId = objectId;
+        }
+    }
+}
@@ -33,6 +33,8 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
     private long skipCount;
     private int skipOffset;
     private final AbstractPageFetcher<T> pageFetcher;
+    private final boolean prefetch;
+    private PagePrefetcher<T> prefetcher;
 
     private Page<T> page;
     private Long totalNumItems;
@@ -45,8 +47,21 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
      * @param pageFetcher
      */
     protected AbstractIterator(long skipCount, AbstractPageFetcher<T> pageFetcher) {
+        this(skipCount, pageFetcher, false);
+    }
+
+    /**
+     * Construct
+     *
+     * @param skipCount
+     * @param pageFetcher
+     * @param prefetch if <code>true</code>, the following pages are fetched in
+     *            the background as configured by the page fetcher
+     */
+    protected AbstractIterator(long skipCount, AbstractPageFetcher<T> pageFetcher, boolean prefetch) {
         this.skipCount = skipCount;
         this.pageFetcher = pageFetcher;
+        this.prefetch = prefetch && pageFetcher.getPrefetchPages() > 0;
     }
 
     public long getPosition() {
@@ -95,6 +110,17 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Stops fetching pages in the background. Should be called if the
+     * iterator is abandoned before it reached the end.
+     */
+    public void cancelPrefetch() {
+        if (prefetcher != null) {
+            prefetcher.cancel();
+            prefetcher = null;
+        }
+    }
+
     /**
      * Gets current skip count
      *
@@ -130,6 +156,11 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
     protected Page<T> getCurrentPage() {
         if (page == null) {
             page = pageFetcher.fetchPage(skipCount);
+
+            if (prefetch && prefetcher == null) {
+                prefetcher = new PagePrefetcher<T>(pageFetcher, pageFetcher.getPrefetchPages());
+                prefetcher.start(skipCount, page);
+            }
         }
         return page;
     }
@@ -144,7 +175,18 @@ public abstract class AbstractIterator<T> implements Iterator<T> {
         skipOffset = 0;
         totalNumItems = null;
         hasMoreItems = null;
-        page = pageFetcher.fetchPage(skipCount);
+
+        page = null;
+        if (prefetcher != null) {
+            page = prefetcher.take(skipCount);
+            if (page == null) {
+                cancelPrefetch();
+            }
+        }
+
+        if (page == null) {
+            page = pageFetcher.fetchPage(skipCount);
+        }
         return page;
     }
 
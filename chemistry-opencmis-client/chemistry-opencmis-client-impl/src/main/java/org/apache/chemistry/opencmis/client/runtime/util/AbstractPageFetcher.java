@@ -29,9 +29,22 @@ import java.util.List;
 public abstract class AbstractPageFetcher<T> {
 
     protected long maxNumItems;
+    private final int prefetchPages;
 
     protected AbstractPageFetcher(long maxNumItems) {
+        this(maxNumItems, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxNumItems max number of items per page
+     * @param prefetchPages number of pages that iterators fetch ahead in the
+     *            background, 0 disables prefetching
+     */
+    protected AbstractPageFetcher(long maxNumItems, int prefetchPages) {
         this.maxNumItems = maxNumItems;
+        this.prefetchPages = prefetchPages;
     }
 
     /**
@@ -81,4 +94,8 @@ public abstract class AbstractPageFetcher<T> {
         this.maxNumItems = maxNumItems;
     }
 
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
 }
@@ -36,7 +36,7 @@ public class CollectionIterator<T> extends AbstractIterator<T> {
      * @param pageFetcher
      */
     public CollectionIterator(long skipCount, AbstractPageFetcher<T> pageFetcher) {
-        super(skipCount, pageFetcher);
+        super(skipCount, pageFetcher, true);
     }
 
     /*
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime.util;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher.Page;
+
+/**
+ * Fetches the pages following the current page in the background.
+ * <p>
+ * At most <code>maxPages</code> pages are buffered. The background task stops
+ * when the buffer is full and is resumed when the consumer takes a page. That
+ * limits the work that is wasted if an iterator is abandoned.
+ *
+ * @param <T> the type of items fetched
+ */
+class PagePrefetcher<T> implements Runnable {
+
+    private final AbstractPageFetcher<T> pageFetcher;
+    private final int maxPages;
+
+    private final LinkedList<PrefetchedPage<T>> buffer = new LinkedList<PrefetchedPage<T>>();
+    private long nextSkipCount;
+    private boolean running;
+    private boolean done;
+    private boolean cancelled;
+
+    /**
+     * Constructor.
+     *
+     * @param pageFetcher the page fetcher
+     * @param maxPages max number of pages to fetch ahead
+     */
+    PagePrefetcher(AbstractPageFetcher<T> pageFetcher, int maxPages) {
+        this.pageFetcher = pageFetcher;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Starts fetching the pages following the given page.
+     *
+     * @param skipCount skip count of the given page
+     * @param page the page that has been fetched by the consumer
+     */
+    synchronized void start(long skipCount, Page<T> page) {
+        if (!hasNextPage(page)) {
+            done = true;
+            return;
+        }
+
+        nextSkipCount = skipCount + page.getItems().size();
+        resume();
+    }
+
+    /**
+     * Takes the next page from the buffer. Waits if the page is currently
+     * being fetched.
+     *
+     * @param skipCount skip count of the requested page
+     * @return the page or <code>null</code> if the page has not been prefetched
+     *         and the consumer has to fetch it itself
+     */
+    synchronized Page<T> take(long skipCount) {
+        while (true) {
+            if (cancelled) {
+                return null;
+            }
+
+            if (!buffer.isEmpty()) {
+                PrefetchedPage<T> prefetched = buffer.removeFirst();
+                if (prefetched.skipCount != skipCount) {
+                    // the consumer went somewhere else
+                    cancel();
+                    return null;
+                }
+
+                resume();
+
+                if (prefetched.exception != null) {
+                    throw prefetched.exception;
+                }
+
+                return prefetched.page;
+            }
+
+            if (!running) {
+                return null;
+            }
+
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stops fetching and drops all buffered pages.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        buffer.clear();
+        notifyAll();
+    }
+
+    public void run() {
+        while (true) {
+            long skipCount;
+            synchronized (this) {
+                if (cancelled || done || buffer.size() >= maxPages) {
+                    running = false;
+                    notifyAll();
+                    return;
+                }
+
+                skipCount = nextSkipCount;
+            }
+
+            Page<T> page = null;
+            RuntimeException exception = null;
+            try {
+                page = pageFetcher.fetchPage(skipCount);
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+
+            synchronized (this) {
+                if (cancelled) {
+                    running = false;
+                    notifyAll();
+                    return;
+                }
+
+                buffer.add(new PrefetchedPage<T>(skipCount, page, exception));
+
+                if (exception != null || !hasNextPage(page)) {
+                    done = true;
+                } else {
+                    nextSkipCount = skipCount + page.getItems().size();
+                }
+
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Restarts the background task if necessary. Must be called while holding
+     * the monitor.
+     */
+    private void resume() {
+        if (running || done || cancelled || buffer.size() >= maxPages) {
+            return;
+        }
+
+        running = true;
+        try {
+            SharedExecutor.getExecutor().execute(this);
+        } catch (RuntimeException e) {
+            // the consumer fetches the pages itself
+            running = false;
+            done = true;
+        }
+    }
+
+    private static boolean hasNextPage(Page<?> page) {
+        if (page == null || !Boolean.TRUE.equals(page.getHasMoreItems())) {
+            return false;
+        }
+
+        List<?> items = page.getItems();
+        return items != null && !items.isEmpty();
+    }
+
+    /**
+     * A prefetched page or the exception that occurred while fetching it.
+     */
+    private static class PrefetchedPage<T> {
+        final long skipCount;
+        final Page<T> page;
+        final RuntimeException exception;
+
+        PrefetchedPage(long skipCount, Page<T> page, RuntimeException exception) {
+            this.skipCount = skipCount;
+            this.page = page;
+            this.exception = exception;
+        }
+    }
+}
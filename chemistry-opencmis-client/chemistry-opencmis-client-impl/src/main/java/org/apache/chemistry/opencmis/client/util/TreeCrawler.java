@@ -0,0 +1,345 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.util;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.FileableCmisObject;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+
+/**
+ * Walks a folder tree with several threads.
+ * <p>
+ * Each folder is listed with <code>getChildren</code> by one of the worker
+ * threads. Child folders are handed to the other workers as soon as they
+ * show up, so a large tree is listed with up to <code>threads</code>
+ * concurrent requests. This works on repositories that don't support
+ * <code>getDescendants</code> and <code>getFolderTree</code> and isn't
+ * limited by the depth these operations can handle.
+ * <p>
+ * Objects are reported to a {@link Callback} or put into a queue while the
+ * crawl is running. The order is not defined. Multi-filed documents are
+ * reported once for each of their parents. When <code>crawl</code> returns,
+ * normally, with an exception or after {@link #cancel()}, the callback is not
+ * called anymore. The only exception is an interrupt of the thread that
+ * called <code>crawl</code>, which returns without waiting for the workers.
+ */
+public class TreeCrawler {
+
+    private static final AtomicInteger CRAWLER_NUMBER = new AtomicInteger(1);
+
+    /**
+     * Receives the objects found by the crawler.
+     */
+    public interface Callback {
+
+        /**
+         * Called for each object in the tree. This method is called
+         * concurrently by the worker threads.
+         * 
+         * @param object
+         *            the object
+         * @param parent
+         *            the folder the object has been found in
+         * @param depth
+         *            the depth of the object, the children of the start
+         *            folder have the depth 1
+         */
+        void found(FileableCmisObject object, Folder parent, int depth);
+    }
+
+    private final int threads;
+    private int maxDepth = -1;
+    private boolean foldersOnly = false;
+    private OperationContext context;
+
+    private volatile Crawl crawl;
+
+    /**
+     * Constructor.
+     * 
+     * @param threads
+     *            number of worker threads
+     */
+    public TreeCrawler(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be > 0!");
+        }
+
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the max depth. -1 (the default) walks the whole tree.
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public boolean isFoldersOnly() {
+        return foldersOnly;
+    }
+
+    /**
+     * If set to <code>true</code>, only folders are reported.
+     */
+    public void setFoldersOnly(boolean foldersOnly) {
+        this.foldersOnly = foldersOnly;
+    }
+
+    public OperationContext getOperationContext() {
+        return context;
+    }
+
+    /**
+     * Sets the operation context for the <code>getChildren</code> calls. If it
+     * isn't set, the default context of the session is used.
+     */
+    public void setOperationContext(OperationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Walks the tree below the given folder and waits until all folders have
+     * been listed and all callbacks have returned.
+     * 
+     * @param folder
+     *            the start folder, it is not reported itself
+     * @param callback
+     *            the callback
+     * @return the number of reported objects
+     */
+    public int crawl(Folder folder, Callback callback) {
+        if (folder == null) {
+            throw new IllegalArgumentException("Folder must be set!");
+        }
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback must be set!");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final int crawlerNumber = CRAWLER_NUMBER.getAndIncrement();
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "OpenCMIS tree crawler " + crawlerNumber + "-"
+                        + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        Crawl current = new Crawl(executor, callback);
+        crawl = current;
+        try {
+            current.submit(folder, 1);
+            return current.await();
+        } finally {
+            crawl = null;
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Walks the tree below the given folder and puts all objects into the
+     * given queue. If the queue is bounded, the workers wait until the
+     * consumer has made room.
+     * 
+     * @param folder
+     *            the start folder, it is not put into the queue
+     * @param queue
+     *            the queue
+     * @return the number of objects put into the queue
+     */
+    public int crawl(Folder folder, final BlockingQueue<? super FileableCmisObject> queue) {
+        if (queue == null) {
+            throw new IllegalArgumentException("Queue must be set!");
+        }
+
+        return crawl(folder, new Callback() {
+            public void found(FileableCmisObject object, Folder parent, int depth) {
+                try {
+                    queue.put(object);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CmisRuntimeException("Tree crawler interrupted.", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the running crawl. The worker threads are interrupted and no new
+     * objects are reported. The waiting <code>crawl</code> call returns the
+     * number of objects reported so far as soon as the callbacks that are
+     * still running have returned.
+     */
+    public void cancel() {
+        Crawl current = crawl;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * State of one crawl.
+     */
+    private class Crawl {
+        private final ExecutorService executor;
+        private final Callback callback;
+        private final AtomicInteger found = new AtomicInteger();
+        private int pending = 0;
+        private boolean cancelled = false;
+        private RuntimeException error = null;
+
+        Crawl(ExecutorService executor, Callback callback) {
+            this.executor = executor;
+            this.callback = callback;
+        }
+
+        void submit(final Folder folder, final int depth) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                pending++;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            if (!isCancelled()) {
+                                list(folder, depth);
+                            }
+                        } catch (RuntimeException e) {
+                            fail(e);
+                        } catch (Error e) {
+                            fail(new CmisRuntimeException("Tree crawler failed: " + e, e));
+                        } finally {
+                            done();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the crawl has already ended
+                done();
+            }
+        }
+
+        /**
+         * Lists one folder and submits its child folders.
+         */
+        private void list(Folder folder, int depth) {
+            ItemIterable<CmisObject> children = (context == null ? folder.getChildren() : folder
+                    .getChildren(context));
+
+            for (CmisObject child : children) {
+                if (isCancelled()) {
+                    return;
+                }
+
+                if (!(child instanceof FileableCmisObject)) {
+                    continue;
+                }
+
+                boolean isFolder = child instanceof Folder;
+                if (isFolder && (maxDepth < 0 || depth < maxDepth)) {
+                    submit((Folder) child, depth + 1);
+                }
+
+                if (isFolder || !foldersOnly) {
+                    callback.found((FileableCmisObject) child, folder, depth);
+                    found.incrementAndGet();
+                }
+            }
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+
+            // queued folders are never run, running workers are interrupted
+            List<Runnable> dropped = executor.shutdownNow();
+            pending -= dropped.size();
+            notifyAll();
+        }
+
+        private synchronized void fail(RuntimeException e) {
+            if (error == null && !cancelled) {
+                error = e;
+            }
+            cancel();
+        }
+
+        private synchronized void done() {
+            pending--;
+            if (pending == 0) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Waits until all submitted folders have been listed or dropped. If
+         * the calling thread is interrupted, the crawl is cancelled without
+         * waiting for the workers.
+         */
+        synchronized int await() {
+            try {
+                while (pending > 0) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new CmisRuntimeException("Tree crawler interrupted.", e);
+            }
+
+            if (error != null) {
+                throw error;
+            }
+
+            return found.get();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime;
+
+import static junit.framework.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.runtime.cache.Cache;
+import org.apache.chemistry.opencmis.client.runtime.cache.CacheImpl;
+import org.apache.chemistry.opencmis.client.runtime.cache.ConcurrentCacheImpl;
+import org.apache.chemistry.opencmis.commons.SessionParameter;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ConcurrentCacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentCacheTest.class);
+
+    private static final String CACHE_KEY = "key";
+    private static final int CONTENTION_IDS = 1500;
+
+    @Test
+    public void cacheSingleObjectTest() {
+        Cache cache = createCache(100, 3600 * 1000);
+
+        CmisObject obj1 = new CmisObjectMock("1");
+        cache.put(obj1, CACHE_KEY);
+
+        assertTrue(cache.containsId("1", CACHE_KEY));
+        assertEquals(obj1, cache.getById("1", CACHE_KEY));
+        assertNull(cache.getById("1", "otherKey"));
+
+        cache.clear();
+
+        assertFalse(cache.containsId("1", CACHE_KEY));
+        assertNull(cache.getById("1", CACHE_KEY));
+    }
+
+    @Test
+    public void lruTest() {
+        int cacheSize = 3;
+        Cache cache = createCache(cacheSize, 3600 * 1000);
+
+        for (int i = 0; i < cacheSize + 1; i++) {
+            cache.put(new CmisObjectMock("id" + i), CACHE_KEY);
+        }
+
+        assertNull(cache.getById("id0", CACHE_KEY)); // thrown out
+        assertNotNull(cache.getById("id1", CACHE_KEY));
+        assertNotNull(cache.getById("id2", CACHE_KEY));
+        assertNotNull(cache.getById("id3", CACHE_KEY));
+    }
+
+    @Test
+    public void secondChanceTest() {
+        Cache cache = createCache(3, 3600 * 1000);
+
+        cache.put(new CmisObjectMock("a"), CACHE_KEY);
+        cache.put(new CmisObjectMock("b"), CACHE_KEY);
+        cache.put(new CmisObjectMock("c"), CACHE_KEY);
+
+        // a recently read object survives, the oldest unread goes
+        assertNotNull(cache.getById("a", CACHE_KEY));
+        cache.put(new CmisObjectMock("d"), CACHE_KEY);
+
+        assertTrue(cache.containsId("a", CACHE_KEY));
+        assertFalse(cache.containsId("b", CACHE_KEY));
+        assertTrue(cache.containsId("c", CACHE_KEY));
+        assertTrue(cache.containsId("d", CACHE_KEY));
+    }
+
+    @Test
+    public void sizeBoundTest() {
+        int cacheSize = 1000;
+        Cache cache = createCache(cacheSize, 3600 * 1000);
+
+        for (int i = 0; i < 10 * cacheSize; i++) {
+            cache.put(new CmisObjectMock("id" + i), CACHE_KEY);
+        }
+
+        int count = 0;
+        for (int i = 0; i < 10 * cacheSize; i++) {
+            if (cache.containsId("id" + i, CACHE_KEY)) {
+                count++;
+            }
+        }
+
+        assertTrue(count > 0);
+        assertTrue(count <= cacheSize + 16);
+        assertNotNull(cache.getById("id" + (10 * cacheSize - 1), CACHE_KEY));
+    }
+
+    @Test
+    public void ttlTest() throws InterruptedException {
+        Cache cache = createCache(10, 500);
+
+        cache.put(new CmisObjectMock("id"), CACHE_KEY);
+        assertNotNull(cache.getById("id", CACHE_KEY));
+
+        Thread.sleep(750);
+
+        assertNull(cache.getById("id", CACHE_KEY));
+    }
+
+    @Test
+    public void pathTest() {
+        Cache cache = createCache(100, 3600 * 1000);
+
+        CmisObject obj = new CmisObjectMock("id");
+        cache.putPath("/folder/doc", obj, CACHE_KEY);
+
+        assertTrue(cache.containsPath("/folder/doc", CACHE_KEY));
+        assertEquals(obj, cache.getByPath("/folder/doc", CACHE_KEY));
+
+        // removing the object also invalidates its path
+        cache.remove("id");
+
+        assertFalse(cache.containsPath("/folder/doc", CACHE_KEY));
+        assertNull(cache.getByPath("/folder/doc", CACHE_KEY));
+
+        // a path that is reused by another object must not be removed
+        cache.putPath("/folder/doc", obj, CACHE_KEY);
+        CmisObject obj2 = new CmisObjectMock("id2");
+        cache.putPath("/folder/doc", obj2, CACHE_KEY);
+        cache.remove("id");
+
+        assertEquals(obj2, cache.getByPath("/folder/doc", CACHE_KEY));
+    }
+
+    @Test
+    public void pathListBoundTest() throws Exception {
+        Map<String, String> parameters = createParameters(100, 3600 * 1000);
+        parameters.put(SessionParameter.CACHE_SIZE_PATHTOID, "10");
+        Cache cache = new ConcurrentCacheImpl();
+        cache.initialize(null, parameters);
+
+        // an object that is moved around many times
+        CmisObject obj = new CmisObjectMock("id");
+        for (int i = 0; i < 1000; i++) {
+            cache.putPath("/folder" + i + "/doc", obj, CACHE_KEY);
+        }
+
+        assertEquals(obj, cache.getByPath("/folder999/doc", CACHE_KEY));
+        assertTrue(getPaths(cache, "id").size() <= 10);
+
+        // a path that now belongs to another object is dropped, too
+        cache.putPath("/doc", obj, CACHE_KEY);
+        cache.putPath("/doc", new CmisObjectMock("id2"), CACHE_KEY);
+        cache.putPath("/other", obj, CACHE_KEY);
+        assertFalse(getPaths(cache, "id").contains("/doc"));
+
+        cache.remove("id");
+        assertEquals("id2", cache.getByPath("/doc", CACHE_KEY).getId());
+    }
+
+    /**
+     * Returns the paths an object entry remembers.
+     */
+    private static List<?> getPaths(Cache cache, String objectId) throws Exception {
+        Object[] segments = (Object[]) getField(cache, "objectSegments");
+        for (Object segment : segments) {
+            Object entry = ((Map<?, ?>) getField(segment, "map")).get(objectId);
+            if (entry != null) {
+                return (List<?>) getField(entry, "paths");
+            }
+        }
+
+        fail("Object " + objectId + " is not cached!");
+        return null;
+    }
+
+    private static Object getField(Object object, String name) throws Exception {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        int cacheSize = 10;
+        Cache cache = createCache(cacheSize, 3600 * 1000);
+
+        for (int i = 0; i < cacheSize; i++) {
+            cache.putPath("/id" + i, new CmisObjectMock("id" + i), CACHE_KEY);
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(cache);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        Cache cache2 = (Cache) in.readObject();
+        in.close();
+
+        assertEquals(cacheSize, cache2.getCacheSize());
+        for (int k = 0; k < cacheSize; k++) {
+            assertEquals("id" + k, cache2.getById("id" + k, CACHE_KEY).getId());
+            assertEquals("id" + k, cache2.getByPath("/id" + k, CACHE_KEY).getId());
+        }
+    }
+
+    /**
+     * Lets many threads hit a shared cache with a read-mostly workload. Both
+     * the concurrent cache and the default cache must return the right objects
+     * and stay within their size. The times are logged for comparison.
+     */
+    @Test
+    public void contentionBenchmark() throws Exception {
+        int threads = 32;
+        int operations = 20000;
+        int cacheSize = 1000;
+
+        Cache defaultCache = new CacheImpl();
+        defaultCache.initialize(null, createParameters(cacheSize, 3600 * 1000));
+        Cache concurrentCache = createCache(cacheSize, 3600 * 1000);
+
+        long defaultTime = runContention(defaultCache, threads, operations);
+        long concurrentTime = runContention(concurrentCache, threads, operations);
+
+        assertCacheContent(defaultCache, cacheSize);
+        assertCacheContent(concurrentCache, cacheSize);
+
+        log.info("Cache contention benchmark (" + threads + " threads, " + operations + " operations each): "
+                + CacheImpl.class.getSimpleName() + " " + defaultTime + " ms, "
+                + ConcurrentCacheImpl.class.getSimpleName() + " " + concurrentTime + " ms");
+    }
+
+    private static void assertCacheContent(Cache cache, int cacheSize) {
+        int cached = 0;
+        for (int i = 0; i < CONTENTION_IDS; i++) {
+            CmisObject obj = cache.getById("id" + i, CACHE_KEY);
+            if (obj != null) {
+                assertEquals("id" + i, obj.getId());
+                cached++;
+            }
+        }
+
+        assertTrue(cached > 0);
+        assertTrue("Cache holds " + cached + " objects", cached <= cacheSize);
+    }
+
+    private static long runContention(final Cache cache, int threads, final int operations) throws Exception {
+        for (int i = 0; i < 500; i++) {
+            cache.put(new CmisObjectMock("id" + i), CACHE_KEY);
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger hits = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < operations; i++) {
+                            String id = "id" + ((i * 31 + seed) % CONTENTION_IDS);
+                            if (i % 10 == 0) {
+                                cache.put(new CmisObjectMock(id), CACHE_KEY);
+                            } else {
+                                CmisObject obj = cache.getById(id, CACHE_KEY);
+                                if (obj != null) {
+                                    hits.incrementAndGet();
+                                    if (!id.equals(obj.getId())) {
+                                        errors.incrementAndGet();
+                                    }
+                                }
+                            }
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            thread.start();
+        }
+
+        long startTime = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        long time = System.currentTimeMillis() - startTime;
+
+        assertEquals(0, errors.get());
+        assertTrue(hits.get() > 0);
+
+        return time;
+    }
+
+    private static Map<String, String> createParameters(int cacheSize, int ttl) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put(SessionParameter.CACHE_SIZE_OBJECTS, "" + cacheSize);
+        parameters.put(SessionParameter.CACHE_TTL_OBJECTS, "" + ttl);
+        parameters.put(SessionParameter.CACHE_CLASS, ConcurrentCacheImpl.class.getName());
+
+        return parameters;
+    }
+
+    private static Cache createCache(int cacheSize, int ttl) {
+        Cache cache = new ConcurrentCacheImpl();
+        cache.initialize(null, createParameters(cacheSize, ttl));
+
+        return cache;
+    }
+}
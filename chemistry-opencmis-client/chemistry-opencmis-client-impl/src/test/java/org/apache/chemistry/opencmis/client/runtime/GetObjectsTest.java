@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime;
+
+import static junit.framework.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.ObjectId;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.CapabilityQuery;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractPropertyDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractTypeDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.DocumentTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.FolderTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDateTimeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryCapabilitiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl;
+import org.apache.chemistry.opencmis.commons.spi.CmisBinding;
+import org.apache.chemistry.opencmis.commons.spi.DiscoveryService;
+import org.apache.chemistry.opencmis.commons.spi.ObjectService;
+import org.apache.chemistry.opencmis.commons.spi.RepositoryService;
+import org.junit.Test;
+
+public class GetObjectsTest {
+
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'");
+
+    private static final String SUBTYPE_ID = "test:document";
+    private static final String SUBTYPE_PROPERTY_ID = "test:property";
+
+    private final AtomicInteger getObjectCalls = new AtomicInteger();
+    private final List<String> queries = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void parallelFetch() {
+        TestSession session = new TestSession(CapabilityQuery.NONE);
+        OperationContext context = createContext(3);
+
+        List<CmisObject> objects = toList(session.getObjects(ids("d1", "d2", "missing", "d4", "d1", "d5", "d6"),
+                context));
+
+        assertEquals(7, objects.size());
+        assertEquals("d1", objects.get(0).getId());
+        assertEquals("d2", objects.get(1).getId());
+        assertNull(objects.get(2));
+        assertEquals("d4", objects.get(3).getId());
+        assertEquals("d1", objects.get(4).getId());
+        assertEquals("d5", objects.get(5).getId());
+        assertEquals("d6", objects.get(6).getId());
+
+        assertEquals(6, getObjectCalls.get());
+        assertTrue(queries.isEmpty());
+
+        // now everything is in the cache
+        objects = toList(session.getObjects(ids("d6", "d1"), context));
+        assertEquals("d6", objects.get(0).getId());
+        assertEquals("d1", objects.get(1).getId());
+        assertEquals(6, getObjectCalls.get());
+    }
+
+    @Test
+    public void queryFetch() {
+        TestSession session = new TestSession(CapabilityQuery.METADATAONLY);
+        OperationContext context = createContext(10);
+        context.setFilterString(PropertyIds.NAME);
+
+        List<CmisObject> objects = toList(session.getObjects(ids("d1", "f1", "d2", "missing"), context));
+
+        assertEquals(4, objects.size());
+        assertEquals("d1", objects.get(0).getId());
+        assertEquals("f1", objects.get(1).getId());
+        assertEquals("d2", objects.get(2).getId());
+        assertNull(objects.get(3));
+        assertEquals("name-d1", objects.get(0).getName());
+
+        // one query for the documents, folders are not queryable
+        assertEquals(1, queries.size());
+        assertTrue(queries.get(0).contains(" FROM cmis:document WHERE cmis:objectId IN ("));
+        assertEquals(2, getObjectCalls.get());
+
+        // query results are not cached, f1 is
+        assertEquals("d1", session.getObject("d1", context).getId());
+        assertEquals("f1", session.getObject("f1", context).getId());
+        assertEquals(3, getObjectCalls.get());
+    }
+
+    @Test
+    public void noQueryWithoutFilter() {
+        TestSession session = new TestSession(CapabilityQuery.METADATAONLY);
+        OperationContext context = createContext(10);
+
+        List<CmisObject> objects = toList(session.getObjects(ids("d1", "d2"), context));
+
+        assertEquals(2, objects.size());
+        assertTrue(queries.isEmpty());
+        assertEquals(2, getObjectCalls.get());
+
+        context.setFilterString("*");
+        objects = toList(session.getObjects(ids("d3", "d4"), context));
+
+        assertEquals(2, objects.size());
+        assertTrue(queries.isEmpty());
+        assertEquals(4, getObjectCalls.get());
+    }
+
+    @Test
+    public void noQueryForSubtypeProperties() {
+        TestSession session = new TestSession(CapabilityQuery.METADATAONLY);
+        OperationContext context = createContext(10);
+        context.setFilterString(PropertyIds.NAME + "," + SUBTYPE_PROPERTY_ID);
+
+        List<CmisObject> objects = toList(session.getObjects(ids("s1", "d1", "s2"), context));
+
+        assertEquals(3, objects.size());
+        assertEquals("s1", objects.get(0).getId());
+        assertEquals("d1", objects.get(1).getId());
+        assertEquals("s2", objects.get(2).getId());
+        assertEquals(SUBTYPE_ID, objects.get(0).getType().getId());
+        assertEquals("value-s1", objects.get(0).getPropertyValue(SUBTYPE_PROPERTY_ID));
+        assertEquals("value-s2", objects.get(2).getPropertyValue(SUBTYPE_PROPERTY_ID));
+
+        // a cmis:document query can't select the subtype property
+        assertTrue(queries.isEmpty());
+        assertEquals(3, getObjectCalls.get());
+
+        // the complete objects are cached
+        assertSame(objects.get(0), session.getObject("s1", context));
+        assertEquals(3, getObjectCalls.get());
+    }
+
+    @Test
+    public void noQueryForAcls() {
+        TestSession session = new TestSession(CapabilityQuery.METADATAONLY);
+        OperationContext context = createContext(10);
+        context.setIncludeAcls(true);
+
+        List<CmisObject> objects = toList(session.getObjects(ids("d1", "d2"), context));
+
+        assertEquals(2, objects.size());
+        assertTrue(queries.isEmpty());
+        assertEquals(2, getObjectCalls.get());
+    }
+
+    @Test
+    public void exception() {
+        TestSession session = new TestSession(CapabilityQuery.NONE);
+
+        try {
+            toList(session.getObjects(ids("d1", "broken", "d2"), createContext(10)));
+            fail("Exception expected!");
+        } catch (CmisRuntimeException e) {
+            assertEquals("broken", e.getMessage());
+        }
+    }
+
+    private static OperationContext createContext(int maxItemsPerPage) {
+        OperationContext context = new OperationContextImpl();
+        context.setCacheEnabled(true);
+        context.setMaxItemsPerPage(maxItemsPerPage);
+        return context;
+    }
+
+    private List<ObjectId> ids(String... ids) {
+        List<ObjectId> result = new ArrayList<ObjectId>();
+        for (String id : ids) {
+            result.add(new ObjectIdImpl(id));
+        }
+        return result;
+    }
+
+    private static List<CmisObject> toList(Iterable<CmisObject> iterable) {
+        List<CmisObject> result = new ArrayList<CmisObject>();
+        for (CmisObject object : iterable) {
+            result.add(object);
+        }
+        return result;
+    }
+
+    private static ObjectData createObjectData(String id) {
+        BaseTypeId baseTypeId = (id.startsWith("f") ? BaseTypeId.CMIS_FOLDER : BaseTypeId.CMIS_DOCUMENT);
+        boolean subtype = id.startsWith("s");
+
+        List<PropertyData<?>> props = new ArrayList<PropertyData<?>>();
+        props.add(new PropertyIdImpl(PropertyIds.OBJECT_ID, id));
+        props.add(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, baseTypeId.value()));
+        props.add(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, subtype ? SUBTYPE_ID : baseTypeId.value()));
+        props.add(new PropertyStringImpl(PropertyIds.NAME, "name-" + id));
+        if (subtype) {
+            props.add(new PropertyStringImpl(SUBTYPE_PROPERTY_ID, "value-" + id));
+        }
+
+        ObjectDataImpl objectData = new ObjectDataImpl();
+        objectData.setProperties(new PropertiesImpl(props));
+
+        return objectData;
+    }
+
+    private static AbstractTypeDefinition createTypeDefinition(String typeId) {
+        AbstractTypeDefinition typeDef;
+        if (BaseTypeId.CMIS_FOLDER.value().equals(typeId)) {
+            typeDef = new FolderTypeDefinitionImpl();
+            typeDef.setBaseTypeId(BaseTypeId.CMIS_FOLDER);
+            typeDef.setIsQueryable(false);
+        } else {
+            typeDef = new DocumentTypeDefinitionImpl();
+            typeDef.setBaseTypeId(BaseTypeId.CMIS_DOCUMENT);
+            typeDef.setIsQueryable(true);
+            if (SUBTYPE_ID.equals(typeId)) {
+                typeDef.setParentTypeId(BaseTypeId.CMIS_DOCUMENT.value());
+                typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), SUBTYPE_PROPERTY_ID,
+                        PropertyType.STRING));
+            }
+        }
+        typeDef.setId(typeId);
+        typeDef.setQueryName(typeId);
+
+        typeDef.addPropertyDefinition(define(new PropertyIdDefinitionImpl(), PropertyIds.OBJECT_ID, PropertyType.ID));
+        typeDef.addPropertyDefinition(define(new PropertyIdDefinitionImpl(), PropertyIds.BASE_TYPE_ID,
+                PropertyType.ID));
+        typeDef.addPropertyDefinition(define(new PropertyIdDefinitionImpl(), PropertyIds.OBJECT_TYPE_ID,
+                PropertyType.ID));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.NAME,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.CREATED_BY,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyDateTimeDefinitionImpl(), PropertyIds.CREATION_DATE,
+                PropertyType.DATETIME));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.LAST_MODIFIED_BY,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyDateTimeDefinitionImpl(),
+                PropertyIds.LAST_MODIFICATION_DATE, PropertyType.DATETIME));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.CHANGE_TOKEN,
+                PropertyType.STRING));
+
+        return typeDef;
+    }
+
+    private static <T> AbstractPropertyDefinition<T> define(AbstractPropertyDefinition<T> propDef, String id,
+            PropertyType propertyType) {
+        propDef.setId(id);
+        propDef.setQueryName(id);
+        propDef.setPropertyType(propertyType);
+        propDef.setCardinality(Cardinality.SINGLE);
+        return propDef;
+    }
+
+    /**
+     * Session backed by a fake binding that knows the documents "d...", the
+     * folders "f..." and the documents "s..." of a subtype with an additional
+     * property.
+     */
+    private class TestSession extends SessionImpl {
+        private static final long serialVersionUID = 1L;
+
+        private final RepositoryInfoImpl repositoryInfo = new RepositoryInfoImpl();
+        private final CmisBinding binding;
+
+        TestSession(CapabilityQuery queryCapability) {
+            super(new HashMap<String, String>(), null, null, null);
+
+            RepositoryCapabilitiesImpl capabilities = new RepositoryCapabilitiesImpl();
+            capabilities.setCapabilityQuery(queryCapability);
+            repositoryInfo.setId("test");
+            repositoryInfo.setCapabilities(capabilities);
+
+            binding = createProxy(CmisBinding.class, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("getObjectService".equals(method.getName())) {
+                        return createProxy(ObjectService.class, new ObjectServiceHandler());
+                    } else if ("getDiscoveryService".equals(method.getName())) {
+                        return createProxy(DiscoveryService.class, new DiscoveryServiceHandler());
+                    } else if ("getRepositoryService".equals(method.getName())) {
+                        return createProxy(RepositoryService.class, new RepositoryServiceHandler());
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        @Override
+        public CmisBinding getBinding() {
+            return binding;
+        }
+
+        @Override
+        public RepositoryInfo getRepositoryInfo() {
+            return repositoryInfo;
+        }
+    }
+
+    private class ObjectServiceHandler implements InvocationHandler {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!"getObject".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            String id = (String) args[1];
+            if ("broken".equals(id)) {
+                throw new CmisRuntimeException("broken");
+            }
+
+            getObjectCalls.incrementAndGet();
+            if (id.startsWith("missing")) {
+                throw new CmisObjectNotFoundException(id);
+            }
+
+            return createObjectData(id);
+        }
+    }
+
+    private class DiscoveryServiceHandler implements InvocationHandler {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!"query".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            String statement = (String) args[1];
+            queries.add(statement);
+
+            // return the documents among the requested ids
+            List<ObjectData> objects = new ArrayList<ObjectData>();
+            Matcher matcher = QUOTED.matcher(statement);
+            while (matcher.find()) {
+                if (matcher.group(1).startsWith("d")) {
+                    objects.add(createObjectData(matcher.group(1)));
+                }
+            }
+
+            ObjectListImpl result = new ObjectListImpl();
+            result.setObjects(objects);
+            return result;
+        }
+    }
+
+    private static class RepositoryServiceHandler implements InvocationHandler {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (!"getTypeDefinition".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+
+            return createTypeDefinition((String) args[1]);
+        }
+    }
+
+    private static <T> T createProxy(Class<T> iface, InvocationHandler handler) {
+        return iface.cast(Proxy.newProxyInstance(GetObjectsTest.class.getClassLoader(), new Class<?>[] { iface },
+                handler));
+    }
+}
@@ -20,11 +20,14 @@ package org.apache.chemistry.opencmis.client.runtime;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.chemistry.opencmis.client.api.ItemIterable;
+import org.apache.chemistry.opencmis.client.runtime.util.AbstractIterator;
 import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher;
 import org.apache.chemistry.opencmis.client.runtime.util.CollectionIterable;
 import org.slf4j.Logger;
@@ -52,7 +55,11 @@ public class ItemIterableTest {
     private final String[] data0 = {};
 
     private ItemIterable<String> getIterable(final String[] data, long pageSize) {
-        return new CollectionIterable<String>(new AbstractPageFetcher<String>(pageSize) {
+        return getIterable(data, pageSize, 0);
+    }
+
+    private ItemIterable<String> getIterable(final String[] data, long pageSize, int prefetchPages) {
+        return new CollectionIterable<String>(new AbstractPageFetcher<String>(pageSize, prefetchPages) {
 
             @Override
             protected Page<String> fetchPage(long skipCount) {
@@ -103,6 +110,67 @@ public class ItemIterableTest {
         this.loopAll(this.data0, 5);
     }
 
+    @Test
+    public void loopAllPrefetch() {
+        for (int prefetchPages = 1; prefetchPages <= 3; prefetchPages++) {
+            this.loopAll(this.data10, 100, prefetchPages);
+            this.loopAll(this.data10, 10, prefetchPages);
+            this.loopAll(this.data10, 3, prefetchPages);
+            this.loopAll(this.data10, 1, prefetchPages);
+            this.loopAll(this.data1, 1, prefetchPages);
+            this.loopAll(this.data0, 5, prefetchPages);
+        }
+    }
+
+    @Test
+    public void prefetchIsBounded() throws InterruptedException {
+        final AtomicInteger fetches = new AtomicInteger();
+        ItemIterable<String> p = new CollectionIterable<String>(new AbstractPageFetcher<String>(1, 2) {
+            @Override
+            protected Page<String> fetchPage(long skipCount) {
+                fetches.incrementAndGet();
+                return new AbstractPageFetcher.Page<String>(Collections.singletonList("A" + skipCount), -1, true);
+            }
+        });
+
+        AbstractIterator<String> i = (AbstractIterator<String>) p.iterator();
+        assertEquals("A0", i.next());
+
+        // the first page and two prefetched pages
+        for (int n = 0; n < 100 && fetches.get() < 3; n++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(3, fetches.get());
+
+        assertEquals("A1", i.next());
+        assertEquals("A2", i.next());
+        i.cancelPrefetch();
+        assertEquals("A3", i.next());
+    }
+
+    @Test
+    public void prefetchException() {
+        ItemIterable<String> p = new CollectionIterable<String>(new AbstractPageFetcher<String>(1, 1) {
+            @Override
+            protected Page<String> fetchPage(long skipCount) {
+                if (skipCount > 0) {
+                    throw new IllegalStateException("page " + skipCount);
+                }
+                return new AbstractPageFetcher.Page<String>(Collections.singletonList("A0"), 2, true);
+            }
+        });
+
+        Iterator<String> i = p.iterator();
+        assertEquals("A0", i.next());
+        try {
+            i.next();
+            fail("Exception expected!");
+        } catch (IllegalStateException e) {
+            assertEquals("page 1", e.getMessage());
+        }
+    }
+
     @Test
     public void loopSubPage() {
         this.loopSubPage(this.data10, 0, 3, 5);
@@ -261,10 +329,14 @@ public class ItemIterableTest {
     }
 
     private void loopAll(String[] data, int pageSize) {
-        ItemIterableTest.log.info("loopAll (" + pageSize + ")");
+        loopAll(data, pageSize, 0);
+    }
+
+    private void loopAll(String[] data, int pageSize, int prefetchPages) {
+        ItemIterableTest.log.info("loopAll (" + pageSize + ", " + prefetchPages + ")");
         String msg = "";
 
-        ItemIterable<String> p = this.getIterable(data, pageSize);
+        ItemIterable<String> p = this.getIterable(data, pageSize, prefetchPages);
         assertNotNull(p);
 
         int count = 0;
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.runtime;
+
+import static junit.framework.Assert.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.client.api.ObjectType;
+import org.apache.chemistry.opencmis.client.api.OperationContext;
+import org.apache.chemistry.opencmis.client.api.Property;
+import org.apache.chemistry.opencmis.client.api.TransientDocument;
+import org.apache.chemistry.opencmis.client.runtime.objecttype.DocumentTypeImpl;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.commons.enums.ExtensionLevel;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractPropertyDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.DocumentTypeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDateTimeDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyDateTimeImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringDefinitionImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringImpl;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LightweightObjectTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LightweightObjectTest.class);
+
+    private static final String TAGS = "test:tags";
+
+    private final SessionImpl session = new SessionImpl(new HashMap<String, String>(), null, null, null);
+    private final ObjectType type = createType();
+
+    @Test
+    public void lightweightObject() {
+        OperationContext context = new OperationContextImpl();
+        context.setLightweight(true);
+
+        DocumentImpl doc = new DocumentImpl(session, type, createObjectData(1), context);
+
+        assertTrue(doc.isLightweight());
+        assertSame(context, doc.getCreationContext());
+        assertEquals("id1", doc.getId());
+        assertEquals("doc1", doc.getName());
+        assertEquals(BaseTypeId.CMIS_DOCUMENT, doc.getBaseTypeId());
+        assertEquals(Arrays.asList("a", "b"), doc.getPropertyValue(TAGS));
+        assertNull(doc.getPropertyValue("test:unknown"));
+        assertNull(doc.getExtensions(ExtensionLevel.OBJECT));
+
+        // properties are converted on first access
+        Property<String> name = doc.getProperty(PropertyIds.NAME);
+        assertEquals("doc1", name.getFirstValue());
+        assertEquals(11, doc.getProperties().size());
+
+        try {
+            doc.refresh();
+            fail("Lightweight objects must not be refreshable!");
+        } catch (CmisRuntimeException e) {
+            // expected
+        }
+
+        // the transient object is reset from the snapshot
+        TransientDocument transientDoc = doc.getTransientDocument();
+        transientDoc.setName("changed");
+        transientDoc.refreshAndReset();
+        assertEquals("doc1", transientDoc.getName());
+    }
+
+    @Test
+    public void regularObject() {
+        OperationContext context = new OperationContextImpl();
+
+        DocumentImpl doc = new DocumentImpl(session, type, createObjectData(1), context);
+
+        assertFalse(doc.isLightweight());
+        assertNotSame(context, doc.getCreationContext());
+        assertEquals("id1", doc.getId());
+        assertEquals(Arrays.asList("a", "b"), doc.getPropertyValue(TAGS));
+        assertEquals(11, doc.getProperties().size());
+    }
+
+    @Test
+    public void cacheKey() {
+        OperationContext context = new OperationContextImpl();
+        String cacheKey = context.getCacheKey();
+
+        context.setLightweight(true);
+        assertFalse(cacheKey.equals(context.getCacheKey()));
+        assertTrue(new OperationContextImpl(context).isLightweight());
+    }
+
+    /**
+     * Checks what a lightweight object keeps compared to a regular object. It
+     * must hold the binding's property data instead of converted properties,
+     * no lock, no copy of the operation context and no reference to the
+     * object data wrapper.
+     */
+    @Test
+    public void memoryFootprint() throws Exception {
+        OperationContext regularContext = new OperationContextImpl();
+        OperationContext lightweightContext = new OperationContextImpl();
+        lightweightContext.setLightweight(true);
+
+        ObjectDataImpl data = createObjectData(1);
+        Map<String, Object> regular = getFields(new DocumentImpl(session, type, data, regularContext));
+        Map<String, Object> lightweight = getFields(new DocumentImpl(session, type, data, lightweightContext));
+
+        for (Object value : lightweight.values()) {
+            assertFalse(value instanceof ObjectData);
+        }
+        assertSame(data.getProperties(), lightweight.get("propertiesData"));
+        assertSame(lightweightContext, lightweight.get("creationContext"));
+        assertFalse(lightweight.containsKey("properties"));
+        assertFalse(lightweight.containsKey("lock"));
+
+        assertTrue(regular.containsKey("properties"));
+        assertTrue(regular.containsKey("lock"));
+        assertFalse(regular.containsKey("propertiesData"));
+        assertNotSame(regularContext, regular.get("creationContext"));
+
+        log.info("Non-null fields: regular object " + regular.keySet() + ", lightweight object "
+                + lightweight.keySet());
+    }
+
+    /**
+     * Returns the non-null instance fields of an object and its super
+     * classes.
+     */
+    private static Map<String, Object> getFields(Object object) throws IllegalAccessException {
+        Map<String, Object> result = new HashMap<String, Object>();
+        for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                Object value = field.get(object);
+                if (value != null) {
+                    result.put(field.getName(), value);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static ObjectDataImpl createObjectData(int i) {
+        GregorianCalendar now = new GregorianCalendar();
+
+        List<PropertyData<?>> props = new ArrayList<PropertyData<?>>();
+        props.add(new PropertyIdImpl(PropertyIds.OBJECT_ID, "id" + i));
+        props.add(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, BaseTypeId.CMIS_DOCUMENT.value()));
+        props.add(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, "cmis:document"));
+        props.add(new PropertyStringImpl(PropertyIds.NAME, "doc" + i));
+        props.add(new PropertyStringImpl(PropertyIds.CREATED_BY, "user"));
+        props.add(new PropertyDateTimeImpl(PropertyIds.CREATION_DATE, now));
+        props.add(new PropertyStringImpl(PropertyIds.LAST_MODIFIED_BY, "user"));
+        props.add(new PropertyDateTimeImpl(PropertyIds.LAST_MODIFICATION_DATE, now));
+        props.add(new PropertyStringImpl(PropertyIds.CHANGE_TOKEN, "token" + i));
+        props.add(new PropertyStringImpl(PropertyIds.CONTENT_STREAM_MIME_TYPE, "text/plain"));
+        props.add(new PropertyStringImpl(TAGS, Arrays.asList("a", "b")));
+
+        ObjectDataImpl objectData = new ObjectDataImpl();
+        objectData.setProperties(new PropertiesImpl(props));
+
+        return objectData;
+    }
+
+    private ObjectType createType() {
+        DocumentTypeDefinitionImpl typeDef = new DocumentTypeDefinitionImpl();
+        typeDef.setId("cmis:document");
+        typeDef.setBaseTypeId(BaseTypeId.CMIS_DOCUMENT);
+
+        typeDef.addPropertyDefinition(define(new PropertyIdDefinitionImpl(), PropertyIds.OBJECT_ID, PropertyType.ID));
+        typeDef.addPropertyDefinition(define(new PropertyIdDefinitionImpl(), PropertyIds.BASE_TYPE_ID,
+                PropertyType.ID));
+        typeDef.addPropertyDefinition(define(new PropertyIdDefinitionImpl(), PropertyIds.OBJECT_TYPE_ID,
+                PropertyType.ID));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.NAME,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.CREATED_BY,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyDateTimeDefinitionImpl(), PropertyIds.CREATION_DATE,
+                PropertyType.DATETIME));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.LAST_MODIFIED_BY,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyDateTimeDefinitionImpl(),
+                PropertyIds.LAST_MODIFICATION_DATE, PropertyType.DATETIME));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(), PropertyIds.CHANGE_TOKEN,
+                PropertyType.STRING));
+        typeDef.addPropertyDefinition(define(new PropertyStringDefinitionImpl(),
+                PropertyIds.CONTENT_STREAM_MIME_TYPE, PropertyType.STRING));
+
+        AbstractPropertyDefinition<String> tags = define(new PropertyStringDefinitionImpl(), TAGS,
+                PropertyType.STRING);
+        tags.setCardinality(Cardinality.MULTI);
+        typeDef.addPropertyDefinition(tags);
+
+        return new DocumentTypeImpl(session, typeDef);
+    }
+
+    private static <T> AbstractPropertyDefinition<T> define(AbstractPropertyDefinition<T> propDef, String id,
+            PropertyType propertyType) {
+        propDef.setId(id);
+        propDef.setQueryName(id);
+        propDef.setPropertyType(propertyType);
+        propDef.setCardinality(Cardinality.SINGLE);
+        return propDef;
+    }
+}
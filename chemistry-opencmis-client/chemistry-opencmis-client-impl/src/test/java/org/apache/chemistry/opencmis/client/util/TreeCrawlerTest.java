@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.client.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.client.api.CmisObject;
+import org.apache.chemistry.opencmis.client.api.Document;
+import org.apache.chemistry.opencmis.client.api.FileableCmisObject;
+import org.apache.chemistry.opencmis.client.api.Folder;
+import org.apache.chemistry.opencmis.client.runtime.util.AbstractPageFetcher;
+import org.apache.chemistry.opencmis.client.runtime.util.CollectionIterable;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
+import org.junit.Test;
+
+public class TreeCrawlerTest {
+
+    private static final int FOLDERS_PER_FOLDER = 3;
+    private static final int DOCS_PER_FOLDER = 4;
+
+    @Test
+    public void crawlAll() {
+        Folder root = createFolder("root", 3, null);
+
+        final Set<String> names = Collections.synchronizedSet(new HashSet<String>());
+        TreeCrawler crawler = new TreeCrawler(4);
+        int count = crawler.crawl(root, new TreeCrawler.Callback() {
+            public void found(FileableCmisObject object, Folder parent, int depth) {
+                assertTrue(object.getName().startsWith(parent.getName() + "/"));
+                assertEquals(depth, object.getName().split("/").length - 1);
+                names.add(object.getName());
+            }
+        });
+
+        // 3 + 9 + 27 folders, 4 documents in each folder but the leaves
+        int folders = 3 + 9 + 27;
+        int docs = (1 + 3 + 9) * DOCS_PER_FOLDER;
+        assertEquals(folders + docs, count);
+        assertEquals(folders + docs, names.size());
+    }
+
+    @Test
+    public void crawlDepthAndFolders() {
+        Folder root = createFolder("root", 3, null);
+
+        LinkedBlockingQueue<FileableCmisObject> queue = new LinkedBlockingQueue<FileableCmisObject>();
+        TreeCrawler crawler = new TreeCrawler(2);
+        crawler.setMaxDepth(2);
+        crawler.setFoldersOnly(true);
+
+        int count = crawler.crawl(root, queue);
+        assertEquals(3 + 9, count);
+        assertEquals(3 + 9, queue.size());
+        for (FileableCmisObject object : queue) {
+            assertTrue(object instanceof Folder);
+        }
+    }
+
+    @Test
+    public void crawlError() {
+        Folder root = createFolder("root", 2, "root/1/2");
+
+        TreeCrawler crawler = new TreeCrawler(3);
+        try {
+            crawler.crawl(root, new LinkedBlockingQueue<FileableCmisObject>());
+            fail("Exception expected!");
+        } catch (CmisObjectNotFoundException e) {
+            assertEquals("root/1/2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void crawlCancel() {
+        Folder root = createFolder("root", 6, null);
+
+        final TreeCrawler crawler = new TreeCrawler(2);
+        int count = crawler.crawl(root, new TreeCrawler.Callback() {
+            public void found(FileableCmisObject object, Folder parent, int depth) {
+                crawler.cancel();
+            }
+        });
+
+        assertTrue(count < 100);
+    }
+
+    @Test
+    public void noCallbacksAfterCancel() throws Exception {
+        Folder root = createFolder("root", 6, null);
+
+        final TreeCrawler crawler = new TreeCrawler(8);
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger late = new AtomicInteger();
+        final boolean[] returned = new boolean[1];
+
+        Thread canceller = new Thread() {
+            @Override
+            public void run() {
+                while (calls.get() < 20) {
+                    Thread.yield();
+                }
+                crawler.cancel();
+            }
+        };
+        canceller.start();
+
+        int count = crawler.crawl(root, new TreeCrawler.Callback() {
+            public void found(FileableCmisObject object, Folder parent, int depth) {
+                running.incrementAndGet();
+                synchronized (returned) {
+                    if (returned[0]) {
+                        late.incrementAndGet();
+                    }
+                }
+                calls.incrementAndGet();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }
+        });
+
+        synchronized (returned) {
+            returned[0] = true;
+        }
+        assertEquals(0, running.get());
+
+        canceller.join();
+        Thread.sleep(100);
+
+        assertEquals(0, late.get());
+        assertEquals(calls.get(), count);
+        assertTrue(count < 100);
+    }
+
+    /**
+     * Creates a folder with 3 sub folders and 4 documents per level. The
+     * children are returned in pages of 2 objects.
+     */
+    private static Folder createFolder(final String name, final int levels, final String brokenFolder) {
+        final List<CmisObject> children = new ArrayList<CmisObject>();
+        if (levels > 0) {
+            for (int i = 0; i < FOLDERS_PER_FOLDER; i++) {
+                children.add(createFolder(name + "/" + i, levels - 1, brokenFolder));
+            }
+            for (int i = 0; i < DOCS_PER_FOLDER; i++) {
+                children.add(createObject(Document.class, name + "/doc" + i, null));
+            }
+        }
+
+        return createObject(Folder.class, name, new CollectionIterable<CmisObject>(new AbstractPageFetcher<CmisObject>(
+                2) {
+            @Override
+            protected Page<CmisObject> fetchPage(long skipCount) {
+                if (name.equals(brokenFolder)) {
+                    throw new CmisObjectNotFoundException(name);
+                }
+
+                int from = (int) Math.min(skipCount, children.size());
+                int to = (int) Math.min(skipCount + maxNumItems, children.size());
+                return new Page<CmisObject>(new ArrayList<CmisObject>(children.subList(from, to)), children.size(),
+                        to < children.size());
+            }
+        }));
+    }
+
+    private static <T> T createObject(Class<T> clazz, final String name, final Object children) {
+        return clazz.cast(Proxy.newProxyInstance(TreeCrawlerTest.class.getClassLoader(), new Class<?>[] { clazz },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getName".equals(method.getName())) {
+                            return name;
+                        } else if ("getChildren".equals(method.getName())) {
+                            return children;
+                        } else if ("hashCode".equals(method.getName())) {
+                            return System.identityHashCode(proxy);
+                        } else if ("equals".equals(method.getName())) {
+                            return proxy == args[0];
+                        } else if ("toString".equals(method.getName())) {
+                            return name;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                }));
+    }
+}
@@ -54,6 +54,10 @@ public final class SessionParameter {
     public static final String WEBSERVICES_MEMORY_THRESHOLD = "org.apache.chemistry.opencmis.binding.webservices.memoryThreshold";
 
     public static final String WEBSERVICES_PORT_PROVIDER_CLASS = "org.apache.chemistry.opencmis.binding.webservices.portprovider.classname";
+    /** Max. number of idle port objects per Web Service that are kept for reuse. 0 disables pooling. */
+    public static final String WEBSERVICES_PORT_POOL_SIZE = "org.apache.chemistry.opencmis.binding.webservices.portpool.size";
+    /** Number of port objects per Web Service that are created when the session is created. */
+    public static final String WEBSERVICES_PORT_POOL_WARMUP = "org.apache.chemistry.opencmis.binding.webservices.portpool.warmup";
 
     /** URL of the Browser Binding entry point. */
     public static final String BROWSER_URL = "org.apache.chemistry.opencmis.binding.browser.url";
@@ -89,6 +93,25 @@ public final class SessionParameter {
     public static final String PROXY_USER = "org.apache.chemistry.opencmis.binding.proxyuser";
     public static final String PROXY_PASSWORD = "org.apache.chemistry.opencmis.binding.proxypassword";
 
+    /** Class name of the HTTP invoker used by the AtomPub and Browser binding. */
+    public static final String HTTP_INVOKER_CLASS = "org.apache.chemistry.opencmis.binding.httpinvoker.classname";
+
+    /** Max. number of pooled HTTP connections. Evaluated by pooling HTTP invokers. */
+    public static final String HTTP_POOL_MAX_TOTAL = "org.apache.chemistry.opencmis.binding.httppool.maxtotal";
+    /** Max. number of pooled HTTP connections per host. */
+    public static final String HTTP_POOL_MAX_PER_HOST = "org.apache.chemistry.opencmis.binding.httppool.maxperhost";
+    /** Time in milliseconds after which idle pooled HTTP connections are closed. */
+    public static final String HTTP_POOL_IDLE_TIMEOUT = "org.apache.chemistry.opencmis.binding.httppool.idletimeout";
+
+    /** Enables the HTTP response cache of the AtomPub and Browser binding. */
+    public static final String HTTP_CACHE = "org.apache.chemistry.opencmis.binding.httpcache";
+    /** Directory of the HTTP response cache. Defaults to the temp directory. */
+    public static final String HTTP_CACHE_DIRECTORY = "org.apache.chemistry.opencmis.binding.httpcache.directory";
+    /** Max. size in bytes of the cached content streams. */
+    public static final String HTTP_CACHE_CONTENT_SIZE = "org.apache.chemistry.opencmis.binding.httpcache.content.size";
+    /** Max. size in bytes of the cached AtomPub and JSON responses. */
+    public static final String HTTP_CACHE_METADATA_SIZE = "org.apache.chemistry.opencmis.binding.httpcache.metadata.size";
+
     // --- cache ---
 
     public static final String CACHE_SIZE_OBJECTS = "org.apache.chemistry.opencmis.cache.objects.size";
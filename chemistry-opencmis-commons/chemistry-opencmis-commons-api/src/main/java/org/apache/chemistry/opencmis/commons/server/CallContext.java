@@ -43,6 +43,13 @@ public interface CallContext {
     String HTTP_SERVLET_REQUEST = "httpServletRequest";
     String HTTP_SERVLET_RESPONSE = "httpServletResponse";
 
+    /** Directory for temporary files ({@link java.io.File}). */
+    String TEMP_DIR = "tempDir";
+    /** Number of content bytes that are buffered in memory ({@link Integer}). */
+    String MEMORY_THRESHOLD = "memoryThreshold";
+    /** Whether AtomPub content is decoded while it is read ({@link Boolean}). */
+    String STREAM_CONTENT = "streamContent";
+
     /**
      * Returns the binding. Usually it returns
      * {@link CallContext#BINDING_ATOMPUB},
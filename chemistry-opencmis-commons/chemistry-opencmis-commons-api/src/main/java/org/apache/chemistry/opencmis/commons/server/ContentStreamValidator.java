@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.server;
+
+import java.util.GregorianCalendar;
+
+/**
+ * Identifies a version of a content stream. The AtomPub and Browser binding
+ * send the validators as ETag and Last-Modified headers and answer requests
+ * for an unchanged content stream with 304 (Not Modified).
+ */
+public interface ContentStreamValidator {
+
+    /**
+     * Returns the entity tag of the content stream including the quotes, for
+     * example <code>"a1b2c3"</code>, or <code>null</code> if there is none.
+     * The tag must change whenever the content stream changes.
+     */
+    String getETag();
+
+    /**
+     * Returns the date of the last modification of the content stream or
+     * <code>null</code> if it is not known.
+     */
+    GregorianCalendar getLastModified();
+}
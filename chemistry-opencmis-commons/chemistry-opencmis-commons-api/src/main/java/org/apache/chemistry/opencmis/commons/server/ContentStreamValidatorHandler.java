@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.server;
+
+/**
+ * Implemented by a {@link CmisService} that can tell if a content stream has
+ * changed without reading it.
+ */
+public interface ContentStreamValidatorHandler {
+
+    /**
+     * Returns the validators of a content stream.
+     * 
+     * @param repositoryId
+     *            the repository id
+     * @param objectId
+     *            the object id
+     * @param streamId
+     *            the stream id of a rendition or <code>null</code> for the
+     *            content stream of the object
+     * @return the validators or <code>null</code> if the content stream
+     *         cannot be validated
+     */
+    ContentStreamValidator getContentStreamValidator(String repositoryId, String objectId, String streamId);
+}
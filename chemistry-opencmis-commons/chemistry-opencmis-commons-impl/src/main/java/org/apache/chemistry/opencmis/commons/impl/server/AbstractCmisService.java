@@ -19,6 +19,7 @@
 package org.apache.chemistry.opencmis.commons.impl.server;
 
 import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
@@ -61,12 +62,18 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedExceptio
 import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidator;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidatorHandler;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfoHandler;
 import org.apache.chemistry.opencmis.commons.server.RenditionInfo;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 
-public abstract class AbstractCmisService implements CmisService, ObjectInfoHandler {
+public abstract class AbstractCmisService implements CmisService, ObjectInfoHandler, ContentStreamValidatorHandler {
+
+    private static final String CONTENT_STREAM_VALIDATOR_FILTER = PropertyIds.OBJECT_ID + ","
+            + PropertyIds.CHANGE_TOKEN + "," + PropertyIds.LAST_MODIFICATION_DATE + "," + PropertyIds.VERSION_LABEL
+            + "," + PropertyIds.CONTENT_STREAM_ID + "," + PropertyIds.CONTENT_STREAM_LENGTH;
 
     private Map<String, ObjectInfo> objectInfoMap;
     private boolean addObjectInfos = true;
@@ -1089,6 +1096,73 @@ public abstract class AbstractCmisService implements CmisService, ObjectInfoHand
         objectInfoMap = null;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * <b>Implementation Hints:</b>
+     * <ul>
+     * <li>Bindings: AtomPub, Browser</li>
+     * <li>The entity tag is derived from the object id, the stream id, the
+     * change token, the last modification date, the version label and the
+     * content stream id and length of the object. The object is fetched with
+     * {@link #getObject(String, String, String, Boolean, IncludeRelationships, String, Boolean, Boolean, ExtensionsData)}
+     * for each content stream request. Override this method if the repository
+     * can provide the validators more efficiently or if the content stream can
+     * change without changing any of these properties. Return
+     * <code>null</code> to switch off conditional requests.</li>
+     * </ul>
+     */
+    public ContentStreamValidator getContentStreamValidator(String repositoryId, String objectId, String streamId) {
+        ObjectData object;
+        try {
+            // switch off object info collection to avoid side effects
+            addObjectInfos = false;
+            object = getObject(repositoryId, objectId, CONTENT_STREAM_VALIDATOR_FILTER, Boolean.FALSE,
+                    IncludeRelationships.NONE, "cmis:none", Boolean.FALSE, Boolean.FALSE, null);
+        } catch (Exception e) {
+            // the content stream request reports the error
+            return null;
+        } finally {
+            addObjectInfos = true;
+        }
+
+        if (object == null || object.getProperties() == null || object.getProperties().getProperties() == null) {
+            return null;
+        }
+
+        String changeToken = getStringProperty(object, PropertyIds.CHANGE_TOKEN);
+        GregorianCalendar lastModified = getDateTimeProperty(object, PropertyIds.LAST_MODIFICATION_DATE);
+        if (changeToken == null && lastModified == null) {
+            // nothing that changes with the content
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(objectId).append('\n');
+        sb.append(streamId).append('\n');
+        sb.append(changeToken).append('\n');
+        sb.append(lastModified == null ? null : Long.valueOf(lastModified.getTimeInMillis())).append('\n');
+        sb.append(getStringProperty(object, PropertyIds.VERSION_LABEL)).append('\n');
+        sb.append(getIdProperty(object, PropertyIds.CONTENT_STREAM_ID)).append('\n');
+        sb.append(getIntegerProperty(object, PropertyIds.CONTENT_STREAM_LENGTH));
+
+        String eTag;
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(sb.toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder("\"");
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0x0f, 16));
+                hex.append(Character.forDigit(b & 0x0f, 16));
+            }
+            eTag = hex.append('"').toString();
+        } catch (Exception e) {
+            throw new CmisRuntimeException("Could not create entity tag: " + e.getMessage(), e);
+        }
+
+        return new ContentStreamValidatorImpl(eTag, lastModified);
+    }
+
     public void close() {
         clearObjectInfos();
     }
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.commons.impl.server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Input stream that reads a range of a file through a {@link FileChannel}.
+ * <p>
+ * The stream starts at the given offset without reading the bytes before it.
+ * Servers can recognize this stream and either hand the file range to the
+ * servlet container or transfer it with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} instead of
+ * copying it through heap buffers.
+ */
+public class FileChannelInputStream extends InputStream {
+
+    private final File file;
+    private final FileInputStream stream;
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+    private long mark;
+
+    /**
+     * Creates a stream for a range of a file.
+     * 
+     * @param file
+     *            the file
+     * @param offset
+     *            the position of the first byte
+     * @param length
+     *            the number of bytes or a negative value to read up to the end
+     *            of the file
+     */
+    public FileChannelInputStream(File file, long offset, long length) throws FileNotFoundException {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative!");
+        }
+
+        this.file = file;
+        this.stream = new FileInputStream(file);
+        this.channel = stream.getChannel();
+
+        long fileLength = file.length();
+        long start = Math.min(offset, fileLength);
+        if ((length < 0) || (length > fileLength - start)) {
+            end = fileLength;
+        } else {
+            end = start + length;
+        }
+
+        position = start;
+        mark = start;
+    }
+
+    /**
+     * Returns the file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file position of the next byte.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the number of bytes left in the range.
+     */
+    public long getRemaining() {
+        return end - position;
+    }
+
+    /**
+     * Transfers the remaining bytes of the range to a channel.
+     * 
+     * @return the number of bytes transferred
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long transferred = 0;
+        while (position < end) {
+            long count = channel.transferTo(position, end - position, target);
+            if (count <= 0) {
+                break;
+            }
+            position += count;
+            transferred += count;
+        }
+
+        return transferred;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return (read(b, 0, 1) == -1 ? -1 : b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= end) {
+            return -1;
+        }
+
+        int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+        if (count > 0) {
+            position += count;
+        }
+
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        long skipped = Math.min(n, end - position);
+        position += skipped;
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        position = mark;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.chemistry.opencmis.server.impl.atompub;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -30,9 +31,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.Unmarshaller;
@@ -77,9 +81,16 @@ public class AtomEntryParser {
     private static final String ATTR_SRC = "src";
     private static final String ATTR_TYPE = "type";
 
+    public static final int DEFAULT_MEMORY_THRESHOLD = 4 * 1024 * 1024;
+
     protected boolean ignoreAtomContentSrc;
+    protected File tempDir;
+    protected int memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+    protected boolean streamContent;
 
     private ObjectData object;
+    private String atomTitle;
+    private boolean contentStreamed;
     private ContentStreamImpl atomContentStream;
     private ContentStreamImpl cmisContentStream;
 
@@ -104,6 +115,35 @@ public class AtomEntryParser {
         this.ignoreAtomContentSrc = ignoreAtomContentSrc;
     }
 
+    /**
+     * Sets the directory for temporary files of content that exceeds the
+     * memory threshold. The system temp directory is used if not set.
+     */
+    public void setTempDirectory(File tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Sets the number of bytes of decoded content that are kept in memory
+     * before the content is written to a temporary file.
+     */
+    public void setMemoryThreshold(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    /**
+     * Sets the flag controlling whether <code>cmisra:content</code> is decoded
+     * on the fly while the repository reads the content stream. This is only
+     * possible if the <code>cmisra:object</code> and the
+     * <code>atom:title</code> elements precede the content in the entry. The
+     * rest of the entry is ignored and the parser keeps reading from the
+     * input stream until the content stream has been consumed or closed.
+     * Otherwise the content is buffered. This flag is false by default.
+     */
+    public void setStreamContent(boolean streamContent) {
+        this.streamContent = streamContent;
+    }
+
     /**
      * Returns the object.
      */
@@ -170,8 +210,10 @@ public class AtomEntryParser {
      */
     public void parse(InputStream stream) throws Exception {
         object = null;
+        atomTitle = null;
         atomContentStream = null;
         cmisContentStream = null;
+        contentStreamed = false;
 
         if (stream == null) {
             return;
@@ -199,15 +241,16 @@ public class AtomEntryParser {
             }
         }
 
-        parser.close();
+        // a streamed content stream closes the parser when it is done
+        if (!contentStreamed) {
+            parser.close();
+        }
     }
 
     /**
      * Parses an Atom entry.
      */
     private void parseEntry(XMLStreamReader parser) throws Exception {
-        String atomTitle = null;
-
         next(parser);
 
         // walk through all tags in entry
@@ -221,6 +264,9 @@ public class AtomEntryParser {
                         parseObject(parser);
                     } else if (TAG_CONTENT.equals(name.getLocalPart())) {
                         parseCmisContent(parser);
+                        if (contentStreamed) {
+                            break;
+                        }
                     } else {
                         skip(parser);
                     }
@@ -327,6 +373,14 @@ public class AtomEntryParser {
                     if (TAG_MEDIATYPE.equals(name.getLocalPart())) {
                         cmisContentStream.setMimeType(readText(parser));
                     } else if (TAG_BASE64.equals(name.getLocalPart())) {
+                        if (streamContent && (object != null) && (atomTitle != null)) {
+                            // the repository pulls the content from the parser
+                            cmisContentStream.setStream(new Base64.InputStream(new XMLTextInputStream(parser),
+                                    Base64.DECODE));
+                            contentStreamed = true;
+                            return;
+                        }
+
                         ThresholdOutputStream ths = readBase64(parser);
                         cmisContentStream.setStream(ths.getInputStream());
                         cmisContentStream.setLength(BigInteger.valueOf(ths.getSize()));
@@ -382,8 +436,8 @@ public class AtomEntryParser {
     /**
      * Parses a tag that contains base64 encoded content.
      */
-    private static ThresholdOutputStream readBase64(XMLStreamReader parser) throws Exception {
-        ThresholdOutputStream bufferStream = new ThresholdOutputStream();
+    private ThresholdOutputStream readBase64(XMLStreamReader parser) throws Exception {
+        ThresholdOutputStream bufferStream = new ThresholdOutputStream(tempDir, memoryThreshold);
         Base64.OutputStream b64stream = new Base64.OutputStream(bufferStream, Base64.DECODE);
 
         next(parser);
@@ -577,54 +631,171 @@ public class AtomEntryParser {
         return false;
     }
 
+    /**
+     * Exposes the text of the current element as an US-ASCII stream. Parser
+     * events are pulled when the stream is read. The parser is closed at the
+     * end of the element.
+     */
+    private static class XMLTextInputStream extends InputStream {
+
+        private final XMLStreamReader parser;
+        private char[] text;
+        private int pos;
+        private int end;
+        private boolean eof;
+
+        public XMLTextInputStream(XMLStreamReader parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (pos >= end) {
+                if (!nextText()) {
+                    return -1;
+                }
+            }
+
+            return text[pos++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            while (pos >= end) {
+                if (!nextText()) {
+                    return -1;
+                }
+            }
+
+            int n = Math.min(len, end - pos);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) text[pos++];
+            }
+
+            return n;
+        }
+
+        private boolean nextText() throws IOException {
+            if (eof) {
+                return false;
+            }
+
+            try {
+                while (true) {
+                    if (!next(parser)) {
+                        close();
+                        return false;
+                    }
+
+                    int event = parser.getEventType();
+                    if (event == XMLStreamReader.CHARACTERS) {
+                        // only valid until the next event
+                        text = parser.getTextCharacters();
+                        pos = parser.getTextStart();
+                        end = pos + parser.getTextLength();
+                        return true;
+                    } else if (event == XMLStreamReader.END_ELEMENT) {
+                        close();
+                        return false;
+                    } else if (event == XMLStreamReader.START_ELEMENT) {
+                        close();
+                        throw new IOException("Unexpected tag: " + parser.getName());
+                    }
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                close();
+                throw new IOException("Cannot read content: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (eof) {
+                return;
+            }
+
+            eof = true;
+            text = null;
+            pos = 0;
+            end = 0;
+
+            try {
+                parser.close();
+            } catch (XMLStreamException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Buffers decoded content in pooled chunks of memory up to a threshold
+     * and in a temporary file beyond it.
+     */
     private static class ThresholdOutputStream extends OutputStream {
 
-        private static final int MAX_GROW = 10 * 1024 * 1024;
-        // TODO: make threshold configurable
-        private static final int THRESHOLD = 4 * 1024 * 1024;
+        private static final int CHUNK_SIZE = 64 * 1024;
+        private static final int MAX_POOLED_CHUNKS = 128;
+
+        private static final ConcurrentLinkedQueue<byte[]> CHUNK_POOL = new ConcurrentLinkedQueue<byte[]>();
+        private static final AtomicInteger POOLED_CHUNKS = new AtomicInteger();
 
-        private byte[] buf = null;
-        private int bufSize = 0;
+        private final File tempDir;
+        private final int threshold;
+
+        private List<byte[]> chunks = new ArrayList<byte[]>();
+        private int chunkPos = CHUNK_SIZE;
         private long size;
         private File tmpFile;
         private OutputStream tmpStream;
 
-        public ThresholdOutputStream() {
-            this(64 * 1024);
+        public ThresholdOutputStream(File tempDir, int threshold) {
+            this.tempDir = tempDir;
+            this.threshold = threshold;
         }
 
-        public ThresholdOutputStream(int initSize) {
-            if (initSize < 0) {
-                throw new IllegalArgumentException("Negative initial size: " + initSize);
+        private static byte[] acquireChunk() {
+            byte[] chunk = CHUNK_POOL.poll();
+            if (chunk == null) {
+                return new byte[CHUNK_SIZE];
             }
-            buf = new byte[initSize];
+
+            POOLED_CHUNKS.decrementAndGet();
+            return chunk;
         }
 
-        private void expand(int nextBufferSize) throws IOException {
-            if (bufSize + nextBufferSize <= buf.length) {
+        private static void releaseChunks(List<byte[]> chunks) {
+            if (chunks == null) {
                 return;
             }
 
-            if (bufSize + nextBufferSize > THRESHOLD) {
-                if (tmpStream == null) {
-                    tmpFile = File.createTempFile("opencmis", null);
-                    tmpStream = new FileOutputStream(tmpFile);
+            for (byte[] chunk : chunks) {
+                if (POOLED_CHUNKS.incrementAndGet() > MAX_POOLED_CHUNKS) {
+                    POOLED_CHUNKS.decrementAndGet();
+                    break;
                 }
-                tmpStream.write(buf, 0, bufSize);
+                CHUNK_POOL.offer(chunk);
+            }
+            chunks.clear();
+        }
 
-                if (buf.length != THRESHOLD) {
-                    buf = new byte[THRESHOLD];
-                }
-                bufSize = 0;
+        /**
+         * Moves the buffered chunks to a temporary file.
+         */
+        private void spill() throws IOException {
+            tmpFile = File.createTempFile("opencmis", null, tempDir);
+            tmpStream = new BufferedOutputStream(new FileOutputStream(tmpFile), CHUNK_SIZE);
 
-                return;
+            for (int i = 0; i < chunks.size(); i++) {
+                tmpStream.write(chunks.get(i), 0, (i == chunks.size() - 1 ? chunkPos : CHUNK_SIZE));
             }
 
-            int newSize = ((bufSize + nextBufferSize) * 2 < MAX_GROW ? (bufSize + nextBufferSize) * 2 : buf.length
-                    + nextBufferSize + MAX_GROW);
-            byte[] newbuf = new byte[newSize];
-            System.arraycopy(buf, 0, newbuf, 0, bufSize);
-            buf = newbuf;
+            releaseChunks(chunks);
         }
 
         public long getSize() {
@@ -642,37 +813,46 @@ public class AtomEntryParser {
                 return;
             }
 
-            expand(len);
-            System.arraycopy(buffer, offset, buf, bufSize, len);
-            bufSize += len;
-            size += len;
+            int count = len;
+
+            if ((tmpStream == null) && (size + len > threshold)) {
+                spill();
+            }
+
+            if (tmpStream != null) {
+                tmpStream.write(buffer, offset, len);
+            } else {
+                while (len > 0) {
+                    if (chunkPos == CHUNK_SIZE) {
+                        chunks.add(acquireChunk());
+                        chunkPos = 0;
+                    }
+
+                    int n = Math.min(len, CHUNK_SIZE - chunkPos);
+                    System.arraycopy(buffer, offset, chunks.get(chunks.size() - 1), chunkPos, n);
+                    chunkPos += n;
+                    offset += n;
+                    len -= n;
+                }
+            }
+
+            size += count;
         }
 
         @Override
         public void write(int oneByte) throws IOException {
-            if (bufSize == buf.length) {
-                expand(1);
-            }
-
-            buf[bufSize++] = (byte) oneByte;
-            size++;
+            write(new byte[] { (byte) oneByte }, 0, 1);
         }
 
         @Override
         public void flush() throws IOException {
             if (tmpStream != null) {
-                if (bufSize > 0) {
-                    tmpStream.write(buf, 0, bufSize);
-                    bufSize = 0;
-                }
                 tmpStream.flush();
             }
         }
 
         @Override
         public void close() throws IOException {
-            flush();
-
             if (tmpStream != null) {
                 tmpStream.close();
             }
@@ -689,13 +869,12 @@ public class AtomEntryParser {
                 tmpFile.delete();
             }
 
-            buf = null;
+            releaseChunks(chunks);
         }
 
         public InputStream getInputStream() throws Exception {
             if (tmpStream != null) {
                 close();
-                buf = null;
 
                 return new InternalTempFileInputStream();
             } else {
@@ -705,7 +884,7 @@ public class AtomEntryParser {
 
         private class InternalBufferInputStream extends InputStream {
 
-            private int pos = 0;
+            private long pos = 0;
 
             @Override
             public boolean markSupported() {
@@ -714,12 +893,20 @@ public class AtomEntryParser {
 
             @Override
             public int available() {
-                return bufSize - pos;
+                return (int) Math.min(Integer.MAX_VALUE, size - pos);
             }
 
             @Override
             public int read() {
-                return (pos < bufSize) && (buf != null) ? (buf[pos++] & 0xff) : -1;
+                if (pos >= size) {
+                    release();
+                    return -1;
+                }
+
+                int b = chunks.get((int) (pos / CHUNK_SIZE))[(int) (pos % CHUNK_SIZE)] & 0xff;
+                pos++;
+
+                return b;
             }
 
             @Override
@@ -729,24 +916,27 @@ public class AtomEntryParser {
 
             @Override
             public int read(byte[] b, int off, int len) {
-                if ((pos >= bufSize) || (buf == null)) {
+                if (pos >= size) {
+                    release();
                     return -1;
                 }
 
-                if ((pos + len) > bufSize) {
-                    len = (bufSize - pos);
+                if (len == 0) {
+                    return 0;
                 }
 
-                System.arraycopy(buf, pos, b, off, len);
-                pos += len;
+                int chunkOffset = (int) (pos % CHUNK_SIZE);
+                int n = (int) Math.min(Math.min(len, CHUNK_SIZE - chunkOffset), size - pos);
+                System.arraycopy(chunks.get((int) (pos / CHUNK_SIZE)), chunkOffset, b, off, n);
+                pos += n;
 
-                return len;
+                return n;
             }
 
             @Override
             public long skip(long n) {
-                if ((pos + n) > bufSize) {
-                    n = bufSize - pos;
+                if ((pos + n) > size) {
+                    n = size - pos;
                 }
 
                 if (n < 0) {
@@ -760,7 +950,12 @@ public class AtomEntryParser {
 
             @Override
             public void close() throws IOException {
-                buf = null;
+                release();
+            }
+
+            private void release() {
+                pos = size;
+                releaseChunks(chunks);
             }
         }
 
@@ -769,7 +964,7 @@ public class AtomEntryParser {
             private boolean isDeleted = false;
 
             public InternalTempFileInputStream() throws FileNotFoundException {
-                super(new BufferedInputStream(new FileInputStream(tmpFile), THRESHOLD));
+                super(new BufferedInputStream(new FileInputStream(tmpFile), CHUNK_SIZE));
             }
 
             @Override
@@ -815,4 +1010,4 @@ public class AtomEntryParser {
             }
         }
     }
-}
\ No newline at end of file
+}
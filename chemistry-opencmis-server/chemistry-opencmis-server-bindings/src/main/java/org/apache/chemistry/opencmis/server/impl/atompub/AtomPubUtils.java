@@ -22,6 +22,7 @@
  */
 package org.apache.chemistry.opencmis.server.impl.atompub;
 
+import java.io.File;
 import java.math.BigInteger;
 import java.util.GregorianCalendar;
 import java.util.List;
@@ -39,6 +40,7 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.Constants;
 import org.apache.chemistry.opencmis.commons.impl.ReturnVersion;
 import org.apache.chemistry.opencmis.commons.impl.UrlBuilder;
+import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
 import org.apache.chemistry.opencmis.commons.server.RenditionInfo;
@@ -116,6 +118,35 @@ public final class AtomPubUtils {
         return url;
     }
 
+    /**
+     * Creates an Atom entry parser with the temp directory, memory threshold
+     * and content streaming settings of the call context.
+     */
+    public static AtomEntryParser createEntryParser(CallContext context) {
+        AtomEntryParser parser = new AtomEntryParser();
+
+        Object tempDir = context.get(CallContext.TEMP_DIR);
+        if (tempDir != null) {
+            parser.setTempDirectory(tempDir instanceof File ? (File) tempDir : new File(tempDir.toString()));
+        }
+
+        Object memoryThreshold = context.get(CallContext.MEMORY_THRESHOLD);
+        if (memoryThreshold != null) {
+            try {
+                parser.setMemoryThreshold(Integer.parseInt(memoryThreshold.toString().trim()));
+            } catch (NumberFormatException e) {
+                throw new CmisRuntimeException("Invalid memory threshold: " + memoryThreshold, e);
+            }
+        }
+
+        Object streamContent = context.get(CallContext.STREAM_CONTENT);
+        if (streamContent != null) {
+            parser.setStreamContent(Boolean.parseBoolean(streamContent.toString()));
+        }
+
+        return parser;
+    }
+
     // -------------------------------------------------------------------------
     // --- entry builder ---
     // -------------------------------------------------------------------------
@@ -43,6 +43,7 @@ import static org.apache.chemistry.opencmis.server.shared.Dispatcher.METHOD_GET;
 import static org.apache.chemistry.opencmis.server.shared.Dispatcher.METHOD_POST;
 import static org.apache.chemistry.opencmis.server.shared.Dispatcher.METHOD_PUT;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 
@@ -69,6 +70,7 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisVersioningException;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.server.CmisServiceFactory;
+import org.apache.chemistry.opencmis.server.impl.CallContextImpl;
 import org.apache.chemistry.opencmis.server.impl.CmisRepositoryContextListener;
 import org.apache.chemistry.opencmis.server.impl.ServerVersion;
 import org.apache.chemistry.opencmis.server.shared.CallContextHandler;
@@ -86,6 +88,9 @@ public class CmisAtomPubServlet extends HttpServlet {
 
     public static final String PARAM_CALL_CONTEXT_HANDLER = "callContextHandler";
     public static final String PARAM_TRUSTED_PROXIES = "trustedProxies";
+    public static final String PARAM_TEMP_DIR = "tempDir";
+    public static final String PARAM_MEMORY_THRESHOLD = "memoryThreshold";
+    public static final String PARAM_STREAM_CONTENT = "streamContent";
 
     private static final Logger LOG = LoggerFactory.getLogger(CmisAtomPubServlet.class.getName());
 
@@ -93,6 +98,9 @@ public class CmisAtomPubServlet extends HttpServlet {
 
     private Dispatcher dispatcher;
     private CallContextHandler callContextHandler;
+    private File tempDir;
+    private Integer memoryThreshold;
+    private boolean streamContent;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -109,6 +117,21 @@ public class CmisAtomPubServlet extends HttpServlet {
             }
         }
 
+        // content buffering
+        String tempDirStr = config.getInitParameter(PARAM_TEMP_DIR);
+        tempDir = (tempDirStr == null || tempDirStr.trim().length() == 0 ? null : new File(tempDirStr.trim()));
+
+        String memoryThresholdStr = config.getInitParameter(PARAM_MEMORY_THRESHOLD);
+        if (memoryThresholdStr != null && memoryThresholdStr.trim().length() > 0) {
+            try {
+                memoryThreshold = Integer.valueOf(memoryThresholdStr.trim());
+            } catch (NumberFormatException e) {
+                throw new ServletException("Invalid memory threshold: " + memoryThresholdStr, e);
+            }
+        }
+
+        streamContent = Boolean.parseBoolean(config.getInitParameter(PARAM_STREAM_CONTENT));
+
         // initialize the dispatcher
         dispatcher = new Dispatcher();
 
@@ -164,6 +187,16 @@ public class CmisAtomPubServlet extends HttpServlet {
         try {
             context = HttpUtils.createContext(request, response, getServletContext(), CallContext.BINDING_ATOMPUB,
                     callContextHandler);
+            if (context instanceof CallContextImpl) {
+                CallContextImpl contextImpl = (CallContextImpl) context;
+                if (tempDir != null) {
+                    contextImpl.put(CallContext.TEMP_DIR, tempDir);
+                }
+                if (memoryThreshold != null) {
+                    contextImpl.put(CallContext.MEMORY_THRESHOLD, memoryThreshold);
+                }
+                contextImpl.put(CallContext.STREAM_CONTENT, Boolean.valueOf(streamContent));
+            }
             dispatch(context, request, response);
         } catch (Exception e) {
             if (e instanceof CmisPermissionDeniedException) {
@@ -22,15 +22,15 @@ import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.RES
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.RESOURCE_ENTRY;
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.compileBaseUrl;
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.compileUrl;
+import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.createEntryParser;
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.writeObjectEntry;
+import static org.apache.chemistry.opencmis.server.shared.HttpUtils.checkContentStreamValidator;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getBooleanParameter;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getEnumParameter;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getStringParameter;
+import static org.apache.chemistry.opencmis.server.shared.HttpUtils.setContentLength;
+import static org.apache.chemistry.opencmis.server.shared.HttpUtils.writeContent;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.math.BigInteger;
 import java.util.Map;
@@ -65,8 +65,6 @@ import org.apache.chemistry.opencmis.commons.spi.Holder;
  */
 public final class ObjectService {
 
-    private static final int BUFFER_SIZE = 64 * 1024;
-
     private ObjectService() {
     }
 
@@ -81,7 +79,7 @@ public final class ObjectService {
         VersioningState versioningState = getEnumParameter(request, Constants.PARAM_VERSIONIG_STATE,
                 VersioningState.class);
 
-        AtomEntryParser parser = new AtomEntryParser();
+        AtomEntryParser parser = createEntryParser(context);
         parser.setIgnoreAtomContentSrc(true); // needed for some clients
         parser.parse(request.getInputStream());
 
@@ -137,7 +135,8 @@ public final class ObjectService {
     public static void createRelationship(CallContext context, CmisService service, String repositoryId,
             HttpServletRequest request, HttpServletResponse response) throws Exception {
         // get parameters
-        AtomEntryParser parser = new AtomEntryParser(request.getInputStream());
+        AtomEntryParser parser = createEntryParser(context);
+        parser.parse(request.getInputStream());
 
         // execute
         String newObjectId = service.createRelationship(repositoryId, parser.getProperties(), parser.getPolicyIds(),
@@ -402,6 +401,12 @@ public final class ObjectService {
         BigInteger offset = context.getOffset();
         BigInteger length = context.getLength();
 
+        // the content stream is only fetched if the client doesn't have the
+        // current version
+        if (checkContentStreamValidator(service, repositoryId, objectId, streamId, request, response)) {
+            return;
+        }
+
         // execute
         ContentStream content = service.getContentStream(repositoryId, objectId, streamId, offset, length, null);
 
@@ -417,23 +422,14 @@ public final class ObjectService {
         // set headers
         if ((offset == null) && (length == null)) {
             response.setStatus(HttpServletResponse.SC_OK);
+            setContentLength(response, content.getBigLength());
         } else {
             response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
         }
         response.setContentType(contentType);
 
         // send content
-        InputStream in = new BufferedInputStream(content.getStream(), BUFFER_SIZE);
-        OutputStream out = new BufferedOutputStream(response.getOutputStream());
-
-        byte[] buffer = new byte[BUFFER_SIZE];
-        int b;
-        while ((b = in.read(buffer)) > -1) {
-            out.write(buffer, 0, b);
-        }
-
-        in.close();
-        out.flush();
+        writeContent(content.getStream(), request, response);
     }
 
     /**
@@ -447,7 +443,8 @@ public final class ObjectService {
         String checkinComment = getStringParameter(request, Constants.PARAM_CHECKIN_COMMENT);
         Boolean major = getBooleanParameter(request, Constants.PARAM_MAJOR);
 
-        AtomEntryParser parser = new AtomEntryParser(request.getInputStream());
+        AtomEntryParser parser = createEntryParser(context);
+        parser.parse(request.getInputStream());
 
         // execute
         Holder<String> objectIdHolder = new Holder<String>(objectId);
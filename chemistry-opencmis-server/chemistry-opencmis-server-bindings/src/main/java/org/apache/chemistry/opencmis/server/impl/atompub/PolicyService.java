@@ -23,6 +23,7 @@ import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.RES
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.compileBaseUrl;
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.compileUrl;
 import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.compileUrlBuilder;
+import static org.apache.chemistry.opencmis.server.impl.atompub.AtomPubUtils.createEntryParser;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getStringParameter;
 
 import java.util.List;
@@ -110,7 +111,8 @@ public class PolicyService {
         // get parameters
         String objectId = getStringParameter(request, Constants.PARAM_ID);
 
-        AtomEntryParser parser = new AtomEntryParser(request.getInputStream());
+        AtomEntryParser parser = createEntryParser(context);
+        parser.parse(request.getInputStream());
 
         // execute
         service.applyPolicy(repositoryId, parser.getId(), objectId, null);
@@ -54,6 +54,7 @@ import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONStreamAware;
 
 /**
  * Navigation Service operations.
@@ -90,7 +91,7 @@ public final class NavigationService {
         }
 
         TypeCache typeCache = new TypeCacheImpl(repositoryId, service);
-        JSONObject jsonChildren = JSONConverter.convert(children, typeCache);
+        JSONObject jsonChildren = StreamingJSONConverter.convert(children, typeCache);
 
         response.setStatus(HttpServletResponse.SC_OK);
         BrowserBindingUtils.writeJSON(jsonChildren, request, response);
@@ -99,7 +100,6 @@ public final class NavigationService {
     /**
      * getDescendants.
      */
-    @SuppressWarnings("unchecked")
     public static void getDescendants(CallContext context, CmisService service, String repositoryId,
             HttpServletRequest request, HttpServletResponse response) throws Exception {
         // get parameters
@@ -121,10 +121,7 @@ public final class NavigationService {
         }
 
         TypeCache typeCache = new TypeCacheImpl(repositoryId, service);
-        JSONArray jsonDescendants = new JSONArray();
-        for (ObjectInFolderContainer descendant : descendants) {
-            jsonDescendants.add(JSONConverter.convert(descendant, typeCache));
-        }
+        JSONStreamAware jsonDescendants = StreamingJSONConverter.convertDescendants(descendants, typeCache);
 
         response.setStatus(HttpServletResponse.SC_OK);
         BrowserBindingUtils.writeJSON(jsonDescendants, request, response);
@@ -133,7 +130,6 @@ public final class NavigationService {
     /**
      * getFolderTree.
      */
-    @SuppressWarnings("unchecked")
     public static void getFolderTree(CallContext context, CmisService service, String repositoryId,
             HttpServletRequest request, HttpServletResponse response) throws Exception {
         // get parameters
@@ -155,10 +151,7 @@ public final class NavigationService {
         }
 
         TypeCache typeCache = new TypeCacheImpl(repositoryId, service);
-        JSONArray jsonDescendants = new JSONArray();
-        for (ObjectInFolderContainer descendant : folderTree) {
-            jsonDescendants.add(JSONConverter.convert(descendant, typeCache));
-        }
+        JSONStreamAware jsonDescendants = StreamingJSONConverter.convertDescendants(folderTree, typeCache);
 
         response.setStatus(HttpServletResponse.SC_OK);
         BrowserBindingUtils.writeJSON(jsonDescendants, request, response);
@@ -245,7 +238,7 @@ public final class NavigationService {
         }
 
         TypeCache typeCache = new TypeCacheImpl(repositoryId, service);
-        JSONObject jsonCheckedOut = JSONConverter.convert(checkedout, typeCache, false);
+        JSONObject jsonCheckedOut = StreamingJSONConverter.convert(checkedout, typeCache, false);
 
         response.setStatus(HttpServletResponse.SC_OK);
         BrowserBindingUtils.writeJSON(jsonCheckedOut, request, response);
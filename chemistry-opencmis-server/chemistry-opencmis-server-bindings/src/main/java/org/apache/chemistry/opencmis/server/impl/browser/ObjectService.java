@@ -47,15 +47,14 @@ import static org.apache.chemistry.opencmis.server.impl.browser.BrowserBindingUt
 import static org.apache.chemistry.opencmis.server.impl.browser.BrowserBindingUtils.setCookie;
 import static org.apache.chemistry.opencmis.server.impl.browser.BrowserBindingUtils.writeEmpty;
 import static org.apache.chemistry.opencmis.server.impl.browser.BrowserBindingUtils.writeJSON;
+import static org.apache.chemistry.opencmis.server.shared.HttpUtils.checkContentStreamValidator;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getBigIntegerParameter;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getBooleanParameter;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getEnumParameter;
 import static org.apache.chemistry.opencmis.server.shared.HttpUtils.getStringParameter;
+import static org.apache.chemistry.opencmis.server.shared.HttpUtils.setContentLength;
+import static org.apache.chemistry.opencmis.server.shared.HttpUtils.writeContent;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.math.BigInteger;
 import java.util.List;
 
@@ -91,8 +90,6 @@ import org.json.simple.JSONObject;
  */
 public final class ObjectService {
 
-    private static final int BUFFER_SIZE = 64 * 1024;
-
     private ObjectService() {
     }
 
@@ -429,6 +426,12 @@ public final class ObjectService {
         BigInteger offset = context.getOffset();
         BigInteger length = context.getLength();
 
+        // the content stream is only fetched if the client doesn't have the
+        // current version
+        if (checkContentStreamValidator(service, repositoryId, objectId, streamId, request, response)) {
+            return;
+        }
+
         // execute
         ContentStream content = service.getContentStream(repositoryId, objectId, streamId, offset, length, null);
 
@@ -444,6 +447,7 @@ public final class ObjectService {
         // set headers
         if (offset == null && length == null) {
             response.setStatus(HttpServletResponse.SC_OK);
+            setContentLength(response, content.getBigLength());
         } else {
             response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
         }
@@ -454,17 +458,7 @@ public final class ObjectService {
         }
 
         // send content
-        InputStream in = new BufferedInputStream(content.getStream(), BUFFER_SIZE);
-        OutputStream out = new BufferedOutputStream(response.getOutputStream());
-
-        byte[] buffer = new byte[BUFFER_SIZE];
-        int b;
-        while ((b = in.read(buffer)) > -1) {
-            out.write(buffer, 0, b);
-        }
-
-        in.close();
-        out.flush();
+        writeContent(content.getStream(), request, response);
     }
 
     /**
@@ -44,8 +44,8 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
-import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONStreamAware;
 import org.json.simple.JSONValue;
 
 /**
@@ -147,13 +147,12 @@ public final class RepositoryService {
         // execute
         TypeDefinitionList typeList = service.getTypeChildren(repositoryId, typeId, includePropertyDefinitions,
                 maxItems, skipCount, null);
-        JSONObject jsonTypeList = JSONConverter.convert(typeList);
+        JSONObject jsonTypeList = StreamingJSONConverter.convert(typeList);
 
         response.setStatus(HttpServletResponse.SC_OK);
         BrowserBindingUtils.writeJSON(jsonTypeList, request, response);
     }
 
-    @SuppressWarnings("unchecked")
     public static void getTypeDescendants(CallContext context, CmisService service, String repositoryId,
             HttpServletRequest request, HttpServletResponse response) throws Exception {
         // get parameters
@@ -169,10 +168,7 @@ public final class RepositoryService {
             throw new CmisRuntimeException("Type tree is null!");
         }
 
-        JSONArray jsonTypeTree = new JSONArray();
-        for (TypeDefinitionContainer container : typeTree) {
-            jsonTypeTree.add(JSONConverter.convert(container));
-        }
+        JSONStreamAware jsonTypeTree = StreamingJSONConverter.convertTypeDescendants(typeTree);
 
         response.setStatus(HttpServletResponse.SC_OK);
         BrowserBindingUtils.writeJSON(jsonTypeTree, request, response);
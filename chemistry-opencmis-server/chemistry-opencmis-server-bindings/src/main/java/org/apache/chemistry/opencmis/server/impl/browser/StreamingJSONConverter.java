@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl.browser;
+
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_OBJECTINFOLDERLIST_HAS_MORE_ITEMS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_OBJECTINFOLDERLIST_NUM_ITEMS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_OBJECTINFOLDERLIST_OBJECTS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_OBJECTLIST_HAS_MORE_ITEMS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_OBJECTLIST_NUM_ITEMS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_OBJECTLIST_OBJECTS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_TYPESLIST_HAS_MORE_ITEMS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_TYPESLIST_NUM_ITEMS;
+import static org.apache.chemistry.opencmis.commons.impl.JSONConstants.JSON_TYPESLIST_TYPES;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderList;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionList;
+import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.impl.TypeCache;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONStreamAware;
+import org.json.simple.JSONValue;
+
+/**
+ * Converts lists into JSON that is produced while it is written.
+ * <p>
+ * The {@link JSONConverter} methods build the JSON representation of a whole
+ * list before the first byte is sent. The lists returned here convert one
+ * element at a time when the response is written and drop it right after it
+ * has been written, so only the list itself and a single converted element
+ * are on the heap. The output is the same as the output of the corresponding
+ * {@link JSONConverter} methods.
+ * <p>
+ * Because the conversion happens while the response is written, the response
+ * may already be committed when converting an element fails.
+ */
+public final class StreamingJSONConverter {
+
+    private StreamingJSONConverter() {
+    }
+
+    /**
+     * Converts an object list.
+     */
+    @SuppressWarnings("unchecked")
+    public static JSONObject convert(ObjectList list, TypeCache typeCache, boolean isQueryResult) {
+        if (list == null) {
+            return null;
+        }
+
+        JSONObject result = new JSONObject();
+
+        List<ObjectData> objects = list.getObjects();
+        if (objects == null) {
+            objects = Collections.emptyList();
+        }
+
+        result.put(JSON_OBJECTLIST_OBJECTS, convertObjects(objects, typeCache, isQueryResult));
+
+        JSONConverter.setIfNotNull(JSON_OBJECTLIST_HAS_MORE_ITEMS, list.hasMoreItems(), result);
+        JSONConverter.setIfNotNull(JSON_OBJECTLIST_NUM_ITEMS, list.getNumItems(), result);
+
+        JSONConverter.convertExtension(list, result);
+
+        return result;
+    }
+
+    /**
+     * Converts a folder list.
+     */
+    @SuppressWarnings("unchecked")
+    public static JSONObject convert(ObjectInFolderList objectInFolderList, final TypeCache typeCache) {
+        if (objectInFolderList == null) {
+            return null;
+        }
+
+        JSONObject result = new JSONObject();
+
+        if (objectInFolderList.getObjects() != null) {
+            result.put(JSON_OBJECTINFOLDERLIST_OBJECTS,
+                    new ConvertingArray<ObjectInFolderData>(objectInFolderList.getObjects()) {
+                        @Override
+                        protected Object convert(ObjectInFolderData object) {
+                            return JSONConverter.convert(object, typeCache);
+                        }
+                    });
+        }
+
+        JSONConverter.setIfNotNull(JSON_OBJECTINFOLDERLIST_HAS_MORE_ITEMS, objectInFolderList.hasMoreItems(), result);
+        JSONConverter.setIfNotNull(JSON_OBJECTINFOLDERLIST_NUM_ITEMS, objectInFolderList.getNumItems(), result);
+
+        JSONConverter.convertExtension(objectInFolderList, result);
+
+        return result;
+    }
+
+    /**
+     * Converts a list of objects.
+     */
+    public static JSONStreamAware convertObjects(List<ObjectData> objects, final TypeCache typeCache,
+            final boolean isQueryResult) {
+        return new ConvertingArray<ObjectData>(objects) {
+            @Override
+            protected Object convert(ObjectData object) {
+                return JSONConverter.convert(object, typeCache, isQueryResult);
+            }
+        };
+    }
+
+    /**
+     * Converts a list of folder containers.
+     */
+    public static JSONStreamAware convertDescendants(List<ObjectInFolderContainer> descendants,
+            final TypeCache typeCache) {
+        return new ConvertingArray<ObjectInFolderContainer>(descendants) {
+            @Override
+            protected Object convert(ObjectInFolderContainer container) {
+                return JSONConverter.convert(container, typeCache);
+            }
+        };
+    }
+
+    /**
+     * Converts a type definition list.
+     */
+    @SuppressWarnings("unchecked")
+    public static JSONObject convert(TypeDefinitionList list) {
+        if (list == null) {
+            return null;
+        }
+
+        JSONObject result = new JSONObject();
+
+        if (list.getList() != null) {
+            result.put(JSON_TYPESLIST_TYPES, new ConvertingArray<TypeDefinition>(list.getList()) {
+                @Override
+                protected Object convert(TypeDefinition type) {
+                    return JSONConverter.convert(type);
+                }
+            });
+        }
+
+        JSONConverter.setIfNotNull(JSON_TYPESLIST_HAS_MORE_ITEMS, list.hasMoreItems(), result);
+        JSONConverter.setIfNotNull(JSON_TYPESLIST_NUM_ITEMS, list.getNumItems(), result);
+
+        JSONConverter.convertExtension(list, result);
+
+        return result;
+    }
+
+    /**
+     * Converts a list of type definition containers.
+     */
+    public static JSONStreamAware convertTypeDescendants(List<TypeDefinitionContainer> containers) {
+        return new ConvertingArray<TypeDefinitionContainer>(containers) {
+            @Override
+            protected Object convert(TypeDefinitionContainer container) {
+                return JSONConverter.convert(container);
+            }
+        };
+    }
+
+    /**
+     * JSON array that converts its elements when it is written.
+     */
+    abstract static class ConvertingArray<T> implements JSONStreamAware {
+
+        private final List<T> elements;
+
+        public ConvertingArray(List<T> elements) {
+            this.elements = elements;
+        }
+
+        /**
+         * Converts a list element into its JSON representation.
+         */
+        protected abstract Object convert(T element);
+
+        public void writeJSONString(Writer out) throws IOException {
+            out.write('[');
+
+            boolean first = true;
+            for (T element : elements) {
+                if (first) {
+                    first = false;
+                } else {
+                    out.write(',');
+                }
+
+                JSONValue.writeJSONString(convert(element), out);
+            }
+
+            out.write(']');
+        }
+
+        @Override
+        public String toString() {
+            StringWriter out = new StringWriter();
+            try {
+                writeJSONString(out);
+            } catch (IOException e) {
+                // cannot happen with a StringWriter
+            }
+
+            return out.toString();
+        }
+    }
+}
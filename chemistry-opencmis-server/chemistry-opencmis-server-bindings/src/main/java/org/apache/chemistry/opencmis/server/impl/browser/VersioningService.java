@@ -53,8 +53,8 @@ import org.apache.chemistry.opencmis.commons.impl.server.TypeCacheImpl;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
-import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.json.simple.JSONStreamAware;
 
 /**
  * Versioning Service operations.
@@ -155,7 +155,6 @@ public class VersioningService {
         writeJSON(jsonObject, request, response);
     }
 
-    @SuppressWarnings("unchecked")
     public static void getAllVersions(CallContext context, CmisService service, String repositoryId,
             HttpServletRequest request, HttpServletResponse response) throws Exception {
         // get parameters
@@ -172,10 +171,7 @@ public class VersioningService {
         }
 
         TypeCache typeCache = new TypeCacheImpl(repositoryId, service);
-        JSONArray jsonVersions = new JSONArray();
-        for (ObjectData version : versions) {
-            jsonVersions.add(JSONConverter.convert(version, typeCache, false));
-        }
+        JSONStreamAware jsonVersions = StreamingJSONConverter.convertObjects(versions, typeCache, false);
 
         response.setStatus(HttpServletResponse.SC_OK);
         writeJSON(jsonVersions, request, response);
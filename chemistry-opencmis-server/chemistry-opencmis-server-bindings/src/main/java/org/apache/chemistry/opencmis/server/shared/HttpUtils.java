@@ -18,8 +18,14 @@
  */
 package org.apache.chemistry.opencmis.server.shared;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.math.BigInteger;
+import java.nio.channels.Channels;
 import java.util.Map;
 
 import javax.servlet.ServletContext;
@@ -28,7 +34,11 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.server.FileChannelInputStream;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
+import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidator;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidatorHandler;
 import org.apache.chemistry.opencmis.server.impl.CallContextImpl;
 
 /**
@@ -36,6 +46,13 @@ import org.apache.chemistry.opencmis.server.impl.CallContextImpl;
  */
 public class HttpUtils {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private HttpUtils() {
     }
 
@@ -89,7 +106,8 @@ public class HttpUtils {
                         if (offset == null) {
                             length = new BigInteger(lengthStr);
                         } else {
-                            length = (new BigInteger(lengthStr)).subtract(offset);
+                            // the last byte position is inclusive
+                            length = (new BigInteger(lengthStr)).subtract(offset).add(BigInteger.ONE);
                         }
                     }
 
@@ -232,4 +250,158 @@ public class HttpUtils {
             throw new CmisRuntimeException(e.getMessage(), e);
         }
     }
+
+    /**
+     * Sets the ETag and Last-Modified headers of a content stream and
+     * evaluates the If-None-Match and If-Modified-Since headers of the
+     * request. If the client already has the current content stream, the
+     * status is set to 304 (Not Modified) and the content stream must not be
+     * sent.
+     * 
+     * @return <code>true</code> if the content stream has not been modified
+     */
+    public static boolean checkContentStreamValidator(CmisService service, String repositoryId, String objectId,
+            String streamId, HttpServletRequest request, HttpServletResponse response) {
+        if (!(service instanceof ContentStreamValidatorHandler)) {
+            return false;
+        }
+
+        ContentStreamValidator validator = ((ContentStreamValidatorHandler) service).getContentStreamValidator(
+                repositoryId, objectId, streamId);
+        if (validator == null) {
+            return false;
+        }
+
+        String eTag = validator.getETag();
+        long lastModified = -1;
+        if (validator.getLastModified() != null) {
+            // HTTP dates have a precision of seconds
+            lastModified = (validator.getLastModified().getTimeInMillis() / 1000) * 1000;
+        }
+
+        if (eTag != null) {
+            response.setHeader("ETag", eTag);
+        }
+        if (lastModified > -1) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+
+        boolean notModified = false;
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-Modified-Since is ignored if If-None-Match is present
+            notModified = (eTag != null) && matchesETag(ifNoneMatch, eTag);
+        } else if (lastModified > -1) {
+            long ifModifiedSince = -1;
+            try {
+                ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            } catch (IllegalArgumentException e) {
+                // invalid date -> ignore header
+            }
+            notModified = (ifModifiedSince > -1) && (lastModified <= ifModifiedSince);
+        }
+
+        if (notModified) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+
+        return notModified;
+    }
+
+    /**
+     * Checks if an If-None-Match header contains an entity tag. Weak tags
+     * match their strong counterparts.
+     */
+    private static boolean matchesETag(String header, String eTag) {
+        String tag = stripWeakPrefix(eTag.trim());
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeakPrefix(candidate).equals(tag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    /**
+     * Sets the Content-Length header if the length is known.
+     */
+    public static void setContentLength(HttpServletResponse response, BigInteger length) {
+        if (length == null || length.signum() < 0) {
+            return;
+        }
+
+        if (length.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) <= 0) {
+            response.setContentLength(length.intValue());
+        } else {
+            response.setHeader("Content-Length", length.toString());
+        }
+    }
+
+    /**
+     * Writes a content stream to the response and closes the stream.
+     * <p>
+     * Streams that read a file range ({@link FileChannelInputStream}) are
+     * handed to the servlet container if it can send files itself (Tomcat
+     * sendfile) or are transferred with a file channel. A partial file gets a
+     * Content-Range header. If a requested range covers the whole file, the
+     * status is set to 200 (OK) because a 206 (Partial Content) response must
+     * carry a Content-Range header. All other streams are copied.
+     */
+    public static void writeContent(InputStream stream, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (stream instanceof FileChannelInputStream) {
+            FileChannelInputStream fileStream = (FileChannelInputStream) stream;
+            try {
+                long start = fileStream.getPosition();
+                long length = fileStream.getRemaining();
+                long fileLength = fileStream.getFile().length();
+
+                if (length <= Integer.MAX_VALUE) {
+                    response.setContentLength((int) length);
+                } else {
+                    response.setHeader("Content-Length", String.valueOf(length));
+                }
+
+                if ((start > 0) || (length < fileLength)) {
+                    response.setHeader("Content-Range", "bytes " + start + "-" + (start + length - 1) + "/"
+                            + fileLength);
+                } else {
+                    response.setStatus(HttpServletResponse.SC_OK);
+                }
+
+                if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                    request.setAttribute(SENDFILE_FILENAME, fileStream.getFile().getAbsolutePath());
+                    request.setAttribute(SENDFILE_START, Long.valueOf(start));
+                    request.setAttribute(SENDFILE_END, Long.valueOf(start + length));
+                    return;
+                }
+
+                OutputStream out = response.getOutputStream();
+                fileStream.transferTo(Channels.newChannel(out));
+                out.flush();
+            } finally {
+                fileStream.close();
+            }
+
+            return;
+        }
+
+        InputStream in = new BufferedInputStream(stream, BUFFER_SIZE);
+        OutputStream out = new BufferedOutputStream(response.getOutputStream());
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int b;
+        while ((b = in.read(buffer)) > -1) {
+            out.write(buffer, 0, b);
+        }
+
+        in.close();
+        out.flush();
+    }
 }
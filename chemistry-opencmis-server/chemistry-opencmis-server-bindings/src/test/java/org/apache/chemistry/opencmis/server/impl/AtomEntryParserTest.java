@@ -18,13 +18,19 @@
  */
 package org.apache.chemistry.opencmis.server.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.Random;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
@@ -183,6 +189,70 @@ public class AtomEntryParserTest {
         assertEquals("atom.title", nameProperty.getFirstValue());
     }
 
+    @Test
+    public void testLargeCmisContent() throws Exception {
+        byte[] content = createContent(300 * 1024);
+
+        // in memory
+        AtomEntryParser aep = new AtomEntryParser(new ByteArrayInputStream(createCmisEntry(content, false)));
+        assertEquals(BigInteger.valueOf(content.length), aep.getContentStream().getBigLength());
+        assertArrayEquals(content, read(aep.getContentStream().getStream()));
+
+        // temp file
+        File tempDir = createTempDir();
+        try {
+            aep = new AtomEntryParser();
+            aep.setTempDirectory(tempDir);
+            aep.setMemoryThreshold(100 * 1024);
+            aep.parse(new ByteArrayInputStream(createCmisEntry(content, false)));
+
+            assertEquals(1, tempDir.list().length);
+            assertEquals(BigInteger.valueOf(content.length), aep.getContentStream().getBigLength());
+            assertArrayEquals(content, read(aep.getContentStream().getStream()));
+            assertEquals(0, tempDir.list().length);
+        } finally {
+            for (File file : tempDir.listFiles()) {
+                file.delete();
+            }
+            tempDir.delete();
+        }
+    }
+
+    @Test
+    public void testStreamedCmisContent() throws Exception {
+        byte[] content = createContent(300 * 1024);
+
+        AtomEntryParser aep = new AtomEntryParser();
+        aep.setStreamContent(true);
+        aep.setMemoryThreshold(0);
+        aep.parse(new ByteArrayInputStream(createCmisEntry(content, false)));
+
+        assertEquals("id", aep.getId());
+        assertEquals("text/plain", aep.getContentStream().getMimeType());
+        assertNull(aep.getContentStream().getBigLength());
+        assertArrayEquals(content, read(aep.getContentStream().getStream()));
+
+        // content before the object has to be buffered
+        File tempDir = createTempDir();
+        try {
+            aep = new AtomEntryParser();
+            aep.setStreamContent(true);
+            aep.setTempDirectory(tempDir);
+            aep.setMemoryThreshold(0);
+            aep.parse(new ByteArrayInputStream(createCmisEntry(content, true)));
+
+            assertEquals("id", aep.getId());
+            assertEquals(BigInteger.valueOf(content.length), aep.getContentStream().getBigLength());
+            assertArrayEquals(content, read(aep.getContentStream().getStream()));
+            assertEquals(0, tempDir.list().length);
+        } finally {
+            for (File file : tempDir.listFiles()) {
+                file.delete();
+            }
+            tempDir.delete();
+        }
+    }
+
     @Test
     public void testNullStream() throws Exception {
         AtomEntryParser aep = new AtomEntryParser(null);
@@ -205,6 +275,51 @@ public class AtomEntryParserTest {
         assertNull(aep.getProperties());
     }
 
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+
+        return content;
+    }
+
+    private static byte[] createCmisEntry(byte[] content, boolean contentFirst) throws Exception {
+        String cmisContent = "<cmisra:content>" + "  <cmisra:mediatype>text/plain</cmisra:mediatype>"
+                + "  <cmisra:base64>" + Base64.encodeBytes(content, Base64.DO_BREAK_LINES) + "</cmisra:base64>"
+                + "</cmisra:content>";
+
+        int objectStart = CMIS_ENTRY.indexOf("<cmisra:object");
+        int objectEnd = CMIS_ENTRY.indexOf("<cmisra:content>");
+        String object = CMIS_ENTRY.substring(objectStart, objectEnd);
+
+        String entry = CMIS_ENTRY.substring(0, objectStart)
+                + (contentFirst ? cmisContent + object : object + cmisContent) + "</atom:entry>";
+
+        return entry.getBytes();
+    }
+
+    private static File createTempDir() throws Exception {
+        File tempDir = File.createTempFile("opencmis-test", "");
+        assertTrue(tempDir.delete());
+        assertTrue(tempDir.mkdir());
+        assertFalse(tempDir.list().length > 0);
+
+        return tempDir;
+    }
+
+    private static byte[] read(InputStream stream) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        byte[] buffer = new byte[4096];
+        int b;
+
+        while ((b = stream.read(buffer)) > -1) {
+            baos.write(buffer, 0, b);
+        }
+        stream.close();
+
+        return baos.toByteArray();
+    }
+
     private static byte[] parse(byte[] entry) throws Exception {
         AtomEntryParser aep = new AtomEntryParser(new ByteArrayInputStream(entry));
         ContentStream contentStream = aep.getContentStream();
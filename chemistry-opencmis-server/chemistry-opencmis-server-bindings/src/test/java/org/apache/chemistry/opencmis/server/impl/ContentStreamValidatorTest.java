@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.GregorianCalendar;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.chemistry.opencmis.commons.impl.server.ContentStreamValidatorImpl;
+import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidatorHandler;
+import org.apache.chemistry.opencmis.server.shared.HttpUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContentStreamValidatorTest {
+
+    private static final String REPOSITORY_ID = "repo";
+    private static final String OBJECT_ID = "doc";
+    private static final String ETAG = "\"abc123\"";
+    private static final long LAST_MODIFIED = 1300000000000L;
+
+    private CmisService service;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        service = mock(CmisService.class, withSettings().extraInterfaces(ContentStreamValidatorHandler.class));
+        GregorianCalendar lastModified = new GregorianCalendar();
+        lastModified.setTimeInMillis(LAST_MODIFIED + 123);
+        when(((ContentStreamValidatorHandler) service).getContentStreamValidator(REPOSITORY_ID, OBJECT_ID, null))
+                .thenReturn(new ContentStreamValidatorImpl(ETAG, lastModified));
+
+        request = mock(HttpServletRequest.class);
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+        response = mock(HttpServletResponse.class);
+    }
+
+    @Test
+    public void testUnconditionalRequest() {
+        assertFalse(check());
+        verify(response).setHeader("ETag", ETAG);
+        verify(response).setDateHeader("Last-Modified", LAST_MODIFIED);
+        verify(response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    @Test
+    public void testIfNoneMatch() {
+        when(request.getHeader("If-None-Match")).thenReturn("\"other\", " + ETAG);
+        assertTrue(check());
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+        when(request.getHeader("If-None-Match")).thenReturn("W/" + ETAG);
+        assertTrue(check());
+
+        when(request.getHeader("If-None-Match")).thenReturn("*");
+        assertTrue(check());
+
+        // a changed tag wins over an unchanged date
+        when(request.getHeader("If-None-Match")).thenReturn("\"other\"");
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(LAST_MODIFIED);
+        assertFalse(check());
+    }
+
+    @Test
+    public void testIfModifiedSince() {
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(LAST_MODIFIED);
+        assertTrue(check());
+
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(LAST_MODIFIED - 1000);
+        assertFalse(check());
+
+        when(request.getDateHeader("If-Modified-Since")).thenThrow(new IllegalArgumentException());
+        assertFalse(check());
+    }
+
+    @Test
+    public void testNoValidator() {
+        CmisService plainService = mock(CmisService.class);
+        when(request.getHeader("If-None-Match")).thenReturn("*");
+        assertFalse(HttpUtils.checkContentStreamValidator(plainService, REPOSITORY_ID, OBJECT_ID, null, request,
+                response));
+        verify(response, never()).setHeader("ETag", ETAG);
+    }
+
+    private boolean check() {
+        return HttpUtils.checkContentStreamValidator(service, REPOSITORY_ID, OBJECT_ID, null, request, response);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.chemistry.opencmis.commons.impl.server.FileChannelInputStream;
+import org.apache.chemistry.opencmis.server.shared.HttpUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests writing content streams to a servlet response.
+ */
+public class ContentWriterTest {
+
+    private static final byte[] CONTENT = new byte[100 * 1024];
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) (i % 251);
+        }
+    }
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    private ByteArrayOutputStream body;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                body.write(b, off, len);
+            }
+        });
+
+        file = File.createTempFile("opencmis", ".bin");
+        OutputStream out = new FileOutputStream(file);
+        out.write(CONTENT);
+        out.close();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        HttpUtils.writeContent(new ByteArrayInputStream(CONTENT), request, response);
+
+        assertArrayEquals(CONTENT, body.toByteArray());
+    }
+
+    @Test
+    public void testFileRange() throws Exception {
+        HttpUtils.writeContent(new FileChannelInputStream(file, 1000, 5000), request, response);
+
+        assertArrayEquals(range(1000, 5000), body.toByteArray());
+        verify(response).setContentLength(5000);
+        verify(response).setHeader("Content-Range", "bytes 1000-5999/" + CONTENT.length);
+        verify(response, never()).setStatus(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    public void testRangeCoveringWholeFile() throws Exception {
+        // e.g. "Range: bytes=0-" or a range ending after the last byte
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        HttpUtils.writeContent(new FileChannelInputStream(file, 0, CONTENT.length + 10), request, response);
+
+        assertArrayEquals(CONTENT, body.toByteArray());
+        verify(response).setContentLength(CONTENT.length);
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        verify(response, never()).setHeader(eq("Content-Range"), anyString());
+    }
+
+    @Test
+    public void testWholeFile() throws Exception {
+        HttpUtils.writeContent(new FileChannelInputStream(file, 0, -1), request, response);
+
+        assertArrayEquals(CONTENT, body.toByteArray());
+        verify(response).setContentLength(CONTENT.length);
+        verify(response, never()).setHeader(eq("Content-Range"), anyString());
+    }
+
+    @Test
+    public void testSendfile() throws Exception {
+        when(request.getAttribute("org.apache.tomcat.sendfile.support")).thenReturn(Boolean.TRUE);
+
+        HttpUtils.writeContent(new FileChannelInputStream(file, 10, 20), request, response);
+
+        assertEquals(0, body.size());
+        verify(request).setAttribute("org.apache.tomcat.sendfile.filename", file.getAbsolutePath());
+        verify(request).setAttribute("org.apache.tomcat.sendfile.start", Long.valueOf(10));
+        verify(request).setAttribute("org.apache.tomcat.sendfile.end", Long.valueOf(30));
+    }
+
+    @Test
+    public void testFileChannelInputStream() throws Exception {
+        FileChannelInputStream stream = new FileChannelInputStream(file, CONTENT.length - 10, 100);
+        assertEquals(10, stream.getRemaining());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = stream.read()) > -1) {
+            out.write(b);
+        }
+        stream.close();
+
+        assertArrayEquals(range(CONTENT.length - 10, 10), out.toByteArray());
+        assertTrue(stream.getRemaining() == 0);
+    }
+
+    private static byte[] range(int offset, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(CONTENT, offset, result, 0, length);
+        return result;
+    }
+}
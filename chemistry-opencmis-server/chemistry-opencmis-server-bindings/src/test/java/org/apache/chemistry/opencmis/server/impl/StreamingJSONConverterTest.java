@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
+import org.apache.chemistry.opencmis.commons.data.ObjectInFolderData;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.impl.JSONConverter;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderContainerImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectInFolderListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIntegerImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyStringImpl;
+import org.apache.chemistry.opencmis.server.impl.browser.StreamingJSONConverter;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONStreamAware;
+import org.json.simple.JSONValue;
+import org.junit.Test;
+
+/**
+ * StreamingJSONConverter test.
+ */
+public class StreamingJSONConverterTest {
+
+    @Test
+    public void testObjectList() throws Exception {
+        ObjectListImpl list = new ObjectListImpl();
+        list.setObjects(createObjects(25));
+        list.setHasMoreItems(Boolean.TRUE);
+        list.setNumItems(BigInteger.valueOf(100));
+
+        assertSameJSON(JSONConverter.convert(list, null, false), StreamingJSONConverter.convert(list, null, false));
+        assertSameJSON(JSONConverter.convert(list, null, true), StreamingJSONConverter.convert(list, null, true));
+
+        // no objects
+        list.setObjects(null);
+        assertSameJSON(JSONConverter.convert(list, null, false), StreamingJSONConverter.convert(list, null, false));
+    }
+
+    @Test
+    public void testObjectInFolderList() throws Exception {
+        ObjectInFolderListImpl list = new ObjectInFolderListImpl();
+        list.setObjects(createObjectsInFolder(25));
+        list.setHasMoreItems(Boolean.FALSE);
+
+        assertSameJSON(JSONConverter.convert(list, null), StreamingJSONConverter.convert(list, null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDescendants() throws Exception {
+        List<ObjectInFolderContainer> descendants = new ArrayList<ObjectInFolderContainer>();
+        for (ObjectInFolderData object : createObjectsInFolder(5)) {
+            ObjectInFolderContainerImpl container = new ObjectInFolderContainerImpl();
+            container.setObject(object);
+            container.setChildren(new ArrayList<ObjectInFolderContainer>());
+            descendants.add(container);
+        }
+        ((List<ObjectInFolderContainer>) descendants.get(0).getChildren()).add(descendants.remove(4));
+
+        JSONArray expected = new JSONArray();
+        for (ObjectInFolderContainer container : descendants) {
+            expected.add(JSONConverter.convert(container, null));
+        }
+
+        assertSameJSON(expected, StreamingJSONConverter.convertDescendants(descendants, null));
+        assertEquals("[]",
+                StreamingJSONConverter.convertDescendants(Collections.<ObjectInFolderContainer> emptyList(), null)
+                        .toString());
+    }
+
+    private static void assertSameJSON(JSONStreamAware expected, JSONStreamAware actual) throws Exception {
+        StringWriter expectedJSON = new StringWriter();
+        expected.writeJSONString(expectedJSON);
+
+        StringWriter actualJSON = new StringWriter();
+        actual.writeJSONString(actualJSON);
+
+        Object parsed = JSONValue.parse(actualJSON.toString());
+        assertNotNull(parsed);
+        assertEquals(JSONValue.parse(expectedJSON.toString()), parsed);
+    }
+
+    private static List<ObjectInFolderData> createObjectsInFolder(int count) {
+        List<ObjectInFolderData> result = new ArrayList<ObjectInFolderData>();
+        for (ObjectData object : createObjects(count)) {
+            ObjectInFolderDataImpl objectInFolder = new ObjectInFolderDataImpl();
+            objectInFolder.setObject(object);
+            objectInFolder.setPathSegment("doc-" + object.getId());
+            result.add(objectInFolder);
+        }
+
+        return result;
+    }
+
+    private static List<ObjectData> createObjects(int count) {
+        List<ObjectData> result = new ArrayList<ObjectData>();
+        for (int i = 0; i < count; i++) {
+            List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+            properties.add(new PropertyIdImpl(PropertyIds.OBJECT_ID, "id" + i));
+            properties.add(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, "cmis:document"));
+            properties.add(new PropertyStringImpl(PropertyIds.NAME, "Document \"" + i + "\""));
+            properties.add(new PropertyIntegerImpl(PropertyIds.CONTENT_STREAM_LENGTH, BigInteger.valueOf(i)));
+
+            ObjectDataImpl object = new ObjectDataImpl();
+            object.setProperties(new PropertiesImpl(properties));
+            result.add(object);
+        }
+
+        return result;
+    }
+}
@@ -42,7 +42,6 @@ import java.util.TimeZone;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.Ace;
@@ -121,6 +120,7 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryCapabili
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl;
 import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisObjectType;
 import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisProperty;
+import org.apache.chemistry.opencmis.commons.impl.server.FileChannelInputStream;
 import org.apache.chemistry.opencmis.commons.impl.server.ObjectInfoImpl;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfoHandler;
@@ -157,6 +157,8 @@ public class FileShareRepository {
     private final Map<String, Boolean> userMap;
     /** Repository info */
     private final RepositoryInfoImpl repositoryInfo;
+    /** Parsed properties files */
+    private final PropertiesCache propertiesCache;
 
     /**
      * Constructor.
@@ -192,6 +194,9 @@ public class FileShareRepository {
         // set up user table
         userMap = new HashMap<String, Boolean>();
 
+        // set up properties cache
+        propertiesCache = new PropertiesCache(PropertiesCache.DEFAULT_SIZE);
+
         // compile repository info
         repositoryInfo = new RepositoryInfoImpl();
 
@@ -303,6 +308,13 @@ public class FileShareRepository {
         return repositoryId;
     }
 
+    /**
+     * Returns the cache of parsed properties files.
+     */
+    public PropertiesCache getPropertiesCache() {
+        return propertiesCache;
+    }
+
     /**
      * CMIS getRepositoryInfo.
      */
@@ -665,6 +677,9 @@ public class FileShareRepository {
                     File newPropFile = new File(parent, propFile.getName());
                     propFile.renameTo(newPropFile);
                 }
+                propertiesCache.invalidate(propFile);
+            } else {
+                propertiesCache.invalidateTree(file);
             }
         }
 
@@ -740,6 +755,7 @@ public class FileShareRepository {
 
         // delete properties and actual file
         getPropertiesFile(file).delete();
+        propertiesCache.invalidate(getPropertiesFile(file));
         if (!file.delete()) {
             throw new CmisStorageException("Deletion failed!");
         }
@@ -763,8 +779,10 @@ public class FileShareRepository {
         // if it is a folder, remove it recursively
         if (file.isDirectory()) {
             deleteFolder(file, cof, result);
+            propertiesCache.invalidateTree(file);
         } else {
             getPropertiesFile(file).delete();
+            propertiesCache.invalidate(getPropertiesFile(file));
             if (!file.delete()) {
                 result.getIds().add(getId(file));
             }
@@ -843,6 +861,9 @@ public class FileShareRepository {
                         File newPropFile = new File(parent, newName + SHADOW_EXT);
                         propFile.renameTo(newPropFile);
                     }
+                    propertiesCache.invalidate(propFile);
+                } else {
+                    propertiesCache.invalidateTree(file);
                 }
             }
         }
@@ -921,23 +942,36 @@ public class FileShareRepository {
         debug("getContentStream");
         checkUser(context, false);
 
-        if ((offset != null) || (length != null)) {
-            throw new CmisInvalidArgumentException("Offset and Length are not supported!");
-        }
-
         // get the file
         final File file = getFile(objectId);
         if (!file.isFile()) {
             throw new CmisStreamNotSupportedException("Not a file!");
         }
 
-        if (file.length() == 0) {
+        long fileLength = file.length();
+        if (fileLength == 0) {
             throw new CmisConstraintException("Document has no content!");
         }
 
+        // compute the range
+        long start = (offset == null ? 0 : offset.longValue());
+        if ((start < 0) || (start >= fileLength)) {
+            throw new CmisInvalidArgumentException("Offset is out of range!");
+        }
+
+        long rangeLength = fileLength - start;
+        if (length != null) {
+            if (length.signum() < 0) {
+                throw new CmisInvalidArgumentException("Length must not be negative!");
+            }
+            if (length.compareTo(BigInteger.valueOf(rangeLength)) < 0) {
+                rangeLength = length.longValue();
+            }
+        }
+
         InputStream stream = null;
         try {
-            stream = new BufferedInputStream(new FileInputStream(file), 4 * 1024);
+            stream = new FileChannelInputStream(file, start, rangeLength);
         } catch (FileNotFoundException e) {
             throw new CmisObjectNotFoundException(e.getMessage(), e);
         }
@@ -945,7 +979,7 @@ public class FileShareRepository {
         // compile data
         ContentStreamImpl result = new ContentStreamImpl();
         result.setFileName(file.getName());
-        result.setLength(BigInteger.valueOf(file.length()));
+        result.setLength(BigInteger.valueOf(rangeLength));
         result.setMimeType(MimeTypes.getMIMEType(file));
         result.setStream(stream);
 
@@ -1477,7 +1511,6 @@ public class FileShareRepository {
     /**
      * Reads and adds properties.
      */
-    @SuppressWarnings("unchecked")
     private void readCustomProperties(File file, PropertiesImpl properties, Set<String> filter,
             ObjectInfoImpl objectInfo) {
         File propFile = getPropertiesFile(file);
@@ -1487,21 +1520,20 @@ public class FileShareRepository {
             return;
         }
 
-        // parse it
-        JAXBElement<CmisObjectType> obj = null;
+        // parse it or get it from the cache
+        CmisObjectType obj = null;
         try {
-            Unmarshaller u = JaxBHelper.createUnmarshaller();
-            obj = (JAXBElement<CmisObjectType>) u.unmarshal(propFile);
+            obj = propertiesCache.get(propFile);
         } catch (Exception e) {
             warn("Unvalid CMIS properties: " + propFile.getAbsolutePath(), e);
         }
 
-        if ((obj == null) || (obj.getValue() == null) || (obj.getValue().getProperties() == null)) {
+        if ((obj == null) || (obj.getProperties() == null)) {
             return;
         }
 
         // add it to properties
-        for (CmisProperty cmisProp : obj.getValue().getProperties().getProperty()) {
+        for (CmisProperty cmisProp : obj.getProperties().getProperty()) {
             PropertyData<?> prop = Converter.convert(cmisProp);
 
             // overwrite object info
@@ -1910,8 +1942,9 @@ public class FileShareRepository {
     /**
      * Writes the properties for a document or folder.
      */
-    private static void writePropertiesFile(File file, Properties properties) {
+    private void writePropertiesFile(File file, Properties properties) {
         File propFile = getPropertiesFile(file);
+        propertiesCache.invalidate(propFile);
 
         // if no properties set delete the properties file
         if ((properties == null) || (properties.getProperties() == null) || (properties.getProperties().size() == 0)) {
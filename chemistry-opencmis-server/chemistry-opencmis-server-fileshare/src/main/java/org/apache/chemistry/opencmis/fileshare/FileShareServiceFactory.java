@@ -48,6 +48,7 @@ public class FileShareServiceFactory extends AbstractServiceFactory {
     private static final String PREFIX_TYPE = "type.";
     private static final String SUFFIX_READWRITE = ".readwrite";
     private static final String SUFFIX_READONLY = ".readonly";
+    private static final String SUFFIX_PROPERTIES_CACHE_SIZE = ".propertiescachesize";
 
     private static final BigInteger DEFAULT_MAX_ITEMS_TYPES = BigInteger.valueOf(50);
     private static final BigInteger DEFAULT_DEPTH_TYPES = BigInteger.valueOf(-1);
@@ -146,6 +147,13 @@ public class FileShareServiceFactory extends AbstractServiceFactory {
                     for (String user : split(parameters.get(key))) {
                         fsr.addUser(replaceSystemProperties(user), true);
                     }
+                } else if (key.endsWith(SUFFIX_PROPERTIES_CACHE_SIZE)) {
+                    // size of the properties cache
+                    FileShareRepository fsr = repositoryMap.getRepository(repositoryId);
+                    int size = Integer.parseInt(replaceSystemProperties(parameters.get(key)).trim());
+                    fsr.getPropertiesCache().setMaxSize(size);
+
+                    log.info("Properties cache size of repository '" + repositoryId + "': " + size);
                 } else {
                     // new repository
                     String root = replaceSystemProperties(parameters.get(key));
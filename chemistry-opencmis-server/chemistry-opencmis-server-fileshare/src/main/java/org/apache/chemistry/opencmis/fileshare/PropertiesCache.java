@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.fileshare;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Unmarshaller;
+
+import org.apache.chemistry.opencmis.commons.impl.JaxBHelper;
+import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisObjectType;
+
+/**
+ * Cache of parsed properties files (shadow files).
+ * <p>
+ * An entry is only used as long as the last modification date and the length
+ * of the properties file haven't changed. The repository invalidates entries
+ * when it writes, renames or deletes properties files itself. The least
+ * recently used entries are evicted when the cache is full. A size of 0
+ * disables the cache.
+ * <p>
+ * The returned objects are shared between all callers and must not be
+ * modified.
+ */
+public class PropertiesCache {
+
+    public static final int DEFAULT_SIZE = 10000;
+
+    private final Map<String, CacheEntry> entries;
+    private volatile int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a cache with the given maximum number of entries.
+     */
+    public PropertiesCache(int size) {
+        maxSize = size;
+        entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed content of a properties file.
+     * 
+     * @param propFile
+     *            the properties file
+     * @return the object or <code>null</code> if the file doesn't exist
+     * @throws Exception
+     *             if the file cannot be parsed
+     */
+    @SuppressWarnings("unchecked")
+    public CmisObjectType get(File propFile) throws Exception {
+        String key = propFile.getAbsolutePath();
+        long lastModified = propFile.lastModified();
+        long length = propFile.length();
+
+        if (lastModified == 0) {
+            // the file doesn't exist (anymore)
+            invalidate(propFile);
+            return null;
+        }
+
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if ((entry != null) && (entry.lastModified == lastModified) && (entry.length == length)) {
+                hits.incrementAndGet();
+                return entry.object;
+            }
+        }
+
+        misses.incrementAndGet();
+
+        Unmarshaller u = JaxBHelper.createUnmarshaller();
+        JAXBElement<CmisObjectType> obj = (JAXBElement<CmisObjectType>) u.unmarshal(propFile);
+        CmisObjectType object = (obj == null ? null : obj.getValue());
+
+        if (maxSize > 0) {
+            synchronized (entries) {
+                entries.put(key, new CacheEntry(lastModified, length, object));
+            }
+        }
+
+        return object;
+    }
+
+    /**
+     * Removes the entry of a properties file.
+     */
+    public void invalidate(File propFile) {
+        synchronized (entries) {
+            entries.remove(propFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Removes the entries of all properties files in a folder and its
+     * subfolders.
+     */
+    public void invalidateTree(File folder) {
+        String prefix = folder.getAbsolutePath() + File.separator;
+
+        synchronized (entries) {
+            for (Iterator<String> iter = entries.keySet().iterator(); iter.hasNext();) {
+                if (iter.next().startsWith(prefix)) {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Sets the maximum number of entries.
+     */
+    public void setMaxSize(int size) {
+        maxSize = size;
+
+        synchronized (entries) {
+            if (size <= 0) {
+                entries.clear();
+            } else {
+                for (Iterator<String> iter = entries.keySet().iterator(); entries.size() > size && iter.hasNext();) {
+                    iter.next();
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current number of entries.
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns how often a properties file has been served from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how often a properties file has been parsed.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PropertiesCache [size=" + getSize() + ", maxSize=" + maxSize + ", hits=" + hits + ", misses="
+                + misses + "]";
+    }
+
+    private static class CacheEntry {
+        final long lastModified;
+        final long length;
+        final CmisObjectType object;
+
+        CacheEntry(long lastModified, long length, CmisObjectType object) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.object = object;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.fileshare;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.Marshaller;
+
+import org.apache.chemistry.opencmis.commons.impl.JaxBHelper;
+import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisObjectType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PropertiesCacheTest {
+
+    private File root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("propcache", "");
+        root.delete();
+        root.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void hitsAndMisses() throws Exception {
+        PropertiesCache cache = new PropertiesCache(10);
+        File file = writeProperties(root, "a");
+
+        CmisObjectType first = cache.get(file);
+        assertNotNull(first);
+        assertSame(first, cache.get(file));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        // a modified file is parsed again
+        file.setLastModified(file.lastModified() - 10000);
+        assertNotSame(first, cache.get(file));
+        assertEquals(2, cache.getMisses());
+
+        // a deleted file is removed from the cache
+        file.delete();
+        assertNull(cache.get(file));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void lruEviction() throws Exception {
+        PropertiesCache cache = new PropertiesCache(2);
+        File a = writeProperties(root, "a");
+        File b = writeProperties(root, "b");
+        File c = writeProperties(root, "c");
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(a); // b is now the least recently used entry
+        cache.get(c);
+
+        assertEquals(2, cache.getSize());
+        assertEquals(3, cache.getMisses());
+
+        cache.get(a);
+        cache.get(c);
+        assertEquals(3, cache.getMisses());
+
+        cache.get(b);
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getSize());
+
+        // shrinking evicts the least recently used entries
+        cache.setMaxSize(1);
+        assertEquals(1, cache.getSize());
+        cache.get(b);
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void invalidation() throws Exception {
+        PropertiesCache cache = new PropertiesCache(10);
+        File folder = new File(root, "folder");
+        folder.mkdirs();
+        File sub = new File(folder, "sub");
+        sub.mkdirs();
+
+        File a = writeProperties(root, "a");
+        File b = writeProperties(folder, "b");
+        File c = writeProperties(sub, "c");
+
+        cache.get(a);
+        cache.get(b);
+        cache.get(c);
+        assertEquals(3, cache.getSize());
+
+        cache.invalidate(a);
+        assertEquals(2, cache.getSize());
+
+        cache.invalidateTree(folder);
+        assertEquals(0, cache.getSize());
+
+        cache.get(a);
+        assertEquals(4, cache.getMisses());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        PropertiesCache cache = new PropertiesCache(0);
+        File a = writeProperties(root, "a");
+
+        cache.get(a);
+        cache.get(a);
+        assertEquals(0, cache.getSize());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    private static File writeProperties(File folder, String name) throws Exception {
+        File file = new File(folder, name + ".cmis.xml");
+
+        JAXBElement<CmisObjectType> objElement = JaxBHelper.CMIS_EXTRA_OBJECT_FACTORY
+                .createObject(new CmisObjectType());
+        Marshaller m = JaxBHelper.createMarshaller();
+        m.marshal(objElement, file);
+
+        return file;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -38,9 +38,18 @@ public class ConfigConstants {
     public static final String FILLER_DOCUMENT_PROPERTY = "RepositoryFiller.DocumentProperty.";
     public static final String FILLER_FOLDER_PROPERTY = "RepositoryFiller.FolderProperty.";
     public static final String CONTENT_KIND = "RepositoryFiller.ContentKind";
+    public static final String FILLER_BULK_LOAD_THREADS = "RepositoryFiller.BulkLoadThreads";
+    public static final String FILLER_BULK_LOAD_FILE = "RepositoryFiller.BulkLoadFile";
     
     // runtime configuration values
     public static final String MAX_CONTENT_SIZE_KB = "InMemoryServer.MaxContentSizeKB";
+    public static final String CONTENT_STORE = "InMemoryServer.ContentStore";
+    public static final String CONTENT_STORE_DIRECTORY = "InMemoryServer.ContentStoreDirectory";
+    public static final String CHANGE_LOG_SIZE = "InMemoryServer.ChangeLogSize";
+    public static final String QUERY_CACHE_SIZE = "InMemoryServer.QueryCacheSize";
+    public static final String HASH_INDEX_PROPERTIES = "InMemoryServer.HashIndexProperties";
+    public static final String SORTED_INDEX_PROPERTIES = "InMemoryServer.SortedIndexProperties";
+    public static final String SNAPSHOT_FILE = "InMemoryServer.SnapshotFile";
     public static final String CLEAN_REPOSITORY_INTERVAL = "InMemoryServer.CleanIntervalMinutes";
     public static final String DEPLOYMENT_TIME = "InMemoryServer.DeploymentTime";
     
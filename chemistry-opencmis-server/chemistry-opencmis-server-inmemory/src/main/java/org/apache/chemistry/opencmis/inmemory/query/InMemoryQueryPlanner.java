@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.antlr.runtime.tree.Tree;
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.enums.Cardinality;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.apache.chemistry.opencmis.server.support.TypeManager;
+import org.apache.chemistry.opencmis.server.support.query.AbstractPredicateWalker;
+import org.apache.chemistry.opencmis.server.support.query.CmisQlStrictLexer;
+import org.apache.chemistry.opencmis.server.support.query.CmisSelector;
+import org.apache.chemistry.opencmis.server.support.query.ColumnReference;
+import org.apache.chemistry.opencmis.server.support.query.QueryObject;
+
+/**
+ * Selects the objects the WHERE clause of a query is evaluated against.
+ * <p>
+ * Without a WHERE clause these are the objects of the queried type and its sub
+ * types, taken from the type extents of the object store. Otherwise the
+ * planner looks for predicates that can be answered without looking at every
+ * object:
+ * <ul>
+ * <li>IN_FOLDER and IN_TREE are answered from the folder structure,</li>
+ * <li>= and IN on cmis:objectId by looking up the ids,</li>
+ * <li>= and IN on a property with an index, and &lt;, &lt;=, &gt;, &gt;= and
+ * LIKE with a fixed prefix on a property with a sorted index by looking up the
+ * values.</li>
+ * </ul>
+ * The candidates of the operands of AND are intersected, those of OR are
+ * united. All other predicates, and OR with an operand that can't be
+ * answered, fall back to the type extents.
+ * <p>
+ * The candidates are a superset of the result, the processor still evaluates
+ * the complete WHERE clause and checks the type and the permissions of each
+ * candidate.
+ */
+class InMemoryQueryPlanner {
+
+    private static final AbstractPredicateWalker LITERAL_WALKER = new AbstractPredicateWalker() {
+    };
+
+    private final ObjectStoreImpl fObjStore;
+    private final TypeManager fTypeManager;
+    private final QueryObject fQueryObj;
+    private final List<String> fPlan = new ArrayList<String>();
+
+    InMemoryQueryPlanner(ObjectStoreImpl objStore, TypeManager typeManager, QueryObject queryObj) {
+        fObjStore = objStore;
+        fTypeManager = typeManager;
+        fQueryObj = queryObj;
+    }
+
+    /**
+     * get the objects to evaluate a query against
+     *
+     * @param td
+     *            the queried type
+     * @param whereTree
+     *            the WHERE clause or null
+     * @return candidate objects
+     */
+    Collection<StoredObject> getCandidates(TypeDefinition td, Tree whereTree) {
+        fPlan.clear();
+        Collection<StoredObject> candidates = null == whereTree ? null : plan(whereTree);
+        if (null == candidates) {
+            List<String> typeIds = getTypeIds(td);
+            fPlan.add("type extents " + typeIds);
+            candidates = fObjStore.getObjectsOfTypes(typeIds);
+        }
+        return candidates;
+    }
+
+    /**
+     * @return description of the access paths used by the last call of
+     *         {@link #getCandidates(TypeDefinition, Tree)}
+     */
+    List<String> getPlan() {
+        return Collections.unmodifiableList(fPlan);
+    }
+
+    // candidates for a predicate or null if all objects of the type have to
+    // be evaluated
+    private Collection<StoredObject> plan(Tree node) {
+        switch (node.getType()) {
+        case CmisQlStrictLexer.AND:
+            return intersect(plan(node.getChild(0)), plan(node.getChild(1)));
+        case CmisQlStrictLexer.OR:
+            return unite(plan(node.getChild(0)), plan(node.getChild(1)));
+        case CmisQlStrictLexer.EQ:
+            return planEquals(node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.IN:
+            return planIn(node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.GT:
+            return planRange(node.getChild(0), node.getChild(1), false, false);
+        case CmisQlStrictLexer.GTEQ:
+            return planRange(node.getChild(0), node.getChild(1), false, true);
+        case CmisQlStrictLexer.LT:
+            return planRange(node.getChild(0), node.getChild(1), true, false);
+        case CmisQlStrictLexer.LTEQ:
+            return planRange(node.getChild(0), node.getChild(1), true, true);
+        case CmisQlStrictLexer.LIKE:
+            return planLike(node.getChild(0), node.getChild(1));
+        case CmisQlStrictLexer.IN_FOLDER:
+            return planFolder(node.getChild(node.getChildCount() - 1), false);
+        case CmisQlStrictLexer.IN_TREE:
+            return planFolder(node.getChild(node.getChildCount() - 1), true);
+        default:
+            return null;
+        }
+    }
+
+    private Collection<StoredObject> planEquals(Tree colNode, Tree literalNode) {
+        return planIn(colNode, Collections.singletonList(LITERAL_WALKER.walkExpr(literalNode)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<StoredObject> planIn(Tree colNode, Tree listNode) {
+        return planIn(colNode, (List<Object>) LITERAL_WALKER.walkExpr(listNode));
+    }
+
+    private Collection<StoredObject> planIn(Tree colNode, List<Object> literals) {
+        PropertyDefinition<?> pd = getIndexablePropertyDefinition(colNode, literals);
+        if (null == pd) {
+            return null;
+        }
+
+        if (PropertyIds.OBJECT_ID.equals(pd.getId())) {
+            fPlan.add("object ids " + literals);
+            // a literal may be repeated
+            Set<StoredObject> result = new LinkedHashSet<StoredObject>();
+            for (Object literal : literals) {
+                StoredObject so = fObjStore.getObjectById((String) literal);
+                if (null != so) {
+                    result.add(so);
+                }
+            }
+            return result;
+        }
+
+        List<StoredObject> result = fObjStore.getObjectsByPropertyValues(pd.getId(), literals);
+        if (null != result) {
+            fPlan.add("index " + pd.getId() + " IN " + literals);
+        }
+        return result;
+    }
+
+    private Collection<StoredObject> planRange(Tree colNode, Tree literalNode, boolean upper, boolean inclusive) {
+        Object literal = LITERAL_WALKER.walkExpr(literalNode);
+        PropertyDefinition<?> pd = getIndexablePropertyDefinition(colNode, Collections.singletonList(literal));
+        if (null == pd) {
+            return null;
+        }
+
+        List<StoredObject> result;
+        if (upper) {
+            result = fObjStore.getObjectsByPropertyRange(pd.getId(), null, false, literal, inclusive);
+        } else {
+            result = fObjStore.getObjectsByPropertyRange(pd.getId(), literal, inclusive, null, false);
+        }
+        if (null != result) {
+            fPlan.add("sorted index " + pd.getId() + (upper ? " <" : " >") + (inclusive ? "= " : " ") + literal);
+        }
+        return result;
+    }
+
+    private Collection<StoredObject> planLike(Tree colNode, Tree literalNode) {
+        Object literal = LITERAL_WALKER.walkExpr(literalNode);
+        if (!(literal instanceof String)) {
+            return null;
+        }
+        PropertyDefinition<?> pd = getIndexablePropertyDefinition(colNode, Collections.singletonList(literal));
+        if (null == pd) {
+            return null;
+        }
+
+        // only characters that match themselves in the pattern can be used
+        // as prefix
+        String pattern = (String) literal;
+        int prefixLength = 0;
+        while (prefixLength < pattern.length()) {
+            char c = pattern.charAt(prefixLength);
+            if (!Character.isLetterOrDigit(c) && c != ' ' && c != '-' && c != ':') {
+                break;
+            }
+            prefixLength++;
+        }
+        if (prefixLength == 0) {
+            return null;
+        }
+
+        String prefix = pattern.substring(0, prefixLength);
+        List<StoredObject> result = fObjStore.getObjectsByPropertyRange(pd.getId(), prefix, true, prefix
+                + Character.MAX_VALUE, false);
+        if (null != result) {
+            fPlan.add("sorted index " + pd.getId() + " LIKE '" + prefix + "%'");
+        }
+        return result;
+    }
+
+    private Collection<StoredObject> planFolder(Tree literalNode, boolean tree) {
+        Object literal = LITERAL_WALKER.walkExpr(literalNode);
+        if (!(literal instanceof String)) {
+            return null;
+        }
+
+        // a document may be filed in several folders of the tree
+        Set<StoredObject> result = new LinkedHashSet<StoredObject>();
+        StoredObject so = fObjStore.getObjectById((String) literal);
+        if (so instanceof Folder) {
+            addChildren((Folder) so, tree, result);
+        }
+        fPlan.add((tree ? "folder tree " : "folder ") + literal);
+        return result;
+    }
+
+    private void addChildren(Folder folder, boolean tree, Set<StoredObject> result) {
+        for (StoredObject child : fObjStore.getFiledObjects(folder)) {
+            result.add(child);
+            if (child instanceof VersionedDocument) {
+                // the versions are matched, not the version series
+                for (DocumentVersion ver : ((VersionedDocument) child).getAllVersions()) {
+                    result.add(ver);
+                }
+            } else if (tree && child instanceof Folder) {
+                addChildren((Folder) child, true, result);
+            }
+        }
+    }
+
+    /**
+     * get the definition of the property of a column if the property can be
+     * looked up with the given literals, the literals must have the type the
+     * processor expects for the property, otherwise the evaluation reports the
+     * error
+     */
+    private PropertyDefinition<?> getIndexablePropertyDefinition(Tree colNode, List<Object> literals) {
+        if (colNode.getType() != CmisQlStrictLexer.COL) {
+            return null;
+        }
+        CmisSelector sel = fQueryObj.getColumnReference(colNode.getTokenStartIndex());
+        if (!(sel instanceof ColumnReference)) {
+            return null;
+        }
+        PropertyDefinition<?> pd = ((ColumnReference) sel).getPropertyDefinition();
+        if (null == pd || pd.getCardinality() != Cardinality.SINGLE) {
+            return null;
+        }
+
+        Class<?> literalClass;
+        switch (pd.getPropertyType()) {
+        case BOOLEAN:
+            literalClass = Boolean.class;
+            break;
+        case INTEGER:
+            literalClass = Long.class;
+            break;
+        case DECIMAL:
+            literalClass = Double.class;
+            break;
+        case DATETIME:
+            literalClass = GregorianCalendar.class;
+            break;
+        case STRING:
+        case ID:
+        case URI:
+        case HTML:
+            literalClass = String.class;
+            break;
+        default:
+            return null;
+        }
+        for (Object literal : literals) {
+            if (null == literal || literal.getClass() != literalClass) {
+                return null;
+            }
+        }
+
+        return pd;
+    }
+
+    // the type and all its sub types, with the same type hierarchy the
+    // processor uses to check the type of an object
+    private List<String> getTypeIds(TypeDefinition td) {
+        List<String> allTypeIds = new ArrayList<String>();
+        addTypeIds(fTypeManager.getTypeDefinitionList(), allTypeIds);
+
+        List<String> typeIds = new ArrayList<String>();
+        for (String typeId : allTypeIds) {
+            String ancestorId = typeId;
+            while (null != ancestorId) {
+                if (ancestorId.equals(td.getId())) {
+                    typeIds.add(typeId);
+                    break;
+                }
+                TypeDefinition parentTD = fQueryObj.getParentType(ancestorId);
+                ancestorId = null == parentTD ? null : parentTD.getId();
+            }
+        }
+        return typeIds;
+    }
+
+    private static void addTypeIds(Collection<TypeDefinitionContainer> containers, List<String> typeIds) {
+        if (null == containers) {
+            return;
+        }
+        for (TypeDefinitionContainer tdc : containers) {
+            typeIds.add(tdc.getTypeDefinition().getId());
+            addTypeIds(tdc.getChildren(), typeIds);
+        }
+    }
+
+    private static Collection<StoredObject> intersect(Collection<StoredObject> c1, Collection<StoredObject> c2) {
+        if (null == c1) {
+            return c2;
+        } else if (null == c2) {
+            return c1;
+        }
+
+        Collection<StoredObject> smaller = c1.size() <= c2.size() ? c1 : c2;
+        Collection<StoredObject> larger = smaller == c1 ? c2 : c1;
+        Map<StoredObject, Boolean> lookup = new IdentityHashMap<StoredObject, Boolean>();
+        for (StoredObject so : larger) {
+            lookup.put(so, Boolean.TRUE);
+        }
+        Set<StoredObject> result = new LinkedHashSet<StoredObject>();
+        for (StoredObject so : smaller) {
+            if (lookup.containsKey(so)) {
+                result.add(so);
+            }
+        }
+        return result;
+    }
+
+    private static Collection<StoredObject> unite(Collection<StoredObject> c1, Collection<StoredObject> c2) {
+        if (null == c1 || null == c2) {
+            return null;
+        }
+
+        Set<StoredObject> result = new LinkedHashSet<StoredObject>(c1);
+        result.addAll(c2);
+        return result;
+    }
+}
@@ -28,8 +28,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.regex.Pattern;
 
 import org.antlr.runtime.tree.Tree;
@@ -60,6 +63,7 @@ import org.apache.chemistry.opencmis.server.support.query.CmisSelector;
 import org.apache.chemistry.opencmis.server.support.query.ColumnReference;
 import org.apache.chemistry.opencmis.server.support.query.QueryObject;
 import org.apache.chemistry.opencmis.server.support.query.QueryObject.SortSpec;
+import org.apache.chemistry.opencmis.server.support.query.QueryCache;
 import org.apache.chemistry.opencmis.server.support.query.QueryUtil;
 import org.apache.chemistry.opencmis.server.support.query.StringUtil;
 import org.slf4j.Logger;
@@ -80,9 +84,23 @@ public class InMemoryQueryProcessor {
     private QueryObject queryObj;
     private Tree whereTree;
     private ObjectStoreImpl objStore;
-    
+    private QueryCache queryCache;
+    private List<String> plan = Collections.emptyList();
+    private final Map<String, Pattern> likePatterns = new HashMap<String, Pattern>();
+
     public InMemoryQueryProcessor(ObjectStoreImpl objStore) {
+        this(objStore, null);
+    }
+
+    /**
+     * @param objStore
+     *            object store to query
+     * @param queryCache
+     *            cache of parsed statements, may be null
+     */
+    public InMemoryQueryProcessor(ObjectStoreImpl objStore, QueryCache queryCache) {
         this.objStore = objStore;
+        this.queryCache = queryCache;
     }
 
     /**
@@ -95,11 +113,16 @@ public class InMemoryQueryProcessor {
         queryObj = new QueryObject(tm);
         processQueryAndCatchExc(statement); // calls query processor
 
-        // iterate over all the objects and check for each if the query matches
-        for (String objectId : ((ObjectStoreImpl) objectStore).getIds()) {
-            StoredObject so = objectStore.getObjectById(objectId);
+        // iterate over the objects that can match and check for each if the
+        // query matches
+        String queryName = queryObj.getTypes().values().iterator().next();
+        TypeDefinition td = queryObj.getTypeDefinitionFromQueryName(queryName);
+        InMemoryQueryPlanner planner = new InMemoryQueryPlanner((ObjectStoreImpl) objectStore, tm, queryObj);
+        for (StoredObject so : planner.getCandidates(td, whereTree)) {
             match(so, user, searchAllVersions == null ? true : searchAllVersions.booleanValue());
         }
+        plan = planner.getPlan();
+        LOG.debug("Query plan: " + plan);
 
         ObjectList objList = buildResultList(tm, user, includeAllowableActions, includeRelationships, renditionFilter,
                 maxItems, skipCount);
@@ -107,8 +130,15 @@ public class InMemoryQueryProcessor {
         return objList;
     }
 
+    /**
+     * @return description of the access paths used by the last query
+     */
+    public List<String> getPlan() {
+        return plan;
+    }
+
     public void processQueryAndCatchExc(String statement) {
-        QueryUtil queryUtil = new QueryUtil();
+        QueryUtil queryUtil = new QueryUtil(queryCache);
         CmisQueryWalker walker = queryUtil.traverseStatementAndCatchExc(statement, queryObj, null);
         whereTree = walker.getWherePredicateTree();
     }
@@ -116,8 +146,6 @@ public class InMemoryQueryProcessor {
     public ObjectList buildResultList(TypeManager tm, String user, Boolean includeAllowableActions,
             IncludeRelationships includeRelationships, String renditionFilter, BigInteger maxItems, BigInteger skipCount) {
 
-        sortMatches();
-
         ObjectListImpl res = new ObjectListImpl();
         res.setNumItems(BigInteger.valueOf(matches.size()));
         int start = 0;
@@ -138,9 +166,14 @@ public class InMemoryQueryProcessor {
             stop = matches.size();
         }
         res.setHasMoreItems(stop < matches.size());
+
+        // only the matches up to the end of the page have to be sorted
+        sortMatches(stop);
+
         if (start > 0 || stop > 0) {
             matches = matches.subList(start, stop);
         }
+        // only the returned matches are converted
         List<ObjectData> objDataList = new ArrayList<ObjectData>();
         Map<String, String> props = queryObj.getRequestedPropertiesByAlias();
         Map<String, String> funcs = queryObj.getRequestedFuncsByAlias();
@@ -168,48 +201,206 @@ public class InMemoryQueryProcessor {
         return false;
     }
 
-    private void sortMatches() {
-        final List<SortSpec> orderBy = queryObj.getOrderBys();
-        if (orderBy.size() > 1) {
-            LOG.warn("ORDER BY has more than one sort criterium, all but the first are ignored.");
+    /**
+     * Sort the matches by all ORDER BY columns. If only the first matches are
+     * returned they are selected with a bounded heap and the other matches
+     * are dropped.
+     *
+     * @param count
+     *            number of matches that must be in order
+     */
+    private void sortMatches(int count) {
+        List<SortSpec> orderBy = queryObj.getOrderBys();
+        if (orderBy.isEmpty() || matches.size() < 2) {
+            return;
         }
-        class ResultComparator implements Comparator<StoredObject> {
 
-            @SuppressWarnings("unchecked")
-            public int compare(StoredObject so1, StoredObject so2) {
-                SortSpec s = orderBy.get(0);
-                CmisSelector sel = s.getSelector();
-                int result;
+        Comparator<StoredObject> comparator = new ResultComparator(orderBy);
+        if (count < matches.size() / 2) {
+            matches = selectFirst(matches, count, comparator);
+        } else if (orderBy.size() > 1 || !sortMatchesByIndex(orderBy.get(0), comparator)) {
+            Collections.sort(matches, comparator);
+        }
+    }
 
-                if (sel instanceof ColumnReference) {
-                    String propId = ((ColumnReference) sel).getPropertyId();
-                    Object propVal1 = so1.getProperties().get(propId).getFirstValue();
-                    Object propVal2 = so2.getProperties().get(propId).getFirstValue();
-                    if (propVal1 == null && propVal2 == null) {
-                        result = 0;
-                    } else if (propVal1 == null) {
-                        result = -1;
-                    } else if (propVal2 == null) {
-                        result = 1;
-                    } else {
-                        result = ((Comparable<Object>) propVal1).compareTo(propVal2);
-                    }
-                } else {
+    /**
+     * Compares matches by the values of the ORDER BY columns, objects without
+     * a value come first in ascending order.
+     */
+    private static class ResultComparator implements Comparator<StoredObject> {
+
+        private final List<SortSpec> orderBy;
+
+        ResultComparator(List<SortSpec> orderBy) {
+            this.orderBy = orderBy;
+        }
+
+        @SuppressWarnings("unchecked")
+        public int compare(StoredObject so1, StoredObject so2) {
+            for (SortSpec s : orderBy) {
+                CmisSelector sel = s.getSelector();
+                if (!(sel instanceof ColumnReference)) {
                     // String funcName = ((FunctionReference) sel).getName();
                     // evaluate function here, currently ignore
+                    continue;
+                }
+
+                ColumnReference colRef = (ColumnReference) sel;
+                Object propVal1 = getSortValue(so1, colRef);
+                Object propVal2 = getSortValue(so2, colRef);
+                int result;
+                if (propVal1 == null && propVal2 == null) {
                     result = 0;
+                } else if (propVal1 == null) {
+                    result = -1;
+                } else if (propVal2 == null) {
+                    result = 1;
+                } else {
+                    result = ((Comparable<Object>) propVal1).compareTo(propVal2);
                 }
-                if (!s.isAscending()) {
-                    result = -result;
+                if (result != 0) {
+                    return s.isAscending() ? result : -result;
                 }
-                return result;
             }
+            return 0;
         }
 
-        if (orderBy.size() > 0) {
-            Collections.sort(matches, new ResultComparator());
+        private static Object getSortValue(StoredObject so, ColumnReference colRef) {
+            Object value = PropertyUtil.getProperty(so, colRef.getPropertyId(), colRef.getPropertyDefinition());
+            if (value instanceof List<?>) {
+                List<?> values = (List<?>) value;
+                value = values.isEmpty() ? null : values.get(0);
+            }
+            return value instanceof Comparable<?> ? value : null;
         }
+    }
 
+    /**
+     * Select the first count objects of a list in sort order with a bounded
+     * max-heap, in O(n log count) instead of O(n log n) for sorting the whole
+     * list. Objects comparing equal keep their order like with a stable sort.
+     *
+     * @return the first count objects in order
+     */
+    private static List<StoredObject> selectFirst(List<StoredObject> list, int count,
+            final Comparator<StoredObject> comparator) {
+        class Ranked {
+            final StoredObject so;
+            final int pos;
+
+            Ranked(StoredObject so, int pos) {
+                this.so = so;
+                this.pos = pos;
+            }
+        }
+        final Comparator<Ranked> rankComparator = new Comparator<Ranked>() {
+            public int compare(Ranked r1, Ranked r2) {
+                int result = comparator.compare(r1.so, r2.so);
+                return result != 0 ? result : (r1.pos < r2.pos ? -1 : (r1.pos == r2.pos ? 0 : 1));
+            }
+        };
+
+        if (count <= 0) {
+            return list;
+        }
+        PriorityQueue<Ranked> heap = new PriorityQueue<Ranked>(count + 1, Collections.reverseOrder(rankComparator));
+        int pos = 0;
+        for (StoredObject so : list) {
+            Ranked r = new Ranked(so, pos++);
+            if (heap.size() < count) {
+                heap.add(r);
+            } else if (rankComparator.compare(r, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(r);
+            }
+        }
+
+        List<Ranked> first = new ArrayList<Ranked>(heap);
+        Collections.sort(first, rankComparator);
+        List<StoredObject> result = new ArrayList<StoredObject>(first.size());
+        for (Ranked r : first) {
+            result.add(r.so);
+        }
+        return result;
+    }
+
+    /**
+     * Sort the matches by walking a sorted index of the ORDER BY property
+     * instead of comparing the matches. This only pays off if the matches are
+     * a considerable part of the index. Matches with equal values keep their
+     * order like in {@link #selectFirst(List, int, Comparator)}, so that all
+     * pages of a query agree on the order.
+     *
+     * @return true if the matches are sorted, false if there is no suitable
+     *         index
+     */
+    private boolean sortMatchesByIndex(SortSpec s, Comparator<StoredObject> comparator) {
+        if (!(s.getSelector() instanceof ColumnReference)) {
+            return false;
+        }
+        String propId = ((ColumnReference) s.getSelector()).getPropertyId();
+        int indexSize = objStore.getSortedPropertyIndexSize(propId);
+        if (indexSize < 0 || matches.size() < indexSize / 8) {
+            return false;
+        }
+        List<StoredObject> ordered = objStore.getObjectsInPropertyOrder(propId);
+        if (null == ordered) {
+            return false;
+        }
+
+        // match -> position in the matches
+        final Map<StoredObject, Integer> positions = new IdentityHashMap<StoredObject, Integer>();
+        for (int i = 0; i < matches.size(); i++) {
+            positions.put(matches.get(i), Integer.valueOf(i));
+        }
+        Map<StoredObject, Boolean> indexed = new IdentityHashMap<StoredObject, Boolean>();
+        List<StoredObject> sorted = new ArrayList<StoredObject>(matches.size());
+        for (StoredObject so : ordered) {
+            if (positions.containsKey(so) && null == indexed.put(so, Boolean.TRUE)) {
+                sorted.add(so);
+            }
+        }
+        // the remaining matches have no value and are sorted before all
+        // values, like in the comparator
+        List<StoredObject> noValue = new ArrayList<StoredObject>();
+        for (StoredObject so : matches) {
+            if (!indexed.containsKey(so)) {
+                noValue.add(so);
+            }
+        }
+        sorted.addAll(0, noValue);
+
+        // split into groups of equal values, each group in match order
+        Comparator<StoredObject> byPosition = new Comparator<StoredObject>() {
+            public int compare(StoredObject so1, StoredObject so2) {
+                return positions.get(so1).compareTo(positions.get(so2));
+            }
+        };
+        List<List<StoredObject>> groups = new ArrayList<List<StoredObject>>();
+        int start = 0;
+        while (start < sorted.size()) {
+            int end = start + 1;
+            while (end < sorted.size() && comparator.compare(sorted.get(start), sorted.get(end)) == 0) {
+                end++;
+            }
+            List<StoredObject> group = sorted.subList(start, end);
+            if (group.size() > 1) {
+                Collections.sort(group, byPosition);
+            }
+            groups.add(group);
+            start = end;
+        }
+
+        // descending order reverses the groups, not the matches within a group
+        if (!s.isAscending()) {
+            Collections.reverse(groups);
+        }
+        List<StoredObject> result = new ArrayList<StoredObject>(sorted.size());
+        for (List<StoredObject> group : groups) {
+            result.addAll(group);
+        }
+        matches = result;
+        return true;
     }
 
     /**
@@ -470,10 +661,12 @@ public class InMemoryQueryProcessor {
 
             String propVal = (String) PropertyUtil.getProperty(so, colRef.getPropertyId(), pd);
             
-            String pattern = translatePattern((String) rVal); // SQL to Java
-                                                              // regex
-                                                              // syntax
-            Pattern p = Pattern.compile(pattern);
+            // SQL to Java regex syntax, compiled once per query
+            Pattern p = likePatterns.get(rVal);
+            if (null == p) {
+                p = Pattern.compile(translatePattern((String) rVal));
+                likePatterns.put((String) rVal, p);
+            }
             return p.matcher(propVal).matches();
         }
 
@@ -168,6 +168,9 @@ public class AtomLinkInfoProvider {
 
         ObjectStore objectStore = fStoreManager.getObjectStore(repositoryId);
         StoredObject so = objectStore.getObjectById(objectId);
+        if (null == so) {
+            return; // deleted objects (in a change log) have no information
+        }
         fillInformationForAtomLinks(repositoryId, so, objectInfo);
     }
 
@@ -19,23 +19,14 @@
 package org.apache.chemistry.opencmis.inmemory.server;
 
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.GregorianCalendar;
-import java.util.List;
 
 import org.apache.chemistry.opencmis.commons.data.ExtensionsData;
-import org.apache.chemistry.opencmis.commons.data.ObjectData;
-import org.apache.chemistry.opencmis.commons.data.ObjectInFolderContainer;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
-import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
-import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
-import org.apache.chemistry.opencmis.commons.impl.dataobjects.ChangeEventInfoDataImpl;
-import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
-import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfoHandler;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ObjectStore;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoreManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,45 +51,22 @@ public class InMemoryDiscoveryServiceImpl extends InMemoryAbstractServiceImpl{
     public ObjectList getContentChanges(CallContext context, String repositoryId, Holder<String> changeLogToken,
             Boolean includeProperties, String filter, Boolean includePolicyIds, Boolean includeAcl,
             BigInteger maxItems, ExtensionsData extension, ObjectInfoHandler objectInfos) {
-        // dummy implementation using hard coded values
 
-        RepositoryInfo rep = fRepositoryService.getRepositoryInfo(context, repositoryId, null);
-        String rootFolderId = rep.getRootFolderId();
+        LOG.debug("start getContentChanges()");
+        validator.getContentChanges(context, repositoryId, extension);
 
-        ObjectListImpl objList = new ObjectListImpl();
-        List<ObjectInFolderContainer> tempRes = fNavigationService.getDescendants(context, repositoryId, rootFolderId,
-                BigInteger.valueOf(3), filter, false, IncludeRelationships.NONE, null, false, extension, null);
-
-        // convert ObjectInFolderContainerList to objectList
-        List<ObjectData> lod = new ArrayList<ObjectData>();
-        for (ObjectInFolderContainer obj : tempRes) {
-            convertList(lod, obj);
-        }
-        objList.setObjects(lod);
-        objList.setNumItems(BigInteger.valueOf(lod.size()));
+        // the change log only knows the ids and types of the changed objects
+        ObjectStore objStore = fStoreManager.getObjectStore(repositoryId);
+        ObjectList objList = objStore.getChangeLog().getChanges(changeLogToken,
+                maxItems == null ? -1 : maxItems.intValue());
 
         // To be able to provide all Atom links in the response we need
         // additional information:
         fAtomLinkProvider.fillInformationForAtomLinks(repositoryId, null, objectInfos, objList);
+        LOG.debug("stop getContentChanges()");
         return objList;
     }
 
-    private void convertList(List<ObjectData> lod, ObjectInFolderContainer obj) {
-        lod.add(obj.getObject().getObject());
-        // add dummy event info
-        ObjectData oif = obj.getObject().getObject();
-        ObjectDataImpl oifImpl = (ObjectDataImpl) oif;
-        ChangeEventInfoDataImpl changeEventInfo = new ChangeEventInfoDataImpl();
-        changeEventInfo.setChangeType(ChangeType.UPDATED);
-        changeEventInfo.setChangeTime(new GregorianCalendar());
-        oifImpl.setChangeEventInfo(changeEventInfo);
-        if (null != obj.getChildren()) {
-            for (ObjectInFolderContainer oifc : obj.getChildren()) {
-                convertList(lod, oifc);
-            }
-        }
-    }
-
      public ObjectList query(CallContext context, String repositoryId, String statement, Boolean searchAllVersions,
             Boolean includeAllowableActions, IncludeRelationships includeRelationships, String renditionFilter,
             BigInteger maxItems, BigInteger skipCount, ExtensionsData extension) {
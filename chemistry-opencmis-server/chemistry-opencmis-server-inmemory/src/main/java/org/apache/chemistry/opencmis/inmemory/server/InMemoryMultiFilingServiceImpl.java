@@ -61,6 +61,7 @@ public class InMemoryMultiFilingServiceImpl extends InMemoryAbstractServiceImpl
         Folder newParent = (Folder) folder;
         MultiFiling obj = (MultiFiling) so;
         obj.addParent(newParent);
+        so.persist();
 
         if (context.isObjectInfoRequired()) {
             ObjectInfoImpl objectInfo = new ObjectInfoImpl();
@@ -87,6 +88,7 @@ public class InMemoryMultiFilingServiceImpl extends InMemoryAbstractServiceImpl
         Folder parent = (Folder) folder;
         MultiFiling obj = (MultiFiling) so;
         obj.removeParent(parent);
+        so.persist();
 
         // To be able to provide all Atom links in the response we need
         // additional information:
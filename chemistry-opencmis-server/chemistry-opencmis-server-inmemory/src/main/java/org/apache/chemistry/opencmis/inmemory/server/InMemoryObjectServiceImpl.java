@@ -245,6 +245,9 @@ public class InMemoryObjectServiceImpl extends InMemoryAbstractServiceImpl {
         }
 
         ((Content) so).setContent(null, true);
+        if (null != changeToken) {
+            changeToken.setValue(so.getChangeToken());
+        }
         LOG.debug("stop deleteContentStream()");
     }
 
@@ -511,6 +514,7 @@ public class InMemoryObjectServiceImpl extends InMemoryAbstractServiceImpl {
         }
 
         spo.move(sourceFolder, targetFolder);
+        so.persist();
         objectId.setValue(so.getId());
         LOG.debug("stop moveObject()");
 
@@ -565,6 +569,9 @@ public class InMemoryObjectServiceImpl extends InMemoryAbstractServiceImpl {
         }
 
         content.setContent(contentStream, true);
+        if (null != changeToken) {
+            changeToken.setValue(so.getChangeToken());
+        }
         LOG.debug("stop setContentStream()");
     }
 
@@ -644,7 +651,7 @@ public class InMemoryObjectServiceImpl extends InMemoryAbstractServiceImpl {
         			throw new CmisConstraintException("updateProperties failed, name must not be empty.");
         		}
 
-        		so.rename((String) pd.getFirstValue()); // note: this does persist
+        		so.rename((String) pd.getFirstValue()); // note: this does not persist
         		hasUpdatedName = true;
         	}
         }
@@ -657,6 +664,8 @@ public class InMemoryObjectServiceImpl extends InMemoryAbstractServiceImpl {
             so.updateSystemBasePropertiesWhenModified(properties.getProperties(), user);
             // set changeToken
             so.persist();
+        } else if (hasUpdatedName) {
+            so.persist();
         }
 
         if (hasUpdatedName || hasUpdatedOtherProps) {
@@ -18,7 +18,11 @@
  */
 package org.apache.chemistry.opencmis.inmemory.server;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.math.BigInteger;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -39,6 +43,7 @@ import org.apache.chemistry.opencmis.commons.data.RepositoryInfo;
 import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
 import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.impl.Converter;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractTypeDefinition;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
@@ -52,6 +57,9 @@ import org.apache.chemistry.opencmis.inmemory.ConfigurationSettings;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.ObjectStore;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoreManager;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.TypeManagerCreatable;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.BulkLoader;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreSnapshot;
 import org.apache.chemistry.opencmis.inmemory.storedobj.impl.StoreManagerFactory;
 import org.apache.chemistry.opencmis.inmemory.storedobj.impl.StoreManagerImpl;
 import org.apache.chemistry.opencmis.inmemory.types.InMemoryJaxbHelper;
@@ -105,7 +113,10 @@ public class InMemoryServiceFactoryImpl extends AbstractServiceFactory {
 
         initStorageManager(parameters);
 
-        fillRepositoryIfConfigured(parameters);
+        if (!restoreSnapshotIfConfigured(parameters)) {
+            fillRepositoryIfConfigured(parameters);
+            writeSnapshotIfConfigured(parameters);
+        }
 
         Long cleanInterval = ConfigurationSettings.getConfigurationValueAsLong(ConfigConstants.CLEAN_REPOSITORY_INTERVAL);
         if (null != cleanInterval && cleanInterval > 0) {
@@ -334,6 +345,14 @@ public class InMemoryServiceFactoryImpl extends AbstractServiceFactory {
             contentSizeKB = Integer.parseInt(contentSizeKBStr);
         }
           
+        String bulkLoadThreadsStr = parameters.get(ConfigConstants.FILLER_BULK_LOAD_THREADS);
+        String bulkLoadFile = parameters.get(ConfigConstants.FILLER_BULK_LOAD_FILE);
+        if (null != bulkLoadThreadsStr || null != bulkLoadFile) {
+            bulkLoadRepository(repositoryId, bulkLoadThreadsStr, bulkLoadFile, levels, childrenPerLevel,
+                    docsPerLevel, documentTypeId, folderTypeId, contentSizeKB);
+            return;
+        }
+
         ObjectGenerator.CONTENT_KIND contentKind;
         if (null == contentKindStr)
             contentKind = ObjectGenerator.CONTENT_KIND.LoremIpsumText;
@@ -401,6 +420,75 @@ public class InMemoryServiceFactoryImpl extends AbstractServiceFactory {
 
     } // fillRepositoryIfConfigured
 
+    private boolean restoreSnapshotIfConfigured(Map<String, String> parameters) {
+        String fileName = parameters.get(ConfigConstants.SNAPSHOT_FILE);
+        if (null == fileName || !new File(fileName).exists()) {
+            return false;
+        }
+
+        // a failed restore leaves a partly restored store behind, filling it
+        // or writing it to the snapshot file would mix it with other objects
+        String repositoryId = parameters.get(ConfigConstants.REPOSITORY_ID);
+        try {
+            createSnapshot(repositoryId).restore(new File(fileName));
+            return true;
+        } catch (Exception e) {
+            LOG.error("Could not restore repository " + repositoryId + " from snapshot " + fileName + ": " + e, e);
+            throw new CmisRuntimeException("Could not restore repository " + repositoryId + " from snapshot "
+                    + fileName + ": " + e, e);
+        }
+    }
+
+    private void writeSnapshotIfConfigured(Map<String, String> parameters) {
+        String fileName = parameters.get(ConfigConstants.SNAPSHOT_FILE);
+        if (null == fileName || new File(fileName).exists()) {
+            // never overwrite an existing snapshot
+            return;
+        }
+
+        String repositoryId = parameters.get(ConfigConstants.REPOSITORY_ID);
+        try {
+            createSnapshot(repositoryId).write(new File(fileName));
+        } catch (Exception e) {
+            LOG.error("Could not write snapshot " + fileName + " of repository " + repositoryId + ": " + e, e);
+        }
+    }
+
+    private ObjectStoreSnapshot createSnapshot(String repositoryId) {
+        ObjectStoreImpl objStore = (ObjectStoreImpl) storeManager.getObjectStore(repositoryId);
+        return new ObjectStoreSnapshot(objStore, storeManager.getTypeManager(repositoryId));
+    }
+
+    private void bulkLoadRepository(String repositoryId, String threadsStr, String fileName, int levels,
+            int childrenPerLevel, int docsPerLevel, String documentTypeId, String folderTypeId, int contentSizeKB) {
+
+        ObjectStoreImpl objStore = (ObjectStoreImpl) storeManager.getObjectStore(repositoryId);
+        BulkLoader loader = new BulkLoader(objStore);
+        if (null != threadsStr && Integer.parseInt(threadsStr) > 0) {
+            loader.setThreads(Integer.parseInt(threadsStr));
+        }
+        loader.setDocumentTypeId(documentTypeId);
+        loader.setFolderTypeId(folderTypeId);
+        loader.setContentSizeInKB(contentSizeKB);
+
+        try {
+            if (null != fileName) {
+                Reader reader = new InputStreamReader(new FileInputStream(fileName), "UTF-8");
+                try {
+                    loader.load(objStore.getRootFolder(), BulkLoader.readPaths(reader));
+                } finally {
+                    reader.close();
+                }
+            } else {
+                loader.load(objStore.getRootFolder(), levels, childrenPerLevel, docsPerLevel);
+            }
+            LOG.info("Bulk loaded " + loader.getFoldersCreated() + " folders and " + loader.getDocumentsCreated()
+                    + " documents into repository " + repositoryId);
+        } catch (Exception e) {
+            LOG.error("Could not bulk load repository " + repositoryId + ": " + e, e);
+        }
+    }
+
     class CleanManager {
 
         private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.api;
+
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+
+/**
+ * Log of the changes made to the objects of an object store. Each change
+ * event gets a change log token, tokens are increasing numbers. Only the most
+ * recent events are kept, older events are dropped.
+ */
+public interface ChangeLog {
+
+    /**
+     * Returns the token of the most recent change event.
+     */
+    String getLatestChangeLogToken();
+
+    /**
+     * Returns a page of change events. The cost depends on the size of the
+     * page and not on the size of the log.
+     * 
+     * @param changeLogToken
+     *            token of the first event to return, the oldest available
+     *            event if the value is null. On return the value is the token
+     *            of the last event returned.
+     * @param maxItems
+     *            max. number of events to return, all events if negative
+     * @return the change events, each object contains the object id, the
+     *         type ids and the change event info
+     */
+    ObjectList getChanges(Holder<String> changeLogToken, int maxItems);
+}
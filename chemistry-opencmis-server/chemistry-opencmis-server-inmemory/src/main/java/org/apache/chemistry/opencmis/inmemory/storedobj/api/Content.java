@@ -44,8 +44,9 @@ public interface Content {
      * @param content
      *            content to be assigned to the document.
      * @param mustPersist
-     *            persist document (set to false if content is set during
-     *            creation of a document)
+     *            persist document and update its modification date and change
+     *            token (set to false if content is set during creation of a
+     *            document)
      */
     void setContent(ContentStream content, boolean mustPersist);
 
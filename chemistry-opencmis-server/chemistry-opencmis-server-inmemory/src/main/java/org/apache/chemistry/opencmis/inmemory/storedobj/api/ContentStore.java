@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stores the content of documents. The store decides where the bytes are
+ * kept (Java heap, direct memory, memory mapped files, ...). Implementations
+ * must be thread safe.
+ */
+public interface ContentStore {
+
+    /**
+     * Reads a stream and stores its content.
+     * 
+     * @param in
+     *            stream with the content, the stream is not closed
+     * @param maxSizeKB
+     *            max. allowed content size in KB, no limit if less than 1
+     * @return the stored content
+     */
+    StoredContent store(InputStream in, long maxSizeKB) throws IOException;
+}
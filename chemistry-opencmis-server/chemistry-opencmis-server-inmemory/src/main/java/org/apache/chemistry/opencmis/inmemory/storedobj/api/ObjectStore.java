@@ -237,4 +237,12 @@ public interface ObjectStore {
      *      if no objects exist having this type
      */
     boolean isTypeInUse(String typeId);
-}
\ No newline at end of file
+
+    /**
+     * Get the log of the changes made to the objects of this store
+     * 
+     * @return
+     *      change log of this store
+     */
+    ChangeLog getChangeLog();
+}
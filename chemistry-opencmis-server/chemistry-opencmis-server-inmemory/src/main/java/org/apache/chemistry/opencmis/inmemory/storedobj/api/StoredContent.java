@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.api;
+
+import java.io.InputStream;
+
+/**
+ * Content held by a {@link ContentStore}. Stored content is immutable and
+ * can be read by many threads at the same time.
+ */
+public interface StoredContent {
+
+    /**
+     * Returns the length of the content in bytes.
+     */
+    long getLength();
+
+    /**
+     * Returns a stream with a range of the content. The content is not copied.
+     * 
+     * @param offset
+     *            first byte of the range, the start of the content if negative
+     * @param length
+     *            length of the range, up to the end of the content if negative
+     */
+    InputStream getStream(long offset, long length);
+
+    /**
+     * Returns the content as byte array. Depending on the store this may
+     * create a copy of the content.
+     */
+    byte[] getBytes();
+}
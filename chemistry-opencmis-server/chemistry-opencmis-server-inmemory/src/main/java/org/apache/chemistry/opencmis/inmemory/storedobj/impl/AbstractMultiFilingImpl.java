@@ -62,6 +62,7 @@ public abstract class AbstractMultiFilingImpl extends StoredObjectImpl implement
         }
 
         fParents.add(parent);
+        fObjStore.fFilingIndex.add(parent, this);
     }
 
     public void removeParent(Folder parent) {
@@ -74,7 +75,9 @@ public abstract class AbstractMultiFilingImpl extends StoredObjectImpl implement
     }
 
     private void removeParentIntern(Folder parent) {
-        fParents.remove(parent);
+        if (fParents.remove(parent)) {
+            fObjStore.fFilingIndex.remove(parent, this);
+        }
         if (fParents.isEmpty()) {
             fParents = null;
         }
@@ -141,7 +144,13 @@ public abstract class AbstractMultiFilingImpl extends StoredObjectImpl implement
                           + ". This path already exists in parent " + folder.getPath() + ".");
             }
             }
+            for (Folder folder : fParents) {
+                fObjStore.fFilingIndex.remove(folder, this);
+            }
             setName(newName);
+            for (Folder folder : fParents) {
+                fObjStore.fFilingIndex.add(folder, this);
+            }
         } finally {
           fObjStore.unlock();
         }
@@ -85,7 +85,9 @@ public abstract class AbstractSingleFilingImpl extends StoredObjectImpl implemen
     public void setParent(Folder parent) {
         try {
             fObjStore.lock();
+            fObjStore.fFilingIndex.remove(fParent, this);
             fParent = (FolderImpl) parent;
+            fObjStore.fFilingIndex.add(fParent, this);
         } finally {
           fObjStore.unlock();
         }
@@ -106,7 +108,9 @@ public abstract class AbstractSingleFilingImpl extends StoredObjectImpl implemen
                         + ". This path already exists.");
             }
 
+            fObjStore.fFilingIndex.remove(fParent, this);
             setName(newName);
+            fObjStore.fFilingIndex.add(fParent, this);
         } finally {
           fObjStore.unlock();
         }
@@ -0,0 +1,486 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads a large tree of folders and documents directly into an object store,
+ * bypassing the CMIS services. The tree is either generated with a fixed
+ * number of folders and documents per folder (like the ObjectGenerator of the
+ * test utilities does through the services) or given as a tree of
+ * {@link Node}s, for example read from a list of paths with
+ * {@link #readPaths(Reader)}.
+ * <p>
+ * Each folder is filled by a separate task: its children are created and
+ * stored in batches, then a task is started for each child folder. The tasks
+ * run on a pool of threads so that loading scales with the number of cores.
+ * The objects only get the system properties, the content configured with
+ * {@link #setContentSizeInKB(int)} and the ACL of their parent folder.
+ */
+public class BulkLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkLoader.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final String NAME_PREFIX_DOC = "My_Document-";
+    private static final String NAME_PREFIX_FOLDER = "My_Folder-";
+    private static final String CONTENT_TEXT = "This is a document generated by the bulk loader of the in-memory repository.\n";
+
+    private final ObjectStoreImpl fStore;
+    private int fThreads = Runtime.getRuntime().availableProcessors();
+    private int fBatchSize = DEFAULT_BATCH_SIZE;
+    private String fUser = "unknown";
+    private String fDocumentTypeId = BaseTypeId.CMIS_DOCUMENT.value();
+    private String fFolderTypeId = BaseTypeId.CMIS_FOLDER.value();
+    private byte[] fContent = null;
+    private final AtomicInteger fFoldersCreated = new AtomicInteger();
+    private final AtomicInteger fDocumentsCreated = new AtomicInteger();
+
+    /**
+     * A folder or document to load.
+     */
+    public static class Node {
+        private final String fName;
+        private final boolean fIsFolder;
+        private String fTypeId;
+        private final Map<String, Node> fChildren;
+
+        public Node(String name, boolean isFolder) {
+            fName = name;
+            fIsFolder = isFolder;
+            fChildren = isFolder ? new LinkedHashMap<String, Node>() : null;
+        }
+
+        public String getName() {
+            return fName;
+        }
+
+        public boolean isFolder() {
+            return fIsFolder;
+        }
+
+        /**
+         * @return type id of the object, null to use the type configured in
+         *         the loader
+         */
+        public String getTypeId() {
+            return fTypeId;
+        }
+
+        public void setTypeId(String typeId) {
+            fTypeId = typeId;
+        }
+
+        public Node getChild(String name) {
+            return null == fChildren ? null : fChildren.get(name);
+        }
+
+        public Collection<Node> getChildren() {
+            return null == fChildren ? new ArrayList<Node>() : fChildren.values();
+        }
+
+        /**
+         * add a child to a folder node, replaces a child with the same name
+         */
+        public Node addChild(Node child) {
+            if (!fIsFolder) {
+                throw new IllegalStateException("Only a folder can have children: " + fName);
+            }
+            fChildren.put(child.getName(), child);
+            return child;
+        }
+    }
+
+    public BulkLoader(ObjectStoreImpl store) {
+        fStore = store;
+    }
+
+    /**
+     * number of threads filling folders in parallel, default is the number of
+     * available processors
+     */
+    public void setThreads(int threads) {
+        fThreads = Math.max(1, threads);
+    }
+
+    /**
+     * max. number of children of a folder that are created and stored at
+     * once
+     */
+    public void setBatchSize(int batchSize) {
+        fBatchSize = Math.max(1, batchSize);
+    }
+
+    public void setUser(String user) {
+        fUser = user;
+    }
+
+    public void setDocumentTypeId(String documentTypeId) {
+        fDocumentTypeId = documentTypeId;
+    }
+
+    public void setFolderTypeId(String folderTypeId) {
+        fFolderTypeId = folderTypeId;
+    }
+
+    /**
+     * size of the text content of each document, documents have no content
+     * if 0
+     */
+    public void setContentSizeInKB(int contentSizeInKB) {
+        if (contentSizeInKB <= 0) {
+            fContent = null;
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder(contentSizeInKB * 1024);
+        while (sb.length() < contentSizeInKB * 1024) {
+            sb.append(CONTENT_TEXT);
+        }
+        sb.setLength(contentSizeInKB * 1024);
+        fContent = sb.toString().getBytes();
+    }
+
+    public int getFoldersCreated() {
+        return fFoldersCreated.get();
+    }
+
+    public int getDocumentsCreated() {
+        return fDocumentsCreated.get();
+    }
+
+    /**
+     * Reads a tree from a list of paths, one per line. The segments of a path
+     * are separated by '/', a path ending with '/' is a folder, all other
+     * paths are documents. Missing parent folders are added, empty lines and
+     * lines starting with '#' are skipped.
+     *
+     * @param reader
+     *            the list of paths, not closed
+     * @return the top level nodes of the tree
+     */
+    public static List<Node> readPaths(Reader reader) throws IOException {
+        Node root = new Node("", true);
+        BufferedReader br = new BufferedReader(reader);
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+
+            boolean isFolder = line.endsWith("/");
+            String[] segments = line.split("/");
+            Node parent = root;
+            int last = segments.length - 1;
+            while (last >= 0 && segments[last].length() == 0) {
+                last--;
+            }
+            for (int i = 0; i <= last; i++) {
+                if (segments[i].length() == 0) {
+                    continue;
+                }
+                Node node = parent.getChild(segments[i]);
+                if (null == node) {
+                    node = parent.addChild(new Node(segments[i], i < last || isFolder));
+                } else if (!node.isFolder() && (i < last || isFolder)) {
+                    throw new IllegalArgumentException("Path " + line + " uses document " + segments[i]
+                            + " as folder.");
+                }
+                parent = node;
+            }
+        }
+        return new ArrayList<Node>(root.getChildren());
+    }
+
+    /**
+     * Loads a tree of nodes.
+     *
+     * @param parent
+     *            the folder the nodes are created in
+     * @param nodes
+     *            the top level nodes
+     * @return the number of objects created
+     */
+    public int load(Folder parent, Collection<Node> nodes) {
+        return run(new NodeTask((FolderImpl) parent, nodes));
+    }
+
+    /**
+     * Loads a generated tree. Each folder above the last level gets the given
+     * number of documents and child folders.
+     *
+     * @param parent
+     *            the folder the tree is created in
+     * @param depth
+     *            number of folder levels below the parent
+     * @param foldersPerFolder
+     *            number of child folders of each folder
+     * @param docsPerFolder
+     *            number of documents in each folder
+     * @return the number of objects created
+     */
+    public int load(Folder parent, int depth, int foldersPerFolder, int docsPerFolder) {
+        return run(new GeneratorTask((FolderImpl) parent, 0, depth, foldersPerFolder, docsPerFolder));
+    }
+
+    private int run(FolderTask task) {
+        int before = fFoldersCreated.get() + fDocumentsCreated.get();
+        long start = System.currentTimeMillis();
+
+        ExecutorService executor = Executors.newFixedThreadPool(fThreads);
+        try {
+            Run run = new Run(executor);
+            run.submit(task);
+            run.await();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int created = fFoldersCreated.get() + fDocumentsCreated.get() - before;
+        LOG.info("Loaded " + created + " objects with " + fThreads + " threads in "
+                + (System.currentTimeMillis() - start) + " ms.");
+        return created;
+    }
+
+    /**
+     * Keeps track of the tasks of one load and of the first error.
+     */
+    private static class Run {
+        private final ExecutorService fExecutor;
+        private int fPending = 0;
+        private RuntimeException fError = null;
+
+        Run(ExecutorService executor) {
+            fExecutor = executor;
+        }
+
+        void submit(final FolderTask task) {
+            synchronized (this) {
+                if (null != fError) {
+                    return;
+                }
+                fPending++;
+            }
+            try {
+                fExecutor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            task.fill(Run.this);
+                        } catch (RuntimeException e) {
+                            fail(e);
+                        } catch (Error e) {
+                            fail(new CmisRuntimeException("Bulk load failed: " + e, e));
+                        } finally {
+                            done();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the folder would be missing, end the load with an error
+                fail(new CmisRuntimeException("Bulk load task rejected: " + e, e));
+                done();
+            }
+        }
+
+        private synchronized void fail(RuntimeException e) {
+            if (null == fError) {
+                fError = e;
+            }
+        }
+
+        private synchronized void done() {
+            fPending--;
+            if (fPending == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void await() {
+            try {
+                while (fPending > 0) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CmisRuntimeException("Bulk load interrupted.", e);
+            }
+            if (null != fError) {
+                throw fError;
+            }
+        }
+    }
+
+    /**
+     * Creates the children of one folder and starts a task for each child
+     * folder.
+     */
+    private abstract class FolderTask {
+        protected final FolderImpl fFolder;
+
+        FolderTask(FolderImpl folder) {
+            fFolder = folder;
+        }
+
+        abstract void fill(Run run);
+
+        /**
+         * create and store a batch of children of the folder
+         */
+        protected void store(List<StoredObjectImpl> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int aclId = fStore.getAclId(fFolder, null, null);
+            for (StoredObjectImpl so : batch) {
+                so.setAclId(aclId);
+            }
+            fFolder.addChildren(batch);
+            fStore.storeObjects(batch);
+            for (StoredObjectImpl so : batch) {
+                if (so instanceof FolderImpl) {
+                    fFoldersCreated.incrementAndGet();
+                } else {
+                    fDocumentsCreated.incrementAndGet();
+                }
+            }
+        }
+
+        protected FolderImpl newFolder(String name, String typeId) {
+            FolderImpl folder = new FolderImpl(fStore);
+            folder.setSystemBasePropertiesWhenCreatedDirect(name, null == typeId ? fFolderTypeId : typeId, fUser);
+            folder.setRepositoryId(fStore.fRepositoryId);
+            return folder;
+        }
+
+        protected DocumentImpl newDocument(String name, String typeId) {
+            DocumentImpl doc = new DocumentImpl(fStore);
+            doc.setSystemBasePropertiesWhenCreatedDirect(name, null == typeId ? fDocumentTypeId : typeId, fUser);
+            doc.setRepositoryId(fStore.fRepositoryId);
+            if (null != fContent) {
+                doc.setContent(new ContentStreamImpl(name, BigInteger.valueOf(fContent.length), "text/plain",
+                        new ByteArrayInputStream(fContent)), false);
+            }
+            return doc;
+        }
+    }
+
+    private class NodeTask extends FolderTask {
+        private final Collection<Node> fNodes;
+
+        NodeTask(FolderImpl folder, Collection<Node> nodes) {
+            super(folder);
+            fNodes = nodes;
+        }
+
+        @Override
+        void fill(Run run) {
+            List<StoredObjectImpl> batch = new ArrayList<StoredObjectImpl>();
+            List<NodeTask> subTasks = new ArrayList<NodeTask>();
+            for (Node node : fNodes) {
+                if (node.isFolder()) {
+                    FolderImpl folder = newFolder(node.getName(), node.getTypeId());
+                    batch.add(folder);
+                    if (!node.getChildren().isEmpty()) {
+                        subTasks.add(new NodeTask(folder, node.getChildren()));
+                    }
+                } else {
+                    batch.add(newDocument(node.getName(), node.getTypeId()));
+                }
+                if (batch.size() >= fBatchSize) {
+                    store(batch);
+                    batch.clear();
+                }
+            }
+            store(batch);
+
+            for (NodeTask subTask : subTasks) {
+                run.submit(subTask);
+            }
+        }
+    }
+
+    private class GeneratorTask extends FolderTask {
+        private final int fLevel;
+        private final int fDepth;
+        private final int fFoldersPerFolder;
+        private final int fDocsPerFolder;
+
+        GeneratorTask(FolderImpl folder, int level, int depth, int foldersPerFolder, int docsPerFolder) {
+            super(folder);
+            fLevel = level;
+            fDepth = depth;
+            fFoldersPerFolder = foldersPerFolder;
+            fDocsPerFolder = docsPerFolder;
+        }
+
+        @Override
+        void fill(Run run) {
+            if (fLevel >= fDepth) {
+                return;
+            }
+
+            List<StoredObjectImpl> batch = new ArrayList<StoredObjectImpl>();
+            List<FolderImpl> folders = new ArrayList<FolderImpl>(fFoldersPerFolder);
+            for (int i = 0; i < fFoldersPerFolder; i++) {
+                FolderImpl folder = newFolder(NAME_PREFIX_FOLDER + fLevel + "-" + i, null);
+                batch.add(folder);
+                folders.add(folder);
+                if (batch.size() >= fBatchSize) {
+                    store(batch);
+                    batch.clear();
+                }
+            }
+            for (int i = 0; i < fDocsPerFolder; i++) {
+                batch.add(newDocument(NAME_PREFIX_DOC + fLevel + "-" + i, null));
+                if (batch.size() >= fBatchSize) {
+                    store(batch);
+                    batch.clear();
+                }
+            }
+            store(batch);
+
+            for (FolderImpl folder : folders) {
+                run.submit(new GeneratorTask(folder, fLevel + 1, fDepth, fFoldersPerFolder, fDocsPerFolder));
+            }
+        }
+    }
+}
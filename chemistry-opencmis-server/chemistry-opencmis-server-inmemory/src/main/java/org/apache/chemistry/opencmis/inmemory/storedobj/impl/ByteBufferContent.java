@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredContent;
+
+/**
+ * Stored content backed by a {@link ByteBuffer}. Streams are read-only views
+ * on the buffer, so ranges of the content are served without copying.
+ */
+public class ByteBufferContent implements StoredContent {
+
+    private final ByteBuffer fBuffer;
+    private final byte[] fArray;
+
+    public ByteBufferContent(ByteBuffer buffer) {
+        fBuffer = buffer.asReadOnlyBuffer();
+        fBuffer.clear();
+        fArray = null;
+    }
+
+    public ByteBufferContent(byte[] content) {
+        fBuffer = ByteBuffer.wrap(content).asReadOnlyBuffer();
+        fArray = content;
+    }
+
+    public long getLength() {
+        return fBuffer.capacity();
+    }
+
+    public InputStream getStream(long offset, long length) {
+        ByteBuffer view = fBuffer.duplicate();
+
+        int start = (int) Math.min(offset < 0 ? 0 : offset, view.capacity());
+        int end = view.capacity();
+        if (length >= 0 && length < end - start) {
+            end = start + (int) length;
+        }
+
+        view.limit(end);
+        view.position(start);
+
+        return new ByteBufferInputStream(view);
+    }
+
+    public byte[] getBytes() {
+        if (fArray != null) {
+            return fArray;
+        }
+
+        ByteBuffer view = fBuffer.duplicate();
+        byte[] result = new byte[view.capacity()];
+        view.get(result);
+        return result;
+    }
+
+    /**
+     * Input stream reading the remaining bytes of a buffer.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer fView;
+        private int fMark;
+
+        public ByteBufferInputStream(ByteBuffer view) {
+            fView = view;
+            fMark = view.position();
+        }
+
+        @Override
+        public int read() {
+            return fView.hasRemaining() ? fView.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fView.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(len, fView.remaining());
+            fView.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            if (n <= 0) {
+                return 0;
+            }
+
+            int count = (int) Math.min(n, fView.remaining());
+            fView.position(fView.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return fView.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            fMark = fView.position();
+        }
+
+        @Override
+        public synchronized void reset() {
+            fView.position(fMark);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ChangeEventInfoDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ObjectListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertiesImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.PropertyIdImpl;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ChangeLog;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Content;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
+
+/**
+ * Change log of an object store kept in a ring buffer of fixed size. The
+ * events are stored in parallel arrays, one slot per event, so the log does
+ * not create objects per event apart from the ids it references. The token of
+ * an event is its sequence number, the slot of an event is its token modulo
+ * the size of the buffer. When the buffer is full the oldest event is
+ * overwritten.
+ * <p>
+ * Events are recorded by the object store when objects are stored, deleted
+ * or get a new ACL.
+ */
+public class ChangeLogImpl implements ChangeLog {
+
+    /**
+     * default number of events kept in the log
+     */
+    public static final int DEFAULT_SIZE = 10000;
+
+    private static final ChangeType[] CHANGE_TYPES = ChangeType.values();
+    private static final BaseTypeId[] BASE_TYPES = BaseTypeId.values();
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+    private final ReadWriteLock fLock = new ReentrantReadWriteLock();
+
+    private String[] fObjectIds;
+    private String[] fTypeIds;
+    private byte[] fBaseTypes;
+    private byte[] fChangeTypes;
+    private long[] fChangeTimes;
+
+    /**
+     * token of the next event
+     */
+    private long fNextToken = 1;
+
+    /**
+     * token of the most recent event that has been dropped
+     */
+    private long fDroppedToken = 0;
+
+    public ChangeLogImpl() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size
+     *            max. number of events kept in the log, no events are kept if
+     *            0
+     */
+    public ChangeLogImpl(int size) {
+        allocate(size);
+    }
+
+    /**
+     * Changes the max. number of events kept in the log. All events recorded
+     * so far are dropped.
+     */
+    public void setSize(int size) {
+        fLock.writeLock().lock();
+        try {
+            allocate(size);
+            fDroppedToken = fNextToken - 1;
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    public int getSize() {
+        return fObjectIds.length;
+    }
+
+    /**
+     * Record a change event for an object.
+     * 
+     * @param so
+     *            the object that has changed
+     * @param changeType
+     *            kind of the change
+     */
+    public void logChange(StoredObject so, ChangeType changeType) {
+        if (null != so) {
+            logChange(so.getId(), so, changeType);
+        }
+    }
+
+    /**
+     * Record a change event for an object that has not got its id yet.
+     * 
+     * @param objectId
+     *            id of the object
+     * @param so
+     *            the object that has changed
+     * @param changeType
+     *            kind of the change
+     */
+    public void logChange(String objectId, StoredObject so, ChangeType changeType) {
+        if (null == objectId) {
+            return;
+        }
+
+        BaseTypeId baseType = getBaseTypeId(so);
+        long now = System.currentTimeMillis();
+
+        fLock.writeLock().lock();
+        try {
+            record(objectId, so, baseType, changeType, now);
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record the same kind of change event for a batch of objects, the lock is
+     * acquired only once.
+     * 
+     * @param objects
+     *            the objects that have changed
+     * @param changeType
+     *            kind of the change
+     */
+    public void logChanges(List<? extends StoredObject> objects, ChangeType changeType) {
+        BaseTypeId[] baseTypes = new BaseTypeId[objects.size()];
+        for (int i = 0; i < baseTypes.length; i++) {
+            baseTypes[i] = getBaseTypeId(objects.get(i));
+        }
+        long now = System.currentTimeMillis();
+
+        fLock.writeLock().lock();
+        try {
+            for (int i = 0; i < baseTypes.length; i++) {
+                StoredObject so = objects.get(i);
+                if (null != so.getId()) {
+                    record(so.getId(), so, baseTypes[i], changeType, now);
+                }
+            }
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    private void record(String objectId, StoredObject so, BaseTypeId baseType, ChangeType changeType, long now) {
+        long token = fNextToken++;
+        int size = fObjectIds.length;
+        if (size == 0) {
+            fDroppedToken = token;
+            return;
+        }
+        if (token - size > fDroppedToken) {
+            fDroppedToken = token - size;
+        }
+
+        int slot = (int) (token % size);
+        fObjectIds[slot] = objectId;
+        fTypeIds[slot] = so.getTypeId();
+        fBaseTypes[slot] = (byte) (null == baseType ? -1 : baseType.ordinal());
+        fChangeTypes[slot] = (byte) changeType.ordinal();
+        fChangeTimes[slot] = now;
+    }
+
+    /**
+     * Drop all events. Tokens handed out before remain invalid.
+     */
+    public void clear() {
+        setSize(fObjectIds.length);
+    }
+
+    public String getLatestChangeLogToken() {
+        fLock.readLock().lock();
+        try {
+            return Long.toString(fNextToken - 1);
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    public ObjectList getChanges(Holder<String> changeLogToken, int maxItems) {
+        long start = 0;
+        if (null != changeLogToken && null != changeLogToken.getValue()) {
+            try {
+                start = Long.parseLong(changeLogToken.getValue());
+            } catch (NumberFormatException e) {
+                throw new CmisInvalidArgumentException("Invalid change log token: " + changeLogToken.getValue());
+            }
+        }
+
+        List<ObjectData> objects = new ArrayList<ObjectData>();
+        ObjectListImpl result = new ObjectListImpl();
+
+        fLock.readLock().lock();
+        try {
+            // the event of the given token may have been dropped if the
+            // caller has already seen it, but not the events after it
+            if (start < fDroppedToken && null != changeLogToken && null != changeLogToken.getValue()) {
+                throw new CmisConstraintException("Change log token " + changeLogToken.getValue()
+                        + " is no longer available in the change log.");
+            }
+            if (start <= fDroppedToken) {
+                start = fDroppedToken + 1;
+            }
+            if (start > fNextToken) {
+                throw new CmisInvalidArgumentException("Unknown change log token: " + changeLogToken.getValue());
+            }
+
+            long end = fNextToken;
+            if (maxItems >= 0 && start + maxItems < end) {
+                end = start + maxItems;
+            }
+
+            int size = fObjectIds.length;
+            for (long token = start; token < end; token++) {
+                objects.add(createObjectData((int) (token % size)));
+            }
+
+            result.setNumItems(BigInteger.valueOf(fNextToken - start));
+            result.setHasMoreItems(end < fNextToken);
+            if (null != changeLogToken && end > start) {
+                changeLogToken.setValue(Long.toString(end - 1));
+            }
+        } finally {
+            fLock.readLock().unlock();
+        }
+
+        result.setObjects(objects);
+        return result;
+    }
+
+    private void allocate(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Change log size must not be negative!");
+        }
+
+        fObjectIds = new String[size];
+        fTypeIds = new String[size];
+        fBaseTypes = new byte[size];
+        fChangeTypes = new byte[size];
+        fChangeTimes = new long[size];
+    }
+
+    private ObjectData createObjectData(int slot) {
+        PropertiesImpl properties = new PropertiesImpl();
+        properties.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_ID, fObjectIds[slot]));
+        properties.addProperty(new PropertyIdImpl(PropertyIds.OBJECT_TYPE_ID, fTypeIds[slot]));
+        if (fBaseTypes[slot] >= 0) {
+            properties.addProperty(new PropertyIdImpl(PropertyIds.BASE_TYPE_ID, BASE_TYPES[fBaseTypes[slot]].value()));
+        }
+
+        GregorianCalendar changeTime = new GregorianCalendar(GMT);
+        changeTime.setTimeInMillis(fChangeTimes[slot]);
+
+        ChangeEventInfoDataImpl changeEventInfo = new ChangeEventInfoDataImpl();
+        changeEventInfo.setChangeType(CHANGE_TYPES[fChangeTypes[slot]]);
+        changeEventInfo.setChangeTime(changeTime);
+
+        ObjectDataImpl od = new ObjectDataImpl();
+        od.setProperties(properties);
+        od.setChangeEventInfo(changeEventInfo);
+        return od;
+    }
+
+    private static BaseTypeId getBaseTypeId(StoredObject so) {
+        if (so instanceof Folder) {
+            return BaseTypeId.CMIS_FOLDER;
+        } else if (so instanceof Content || so instanceof VersionedDocument) {
+            return BaseTypeId.CMIS_DOCUMENT;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
+import org.apache.chemistry.opencmis.inmemory.ConfigurationSettings;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ContentStore;
+
+/**
+ * Creates the content store configured with
+ * {@link ConfigConstants#CONTENT_STORE}. The value is one of
+ * <code>heap</code> (default), <code>direct</code>, <code>mapped</code> or
+ * the name of a class implementing {@link ContentStore} with a default
+ * constructor. Memory mapped files are created in the directory configured
+ * with {@link ConfigConstants#CONTENT_STORE_DIRECTORY} or in the temp
+ * directory.
+ */
+public final class ContentStoreFactory {
+
+    public static final String HEAP = "heap";
+    public static final String DIRECT = "direct";
+    public static final String MAPPED = "mapped";
+
+    private static final Map<String, ContentStore> STORES = new HashMap<String, ContentStore>();
+
+    private ContentStoreFactory() {
+    }
+
+    /**
+     * Returns the content store selected by the configuration.
+     */
+    public static ContentStore getContentStore() {
+        String kind = ConfigurationSettings.getConfigurationValueAsString(ConfigConstants.CONTENT_STORE);
+        String directory = ConfigurationSettings.getConfigurationValueAsString(ConfigConstants.CONTENT_STORE_DIRECTORY);
+
+        return getContentStore(kind, directory);
+    }
+
+    /**
+     * Returns a content store. Stores are created once and shared.
+     * 
+     * @param kind
+     *            <code>heap</code>, <code>direct</code>, <code>mapped</code>
+     *            or a class name, <code>heap</code> if null
+     * @param directory
+     *            directory for memory mapped files, the temp directory if null
+     */
+    public static ContentStore getContentStore(String kind, String directory) {
+        if (kind == null || kind.trim().length() == 0) {
+            kind = HEAP;
+        }
+        kind = kind.trim();
+
+        String key = kind + "|" + directory;
+        synchronized (STORES) {
+            ContentStore store = STORES.get(key);
+            if (store == null) {
+                store = createContentStore(kind, directory);
+                STORES.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Throws an exception if the content is larger than allowed.
+     */
+    public static void checkSize(long length, long maxSizeKB) {
+        if (maxSizeKB > 0 && length > maxSizeKB * 1024) {
+            throw new CmisInvalidArgumentException("Content size exceeds max. allowed size of " + maxSizeKB + "KB.");
+        }
+    }
+
+    private static ContentStore createContentStore(String kind, String directory) {
+        if (HEAP.equalsIgnoreCase(kind)) {
+            return new HeapContentStore();
+        } else if (DIRECT.equalsIgnoreCase(kind)) {
+            return new DirectContentStore();
+        } else if (MAPPED.equalsIgnoreCase(kind)) {
+            return new MappedFileContentStore(directory == null ? null : new File(directory));
+        }
+
+        try {
+            return (ContentStore) Class.forName(kind).newInstance();
+        } catch (Exception e) {
+            throw new CmisRuntimeException("Could not create content store '" + kind + "': " + e, e);
+        }
+    }
+}
@@ -21,8 +21,6 @@ package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
  *
  */
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigInteger;
@@ -30,17 +28,20 @@ import java.util.List;
 
 import org.apache.chemistry.opencmis.commons.data.CmisExtensionElement;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
-import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredContent;
 
 public class ContentStreamDataImpl implements ContentStream {
 
-    private int fLength;
+    private static final ContentStore HEAP_STORE = new HeapContentStore();
+
+    private long fLength;
 
     private String fMimeType;
 
     private String fFileName;
 
-    private byte[] fContent;
+    private StoredContent fContent;
 
     private long fStreamLimitOffset;
 
@@ -48,8 +49,15 @@ public class ContentStreamDataImpl implements ContentStream {
 
     private final long sizeLimitKB;
 
+    private final ContentStore fStore;
+
     public ContentStreamDataImpl(long maxAllowedContentSizeKB) {
+        this(maxAllowedContentSizeKB, HEAP_STORE);
+    }
+
+    public ContentStreamDataImpl(long maxAllowedContentSizeKB, ContentStore store) {
         sizeLimitKB = maxAllowedContentSizeKB;
+        fStore = store;
     }
 
     public void setContent(InputStream in) throws IOException {
@@ -58,20 +66,12 @@ public class ContentStreamDataImpl implements ContentStream {
             fContent = null; // delete content
             fLength = 0;
         } else {
-            byte[] buffer = new byte[0xFFFF];
-            ByteArrayOutputStream contentStream = new ByteArrayOutputStream();
-            for (int len = 0; (len = in.read(buffer)) != -1;) {
-                contentStream.write(buffer, 0, len);
-                fLength += len;
-                if (sizeLimitKB > 0 && fLength > sizeLimitKB * 1024) {
-                    throw new CmisInvalidArgumentException("Content size exceeds max. allowed size of " + sizeLimitKB
-                            + "KB.");
-                }
+            try {
+                fContent = fStore.store(in, sizeLimitKB);
+                fLength = fContent.getLength();
+            } finally {
+                in.close();
             }
-            fContent = contentStream.toByteArray();
-            fLength = contentStream.size();
-            contentStream.close();
-            in.close();
         }
     }
 
@@ -106,16 +106,17 @@ public class ContentStreamDataImpl implements ContentStream {
     public InputStream getStream() {
         if (null == fContent) {
             return null;
-        } else if (fStreamLimitOffset <= 0 && fStreamLimitLength < 0) {
-            return new ByteArrayInputStream(fContent);
         } else {
-            return new ByteArrayInputStream(fContent, (int) (fStreamLimitOffset < 0 ? 0 : fStreamLimitOffset),
-                    (int) (fStreamLimitLength < 0 ? fLength : fStreamLimitLength));
+            return fContent.getStream(fStreamLimitOffset, fStreamLimitLength);
         }
     }
 
+    /**
+     * Returns a content stream that reads a range of this content. The content
+     * itself is shared and not copied.
+     */
     public ContentStream getCloneWithLimits(long offset, long length) {
-        ContentStreamDataImpl clone = new ContentStreamDataImpl(0);
+        ContentStreamDataImpl clone = new ContentStreamDataImpl(0, fStore);
         clone.fFileName = fFileName;
         clone.fLength = fLength;
         clone.fContent = fContent;
@@ -125,10 +126,14 @@ public class ContentStreamDataImpl implements ContentStream {
         return clone;
     }
 
+    /**
+     * Returns the whole content. Stores that keep the content outside of the
+     * Java heap return a copy.
+     */
     public final byte[] getBytes() {
-        return fContent;
+        return null == fContent ? null : fContent.getBytes();
     }
-    
+
     public List<CmisExtensionElement> getExtensions() {
         return null;
     }
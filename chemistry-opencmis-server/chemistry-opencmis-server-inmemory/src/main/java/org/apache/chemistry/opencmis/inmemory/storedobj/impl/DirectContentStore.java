@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredContent;
+
+/**
+ * Keeps content in direct byte buffers outside of the Java heap. The memory
+ * is released when the content is garbage collected. The total size is
+ * limited by the JVM option <code>-XX:MaxDirectMemorySize</code>.
+ */
+public class DirectContentStore implements ContentStore {
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    public StoredContent store(InputStream in, long maxSizeKB) throws IOException {
+        byte[] buffer = new byte[0xFFFF];
+        ByteBuffer content = ByteBuffer.allocateDirect(INITIAL_SIZE);
+
+        for (int len = 0; (len = in.read(buffer)) != -1;) {
+            ContentStoreFactory.checkSize((long) content.position() + len, maxSizeKB);
+
+            if (content.remaining() < len) {
+                long newSize = Math.max(2L * content.capacity(), (long) content.position() + len);
+                if (newSize > Integer.MAX_VALUE) {
+                    throw new IOException("Content is too large for a direct buffer!");
+                }
+
+                ByteBuffer newContent = ByteBuffer.allocateDirect((int) newSize);
+                content.flip();
+                newContent.put(content);
+                content = newContent;
+            }
+
+            content.put(buffer, 0, len);
+        }
+
+        // trim the buffer to the content length
+        content.flip();
+        ByteBuffer result = ByteBuffer.allocateDirect(content.remaining());
+        result.put(content);
+
+        return new ByteBufferContent(result);
+    }
+}
@@ -67,7 +67,8 @@ public class DocumentImpl extends AbstractMultiFilingImpl implements Document {
         if (null == content) {
             fContent = null;
         } else {
-            fContent = new ContentStreamDataImpl(MAX_CONTENT_SIZE_KB == null ? 0 : MAX_CONTENT_SIZE_KB);
+            fContent = new ContentStreamDataImpl(MAX_CONTENT_SIZE_KB == null ? 0 : MAX_CONTENT_SIZE_KB,
+                    ContentStoreFactory.getContentStore());
             String fileName = content.getFileName();
             if (null == fileName || fileName.length() <= 0) {
                 fileName = getName(); // use name of document as fallback
@@ -85,6 +86,11 @@ public class DocumentImpl extends AbstractMultiFilingImpl implements Document {
                 throw new RuntimeException("Failed to get content from InputStream", e);
             }
         }
+        if (mustPersist) {
+            // new content needs a new change token
+            setModifiedAtNow();
+            persist();
+        }
     }
 
     @Override
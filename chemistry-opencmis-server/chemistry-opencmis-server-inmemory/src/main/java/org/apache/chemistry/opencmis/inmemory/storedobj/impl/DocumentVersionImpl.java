@@ -68,7 +68,8 @@ public class DocumentVersionImpl extends StoredObjectImpl implements DocumentVer
         if (null == content) {
             fContent = null;
         } else {
-            fContent = new ContentStreamDataImpl(MAX_CONTENT_SIZE_KB == null ? 0 : MAX_CONTENT_SIZE_KB);
+            fContent = new ContentStreamDataImpl(MAX_CONTENT_SIZE_KB == null ? 0 : MAX_CONTENT_SIZE_KB,
+                    ContentStoreFactory.getContentStore());
             fContent.setFileName(content.getFileName());
             fContent.setMimeType(content.getMimeType());
             try {
@@ -78,6 +79,11 @@ public class DocumentVersionImpl extends StoredObjectImpl implements DocumentVer
                 throw new RuntimeException("Failed to get content from InputStream", e);
             }
         }
+        if (mustPersist) {
+            // new content needs a new change token
+            setModifiedAtNow();
+            persist();
+        }
     }
 
     public void setCheckinComment(String comment) {
@@ -121,7 +127,9 @@ public class DocumentVersionImpl extends StoredObjectImpl implements DocumentVer
     }
 
     public ContentStream getContent(long offset, long length) {
-        if (offset <= 0 && length < 0) {
+        if (null == fContent) {
+            return null;
+        } else if (offset <= 0 && length < 0) {
             return fContent;
         } else {
             return fContent.getCloneWithLimits(offset, length);
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+
+/**
+ * Index of the objects filed in each folder of an object store, keyed and
+ * sorted by name. A path is resolved by looking up one path segment after the
+ * other starting at the root folder, so the cost of a lookup depends on the
+ * depth of the path and not on the number of objects in the repository. Moving
+ * or renaming a folder only touches the entry in its parent and not the
+ * entries of its descendants. Listing the children of a folder only visits
+ * the children of this folder, in name order.
+ * <p>
+ * The index is maintained by the filing operations of the stored objects
+ * (set parent, add parent, remove parent, rename) and by the object store
+ * when objects are deleted. Writers are expected to hold the lock of the
+ * object store. Readers don't need to, the index has its own read-write lock.
+ */
+class FilingIndex {
+
+    /**
+     * Decides which children of a folder are returned by
+     * {@link FilingIndex#getChildren(Folder, int, int, ChildFilter)} and what
+     * is returned for them.
+     */
+    interface ChildFilter<T> {
+
+        /**
+         * @param child
+         *            a child of the folder
+         * @return the object to return for this child or null to skip the
+         *         child
+         */
+        T accept(StoredObject child);
+    }
+
+    private final Map<Folder, TreeMap<String, StoredObject>> fChildren = new HashMap<Folder, TreeMap<String, StoredObject>>();
+    private final ReadWriteLock fLock = new ReentrantReadWriteLock();
+
+    /**
+     * add an object as child of a folder
+     *
+     * @param parent
+     *            parent folder, nothing happens if null
+     * @param child
+     *            the child object
+     */
+    public void add(Folder parent, StoredObject child) {
+        if (null == parent || null == child.getName()) {
+            return;
+        }
+
+        fLock.writeLock().lock();
+        try {
+            TreeMap<String, StoredObject> children = fChildren.get(parent);
+            if (null == children) {
+                children = new TreeMap<String, StoredObject>();
+                fChildren.put(parent, children);
+            }
+            children.put(child.getName(), child);
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * remove an object from the children of a folder
+     *
+     * @param parent
+     *            parent folder, nothing happens if null
+     * @param child
+     *            the child object, the entry is only removed if its name
+     *            still refers to this object
+     */
+    public void remove(Folder parent, StoredObject child) {
+        if (null == parent || null == child.getName()) {
+            return;
+        }
+
+        fLock.writeLock().lock();
+        try {
+            TreeMap<String, StoredObject> children = fChildren.get(parent);
+            if (null != children && children.get(child.getName()) == child) {
+                children.remove(child.getName());
+                if (children.isEmpty()) {
+                    fChildren.remove(parent);
+                }
+            }
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * remove all entries of a folder, used when the folder is deleted
+     *
+     * @param folder
+     *            folder to remove
+     */
+    public void removeFolder(Folder folder) {
+        fLock.writeLock().lock();
+        try {
+            fChildren.remove(folder);
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * get the child of a folder with a given name
+     *
+     * @param parent
+     *            parent folder
+     * @param name
+     *            name of the child
+     * @return child object or null if the folder has no child with this name
+     */
+    public StoredObject getChild(Folder parent, String name) {
+        fLock.readLock().lock();
+        try {
+            TreeMap<String, StoredObject> children = fChildren.get(parent);
+            return null == children ? null : children.get(name);
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * get a page of the children of a folder in name order. Only the children
+     * up to the end of the requested page are visited.
+     *
+     * @param parent
+     *            parent folder
+     * @param maxItems
+     *            max. number of items to return, all items if negative
+     * @param skipCount
+     *            number of accepted children to skip
+     * @param filter
+     *            filter selecting the children
+     * @return list of accepted children
+     */
+    public <T> List<T> getChildren(Folder parent, int maxItems, int skipCount, ChildFilter<T> filter) {
+        List<T> result = new ArrayList<T>();
+        if (maxItems == 0) {
+            return result;
+        }
+
+        fLock.readLock().lock();
+        try {
+            TreeMap<String, StoredObject> children = fChildren.get(parent);
+            if (null == children) {
+                return result;
+            }
+
+            int skipped = 0;
+            for (StoredObject child : children.values()) {
+                T accepted = filter.accept(child);
+                if (null == accepted) {
+                    continue;
+                }
+                if (skipped < skipCount) {
+                    skipped++;
+                    continue;
+                }
+                result.add(accepted);
+                if (maxItems > 0 && result.size() >= maxItems) {
+                    break;
+                }
+            }
+        } finally {
+            fLock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    /**
+     * remove all entries
+     */
+    public void clear() {
+        fLock.writeLock().lock();
+        try {
+            fChildren.clear();
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+}
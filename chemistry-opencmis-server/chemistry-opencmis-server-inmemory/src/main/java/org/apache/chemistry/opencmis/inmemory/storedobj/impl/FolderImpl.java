@@ -21,11 +21,10 @@ package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
  */
 
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.PropertyData;
@@ -35,7 +34,6 @@ import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
 import org.apache.chemistry.opencmis.inmemory.FilterParser;
 import org.apache.chemistry.opencmis.inmemory.NameValidator;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
-import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Filing;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.MultiFiling;
@@ -115,65 +113,95 @@ public class FolderImpl extends AbstractSingleFilingImpl implements Folder {
         }
     }
 
-    public List<StoredObject> getChildren(int maxItems, int skipCount, String user) {
-        List<StoredObject> result = new ArrayList<StoredObject>();
-        for (String id : fObjStore.getIds()) {
-            StoredObject obj = fObjStore.getObject(id);
-            Filing pathObj = (Filing) obj;
-            if (fObjStore.hasReadAccess(user, obj) && pathObj.getParents(user).contains(this)) {
-                if (pathObj instanceof VersionedDocument) {
-                    DocumentVersion ver = ((VersionedDocument) pathObj).getLatestVersion(false);
-                    result.add(ver);
-                } else if (pathObj instanceof DocumentVersion) {
-                    // ignore
+    /**
+     * Add a batch of new objects as children of this folder. Works like adding
+     * them one by one but locks the object store only once. The objects still
+     * have to be persisted.
+     *
+     * @param children
+     *            new folders or documents with names unique in this folder
+     */
+    void addChildren(List<? extends StoredObject> children) {
+        try {
+            fObjStore.lock();
+            Set<String> names = new HashSet<String>();
+            for (StoredObject so : children) {
+                String name = so.getName();
+                if (!NameValidator.isValidId(name)) {
+                    throw new CmisInvalidArgumentException(NameValidator.ERROR_ILLEGAL_NAME);
+                }
+                if (!names.add(name) || hasChild(name)) {
+                    throw new CmisNameConstraintViolationException(
+                            "Cannot create object: " + name + ". Name already exists in parent folder");
+                }
+            }
+
+            for (StoredObject so : children) {
+                if (so instanceof SingleFiling) {
+                    ((SingleFiling) so).setParent(this);
+                } else if (so instanceof MultiFiling) {
+                    ((MultiFiling) so).addParent(this);
                 } else {
-                    result.add(obj);
+                    throw new CmisInvalidArgumentException("Cannot create object, object is not fileable.");
                 }
             }
+        } finally {
+            fObjStore.unlock();
         }
-        sortFolderList(result);
+    }
 
-        if (maxItems < 0) {
-            maxItems = result.size();
-        }
-        if (skipCount < 0) {
-            skipCount = 0;
-        }
-        int from = Math.min(skipCount, result.size());
-        int to = Math.min(maxItems + from, result.size());
-        result = result.subList(from, to);
-        return result;
+    public List<StoredObject> getChildren(int maxItems, int skipCount, final String user) {
+        final boolean canReadFolder = null == user || fObjStore.hasReadAccess(user, this);
+
+        return fObjStore.fFilingIndex.getChildren(this, maxItems, skipCount,
+                new FilingIndex.ChildFilter<StoredObject>() {
+                    public StoredObject accept(StoredObject child) {
+                        if (!isPersisted(child) || !fObjStore.hasReadAccess(user, child)) {
+                            return null;
+                        }
+                        if (child instanceof MultiFiling && !canReadFolder) {
+                            // a multi-filed object is only visible through parents the user can read
+                            return null;
+                        }
+                        if (child instanceof VersionedDocument) {
+                            return ((VersionedDocument) child).getLatestVersion(false);
+                        }
+                        return child;
+                    }
+                });
     }
 
-    public List<Folder> getFolderChildren(int maxItems, int skipCount, String user) {
-        List<Folder> result = new ArrayList<Folder>();
-        for (String id : fObjStore.getIds()) {
-            StoredObject obj = fObjStore.getObject(id);
-            if (fObjStore.hasReadAccess(user, obj) && obj instanceof SingleFiling) {
-                SingleFiling pathObj = (SingleFiling) obj;
-                if (pathObj.getParent() == this && pathObj instanceof Folder) {
-                    result.add((Folder) obj);
+    public List<Folder> getFolderChildren(int maxItems, int skipCount, final String user) {
+        return fObjStore.fFilingIndex.getChildren(this, maxItems, skipCount, new FilingIndex.ChildFilter<Folder>() {
+            public Folder accept(StoredObject child) {
+                if (child instanceof Folder && isPersisted(child) && fObjStore.hasReadAccess(user, child)) {
+                    return (Folder) child;
                 }
+                return null;
             }
-        }
-        sortFolderList(result);
-        int from = Math.min(skipCount, result.size());
-        int to = Math.min(maxItems + from, result.size());
-        result = result.subList(from, to);
-        return result;
+        });
     }
 
     public boolean hasChild(String name) {
-        for (String id : fObjStore.getIds()) {
-            StoredObject obj = fObjStore.getObject(id);
-            if (obj instanceof Filing) {
-                Filing pathObj = (Filing) obj;
-                if (pathObj.getParents(null).contains(this) && obj.getName().equals(name)) {
-                    return true;
-                }
+        return isPersisted(fObjStore.fFilingIndex.getChild(this, name));
+    }
+
+    /**
+     * check if this folder has any children, regardless of the permissions of
+     * the current user
+     *
+     * @return true if at least one object is filed in this folder
+     */
+    public boolean hasChildren() {
+        return !fObjStore.fFilingIndex.getChildren(this, 1, 0, new FilingIndex.ChildFilter<StoredObject>() {
+            public StoredObject accept(StoredObject child) {
+                return isPersisted(child) ? child : null;
             }
-        }
-        return false;
+        }).isEmpty();
+    }
+
+    private boolean isPersisted(StoredObject so) {
+        return null != so && null != so.getId() && fObjStore.getObject(so.getId()) == so;
     }
 
     @Override
@@ -211,21 +239,6 @@ public class FolderImpl extends AbstractSingleFilingImpl implements Folder {
         setParent(parent);
     }
 
-    private static void sortFolderList(List<? extends StoredObject> list) {
-        // TODO evaluate orderBy, for now sort by path segment
-        class FolderComparator implements Comparator<StoredObject> {
-
-            public int compare(StoredObject f1, StoredObject f2) {
-                String segment1 = f1.getName();
-                String segment2 = f2.getName();
-
-                return segment1.compareTo(segment2);
-            }
-        }
-
-        Collections.sort(list, new FolderComparator());
-    }
-
     public void moveChildDocument(StoredObject so, Folder oldParent, Folder newParent) {
         try {
             fObjStore.lock();
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredContent;
+
+/**
+ * Keeps content in byte arrays on the Java heap.
+ */
+public class HeapContentStore implements ContentStore {
+
+    public StoredContent store(InputStream in, long maxSizeKB) throws IOException {
+        byte[] buffer = new byte[0xFFFF];
+        ByteArrayOutputStream contentStream = new ByteArrayOutputStream();
+        for (int len = 0; (len = in.read(buffer)) != -1;) {
+            contentStream.write(buffer, 0, len);
+            ContentStoreFactory.checkSize(contentStream.size(), maxSizeKB);
+        }
+
+        return new ByteBufferContent(contentStream.toByteArray());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredContent;
+
+/**
+ * Keeps content in memory mapped temporary files. The operating system pages
+ * the content in and out, so the content can be much larger than the Java
+ * heap. The files are deleted right after they have been mapped (or when the
+ * JVM exits on platforms that don't allow deleting mapped files). A single
+ * content must be smaller than 2 GB.
+ */
+public class MappedFileContentStore implements ContentStore {
+
+    private static final String PREFIX = "opencmis-inmemory-";
+
+    private final File fDirectory;
+
+    /**
+     * @param directory
+     *            directory for the temporary files, the temp directory if null
+     */
+    public MappedFileContentStore(File directory) {
+        fDirectory = directory;
+    }
+
+    public StoredContent store(InputStream in, long maxSizeKB) throws IOException {
+        File file = File.createTempFile(PREFIX, ".bin", fDirectory);
+        try {
+            long length = 0;
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+            try {
+                byte[] buffer = new byte[0xFFFF];
+                for (int len = 0; (len = in.read(buffer)) != -1;) {
+                    length += len;
+                    ContentStoreFactory.checkSize(length, maxSizeKB);
+                    if (length > Integer.MAX_VALUE) {
+                        throw new IOException("Content is too large for a memory mapped file!");
+                    }
+                    out.write(buffer, 0, len);
+                }
+            } finally {
+                out.close();
+            }
+
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+                return new ByteBufferContent(mapped);
+            } finally {
+                raf.close();
+            }
+        } finally {
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
@@ -19,10 +19,13 @@
 package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -32,13 +35,16 @@ import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.data.PropertyData;
 import org.apache.chemistry.opencmis.commons.enums.AclPropagation;
 import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisPermissionDeniedException;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ChangeLog;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Filing;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.MultiFiling;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.ObjectStore;
@@ -80,19 +86,35 @@ public class ObjectStoreImpl implements ObjectStore {
     public static final String ADMIN_PRINCIPAL_ID = "Admin";
     
     /**
-     * Simple id generator that uses just an integer
+     * Simple id generator that uses just an integer, lock-free so that
+     * objects can be created from many threads in parallel
      */
-    private static int NEXT_UNUSED_ID = 100;
+    private static final AtomicInteger NEXT_UNUSED_ID = new AtomicInteger(100);
 
     /**
      * a concurrent HashMap as core element to hold all objects in the repository
      */
     private final Map<String, StoredObject> fStoredObjectMap = new ConcurrentHashMap<String, StoredObject>();
 
+    /**
+     * index of the children of each folder by name, used to resolve paths
+     */
+    final FilingIndex fFilingIndex = new FilingIndex();
+
+    /**
+     * log of the objects created, updated and deleted and of ACL changes
+     */
+    private final ChangeLogImpl fChangeLog = new ChangeLogImpl();
+
+    /**
+     * objects by type and by value of selected properties, used by queries
+     */
+    private final QueryIndex fQueryIndex = new QueryIndex();
+
     /**
      * a concurrent HashMap to hold all Acls in the repository
      */
-    private int nextUnusedAclId = 0;
+    private final AtomicInteger fNextUnusedAclId = new AtomicInteger(0);
     
     private final List<InMemoryAcl> fAcls = new ArrayList<InMemoryAcl>();
 
@@ -106,12 +128,12 @@ public class ObjectStoreImpl implements ObjectStore {
         createRootFolder();
     }
 
-    private static synchronized Integer getNextId() {
-        return NEXT_UNUSED_ID++;
+    private static Integer getNextId() {
+        return NEXT_UNUSED_ID.getAndIncrement();
     }
 
-    private synchronized Integer getNextAclId() {
-        return nextUnusedAclId++;
+    private Integer getNextAclId() {
+        return fNextUnusedAclId.getAndIncrement();
     }
     
    public void lock() {
@@ -127,28 +149,39 @@ public class ObjectStoreImpl implements ObjectStore {
     }
 
     public StoredObject getObjectByPath(String path, String user) {
-        for (StoredObject so : fStoredObjectMap.values()) {
-            if (so instanceof SingleFiling) {
-                String soPath = ((SingleFiling) so).getPath();
-                if (soPath.equals(path)) {
-                    return so;
-                }
-            } else if (so instanceof MultiFiling) {
-                MultiFiling mfo = (MultiFiling) so;
-                List<Folder> parents = mfo.getParents(user);
-                for (Folder parent : parents) {
-                    String parentPath = parent.getPath();
-                    String mfPath = parentPath.equals(Folder.PATH_SEPARATOR) ? parentPath + mfo.getPathSegment()
-                            : parentPath + Folder.PATH_SEPARATOR + mfo.getPathSegment();
-                    if (mfPath.equals(path)) {
-                        return so;
-                    }
-                }
-            } else {
+        if (null == path || !path.startsWith(Folder.PATH_SEPARATOR)) {
+            return null;
+        }
+        if (path.length() > 1 && path.endsWith(Folder.PATH_SEPARATOR)) {
+            return null;
+        }
+
+        // walk down from the root folder one path segment at a time
+        StoredObject so = fRootFolder;
+        Folder parent = null;
+        String[] segments = path.split(Folder.PATH_SEPARATOR);
+        for (int i = 1; i < segments.length; i++) {
+            if (!(so instanceof Folder)) {
+                return null;
+            }
+            parent = (Folder) so;
+            so = fFilingIndex.getChild(parent, segments[i]);
+            if (null == so) {
                 return null;
             }
         }
-        return null;
+
+        // objects that are filed but not yet persisted are not visible
+        if (null == so.getId() || fStoredObjectMap.get(so.getId()) != so) {
+            return null;
+        }
+
+        // multi-filed objects are only found through parents the user can see
+        if (so instanceof MultiFiling && null != parent && null != user && !hasReadAccess(user, parent)) {
+            return null;
+        }
+
+        return so;
     }
 
     public StoredObject getObjectById(String objectId) {
@@ -175,17 +208,27 @@ public class ObjectStoreImpl implements ObjectStore {
                 List<DocumentVersion> allVers = parentDoc.getAllVersions();
                 for (DocumentVersion ver : allVers) {
                     fStoredObjectMap.remove(ver.getId());
+                    fChangeLog.logChange(ver, ChangeType.DELETED);
+                    fQueryIndex.remove(ver);
                 }
             } else {
                 fStoredObjectMap.remove(objectId);
+                fChangeLog.logChange(vers, ChangeType.DELETED);
+                fQueryIndex.remove(vers);
                 otherVersionsExists = parentDoc.deleteVersion(vers);
             }
             
             if (!otherVersionsExists) {
                 fStoredObjectMap.remove(parentDoc.getId());
+                fChangeLog.logChange(parentDoc, ChangeType.DELETED);
+                fQueryIndex.remove(parentDoc);
+                removeFromFilingIndex(parentDoc);
             }
         } else {
             fStoredObjectMap.remove(objectId);
+            fChangeLog.logChange(obj, ChangeType.DELETED);
+            fQueryIndex.remove(obj);
+            removeFromFilingIndex(obj);
         }
     }
 
@@ -195,24 +238,134 @@ public class ObjectStoreImpl implements ObjectStore {
         if (null == found) {
             throw new CmisInvalidArgumentException("Cannot delete object with id  " + vers.getId() + ". Object does not exist.");
         }
+        fChangeLog.logChange(found, ChangeType.DELETED);
+        fQueryIndex.remove(found);
     }
 
     public String storeObject(StoredObject so) {
         String id = so.getId();
         // check if update or create
+        boolean created = null == id || !fStoredObjectMap.containsKey(id);
         if (null == id) {
             id = getNextId().toString();
         }
         fStoredObjectMap.put(id, so);
+        fQueryIndex.add(so);
+        // the id of a new object is set after it has been stored
+        fChangeLog.logChange(id, so, created ? ChangeType.CREATED : ChangeType.UPDATED);
         return id;
     }
 
+    /**
+     * Store a batch of new objects. Has the same effect as calling
+     * {@link #storeObject(StoredObject)} for each object but updates the
+     * query index and the change log only once for the whole batch.
+     * 
+     * @param objects
+     *            new objects without an id, the ids are assigned here
+     */
+    void storeObjects(List<? extends StoredObjectImpl> objects) {
+        for (StoredObjectImpl so : objects) {
+            so.fId = getNextId().toString();
+            fStoredObjectMap.put(so.fId, so);
+        }
+        fQueryIndex.addAll(objects);
+        fChangeLog.logChanges(objects, ChangeType.CREATED);
+    }
+
+    /**
+     * Add objects read from a snapshot. The objects keep their ids, no change
+     * events are recorded.
+     * 
+     * @param objects
+     *            objects with an id
+     */
+    void restoreObjects(List<? extends StoredObjectImpl> objects) {
+        int maxId = -1;
+        for (StoredObjectImpl so : objects) {
+            fStoredObjectMap.put(so.fId, so);
+            try {
+                maxId = Math.max(maxId, Integer.parseInt(so.fId));
+            } catch (NumberFormatException e) {
+                // not generated by this store
+            }
+        }
+        fQueryIndex.addAll(objects);
+
+        // ids handed out later must not collide with the restored ones
+        for (int next = NEXT_UNUSED_ID.get(); next <= maxId; next = NEXT_UNUSED_ID.get()) {
+            if (NEXT_UNUSED_ID.compareAndSet(next, maxId + 1)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Give the root folder the id and the state it had when a snapshot was
+     * written.
+     * 
+     * @param snapshotRoot
+     *            the root folder read from the snapshot
+     */
+    void restoreRootFolder(FolderImpl snapshotRoot) {
+        fStoredObjectMap.remove(fRootFolder.fId);
+        fQueryIndex.remove(fRootFolder);
+        fRootFolder.fId = snapshotRoot.fId;
+        fRootFolder.fName = snapshotRoot.fName;
+        fRootFolder.fTypeId = snapshotRoot.fTypeId;
+        fRootFolder.fCreatedBy = snapshotRoot.fCreatedBy;
+        fRootFolder.fModifiedBy = snapshotRoot.fModifiedBy;
+        fRootFolder.fCreatedAt = snapshotRoot.fCreatedAt;
+        fRootFolder.fModifiedAt = snapshotRoot.fModifiedAt;
+        fRootFolder.fAclId = snapshotRoot.fAclId;
+        fRootFolder.fProperties = snapshotRoot.fProperties;
+        restoreObjects(Collections.singletonList(fRootFolder));
+    }
+
+    /**
+     * @return a copy of all ACLs of this store
+     */
+    List<InMemoryAcl> getAcls() {
+        lock();
+        try {
+            return new ArrayList<InMemoryAcl>(fAcls);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Replace all ACLs of this store by ACLs read from a snapshot.
+     * 
+     * @param acls
+     *            ACLs with their ids
+     */
+    void restoreAcls(List<InMemoryAcl> acls) {
+        lock();
+        try {
+            fAcls.clear();
+            fAcls.addAll(acls);
+            for (InMemoryAcl acl : acls) {
+                if (acl.getId() >= fNextUnusedAclId.get()) {
+                    fNextUnusedAclId.set(acl.getId() + 1);
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
     StoredObject getObject(String id) {
         return fStoredObjectMap.get(id);
     }
 
     void removeObject(String id) {
-        fStoredObjectMap.remove(id);
+        StoredObject so = fStoredObjectMap.remove(id);
+        if (null != so) {
+            fChangeLog.logChange(so, ChangeType.DELETED);
+            fQueryIndex.remove(so);
+            removeFromFilingIndex(so);
+        }
     }
 
     public Set<String> getIds() {
@@ -226,6 +379,9 @@ public class ObjectStoreImpl implements ObjectStore {
     public void clear() {
         lock();
         fStoredObjectMap.clear();
+        fFilingIndex.clear();
+        fChangeLog.clear();
+        fQueryIndex.clear();
         storeObject(fRootFolder);
         unlock();
     }
@@ -234,6 +390,124 @@ public class ObjectStoreImpl implements ObjectStore {
         return fStoredObjectMap.size();
     }
 
+    public ChangeLogImpl getChangeLog() {
+        return fChangeLog;
+    }
+
+    /**
+     * Create an index on a property that is used by queries with =, IN, &lt;,
+     * &lt;=, &gt;, &gt;=, LIKE and ORDER BY on this property. Only
+     * single-valued properties can be indexed. A property value that is
+     * modified must be persisted to update the index.
+     *
+     * @param propertyId
+     *            id of the property
+     * @param sorted
+     *            true for a sorted index that also answers range predicates
+     *            and ORDER BY, false for a hash index that only answers
+     *            equality and IN
+     */
+    public void addPropertyIndex(String propertyId, boolean sorted) {
+        lock();
+        try {
+            fQueryIndex.addPropertyIndex(propertyId, sorted, fStoredObjectMap.values());
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * @param propertyId
+     *            id of the property
+     * @return true if the property has an index
+     */
+    public boolean hasPropertyIndex(String propertyId) {
+        return fQueryIndex.hasPropertyIndex(propertyId);
+    }
+
+    /**
+     * get all objects of the given types, objects of sub types are only
+     * returned if their type id is contained in the list as well
+     *
+     * @param typeIds
+     *            ids of the types
+     * @return list of objects
+     */
+    public List<StoredObject> getObjectsOfTypes(Collection<String> typeIds) {
+        return fQueryIndex.getObjectsOfTypes(typeIds);
+    }
+
+    /**
+     * get the objects having one of the given values of a property
+     *
+     * @param propertyId
+     *            id of the property
+     * @param values
+     *            values as used in the query
+     * @return list of objects or null if the property has no index
+     */
+    public List<StoredObject> getObjectsByPropertyValues(String propertyId, Collection<?> values) {
+        return fQueryIndex.getObjectsByValues(propertyId, values);
+    }
+
+    /**
+     * get the objects having a value of a property within a range
+     *
+     * @param propertyId
+     *            id of the property
+     * @param lower
+     *            lower bound or null
+     * @param lowerInclusive
+     *            true if the lower bound is part of the range
+     * @param upper
+     *            upper bound or null
+     * @param upperInclusive
+     *            true if the upper bound is part of the range
+     * @return list of objects in the order of the property values or null if
+     *         the property has no sorted index
+     */
+    public List<StoredObject> getObjectsByPropertyRange(String propertyId, Object lower, boolean lowerInclusive,
+            Object upper, boolean upperInclusive) {
+        return fQueryIndex.getObjectsByRange(propertyId, lower, lowerInclusive, upper, upperInclusive);
+    }
+
+    /**
+     * get the objects having a value of a property in ascending order of the
+     * values
+     *
+     * @param propertyId
+     *            id of the property
+     * @return list of objects or null if the property has no sorted index
+     */
+    public List<StoredObject> getObjectsInPropertyOrder(String propertyId) {
+        return fQueryIndex.getObjectsInOrder(propertyId);
+    }
+
+    /**
+     * @param propertyId
+     *            id of the property
+     * @return number of objects in the sorted index of a property or -1 if
+     *         there is no sorted index
+     */
+    public int getSortedPropertyIndexSize(String propertyId) {
+        return fQueryIndex.getSortedIndexSize(propertyId);
+    }
+
+    /**
+     * get all objects filed in a folder regardless of permissions
+     *
+     * @param folder
+     *            the folder
+     * @return list of objects
+     */
+    public List<StoredObject> getFiledObjects(Folder folder) {
+        return fFilingIndex.getChildren(folder, -1, 0, new FilingIndex.ChildFilter<StoredObject>() {
+            public StoredObject accept(StoredObject child) {
+                return child;
+            }
+        });
+    }
+
     // /////////////////////////////////////////
     // private helper methods
 
@@ -281,6 +555,8 @@ public class ObjectStoreImpl implements ObjectStore {
         }
         version.createSystemBasePropertiesWhenCreated(propMap, user);
         version.setCustomProperties(propMap);
+        // the version has been stored before it got its properties
+        fQueryIndex.add(version);
         int aclId = getAclId(((FolderImpl)folder), addACEs, removeACEs);
         doc.setAclId(aclId);
         doc.persist();
@@ -430,12 +706,23 @@ public class ObjectStoreImpl implements ObjectStore {
         }
 
         // check if children exist
-        List<StoredObject> children = ((Folder) folder).getChildren(-1, -1, user);
-        if (children != null && !children.isEmpty()) {
+        if (((FolderImpl) folder).hasChildren()) {
             throw new CmisConstraintException("Cannot delete folder with id:  " + folderId + ". Folder is not empty.");
         }
 
         fStoredObjectMap.remove(folderId);
+        fChangeLog.logChange(folder, ChangeType.DELETED);
+        fQueryIndex.remove(folder);
+        removeFromFilingIndex(folder);
+        fFilingIndex.removeFolder((Folder) folder);
+    }
+
+    private void removeFromFilingIndex(StoredObject so) {
+        if (so instanceof Filing) {
+            for (Folder parent : ((Filing) so).getParents(null)) {
+                fFilingIndex.remove(parent, so);
+            }
+        }
     }
 
     public boolean hasReadAccess(String principalId, StoredObject so) {       
@@ -535,12 +822,14 @@ public class ObjectStoreImpl implements ObjectStore {
     
     private Acl applyAcl(StoredObject so, Acl acl) {
         int aclId = setAcl((StoredObjectImpl) so, acl);
+        fChangeLog.logChange(so, ChangeType.SECURITY);
         return getAcl(aclId);
     }
 
     private Acl applyAcl(StoredObject so, Acl addAces, Acl removeAces) {
         int aclId = getAclId((StoredObjectImpl) so, addAces, removeAces);
         ((StoredObjectImpl) so).setAclId(aclId);
+        fChangeLog.logChange(so, ChangeType.SECURITY);
         return getAcl(aclId);
     }
 
@@ -589,13 +878,7 @@ public class ObjectStoreImpl implements ObjectStore {
     }
 
     public boolean isTypeInUse(String typeId) {
-        // iterate over all the objects and check for each if the type matches
-        for (String objectId : getIds()) {
-            StoredObject so = getObjectById(objectId);
-            if (so.getTypeId().equals(typeId))
-                return true;
-        }
-        return false;
+        return fQueryIndex.isTypeInUse(typeId);
     }
 
 }
@@ -0,0 +1,884 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.PropertyBoolean;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.data.PropertyDateTime;
+import org.apache.chemistry.opencmis.commons.data.PropertyDecimal;
+import org.apache.chemistry.opencmis.commons.data.PropertyHtml;
+import org.apache.chemistry.opencmis.commons.data.PropertyId;
+import org.apache.chemistry.opencmis.commons.data.PropertyInteger;
+import org.apache.chemistry.opencmis.commons.data.PropertyString;
+import org.apache.chemistry.opencmis.commons.data.PropertyUri;
+import org.apache.chemistry.opencmis.commons.definitions.PropertyDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
+import org.apache.chemistry.opencmis.commons.definitions.TypeDefinitionContainer;
+import org.apache.chemistry.opencmis.commons.enums.PropertyType;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.impl.Converter;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AbstractTypeDefinition;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.chemistry.opencmis.commons.impl.jaxb.CmisTypeDefinitionType;
+import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.TypeManagerCreatable;
+import org.apache.chemistry.opencmis.inmemory.types.InMemoryJaxbHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes an object store to a binary snapshot file and restores it from
+ * there: folders, documents with all versions and their content, ACLs and
+ * the types that are not CMIS base types. The change log is not part of a
+ * snapshot.
+ * <p>
+ * The file consists of blocks with a 4 byte length prefix. The first block
+ * holds the ACLs, the types and the root folder, each following block holds
+ * up to {@link #MAX_BLOCK_OBJECTS} objects. The blocks are written through a
+ * file channel. When a snapshot is restored the blocks are read and decoded
+ * in parallel, then the objects are filed in their parent folders.
+ * <p>
+ * The store is locked while a snapshot is written, it should not be
+ * modified by other means than the services during that time. A snapshot can
+ * only be restored into a store that contains nothing but its root folder.
+ */
+public class ObjectStoreSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObjectStoreSnapshot.class);
+
+    public static final int MAX_BLOCK_OBJECTS = 1000;
+
+    private static final int MAX_BLOCK_SIZE = 4 * 1024 * 1024;
+    private static final int MAGIC = 0x434d4953; // "CMIS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte FOLDER = 1;
+    private static final byte DOCUMENT = 2;
+    private static final byte VERSIONED_DOCUMENT = 3;
+
+    private static final PropertyType[] PROPERTY_TYPES = PropertyType.values();
+
+    private final ObjectStoreImpl fStore;
+    private final TypeManagerCreatable fTypeManager;
+    private final BindingsObjectFactory fObjectFactory = new BindingsObjectFactoryImpl();
+    private int fThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * @param store
+     *            the object store
+     * @param typeManager
+     *            the types of the repository, types are not written or
+     *            restored if null
+     */
+    public ObjectStoreSnapshot(ObjectStoreImpl store, TypeManagerCreatable typeManager) {
+        fStore = store;
+        fTypeManager = typeManager;
+    }
+
+    /**
+     * number of threads decoding blocks in parallel on restore, default is
+     * the number of available processors
+     */
+    public void setThreads(int threads) {
+        fThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Write a snapshot of the store.
+     *
+     * @param file
+     *            the snapshot file, overwritten if it exists
+     * @return the number of objects written, versions included
+     */
+    public int write(File file) throws IOException {
+        long start = System.currentTimeMillis();
+        int count = 0;
+
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            FileChannel channel = out.getChannel();
+            Encoder enc = new Encoder();
+            enc.writeInt(MAGIC);
+            enc.writeInt(FORMAT_VERSION);
+            enc.flushTo(channel, false);
+
+            fStore.lock();
+            try {
+                // header block
+                writeAcls(enc, fStore.getAcls());
+                writeTypes(enc);
+                writeCommon(enc, fStore.fRootFolder);
+                enc.flushTo(channel, true);
+
+                // object blocks
+                int blockObjects = 0;
+                for (String id : fStore.getIds()) {
+                    StoredObject so = fStore.getObject(id);
+                    if (so == fStore.fRootFolder || so instanceof DocumentVersion) {
+                        continue; // versions are written with their document
+                    }
+                    if (!writeObject(enc, so)) {
+                        LOG.warn("Object " + id + " of class " + so.getClass().getName()
+                                + " is not written to the snapshot.");
+                        continue;
+                    }
+                    count += so instanceof VersionedDocumentImpl ? 1 + ((VersionedDocumentImpl) so)
+                            .getAllVersions().size() : 1;
+                    if (++blockObjects >= MAX_BLOCK_OBJECTS || enc.size() >= MAX_BLOCK_SIZE) {
+                        enc.flushTo(channel, true);
+                        blockObjects = 0;
+                    }
+                }
+                if (blockObjects > 0) {
+                    enc.flushTo(channel, true);
+                }
+            } finally {
+                fStore.unlock();
+            }
+        } finally {
+            out.close();
+        }
+
+        LOG.info("Wrote snapshot with " + count + " objects to " + file + " in "
+                + (System.currentTimeMillis() - start) + " ms.");
+        return count;
+    }
+
+    /**
+     * Restore a snapshot into the store. If the restore fails the store may
+     * hold a part of the snapshot and must not be used anymore.
+     *
+     * @param file
+     *            the snapshot file
+     * @return the number of objects restored, versions included
+     */
+    public int restore(File file) throws IOException {
+        if (fStore.getObjectCount() > 1) {
+            throw new CmisConstraintException("Cannot restore a snapshot into a repository that is not empty.");
+        }
+
+        long start = System.currentTimeMillis();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        ExecutorService executor = Executors.newFixedThreadPool(fThreads);
+        try {
+            final FileChannel channel = raf.getChannel();
+            ByteBuffer head = read(channel, 0, 8);
+            if (head.getInt() != MAGIC || head.getInt() != FORMAT_VERSION) {
+                throw new IOException("File " + file + " is not a snapshot of this version.");
+            }
+
+            // find the blocks
+            List<long[]> blocks = new ArrayList<long[]>();
+            long size = channel.size();
+            for (long pos = 8; pos < size;) {
+                int length = read(channel, pos, 4).getInt();
+                blocks.add(new long[] { pos + 4, length });
+                pos += 4 + length;
+            }
+            if (blocks.isEmpty()) {
+                throw new IOException("Snapshot " + file + " is truncated.");
+            }
+
+            // header block
+            Decoder header = new Decoder(read(channel, blocks.get(0)[0], (int) blocks.get(0)[1]));
+            fStore.restoreAcls(readAcls(header));
+            readTypes(header);
+            FolderImpl root = new FolderImpl(fStore);
+            readCommon(header, root);
+            fStore.restoreRootFolder(root);
+
+            // decode the object blocks in parallel
+            List<Future<List<Filing>>> decoded = new ArrayList<Future<List<Filing>>>();
+            for (final long[] block : blocks.subList(1, blocks.size())) {
+                decoded.add(executor.submit(new Callable<List<Filing>>() {
+                    public List<Filing> call() throws Exception {
+                        return readBlock(new Decoder(read(channel, block[0], (int) block[1])));
+                    }
+                }));
+            }
+            List<List<Filing>> filings = new ArrayList<List<Filing>>();
+            int count = 0;
+            for (Future<List<Filing>> future : decoded) {
+                List<Filing> blockFilings = get(future);
+                filings.add(blockFilings);
+                for (Filing filing : blockFilings) {
+                    count += filing.fObjectCount;
+                }
+            }
+
+            // file the objects once all parents are known
+            List<Future<List<Filing>>> filed = new ArrayList<Future<List<Filing>>>();
+            for (final List<Filing> blockFilings : filings) {
+                filed.add(executor.submit(new Callable<List<Filing>>() {
+                    public List<Filing> call() throws Exception {
+                        for (Filing filing : blockFilings) {
+                            file(filing);
+                        }
+                        return blockFilings;
+                    }
+                }));
+            }
+            for (Future<List<Filing>> future : filed) {
+                get(future);
+            }
+
+            LOG.info("Restored snapshot with " + count + " objects from " + file + " with " + fThreads
+                    + " threads in " + (System.currentTimeMillis() - start) + " ms.");
+            return count;
+        } finally {
+            executor.shutdownNow();
+            raf.close();
+        }
+    }
+
+    /**
+     * An object read from a snapshot and the ids of its parent folders.
+     */
+    private static class Filing {
+        final StoredObjectImpl fObject;
+        final String[] fParentIds;
+        final int fObjectCount;
+
+        Filing(StoredObjectImpl so, String[] parentIds, int objectCount) {
+            fObject = so;
+            fParentIds = parentIds;
+            fObjectCount = objectCount;
+        }
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ioException("Restoring snapshot interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw ioException("Restoring snapshot failed: " + cause, cause);
+        }
+    }
+
+    private static IOException ioException(String message, Throwable cause) {
+        IOException e = new IOException(message);
+        e.initCause(cause);
+        return e;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of snapshot file.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // ///////////////////////////////////////////
+    // objects
+
+    private boolean writeObject(Encoder enc, StoredObject so) throws IOException {
+        if (so instanceof FolderImpl) {
+            FolderImpl folder = (FolderImpl) so;
+            enc.writeByte(FOLDER);
+            writeCommon(enc, folder);
+            enc.writeString(null == folder.getParent() ? null : folder.getParent().getId());
+        } else if (so instanceof VersionedDocumentImpl) {
+            VersionedDocumentImpl doc = (VersionedDocumentImpl) so;
+            enc.writeByte(VERSIONED_DOCUMENT);
+            writeCommon(enc, doc);
+            writeParents(enc, doc.getParents());
+            enc.writeString(doc.getCheckedOutBy());
+            List<DocumentVersion> versions = doc.getAllVersions();
+            enc.writeInt(versions.size());
+            for (DocumentVersion version : versions) {
+                DocumentVersionImpl ver = (DocumentVersionImpl) version;
+                writeCommon(enc, ver);
+                enc.writeString(ver.getCheckinComment());
+                enc.writeBoolean(ver.fIsMajor);
+                enc.writeBoolean(ver.fIsPwc);
+                writeContent(enc, ver.getContent(0, -1));
+            }
+        } else if (so instanceof DocumentImpl) {
+            DocumentImpl doc = (DocumentImpl) so;
+            enc.writeByte(DOCUMENT);
+            writeCommon(enc, doc);
+            writeParents(enc, doc.getParents());
+            writeContent(enc, doc.getContent(0, -1));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private List<Filing> readBlock(Decoder dec) throws IOException {
+        List<Filing> filings = new ArrayList<Filing>();
+        List<StoredObjectImpl> objects = new ArrayList<StoredObjectImpl>();
+
+        while (dec.hasRemaining()) {
+            byte kind = dec.readByte();
+            if (kind == FOLDER) {
+                FolderImpl folder = new FolderImpl(fStore);
+                readCommon(dec, folder);
+                String parentId = dec.readString();
+                objects.add(folder);
+                filings.add(new Filing(folder, null == parentId ? new String[0] : new String[] { parentId }, 1));
+            } else if (kind == DOCUMENT) {
+                DocumentImpl doc = new DocumentImpl(fStore);
+                readCommon(dec, doc);
+                String[] parentIds = readParents(dec);
+                doc.setContent(readContent(dec), false);
+                objects.add(doc);
+                filings.add(new Filing(doc, parentIds, 1));
+            } else if (kind == VERSIONED_DOCUMENT) {
+                VersionedDocumentImpl doc = new VersionedDocumentImpl(fStore);
+                readCommon(dec, doc);
+                String[] parentIds = readParents(dec);
+                doc.setCheckedOutBy(dec.readString());
+                objects.add(doc);
+                int versions = dec.readInt();
+                for (int i = 0; i < versions; i++) {
+                    DocumentVersionImpl ver = new DocumentVersionImpl(fStore.fRepositoryId, doc, null,
+                            VersioningState.NONE, fStore);
+                    readCommon(dec, ver);
+                    ver.setCheckinComment(dec.readString());
+                    ver.fIsMajor = dec.readBoolean();
+                    ver.fIsPwc = dec.readBoolean();
+                    ver.setContent(readContent(dec), false);
+                    doc.getAllVersions().add(ver);
+                    objects.add(ver);
+                }
+                filings.add(new Filing(doc, parentIds, 1 + versions));
+            } else {
+                throw new IOException("Unknown object kind in snapshot: " + kind);
+            }
+        }
+
+        fStore.restoreObjects(objects);
+        return filings;
+    }
+
+    private void file(Filing filing) throws IOException {
+        for (String parentId : filing.fParentIds) {
+            StoredObject parent = fStore.getObject(parentId);
+            if (!(parent instanceof FolderImpl)) {
+                throw new IOException("Parent folder " + parentId + " of object " + filing.fObject.getId()
+                        + " is missing in snapshot.");
+            }
+            if (filing.fObject instanceof AbstractSingleFilingImpl) {
+                ((AbstractSingleFilingImpl) filing.fObject).fParent = (FolderImpl) parent;
+            } else {
+                ((AbstractMultiFilingImpl) filing.fObject).fParents.add((Folder) parent);
+            }
+            fStore.fFilingIndex.add((Folder) parent, filing.fObject);
+        }
+    }
+
+    private static void writeParents(Encoder enc, List<Folder> parents) throws IOException {
+        if (null == parents) {
+            enc.writeInt(0);
+            return;
+        }
+        enc.writeInt(parents.size());
+        for (Folder parent : parents) {
+            enc.writeString(parent.getId());
+        }
+    }
+
+    private static String[] readParents(Decoder dec) throws IOException {
+        String[] parentIds = new String[dec.readInt()];
+        for (int i = 0; i < parentIds.length; i++) {
+            parentIds[i] = dec.readString();
+        }
+        return parentIds;
+    }
+
+    private static void writeCommon(Encoder enc, StoredObjectImpl so) throws IOException {
+        enc.writeString(so.fId);
+        enc.writeString(so.fName);
+        enc.writeString(so.fTypeId);
+        enc.writeString(so.fCreatedBy);
+        enc.writeString(so.fModifiedBy);
+        enc.writeCalendar(so.fCreatedAt);
+        enc.writeCalendar(so.fModifiedAt);
+        enc.writeInt(so.fAclId);
+        writeProperties(enc, so.fProperties);
+    }
+
+    private void readCommon(Decoder dec, StoredObjectImpl so) throws IOException {
+        so.fId = dec.readString();
+        so.fName = dec.readString();
+        so.fTypeId = dec.readString();
+        so.fCreatedBy = dec.readString();
+        so.fModifiedBy = dec.readString();
+        so.fCreatedAt = dec.readCalendar();
+        so.fModifiedAt = dec.readCalendar();
+        so.fAclId = dec.readInt();
+        so.fProperties = readProperties(dec);
+        so.fRepositoryId = fStore.fRepositoryId;
+    }
+
+    private static void writeContent(Encoder enc, ContentStream content) throws IOException {
+        if (null == content) {
+            enc.writeBoolean(false);
+            return;
+        }
+        enc.writeBoolean(true);
+        enc.writeString(content.getFileName());
+        enc.writeString(content.getMimeType());
+        InputStream stream = content.getStream();
+        try {
+            enc.writeStream(stream);
+        } finally {
+            if (null != stream) {
+                stream.close();
+            }
+        }
+    }
+
+    private static ContentStream readContent(Decoder dec) throws IOException {
+        if (!dec.readBoolean()) {
+            return null;
+        }
+        String fileName = dec.readString();
+        String mimeType = dec.readString();
+        int length = dec.readInt();
+        return new ContentStreamImpl(fileName, BigInteger.valueOf(length), mimeType, dec.readStream(length));
+    }
+
+    // ///////////////////////////////////////////
+    // properties
+
+    private static void writeProperties(Encoder enc, Map<String, PropertyData<?>> properties) throws IOException {
+        if (null == properties) {
+            enc.writeInt(-1);
+            return;
+        }
+        enc.writeInt(properties.size());
+        for (PropertyData<?> property : properties.values()) {
+            PropertyType type = getPropertyType(property);
+            enc.writeByte(type.ordinal());
+            enc.writeString(property.getId());
+            List<?> values = property.getValues();
+            enc.writeInt(null == values ? 0 : values.size());
+            if (null == values) {
+                continue;
+            }
+            for (Object value : values) {
+                switch (type) {
+                case BOOLEAN:
+                    enc.writeBoolean((Boolean) value);
+                    break;
+                case DATETIME:
+                    enc.writeCalendar((GregorianCalendar) value);
+                    break;
+                default:
+                    // strings, ids, html, uris and numbers as text
+                    enc.writeString(null == value ? null : value.toString());
+                    break;
+                }
+            }
+        }
+    }
+
+    private Map<String, PropertyData<?>> readProperties(Decoder dec) throws IOException {
+        int count = dec.readInt();
+        if (count < 0) {
+            return null;
+        }
+        Map<String, PropertyData<?>> properties = new LinkedHashMap<String, PropertyData<?>>();
+        for (int i = 0; i < count; i++) {
+            PropertyType type = PROPERTY_TYPES[dec.readByte()];
+            String id = dec.readString();
+            int valueCount = dec.readInt();
+            PropertyData<?> property;
+            switch (type) {
+            case BOOLEAN: {
+                List<Boolean> values = new ArrayList<Boolean>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(dec.readBoolean());
+                }
+                property = fObjectFactory.createPropertyBooleanData(id, values);
+                break;
+            }
+            case DATETIME: {
+                List<GregorianCalendar> values = new ArrayList<GregorianCalendar>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(dec.readCalendar());
+                }
+                property = fObjectFactory.createPropertyDateTimeData(id, values);
+                break;
+            }
+            case INTEGER: {
+                List<BigInteger> values = new ArrayList<BigInteger>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(new BigInteger(dec.readString()));
+                }
+                property = fObjectFactory.createPropertyIntegerData(id, values);
+                break;
+            }
+            case DECIMAL: {
+                List<BigDecimal> values = new ArrayList<BigDecimal>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(new BigDecimal(dec.readString()));
+                }
+                property = fObjectFactory.createPropertyDecimalData(id, values);
+                break;
+            }
+            default: {
+                List<String> values = new ArrayList<String>(valueCount);
+                for (int j = 0; j < valueCount; j++) {
+                    values.add(dec.readString());
+                }
+                if (type == PropertyType.ID) {
+                    property = fObjectFactory.createPropertyIdData(id, values);
+                } else if (type == PropertyType.HTML) {
+                    property = fObjectFactory.createPropertyHtmlData(id, values);
+                } else if (type == PropertyType.URI) {
+                    property = fObjectFactory.createPropertyUriData(id, values);
+                } else {
+                    property = fObjectFactory.createPropertyStringData(id, values);
+                }
+                break;
+            }
+            }
+            properties.put(id, property);
+        }
+        return properties;
+    }
+
+    private static PropertyType getPropertyType(PropertyData<?> property) {
+        if (property instanceof PropertyBoolean) {
+            return PropertyType.BOOLEAN;
+        } else if (property instanceof PropertyDateTime) {
+            return PropertyType.DATETIME;
+        } else if (property instanceof PropertyInteger) {
+            return PropertyType.INTEGER;
+        } else if (property instanceof PropertyDecimal) {
+            return PropertyType.DECIMAL;
+        } else if (property instanceof PropertyId) {
+            return PropertyType.ID;
+        } else if (property instanceof PropertyHtml) {
+            return PropertyType.HTML;
+        } else if (property instanceof PropertyUri) {
+            return PropertyType.URI;
+        } else if (property instanceof PropertyString) {
+            return PropertyType.STRING;
+        }
+        throw new IllegalArgumentException("Unknown property type: " + property.getClass().getName());
+    }
+
+    // ///////////////////////////////////////////
+    // ACLs and types
+
+    private static void writeAcls(Encoder enc, List<InMemoryAcl> acls) throws IOException {
+        enc.writeInt(acls.size());
+        for (InMemoryAcl acl : acls) {
+            enc.writeInt(acl.getId());
+            enc.writeInt(acl.getAces().size());
+            for (InMemoryAce ace : acl.getAces()) {
+                enc.writeString(ace.getPrincipalId());
+                enc.writeByte(ace.getPermission().ordinal());
+            }
+        }
+    }
+
+    private static List<InMemoryAcl> readAcls(Decoder dec) throws IOException {
+        Permission[] permissions = Permission.values();
+        int count = dec.readInt();
+        List<InMemoryAcl> acls = new ArrayList<InMemoryAcl>(count);
+        for (int i = 0; i < count; i++) {
+            int id = dec.readInt();
+            int aceCount = dec.readInt();
+            List<InMemoryAce> aces = new ArrayList<InMemoryAce>(aceCount);
+            for (int j = 0; j < aceCount; j++) {
+                aces.add(new InMemoryAce(dec.readString(), permissions[dec.readByte()]));
+            }
+            InMemoryAcl acl = new InMemoryAcl(aces);
+            acl.setId(id);
+            acls.add(acl);
+        }
+        return acls;
+    }
+
+    private void writeTypes(Encoder enc) throws IOException {
+        List<TypeDefinition> types = new ArrayList<TypeDefinition>();
+        if (null != fTypeManager) {
+            // parent types first, the base types are always there
+            for (TypeDefinitionContainer root : fTypeManager.getRootTypes()) {
+                collectTypes(root.getChildren(), types);
+            }
+        }
+
+        enc.writeInt(types.size());
+        for (TypeDefinition type : types) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try {
+                InMemoryJaxbHelper.marshal(InMemoryJaxbHelper.CMIS_EXTRA_OBJECT_FACTORY.createTypeDefinition(Converter
+                        .convert(type)), bos, true);
+            } catch (JAXBException e) {
+                throw ioException("Cannot write type " + type.getId() + ": " + e, e);
+            }
+            enc.writeBytes(bos.toByteArray());
+        }
+    }
+
+    private static void collectTypes(List<TypeDefinitionContainer> containers, List<TypeDefinition> types) {
+        if (null == containers) {
+            return;
+        }
+        for (TypeDefinitionContainer container : containers) {
+            types.add(container.getTypeDefinition());
+            collectTypes(container.getChildren(), types);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readTypes(Decoder dec) throws IOException {
+        int count = dec.readInt();
+        for (int i = 0; i < count; i++) {
+            InputStream in = dec.readStream(dec.readInt());
+            if (null == fTypeManager) {
+                continue;
+            }
+            try {
+                JAXBElement<CmisTypeDefinitionType> element = (JAXBElement<CmisTypeDefinitionType>) InMemoryJaxbHelper
+                        .createUnmarshaller().unmarshal(in);
+                TypeDefinition type = Converter.convert(element.getValue());
+                if (null != fTypeManager.getTypeById(type.getId())) {
+                    continue; // created by the type system configuration
+                }
+                if (type.getPropertyDefinitions() == null) {
+                    ((AbstractTypeDefinition) type)
+                            .setPropertyDefinitions(new LinkedHashMap<String, PropertyDefinition<?>>());
+                }
+                fTypeManager.addTypeDefinition(type);
+            } catch (JAXBException e) {
+                throw ioException("Cannot read type from snapshot: " + e, e);
+            }
+        }
+    }
+
+    // ///////////////////////////////////////////
+    // encoding
+
+    /**
+     * Collects the data of a block in a growing buffer.
+     */
+    private static class Encoder {
+        private ByteBuffer fBuffer = ByteBuffer.allocate(64 * 1024);
+
+        int size() {
+            return fBuffer.position();
+        }
+
+        private void ensure(int n) {
+            if (fBuffer.remaining() < n) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.max(fBuffer.capacity() * 2, fBuffer.position() + n));
+                fBuffer.flip();
+                buffer.put(fBuffer);
+                fBuffer = buffer;
+            }
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            fBuffer.put((byte) b);
+        }
+
+        void writeBoolean(boolean b) {
+            writeByte(b ? 1 : 0);
+        }
+
+        void writeInt(int i) {
+            ensure(4);
+            fBuffer.putInt(i);
+        }
+
+        void writeLong(long l) {
+            ensure(8);
+            fBuffer.putLong(l);
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            fBuffer.put(bytes);
+        }
+
+        void writeString(String s) throws UnsupportedEncodingException {
+            if (null == s) {
+                writeInt(-1);
+            } else {
+                writeBytes(s.getBytes("UTF-8"));
+            }
+        }
+
+        void writeCalendar(GregorianCalendar calendar) throws UnsupportedEncodingException {
+            if (null == calendar) {
+                writeString(null);
+            } else {
+                writeString(calendar.getTimeZone().getID());
+                writeLong(calendar.getTimeInMillis());
+            }
+        }
+
+        /**
+         * write the length of the stream followed by its bytes
+         */
+        void writeStream(InputStream stream) throws IOException {
+            int lengthPosition = fBuffer.position();
+            writeInt(0);
+            int length = 0;
+            if (null != stream) {
+                while (true) {
+                    ensure(64 * 1024);
+                    int n = stream.read(fBuffer.array(), fBuffer.arrayOffset() + fBuffer.position(), fBuffer
+                            .remaining());
+                    if (n < 0) {
+                        break;
+                    }
+                    fBuffer.position(fBuffer.position() + n);
+                    length += n;
+                }
+            }
+            fBuffer.putInt(lengthPosition, length);
+        }
+
+        /**
+         * write the collected data to the channel and start a new block
+         */
+        void flushTo(FileChannel channel, boolean withLength) throws IOException {
+            fBuffer.flip();
+            if (withLength) {
+                ByteBuffer length = ByteBuffer.allocate(4);
+                length.putInt(fBuffer.remaining());
+                length.flip();
+                while (length.hasRemaining()) {
+                    channel.write(length);
+                }
+            }
+            while (fBuffer.hasRemaining()) {
+                channel.write(fBuffer);
+            }
+            fBuffer.clear();
+        }
+    }
+
+    /**
+     * Reads the data of a block.
+     */
+    private static class Decoder {
+        private final ByteBuffer fBuffer;
+
+        Decoder(ByteBuffer buffer) {
+            fBuffer = buffer;
+        }
+
+        boolean hasRemaining() {
+            return fBuffer.hasRemaining();
+        }
+
+        byte readByte() {
+            return fBuffer.get();
+        }
+
+        boolean readBoolean() {
+            return fBuffer.get() != 0;
+        }
+
+        int readInt() {
+            return fBuffer.getInt();
+        }
+
+        long readLong() {
+            return fBuffer.getLong();
+        }
+
+        String readString() throws UnsupportedEncodingException {
+            int length = fBuffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String s = new String(fBuffer.array(), fBuffer.arrayOffset() + fBuffer.position(), length, "UTF-8");
+            fBuffer.position(fBuffer.position() + length);
+            return s;
+        }
+
+        GregorianCalendar readCalendar() throws UnsupportedEncodingException {
+            String timeZone = readString();
+            if (null == timeZone) {
+                return null;
+            }
+            GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone(timeZone));
+            calendar.setTimeInMillis(readLong());
+            return calendar;
+        }
+
+        /**
+         * @return a stream on the next bytes of the block, without copying
+         *         them
+         */
+        InputStream readStream(int length) {
+            InputStream stream = new ByteArrayInputStream(fBuffer.array(), fBuffer.arrayOffset()
+                    + fBuffer.position(), length);
+            fBuffer.position(fBuffer.position() + length);
+            return stream;
+        }
+    }
+}
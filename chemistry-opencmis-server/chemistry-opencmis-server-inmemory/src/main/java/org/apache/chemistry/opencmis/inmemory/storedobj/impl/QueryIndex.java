@@ -0,0 +1,470 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.storedobj.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.types.PropertyUtil;
+
+/**
+ * Indexes used by the query processor to avoid looking at every object of the
+ * object store.
+ * <p>
+ * The type extents hold the objects of each type (without the objects of the
+ * sub types) and are always maintained. Property indexes map the value of a
+ * single-valued property to the objects having this value. They have to be
+ * created explicitly for the properties that are frequently queried. A hash
+ * index answers equality and IN predicates, a sorted index in addition answers
+ * range predicates and can return the objects in the order of their values.
+ * <p>
+ * Values are indexed in the form the query processor compares them: integers
+ * as long, decimals as double and date-times as milliseconds. Objects without
+ * a value and objects with more than one value are not part of a property
+ * index. Types may use the same property id with different data types, a
+ * sorted index orders the values by their class first. An index holding values
+ * of more than one class is not used to answer queries.
+ * <p>
+ * The index is maintained by the object store whenever an object is stored or
+ * removed. Property values changed without storing the object again are not
+ * seen by the index. The index has its own read-write lock.
+ */
+class QueryIndex {
+
+    /**
+     * orders keys of different classes by class name and keys of the same
+     * class by their natural order
+     */
+    private static final Comparator<Object> KEY_ORDER = new Comparator<Object>() {
+        @SuppressWarnings("unchecked")
+        public int compare(Object key1, Object key2) {
+            if (key1.getClass() != key2.getClass()) {
+                return key1.getClass().getName().compareTo(key2.getClass().getName());
+            }
+            return ((Comparable<Object>) key1).compareTo(key2);
+        }
+    };
+
+    private static class PropertyIndex {
+        final String fPropertyId;
+        final Map<Object, Set<StoredObject>> fEntries;
+        final Map<StoredObject, Object> fKeys = new IdentityHashMap<StoredObject, Object>();
+        // key class -> number of objects with a key of this class
+        final Map<Class<?>, Integer> fKeyClasses = new HashMap<Class<?>, Integer>();
+
+        PropertyIndex(String propertyId, boolean sorted) {
+            fPropertyId = propertyId;
+            if (sorted) {
+                fEntries = new TreeMap<Object, Set<StoredObject>>(KEY_ORDER);
+            } else {
+                fEntries = new HashMap<Object, Set<StoredObject>>();
+            }
+        }
+
+        boolean isSorted() {
+            return fEntries instanceof SortedMap<?, ?>;
+        }
+
+        void add(StoredObject so) {
+            Object key = toKey(PropertyUtil.getProperty(so, fPropertyId, null));
+            Object oldKey = fKeys.get(so);
+            if (null != oldKey && oldKey.equals(key)) {
+                return;
+            }
+            remove(so);
+            if (null == key) {
+                return;
+            }
+
+            Set<StoredObject> objects = fEntries.get(key);
+            if (null == objects) {
+                objects = new LinkedHashSet<StoredObject>();
+                fEntries.put(key, objects);
+            }
+            objects.add(so);
+            fKeys.put(so, key);
+            Integer count = fKeyClasses.get(key.getClass());
+            fKeyClasses.put(key.getClass(), Integer.valueOf(null == count ? 1 : count.intValue() + 1));
+        }
+
+        void remove(StoredObject so) {
+            Object key = fKeys.remove(so);
+            if (null == key) {
+                return;
+            }
+
+            Set<StoredObject> objects = fEntries.get(key);
+            if (null != objects) {
+                objects.remove(so);
+                if (objects.isEmpty()) {
+                    fEntries.remove(key);
+                }
+            }
+            int count = fKeyClasses.get(key.getClass()).intValue();
+            if (count == 1) {
+                fKeyClasses.remove(key.getClass());
+            } else {
+                fKeyClasses.put(key.getClass(), Integer.valueOf(count - 1));
+            }
+        }
+
+        /**
+         * check if the index holds values of more than one class, a lookup
+         * would miss values the query processor considers equal
+         */
+        boolean isMixed() {
+            return fKeyClasses.size() > 1;
+        }
+
+        /**
+         * check if a key can be looked up in this index
+         */
+        boolean isCompatible(Object key) {
+            return fKeyClasses.isEmpty() || (!isMixed() && fKeyClasses.containsKey(key.getClass()));
+        }
+    }
+
+    private final Map<String, Set<StoredObject>> fExtents = new HashMap<String, Set<StoredObject>>();
+    private final Map<String, PropertyIndex> fPropertyIndexes = new HashMap<String, PropertyIndex>();
+    private final ReadWriteLock fLock = new ReentrantReadWriteLock();
+
+    /**
+     * add an object or update its entries after it has been modified
+     *
+     * @param so
+     *            stored object
+     */
+    public void add(StoredObject so) {
+        fLock.writeLock().lock();
+        try {
+            addInternal(so);
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * add a batch of objects, the lock is acquired only once
+     *
+     * @param objects
+     *            stored objects
+     */
+    public void addAll(Collection<? extends StoredObject> objects) {
+        fLock.writeLock().lock();
+        try {
+            for (StoredObject so : objects) {
+                addInternal(so);
+            }
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    private void addInternal(StoredObject so) {
+        if (null != so.getTypeId()) {
+            Set<StoredObject> extent = fExtents.get(so.getTypeId());
+            if (null == extent) {
+                extent = new LinkedHashSet<StoredObject>();
+                fExtents.put(so.getTypeId(), extent);
+            }
+            extent.add(so);
+        }
+        for (PropertyIndex index : fPropertyIndexes.values()) {
+            index.add(so);
+        }
+    }
+
+    /**
+     * remove an object
+     *
+     * @param so
+     *            stored object
+     */
+    public void remove(StoredObject so) {
+        fLock.writeLock().lock();
+        try {
+            Set<StoredObject> extent = fExtents.get(so.getTypeId());
+            if (null != extent) {
+                extent.remove(so);
+                if (extent.isEmpty()) {
+                    fExtents.remove(so.getTypeId());
+                }
+            }
+            for (PropertyIndex index : fPropertyIndexes.values()) {
+                index.remove(so);
+            }
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * remove all objects, the property indexes are kept but emptied
+     */
+    public void clear() {
+        fLock.writeLock().lock();
+        try {
+            fExtents.clear();
+            for (PropertyIndex index : fPropertyIndexes.values()) {
+                index.fEntries.clear();
+                index.fKeys.clear();
+                index.fKeyClasses.clear();
+            }
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * create an index for a property and add the given objects to it,
+     * nothing happens if the property already has an index of this kind
+     *
+     * @param propertyId
+     *            property id
+     * @param sorted
+     *            true for a sorted index, false for a hash index
+     * @param objects
+     *            objects currently in the store
+     */
+    public void addPropertyIndex(String propertyId, boolean sorted, Collection<StoredObject> objects) {
+        fLock.writeLock().lock();
+        try {
+            PropertyIndex index = fPropertyIndexes.get(propertyId);
+            if (null != index && index.isSorted() == sorted) {
+                return;
+            }
+            index = new PropertyIndex(propertyId, sorted);
+            for (StoredObject so : objects) {
+                index.add(so);
+            }
+            fPropertyIndexes.put(propertyId, index);
+        } finally {
+            fLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param propertyId
+     *            property id
+     * @return true if the property has an index
+     */
+    public boolean hasPropertyIndex(String propertyId) {
+        fLock.readLock().lock();
+        try {
+            return fPropertyIndexes.containsKey(propertyId);
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param propertyId
+     *            property id
+     * @return number of objects in the index of the property or -1 if the
+     *         property has no sorted index
+     */
+    public int getSortedIndexSize(String propertyId) {
+        fLock.readLock().lock();
+        try {
+            PropertyIndex index = fPropertyIndexes.get(propertyId);
+            return null == index || !index.isSorted() ? -1 : index.fKeys.size();
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param typeId
+     *            type id
+     * @return true if there is at least one object of this type
+     */
+    public boolean isTypeInUse(String typeId) {
+        fLock.readLock().lock();
+        try {
+            return fExtents.containsKey(typeId);
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * get all objects of some types
+     *
+     * @param typeIds
+     *            type ids
+     * @return objects of these types
+     */
+    public List<StoredObject> getObjectsOfTypes(Collection<String> typeIds) {
+        List<StoredObject> result = new ArrayList<StoredObject>();
+        fLock.readLock().lock();
+        try {
+            for (String typeId : typeIds) {
+                Set<StoredObject> extent = fExtents.get(typeId);
+                if (null != extent) {
+                    result.addAll(extent);
+                }
+            }
+        } finally {
+            fLock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * get the objects with one of the given values of a property
+     *
+     * @param propertyId
+     *            property id
+     * @param values
+     *            values as used in a query
+     * @return matching objects or null if there is no suitable index
+     */
+    public List<StoredObject> getObjectsByValues(String propertyId, Collection<?> values) {
+        fLock.readLock().lock();
+        try {
+            PropertyIndex index = fPropertyIndexes.get(propertyId);
+            if (null == index) {
+                return null;
+            }
+
+            // a value may be repeated
+            Set<StoredObject> result = new LinkedHashSet<StoredObject>();
+            for (Object value : values) {
+                Object key = toKey(value);
+                if (null == key || !index.isCompatible(key)) {
+                    return null;
+                }
+                Set<StoredObject> objects = index.fEntries.get(key);
+                if (null != objects) {
+                    result.addAll(objects);
+                }
+            }
+            return new ArrayList<StoredObject>(result);
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * get the objects with a value of a property within a range
+     *
+     * @param propertyId
+     *            property id
+     * @param lower
+     *            lower bound as used in a query or null
+     * @param lowerInclusive
+     *            true if the lower bound is part of the range
+     * @param upper
+     *            upper bound as used in a query or null
+     * @param upperInclusive
+     *            true if the upper bound is part of the range
+     * @return matching objects in the order of their values or null if there
+     *         is no suitable index
+     */
+    @SuppressWarnings("unchecked")
+    public List<StoredObject> getObjectsByRange(String propertyId, Object lower, boolean lowerInclusive,
+            Object upper, boolean upperInclusive) {
+        fLock.readLock().lock();
+        try {
+            PropertyIndex index = fPropertyIndexes.get(propertyId);
+            if (null == index || !index.isSorted() || index.isMixed()) {
+                return null;
+            }
+            Object lowerKey = toKey(lower);
+            Object upperKey = toKey(upper);
+            if ((null != lower && (null == lowerKey || !index.isCompatible(lowerKey)))
+                    || (null != upper && (null == upperKey || !index.isCompatible(upperKey)))) {
+                return null;
+            }
+
+            SortedMap<Object, Set<StoredObject>> entries = (SortedMap<Object, Set<StoredObject>>) index.fEntries;
+            if (null != lowerKey) {
+                entries = entries.tailMap(lowerKey);
+            }
+
+            List<StoredObject> result = new ArrayList<StoredObject>();
+            for (Map.Entry<Object, Set<StoredObject>> entry : entries.entrySet()) {
+                Comparable<Object> key = (Comparable<Object>) entry.getKey();
+                if (!lowerInclusive && null != lowerKey && key.compareTo(lowerKey) == 0) {
+                    continue;
+                }
+                if (null != upperKey) {
+                    int cmp = key.compareTo(upperKey);
+                    if (cmp > 0 || (cmp == 0 && !upperInclusive)) {
+                        break;
+                    }
+                }
+                result.addAll(entry.getValue());
+            }
+            return result;
+        } finally {
+            fLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * get all objects of a sorted property index in ascending order of their
+     * values
+     *
+     * @param propertyId
+     *            property id
+     * @return objects having a value for the property or null if the property
+     *         has no sorted index or values of more than one data type
+     */
+    public List<StoredObject> getObjectsInOrder(String propertyId) {
+        return getObjectsByRange(propertyId, null, true, null, true);
+    }
+
+    /**
+     * converts a property value or a literal of a query into the key used by
+     * the property indexes
+     */
+    static Object toKey(Object value) {
+        if (value instanceof BigInteger) {
+            return Long.valueOf(((BigInteger) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            return Double.valueOf(((BigDecimal) value).doubleValue());
+        } else if (value instanceof Integer) {
+            return Long.valueOf(((Integer) value).longValue());
+        } else if (value instanceof Calendar) {
+            return Long.valueOf(((Calendar) value).getTimeInMillis());
+        } else if (value instanceof Long || value instanceof Double || value instanceof String
+                || value instanceof Boolean) {
+            return value;
+        } else {
+            // no value, multiple values or a value that can't be indexed
+            return null;
+        }
+    }
+}
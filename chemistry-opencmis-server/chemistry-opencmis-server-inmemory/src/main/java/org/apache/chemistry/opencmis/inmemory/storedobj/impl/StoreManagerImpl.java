@@ -22,7 +22,6 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -54,6 +53,8 @@ import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryCapabili
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.RepositoryInfoImpl;
 import org.apache.chemistry.opencmis.commons.impl.dataobjects.TypeDefinitionContainerImpl;
 import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
+import org.apache.chemistry.opencmis.inmemory.ConfigurationSettings;
 import org.apache.chemistry.opencmis.inmemory.RepositoryInfoCreator;
 import org.apache.chemistry.opencmis.inmemory.TypeCreator;
 import org.apache.chemistry.opencmis.inmemory.TypeManagerImpl;
@@ -63,6 +64,7 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.ObjectStore;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoreManager;
 import org.apache.chemistry.opencmis.inmemory.storedobj.api.TypeManagerCreatable;
 import org.apache.chemistry.opencmis.server.support.TypeManager;
+import org.apache.chemistry.opencmis.server.support.query.QueryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,6 +110,11 @@ public class StoreManagerImpl implements StoreManager {
      */
     private final Map<String, ObjectStore> fMapRepositoryToObjectStore = new HashMap<String, ObjectStore>();
 
+    /**
+     * map from repository id to the cache of parsed query statements
+     */
+    private final Map<String, QueryCache> fMapRepositoryToQueryCache = new HashMap<String, QueryCache>();
+
     public ObjectStoreImpl getStore(String repositoryId) {
         return (ObjectStoreImpl) fMapRepositoryToObjectStore.get(repositoryId);
     }
@@ -124,8 +131,9 @@ public class StoreManagerImpl implements StoreManager {
     }
 
     public void initRepository(String repositoryId) {
-        fMapRepositoryToObjectStore.put(repositoryId, new ObjectStoreImpl(repositoryId));
+        fMapRepositoryToObjectStore.put(repositoryId, createObjectStore(repositoryId));
         fMapRepositoryToTypeManager.put(repositoryId, new TypeManagerImpl());
+        fMapRepositoryToQueryCache.put(repositoryId, createQueryCache());
     }
 
     public void createAndInitRepository(String repositoryId, String typeCreatorClassName) {
@@ -134,8 +142,9 @@ public class StoreManagerImpl implements StoreManager {
             throw new RuntimeException("Cannot add repository, repository " + repositoryId + " already exists.");
         }
 
-        fMapRepositoryToObjectStore.put(repositoryId, new ObjectStoreImpl(repositoryId));
+        fMapRepositoryToObjectStore.put(repositoryId, createObjectStore(repositoryId));
         fMapRepositoryToTypeManager.put(repositoryId, new TypeManagerImpl());
+        fMapRepositoryToQueryCache.put(repositoryId, createQueryCache());
 
         // initialize the type system:
         initTypeSystem(repositoryId, typeCreatorClassName);
@@ -324,6 +333,40 @@ public class StoreManagerImpl implements StoreManager {
         typeManager.initTypeSystem(typeDefs);
     }
 
+    private static ObjectStoreImpl createObjectStore(String repositoryId) {
+        ObjectStoreImpl objStore = new ObjectStoreImpl(repositoryId);
+        Long changeLogSize = ConfigurationSettings.getConfigurationValueAsLong(ConfigConstants.CHANGE_LOG_SIZE);
+        if (null != changeLogSize) {
+            objStore.getChangeLog().setSize(changeLogSize.intValue());
+        }
+        addPropertyIndexes(objStore, ConfigConstants.HASH_INDEX_PROPERTIES, false);
+        addPropertyIndexes(objStore, ConfigConstants.SORTED_INDEX_PROPERTIES, true);
+        return objStore;
+    }
+
+    private static void addPropertyIndexes(ObjectStoreImpl objStore, String key, boolean sorted) {
+        String propertyIds = ConfigurationSettings.getConfigurationValueAsString(key);
+        if (null == propertyIds) {
+            return;
+        }
+        for (String propertyId : propertyIds.split(",")) {
+            if (propertyId.trim().length() > 0) {
+                objStore.addPropertyIndex(propertyId.trim(), sorted);
+            }
+        }
+    }
+
+    private static QueryCache createQueryCache() {
+        Long queryCacheSize = ConfigurationSettings.getConfigurationValueAsLong(ConfigConstants.QUERY_CACHE_SIZE);
+        if (null == queryCacheSize) {
+            return new QueryCache();
+        } else if (queryCacheSize.intValue() > 0) {
+            return new QueryCache(queryCacheSize.intValue());
+        } else {
+            return null;
+        }
+    }
+
     private RepositoryInfo createRepositoryInfo(String repositoryId) {
         ObjectStore objStore = getObjectStore(repositoryId);
         String rootFolderId = objStore.getRootFolder().getId();
@@ -340,7 +383,7 @@ public class StoreManagerImpl implements StoreManager {
         repoInfo.setThinClientUri("");
         repoInfo.setChangesIncomplete(Boolean.TRUE);
         repoInfo.setChangesOnType(null);
-        repoInfo.setLatestChangeLogToken(Long.valueOf(new Date(0).getTime()).toString());
+        repoInfo.setLatestChangeLogToken(objStore.getChangeLog().getLatestChangeLogToken());
         repoInfo.setVendorName("Apache Chemistry");
         repoInfo.setProductName("OpenCMIS InMemory-Server");
         repoInfo.setProductVersion(OPENCMIS_VERSION);
@@ -349,7 +392,7 @@ public class StoreManagerImpl implements StoreManager {
         RepositoryCapabilitiesImpl caps = new RepositoryCapabilitiesImpl();
         caps.setAllVersionsSearchable(false);
         caps.setCapabilityAcl(CapabilityAcl.MANAGE);
-        caps.setCapabilityChanges(CapabilityChanges.NONE);
+        caps.setCapabilityChanges(CapabilityChanges.OBJECTIDSONLY);
         caps.setCapabilityContentStreamUpdates(CapabilityContentStreamUpdates.ANYTIME);
         caps.setCapabilityJoin(CapabilityJoin.NONE);
         caps.setCapabilityQuery(CapabilityQuery.BOTHCOMBINED);
@@ -492,7 +535,8 @@ public class StoreManagerImpl implements StoreManager {
         TypeManager tm = getTypeManager(repositoryId);
         ObjectStore objectStore = getObjectStore(repositoryId);
 
-        InMemoryQueryProcessor queryProcessor = new InMemoryQueryProcessor(getStore(repositoryId));
+        InMemoryQueryProcessor queryProcessor = new InMemoryQueryProcessor(getStore(repositoryId),
+                fMapRepositoryToQueryCache.get(repositoryId));
         ObjectList objList = queryProcessor.query(tm, objectStore, user, repositoryId, statement, searchAllVersions,
                 includeAllowableActions, includeRelationships, renditionFilter, maxItems, skipCount);
 
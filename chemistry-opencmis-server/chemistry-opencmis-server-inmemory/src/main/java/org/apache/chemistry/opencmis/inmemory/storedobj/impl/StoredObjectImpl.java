@@ -118,7 +118,13 @@ public class StoredObjectImpl implements StoredObject {
     }
 
     public void setModifiedAtNow() {
-        this.fModifiedAt = getNow();
+        GregorianCalendar now = getNow();
+        // the change token is derived from the modification date, it must
+        // change even if the object is modified twice within a millisecond
+        if (fModifiedAt != null && now.getTimeInMillis() <= fModifiedAt.getTimeInMillis()) {
+            now.setTimeInMillis(fModifiedAt.getTimeInMillis() + 1);
+        }
+        this.fModifiedAt = now;
     }
 
     public void setRepositoryId(String repositoryId) {
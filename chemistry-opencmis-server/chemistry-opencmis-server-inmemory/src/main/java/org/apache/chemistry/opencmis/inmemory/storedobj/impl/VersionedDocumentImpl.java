@@ -111,6 +111,7 @@ public class VersionedDocumentImpl extends AbstractMultiFilingImpl implements Ve
 
         pwc.setCheckinComment(checkinComment);
         pwc.commit(isMajor);
+        pwc.persist();
     }
 
     public DocumentVersion checkOut(ContentStream content, String user) {
@@ -151,6 +152,18 @@ public class VersionedDocumentImpl extends AbstractMultiFilingImpl implements Ve
         return fCheckedOutUser;
     }
 
+    /**
+     * Set the check-out state, used when a snapshot is restored.
+     * 
+     * @param user
+     *            user who has checked out the document, null if the document
+     *            is not checked out
+     */
+    void setCheckedOutBy(String user) {
+        fCheckedOutUser = user;
+        fIsCheckedOut = null != user;
+    }
+
     public DocumentVersion getPwc() {
         for (DocumentVersion ver : fVersions) {
             if (ver.isPwc()) {
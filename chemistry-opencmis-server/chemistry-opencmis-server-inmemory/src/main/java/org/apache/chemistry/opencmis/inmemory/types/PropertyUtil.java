@@ -18,6 +18,8 @@
  */
 package org.apache.chemistry.opencmis.inmemory.types;
 
+import java.util.List;
+
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.ContentStream;
 import org.apache.chemistry.opencmis.commons.data.PropertyData;
@@ -32,6 +34,10 @@ import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
 
 public class PropertyUtil {
     
+    /**
+     * get the value of a property, pd may be null if the property definition
+     * is not at hand
+     */
     public static Object getProperty(StoredObject so, String propertyId, PropertyDefinition<?> pd) {
         ContentStream content = null;
         DocumentVersion ver = null;
@@ -147,10 +153,14 @@ public class PropertyUtil {
         }
 
        // try custom property:
-       PropertyData<?> lVal = so.getProperties().get(propertyId);
+       PropertyData<?> lVal = null == so.getProperties() ? null : so.getProperties().get(propertyId);
        if (null == lVal)
            return null;
-       else if (pd.getCardinality() == Cardinality.SINGLE) {
+       else if (null == pd) {
+           // cardinality unknown: return single values as value, others as list
+           List<?> values = lVal.getValues();
+           return null != values && values.size() == 1 ? values.get(0) : values;
+       } else if (pd.getCardinality() == Cardinality.SINGLE) {
            return lVal.getFirstValue();
        } else {
            return lVal.getValues();
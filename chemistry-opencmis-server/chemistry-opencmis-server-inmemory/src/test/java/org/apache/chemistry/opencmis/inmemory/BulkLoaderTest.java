@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisNameConstraintViolationException;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.BulkLoader;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.junit.Test;
+
+public class BulkLoaderTest extends TestCase {
+
+    private static final String TEST_REPOSITORY_ID = "TestRepositoryId";
+    private static final String USER = "user";
+
+    private ObjectStoreImpl fStore;
+    private BulkLoader fLoader;
+
+    @Override
+    protected void setUp() throws Exception {
+        ConfigurationSettings.init(new HashMap<String, String>());
+        fStore = new ObjectStoreImpl(TEST_REPOSITORY_ID);
+        fLoader = new BulkLoader(fStore);
+        fLoader.setThreads(4);
+        fLoader.setBatchSize(5);
+    }
+
+    @Test
+    public void testGeneratedTree() {
+        int created = fLoader.load(fStore.getRootFolder(), 3, 3, 2);
+
+        assertEquals(3 + 9 + 27, fLoader.getFoldersCreated());
+        assertEquals(2 * (1 + 3 + 9), fLoader.getDocumentsCreated());
+        assertEquals(created, fLoader.getFoldersCreated() + fLoader.getDocumentsCreated());
+        assertEquals(created + 1, fStore.getObjectCount());
+
+        Set<String> ids = new HashSet<String>(fStore.getIds());
+        assertEquals(created + 1, ids.size());
+
+        StoredObject so = fStore.getObjectByPath("/My_Folder-0-1/My_Folder-1-2/My_Document-2-1", USER);
+        assertTrue(so instanceof Document);
+        assertEquals("cmis:document", so.getTypeId());
+        Folder folder = (Folder) fStore.getObjectByPath("/My_Folder-0-2/My_Folder-1-0/My_Folder-2-1", USER);
+        assertEquals("cmis:folder", folder.getTypeId());
+        assertEquals(0, folder.getChildren(-1, -1, USER).size());
+        assertEquals(5, fStore.getRootFolder().getChildren(-1, -1, USER).size());
+        assertEquals(26, fStore.getObjectsOfTypes(Collections.singletonList("cmis:document")).size());
+    }
+
+    @Test
+    public void testPaths() throws Exception {
+        String paths = "# test tree\n" + "a/\n" + "a/b/c/doc1\n" + "a/b/doc2\n" + "\n" + "d/doc3\n" + "doc4\n"
+                + "e/f/\n";
+        List<BulkLoader.Node> nodes = BulkLoader.readPaths(new StringReader(paths));
+        assertEquals(4, nodes.size());
+
+        fLoader.setContentSizeInKB(1);
+        int created = fLoader.load(fStore.getRootFolder(), nodes);
+        assertEquals(10, created);
+        assertEquals(6, fLoader.getFoldersCreated());
+        assertEquals(4, fLoader.getDocumentsCreated());
+
+        Document doc = (Document) fStore.getObjectByPath("/a/b/c/doc1", USER);
+        assertNotNull(doc.getId());
+        assertEquals(1024, doc.getContent(0, -1).getLength());
+        assertTrue(fStore.getObjectByPath("/e/f", USER) instanceof Folder);
+        assertTrue(fStore.getObjectByPath("/doc4", USER) instanceof Document);
+        assertEquals(2, ((Folder) fStore.getObjectByPath("/a/b", USER)).getChildren(-1, -1, USER).size());
+    }
+
+    @Test
+    public void testNameConflict() throws Exception {
+        fLoader.load(fStore.getRootFolder(), BulkLoader.readPaths(new StringReader("a/\n")));
+        try {
+            fLoader.load(fStore.getRootFolder(), BulkLoader.readPaths(new StringReader("a/\n")));
+            fail("Should not be possible to load an object with an existing name");
+        } catch (CmisNameConstraintViolationException e) {
+        }
+        assertEquals(2, fStore.getObjectCount());
+
+        try {
+            BulkLoader.readPaths(new StringReader("doc\ndoc/child\n"));
+            fail("Should not be possible to use a document as folder");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
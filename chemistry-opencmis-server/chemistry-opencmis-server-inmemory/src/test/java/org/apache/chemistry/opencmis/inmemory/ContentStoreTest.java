@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.ContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ContentStoreFactory;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ContentStreamDataImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.DirectContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.HeapContentStore;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.MappedFileContentStore;
+import org.junit.Test;
+
+/**
+ * Stores and reads content with all content store implementations.
+ */
+public class ContentStoreTest extends TestCase {
+
+    private static final int SIZE = 300 * 1024 + 17;
+
+    @Test
+    public void testHeapStore() throws Exception {
+        checkStore(new HeapContentStore());
+    }
+
+    @Test
+    public void testDirectStore() throws Exception {
+        checkStore(new DirectContentStore());
+    }
+
+    @Test
+    public void testMappedFileStore() throws Exception {
+        checkStore(new MappedFileContentStore(null));
+    }
+
+    @Test
+    public void testFactory() {
+        assertTrue(ContentStoreFactory.getContentStore(null, null) instanceof HeapContentStore);
+        assertTrue(ContentStoreFactory.getContentStore("direct", null) instanceof DirectContentStore);
+        assertTrue(ContentStoreFactory.getContentStore("mapped", null) instanceof MappedFileContentStore);
+        assertTrue(ContentStoreFactory.getContentStore(HeapContentStore.class.getName(), null) instanceof HeapContentStore);
+        assertSame(ContentStoreFactory.getContentStore("direct", null), ContentStoreFactory.getContentStore("direct",
+                null));
+    }
+
+    private static void checkStore(ContentStore store) throws Exception {
+        byte[] content = createContent(SIZE);
+
+        ContentStreamDataImpl data = new ContentStreamDataImpl(0, store);
+        data.setContent(new ByteArrayInputStream(content));
+
+        assertEquals(SIZE, data.getLength());
+        assertTrue(Arrays.equals(content, readAll(data.getStream())));
+        assertTrue(Arrays.equals(content, data.getBytes()));
+
+        // ranges
+        ContentStreamDataImpl range = (ContentStreamDataImpl) data.getCloneWithLimits(1000, 5000);
+        assertTrue(Arrays.equals(range(content, 1000, 6000), readAll(range.getStream())));
+
+        range = (ContentStreamDataImpl) data.getCloneWithLimits(SIZE - 10, -1);
+        assertTrue(Arrays.equals(range(content, SIZE - 10, SIZE), readAll(range.getStream())));
+
+        range = (ContentStreamDataImpl) data.getCloneWithLimits(SIZE + 10, 10);
+        assertEquals(0, readAll(range.getStream()).length);
+
+        // the original is not affected by reading ranges
+        assertTrue(Arrays.equals(content, readAll(data.getStream())));
+
+        // empty content
+        ContentStreamDataImpl empty = new ContentStreamDataImpl(0, store);
+        empty.setContent(new ByteArrayInputStream(new byte[0]));
+        assertEquals(0, empty.getLength());
+        assertEquals(-1, empty.getStream().read());
+
+        // size limit
+        ContentStreamDataImpl limited = new ContentStreamDataImpl(100, store);
+        try {
+            limited.setContent(new ByteArrayInputStream(content));
+            fail("Content should exceed the size limit");
+        } catch (CmisInvalidArgumentException e) {
+            // expected
+        }
+    }
+
+    private static byte[] createContent(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31 + (i >> 8));
+        }
+        return content;
+    }
+
+    private static byte[] range(byte[] content, int from, int to) {
+        byte[] result = new byte[to - from];
+        System.arraycopy(content, from, result, 0, result.length);
+        return result;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7000];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidatorHandler;
+import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
+import org.apache.chemistry.opencmis.inmemory.server.InMemoryServiceFactoryImpl;
+import org.apache.chemistry.opencmis.server.shared.HttpUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the ETag of a content stream changes whenever the content is
+ * replaced, so that conditional GETs don't return stale content.
+ */
+public class ContentStreamValidatorTest {
+
+    private static final String REPOSITORY_ID = "UnitTestRepository";
+
+    private final BindingsObjectFactory fFactory = new BindingsObjectFactoryImpl();
+    private CmisService fService;
+    private String fRootFolderId;
+
+    @Before
+    public void setUp() {
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put(ConfigConstants.TYPE_CREATOR_CLASS, UnitTestTypeSystemCreator.class.getName());
+        parameters.put(ConfigConstants.REPOSITORY_ID, REPOSITORY_ID);
+
+        InMemoryServiceFactoryImpl factory = new InMemoryServiceFactoryImpl();
+        factory.init(parameters);
+        fService = factory.getService(new DummyCallContext());
+        fRootFolderId = fService.getRepositoryInfo(REPOSITORY_ID, null).getRootFolderId();
+    }
+
+    @Test
+    public void testSameLengthContentChangesETag() {
+        String id = createDocument("doc", "AAAA");
+        String oldETag = getETag(id);
+        assertNotNull(oldETag);
+
+        Holder<String> idHolder = new Holder<String>(id);
+        Holder<String> tokenHolder = new Holder<String>(getChangeToken(id));
+        String oldToken = tokenHolder.getValue();
+        fService.setContentStream(REPOSITORY_ID, idHolder, true, tokenHolder, createContent("BBBB"), null);
+
+        assertFalse(oldToken.equals(tokenHolder.getValue()));
+        assertEquals(getChangeToken(id), tokenHolder.getValue());
+
+        String newETag = getETag(id);
+        assertFalse(oldETag.equals(newETag));
+
+        // a client with the old content gets the new content
+        FakeResponse response = new FakeResponse();
+        assertFalse(HttpUtils.checkContentStreamValidator(fService, REPOSITORY_ID, id, null, ifNoneMatch(oldETag),
+                response.proxy()));
+        assertNull(response.status);
+        assertEquals(newETag, response.headers.get("ETag"));
+
+        // a client with the new content doesn't
+        response = new FakeResponse();
+        assertTrue(HttpUtils.checkContentStreamValidator(fService, REPOSITORY_ID, id, null, ifNoneMatch(newETag),
+                response.proxy()));
+        assertEquals(Integer.valueOf(HttpServletResponse.SC_NOT_MODIFIED), response.status);
+    }
+
+    @Test
+    public void testDeleteContentChangesETag() {
+        String id = createDocument("doc", "AAAA");
+        String oldETag = getETag(id);
+
+        Holder<String> tokenHolder = new Holder<String>(getChangeToken(id));
+        String oldToken = tokenHolder.getValue();
+        fService.deleteContentStream(REPOSITORY_ID, new Holder<String>(id), tokenHolder, null);
+
+        assertFalse(oldToken.equals(tokenHolder.getValue()));
+        assertFalse(oldETag.equals(getETag(id)));
+    }
+
+    private String createDocument(String name, String content) {
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+        properties.add(fFactory.createPropertyIdData(PropertyIds.NAME, name));
+        properties.add(fFactory.createPropertyIdData(PropertyIds.OBJECT_TYPE_ID, BaseTypeId.CMIS_DOCUMENT.value()));
+
+        return fService.createDocument(REPOSITORY_ID, fFactory.createPropertiesData(properties), fRootFolderId,
+                createContent(content), null, null, null, null, null);
+    }
+
+    private static ContentStreamImpl createContent(String content) {
+        byte[] bytes = content.getBytes();
+        return new ContentStreamImpl("data.txt", BigInteger.valueOf(bytes.length), "text/plain",
+                new ByteArrayInputStream(bytes));
+    }
+
+    private String getETag(String id) {
+        return ((ContentStreamValidatorHandler) fService).getContentStreamValidator(REPOSITORY_ID, id, null)
+                .getETag();
+    }
+
+    private String getChangeToken(String id) {
+        return (String) fService.getProperties(REPOSITORY_ID, id, PropertyIds.CHANGE_TOKEN, null).getProperties()
+                .get(PropertyIds.CHANGE_TOKEN).getFirstValue();
+    }
+
+    private static HttpServletRequest ifNoneMatch(final String eTag) {
+        return (HttpServletRequest) Proxy.newProxyInstance(ContentStreamValidatorTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("getHeader".equals(method.getName()) && "If-None-Match".equals(args[0])) {
+                            return eTag;
+                        } else if ("getDateHeader".equals(method.getName())) {
+                            return Long.valueOf(-1);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Records the status and the headers set on a response.
+     */
+    private static class FakeResponse implements InvocationHandler {
+        Integer status;
+        final Map<String, Object> headers = new HashMap<String, Object>();
+
+        HttpServletResponse proxy() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { HttpServletResponse.class }, this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("setStatus".equals(method.getName())) {
+                status = (Integer) args[0];
+            } else if (method.getName().startsWith("set") && args != null && args.length == 2) {
+                headers.put((String) args[0], args[1]);
+            }
+            return null;
+        }
+    }
+}
@@ -19,14 +19,26 @@
 package org.apache.chemistry.opencmis.inmemory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.enums.BaseTypeId;
+import org.apache.chemistry.opencmis.commons.enums.ChangeType;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.inmemory.ObjectServiceTest.ObjectTestTypeSystemCreator;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ChangeLogImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
 import org.apache.chemistry.opencmis.util.repository.ObjectGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -162,4 +174,124 @@ public class DiscoveryServiceTest extends AbstractServiceTest {
         assertEquals(3, count);
     }
 
+    @Test
+    public void testContentChanges() {
+        log.info("starting testContentChanges() ...");
+
+        String latestToken = fRepSvc.getRepositoryInfo(fRepositoryId, null).getLatestChangeLogToken();
+        String folderId = createFolder("ChangeFolder", fRootFolderId, TEST_FOLDER_TYPE_ID);
+        String docId = createDocument("ChangeDoc", folderId, TEST_DOCUMENT_TYPE_ID, false);
+
+        List<PropertyData<?>> properties = new ArrayList<PropertyData<?>>();
+        properties.add(fFactory.createPropertyStringData(PropertyIds.NAME, "RenamedDoc"));
+        fObjSvc.updateProperties(fRepositoryId, new Holder<String>(docId), null,
+                fFactory.createPropertiesData(properties), null);
+        fObjSvc.deleteObject(fRepositoryId, docId, true, null);
+
+        // changes since the latest token known before the changes
+        Holder<String> token = new Holder<String>(latestToken);
+        List<ObjectData> changes = fDiscSvc.getContentChanges(fRepositoryId, token, false, null, false, false, null,
+                null).getObjects();
+
+        ObjectData first = findFirst(changes, folderId);
+        assertEquals(ChangeType.CREATED, first.getChangeEventInfo().getChangeType());
+        assertEquals(BaseTypeId.CMIS_FOLDER.value(), first.getProperties().getProperties().get(
+                PropertyIds.BASE_TYPE_ID).getFirstValue());
+        assertEquals(TEST_FOLDER_TYPE_ID, first.getProperties().getProperties().get(PropertyIds.OBJECT_TYPE_ID)
+                .getFirstValue());
+        assertEquals(ChangeType.CREATED, findFirst(changes, docId).getChangeEventInfo().getChangeType());
+
+        List<ChangeType> docChanges = new ArrayList<ChangeType>();
+        for (ObjectData od : changes) {
+            if (docId.equals(getId(od))) {
+                docChanges.add(od.getChangeEventInfo().getChangeType());
+            }
+        }
+        assertTrue(docChanges.contains(ChangeType.UPDATED));
+        assertEquals(ChangeType.DELETED, docChanges.get(docChanges.size() - 1));
+
+        ObjectData last = changes.get(changes.size() - 1);
+        assertEquals(docId, getId(last));
+
+        // the returned token is the token of the last event
+        List<ObjectData> lastChanges = fDiscSvc.getContentChanges(fRepositoryId, token, false, null, false, false,
+                null, null).getObjects();
+        assertEquals(1, lastChanges.size());
+        assertEquals(ChangeType.DELETED, lastChanges.get(0).getChangeEventInfo().getChangeType());
+
+        // page through the same changes
+        token = new Holder<String>(latestToken);
+        int count = 0;
+        boolean hasMoreItems = true;
+        while (hasMoreItems) {
+            ObjectList page = fDiscSvc.getContentChanges(fRepositoryId, token, false, null, false, false,
+                    BigInteger.valueOf(2), null);
+            hasMoreItems = page.hasMoreItems();
+            assertTrue(page.getObjects().size() <= 2);
+            for (ObjectData od : page.getObjects()) {
+                assertEquals(getId(changes.get(count)), getId(od));
+                assertEquals(changes.get(count).getChangeEventInfo().getChangeType(), od.getChangeEventInfo()
+                        .getChangeType());
+                count++;
+            }
+            // the token points to the last event returned, continue after it
+            token.setValue(Long.toString(Long.parseLong(token.getValue()) + 1));
+        }
+        assertEquals(changes.size(), count);
+
+        log.info("... testContentChanges() finished.");
+    }
+
+    @Test
+    public void testChangeLogRetention() {
+        ObjectStoreImpl objStore = new ObjectStoreImpl("ChangeLogRepository");
+        ChangeLogImpl changeLog = objStore.getChangeLog();
+        changeLog.setSize(3);
+
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            StoredObject so = objStore.createFolder("folder" + i);
+            so.setTypeId(BaseTypeId.CMIS_FOLDER.value());
+            so.persist();
+            ids.add(so.getId());
+        }
+
+        // only the last three events are kept
+        Holder<String> token = new Holder<String>();
+        List<ObjectData> changes = changeLog.getChanges(token, -1).getObjects();
+        assertEquals(3, changes.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ids.get(i + 2), getId(changes.get(i)));
+        }
+        assertEquals(changeLog.getLatestChangeLogToken(), token.getValue());
+
+        // the token of the last event seen is still valid
+        String seen = changeLog.getLatestChangeLogToken();
+        objStore.deleteObject(ids.get(4), true, null);
+        token = new Holder<String>(seen);
+        changes = changeLog.getChanges(token, -1).getObjects();
+        assertEquals(2, changes.size());
+        assertEquals(ChangeType.DELETED, changes.get(1).getChangeEventInfo().getChangeType());
+
+        // older tokens are not
+        try {
+            changeLog.getChanges(new Holder<String>(Long.toString(Long.parseLong(seen) - 3)), -1);
+            fail("Token of a dropped event should not be accepted.");
+        } catch (CmisConstraintException e) {
+        }
+    }
+
+    private static ObjectData findFirst(List<ObjectData> changes, String id) {
+        for (ObjectData od : changes) {
+            if (id.equals(getId(od))) {
+                return od;
+            }
+        }
+        fail("No change event for object " + id);
+        return null;
+    }
+
+    private static String getId(ObjectData od) {
+        return (String) od.getProperties().getProperties().get(PropertyIds.OBJECT_ID).getFirstValue();
+    }
 }
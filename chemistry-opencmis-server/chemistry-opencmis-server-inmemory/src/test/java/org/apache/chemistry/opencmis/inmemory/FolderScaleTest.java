@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.FolderImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists, resolves and deletes folders in a store holding a large number of
+ * objects. The default of 30 folders per level keeps the unit tests fast, a
+ * large run is started with the system property
+ * <code>org.apache.chemistry.opencmis.inmemory.scale</code>, for example
+ * <code>-Dorg.apache.chemistry.opencmis.inmemory.scale=1000</code> creates a
+ * tree of about one million folders.
+ */
+public class FolderScaleTest extends TestCase {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FolderScaleTest.class);
+    private static final String TEST_REPOSITORY_ID = "TestRepositoryId";
+    private static final String USER = "user";
+    private static final int FOLDERS_PER_LEVEL = Integer.getInteger("org.apache.chemistry.opencmis.inmemory.scale",
+            30);
+
+    private ObjectStoreImpl fStore;
+    private FolderImpl fRoot;
+
+    @Override
+    protected void setUp() throws Exception {
+        fStore = new ObjectStoreImpl(TEST_REPOSITORY_ID);
+        fRoot = (FolderImpl) fStore.getRootFolder();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < FOLDERS_PER_LEVEL; i++) {
+            FolderImpl folder = createFolder(fRoot, "folder-" + pad(i));
+            for (int j = 0; j < FOLDERS_PER_LEVEL; j++) {
+                createFolder(folder, "child-" + pad(j));
+            }
+        }
+        LOG.info("Created " + fStore.getObjectCount() + " folders in " + (System.currentTimeMillis() - start)
+                + " ms.");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        fStore = null;
+        fRoot = null;
+    }
+
+    @Test
+    public void testLargeRepository() {
+        assertEquals((long) FOLDERS_PER_LEVEL * FOLDERS_PER_LEVEL + FOLDERS_PER_LEVEL + 1, fStore.getObjectCount());
+
+        int middle = FOLDERS_PER_LEVEL / 2;
+        String folderPath = "/folder-" + pad(middle);
+
+        // resolve paths
+        long start = System.currentTimeMillis();
+        Folder folder = (Folder) fStore.getObjectByPath(folderPath, USER);
+        assertNotNull(folder);
+        StoredObject child = fStore.getObjectByPath(folderPath + "/child-" + pad(FOLDERS_PER_LEVEL - 1), USER);
+        assertNotNull(child);
+        assertEquals("child-" + pad(FOLDERS_PER_LEVEL - 1), child.getName());
+        assertNull(fStore.getObjectByPath(folderPath + "/unknown", USER));
+        LOG.info("getObjectByPath() took " + (System.currentTimeMillis() - start) + " ms.");
+
+        // page through children
+        start = System.currentTimeMillis();
+        List<StoredObject> page = folder.getChildren(10, FOLDERS_PER_LEVEL - 5, USER);
+        assertEquals(5, page.size());
+        assertEquals("child-" + pad(FOLDERS_PER_LEVEL - 5), page.get(0).getName());
+        assertEquals("child-" + pad(FOLDERS_PER_LEVEL - 1), page.get(4).getName());
+
+        List<Folder> folderPage = fRoot.getFolderChildren(3, middle, USER);
+        assertEquals(3, folderPage.size());
+        assertEquals(folder, folderPage.get(0));
+        LOG.info("getChildren() took " + (System.currentTimeMillis() - start) + " ms.");
+
+        // name conflicts and deleting
+        start = System.currentTimeMillis();
+        assertTrue(folder.hasChild("child-" + pad(0)));
+        assertFalse(folder.hasChild("child-unknown"));
+
+        try {
+            fStore.deleteObject(folder.getId(), true, USER);
+            fail("Should not be possible to delete a folder that has children");
+        } catch (Exception e) {
+        }
+
+        List<StoredObject> children = folder.getChildren(-1, -1, USER);
+        assertEquals(FOLDERS_PER_LEVEL, children.size());
+        for (StoredObject so : children) {
+            fStore.deleteObject(so.getId(), true, USER);
+        }
+        fStore.deleteObject(folder.getId(), true, USER);
+        assertNull(fStore.getObjectByPath(folderPath, USER));
+        LOG.info("Deleting " + (FOLDERS_PER_LEVEL + 1) + " folders took " + (System.currentTimeMillis() - start)
+                + " ms.");
+    }
+
+    private FolderImpl createFolder(FolderImpl parent, String name) {
+        FolderImpl folder = (FolderImpl) fStore.createFolder(name);
+        parent.addChildFolder(folder);
+        folder.persist();
+        return folder;
+    }
+
+    private static String pad(int i) {
+        return String.format("%07d", i);
+    }
+}
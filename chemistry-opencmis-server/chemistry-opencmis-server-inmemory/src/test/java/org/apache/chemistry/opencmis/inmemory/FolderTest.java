@@ -79,6 +79,10 @@ public class FolderTest extends TestCase {
         assertEquals(f1, fTest);
         fTest = fStore.getObjectByPath("/Folder 1/Folder 1.1", USER);
         assertEquals(f11, fTest);
+        assertNull(fStore.getObjectByPath("/Folder 1/", USER));
+        assertNull(fStore.getObjectByPath("/Folder 1/Unknown", USER));
+        assertNull(fStore.getObjectByPath("/Folder 1/Folder 1.1/Folder 1", USER));
+        assertNull(fStore.getObjectByPath("Folder 1", USER));
         List<StoredObject> subFolders = fRoot.getChildren(-1, -1, "user");
         assertEquals(4, subFolders.size());
         subFolders = f2.getChildren(-1, -1, "user");
@@ -137,6 +141,7 @@ public class FolderTest extends TestCase {
         assertNull(fStore.getObjectByPath(oldPath, USER));
         assertEquals(f1.getPath(), "/Folder 3/Folder 1");
         assertEquals(f1, fStore.getObjectByPath("/Folder 3/Folder 1", USER));
+        assertEquals(f11, fStore.getObjectByPath("/Folder 3/Folder 1/Folder 1.1", USER));
 
         f2.rename("Folder 1");
         try {
@@ -38,6 +38,7 @@ import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.commons.enums.VersioningState;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisNameConstraintViolationException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisNotSupportedException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisObjectNotFoundException;
 import org.apache.chemistry.opencmis.commons.server.CallContext;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.apache.chemistry.opencmis.inmemory.types.InMemoryFolderTypeDefinition;
@@ -195,6 +196,50 @@ public class MultiFilingTest extends AbstractServiceTest {
         LOG.debug("End testRemoveVersionedDocumentFromFolder()");
     }
 
+    @Test
+    public void testPathsOfMultiFiledDocument() {
+        LOG.debug("begin testPathsOfMultiFiledDocument()");
+        String docId = createUnfiledDocument();
+        prepareMultiFiledDocument(docId);
+
+        getByPath(docId, "/folder1/" + UNFILED_DOC_NAME);
+        getByPath(docId, "/folder2/" + UNFILED_DOC_NAME);
+        getByPath(docId, "/folder1/folder1.1/" + UNFILED_DOC_NAME);
+
+        // rename changes all paths
+        renameDocumentAndCheckResult(docId);
+        assertNoObjectAtPath("/folder1/" + UNFILED_DOC_NAME);
+        getByPath(docId, "/folder1/" + RENAMED_DOC_NAME);
+        getByPath(docId, "/folder2/" + RENAMED_DOC_NAME);
+
+        // remove from folder removes one path
+        fMultiSvc.removeObjectFromFolder(fRepositoryId, docId, fId1, null);
+        assertNoObjectAtPath("/folder1/" + RENAMED_DOC_NAME);
+        getByPath(docId, "/folder2/" + RENAMED_DOC_NAME);
+
+        // move replaces a path
+        String newFolderId = createFolder("folder2.1", fId2, FOLDER_TYPE_ID);
+        Holder<String> idHolder = new Holder<String>(docId);
+        fObjSvc.moveObject(fRepositoryId, idHolder, newFolderId, fId11, null);
+        assertNoObjectAtPath("/folder1/folder1.1/" + RENAMED_DOC_NAME);
+        getByPath(docId, "/folder2/folder2.1/" + RENAMED_DOC_NAME);
+
+        // delete removes all paths
+        fObjSvc.deleteObject(fRepositoryId, docId, true, null);
+        assertNoObjectAtPath("/folder2/" + RENAMED_DOC_NAME);
+        assertNoObjectAtPath("/folder2/folder2.1/" + RENAMED_DOC_NAME);
+        LOG.debug("End testPathsOfMultiFiledDocument()");
+    }
+
+    private void assertNoObjectAtPath(String path) {
+        try {
+            fObjSvc.getObjectByPath(fRepositoryId, path, "*", false, IncludeRelationships.NONE, null, false, false,
+                    null);
+            fail("getObjectByPath() should fail for path " + path);
+        } catch (CmisObjectNotFoundException e) {
+        }
+    }
+
     private void createFolders() {
         fId1 = createFolder("folder1", fRootFolderId, FOLDER_TYPE_ID);
         fId2 = createFolder("folder2", fRootFolderId, FOLDER_TYPE_ID);
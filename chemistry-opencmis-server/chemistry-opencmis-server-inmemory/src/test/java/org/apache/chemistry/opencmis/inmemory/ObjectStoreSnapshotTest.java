@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.Ace;
+import org.apache.chemistry.opencmis.commons.data.ContentStream;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.enums.VersioningState;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisConstraintException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AccessControlEntryImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AccessControlListImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.AccessControlPrincipalDataImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.ContentStreamImpl;
+import org.apache.chemistry.opencmis.commons.impl.jaxb.EnumBasicPermissions;
+import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.inmemory.server.InMemoryServiceFactoryImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.DocumentVersion;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.VersionedDocument;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.BulkLoader;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.InMemoryAce;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreSnapshot;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.StoredObjectImpl;
+import org.junit.Test;
+
+public class ObjectStoreSnapshotTest extends TestCase {
+
+    private static final String TEST_REPOSITORY_ID = "TestRepositoryId";
+    private static final String USER = "user";
+    private static final String OTHER_USER = "bob";
+
+    private final BindingsObjectFactory fFactory = new BindingsObjectFactoryImpl();
+    private ObjectStoreImpl fStore;
+    private TypeManagerImpl fTypeManager;
+    private File fFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        ConfigurationSettings.init(new HashMap<String, String>());
+        fStore = new ObjectStoreImpl(TEST_REPOSITORY_ID);
+        fTypeManager = new TypeManagerImpl();
+        fTypeManager.initTypeSystem(UnitTestTypeSystemCreator.getTypesList());
+        fFile = File.createTempFile("inmemory", ".snapshot");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        fFile.delete();
+    }
+
+    @Test
+    public void testBrokenSnapshotFailsInitialization() throws Exception {
+        BulkLoader loader = new BulkLoader(fStore);
+        loader.load(fStore.getRootFolder(), 2, 3, 2);
+        new ObjectStoreSnapshot(fStore, fTypeManager).write(fFile);
+
+        // cut off the end of the last block, the first block can be restored
+        RandomAccessFile raf = new RandomAccessFile(fFile, "rw");
+        try {
+            raf.setLength(raf.length() - 10);
+        } finally {
+            raf.close();
+        }
+        long length = fFile.length();
+        long lastModified = fFile.lastModified();
+
+        Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put(ConfigConstants.TYPE_CREATOR_CLASS, UnitTestTypeSystemCreator.class.getName());
+        parameters.put(ConfigConstants.REPOSITORY_ID, TEST_REPOSITORY_ID);
+        parameters.put(ConfigConstants.SNAPSHOT_FILE, fFile.getAbsolutePath());
+
+        try {
+            new InMemoryServiceFactoryImpl().init(parameters);
+            fail("A broken snapshot must fail the initialization!");
+        } catch (CmisRuntimeException e) {
+            // expected
+        }
+
+        // the snapshot is not overwritten
+        assertEquals(length, fFile.length());
+        assertEquals(lastModified, fFile.lastModified());
+    }
+
+    @Test
+    public void testWriteAndRestore() throws Exception {
+        Folder root = fStore.getRootFolder();
+
+        BulkLoader loader = new BulkLoader(fStore);
+        loader.setContentSizeInKB(2);
+        loader.load(root, 2, 3, 2);
+
+        Map<String, PropertyData<?>> props = createProperties("doc", UnitTestTypeSystemCreator.COMPLEX_TYPE);
+        GregorianCalendar date = new GregorianCalendar(TimeZone.getTimeZone("GMT+02:00"));
+        date.setTimeInMillis(1300000000000L);
+        props.put(UnitTestTypeSystemCreator.PROP_ID_STRING, fFactory.createPropertyStringData(
+                UnitTestTypeSystemCreator.PROP_ID_STRING, "Hello \u00e4\u00f6\u00fc"));
+        props.put(UnitTestTypeSystemCreator.PROP_ID_INT, fFactory.createPropertyIntegerData(
+                UnitTestTypeSystemCreator.PROP_ID_INT, BigInteger.valueOf(42)));
+        props.put(UnitTestTypeSystemCreator.PROP_ID_DATETIME, fFactory.createPropertyDateTimeData(
+                UnitTestTypeSystemCreator.PROP_ID_DATETIME, date));
+        props.put(UnitTestTypeSystemCreator.PROP_ID_BOOLEAN_MULTI_VALUE, fFactory.createPropertyBooleanData(
+                UnitTestTypeSystemCreator.PROP_ID_BOOLEAN_MULTI_VALUE, Arrays.asList(true, false)));
+        Document doc = fStore.createDocument("doc", props, USER, root, null, null);
+        doc.setContent(createContent("document content"), false);
+        doc.persist();
+
+        DocumentVersion version = fStore.createVersionedDocument("versioned", createProperties("versioned",
+                UnitTestTypeSystemCreator.VERSIONED_TYPE), USER, root, null, null, createContent("version 1"),
+                VersioningState.MAJOR);
+        version.setCheckinComment("first");
+        version.getParentDocument().checkOut(createContent("version 2"), USER);
+
+        List<Ace> aces = Arrays.asList(new Ace[] { new AccessControlEntryImpl(new AccessControlPrincipalDataImpl(
+                OTHER_USER), Arrays.asList(new String[] { EnumBasicPermissions.CMIS_READ.value() })) });
+        List<Ace> defaultAces = Arrays.asList(new Ace[] { InMemoryAce.getDefaultAce().toCommonsAce() });
+        Folder secret = fStore.createFolder("secret", createProperties("secret", "cmis:folder"), USER, root,
+                new AccessControlListImpl(aces), new AccessControlListImpl(defaultAces));
+        secret.persist();
+
+        ObjectStoreSnapshot snapshot = new ObjectStoreSnapshot(fStore, fTypeManager);
+        int written = snapshot.write(fFile);
+        assertEquals(fStore.getObjectCount() - 1, written);
+
+        // restore into a new store
+        ObjectStoreImpl store = new ObjectStoreImpl(TEST_REPOSITORY_ID);
+        TypeManagerImpl typeManager = new TypeManagerImpl();
+        typeManager.initTypeSystem(null);
+        ObjectStoreSnapshot restore = new ObjectStoreSnapshot(store, typeManager);
+        restore.setThreads(4);
+        assertEquals(written, restore.restore(fFile));
+
+        assertEquals(fStore.getObjectCount(), store.getObjectCount());
+        assertEquals(fStore.getRootFolder().getId(), store.getRootFolder().getId());
+        assertEquals(fStore.getIds(), store.getIds());
+        assertNotNull(typeManager.getTypeById(UnitTestTypeSystemCreator.COMPLEX_TYPE));
+        assertNotNull(typeManager.getTypeById(UnitTestTypeSystemCreator.LEVEL2_TYPE));
+
+        // folders and documents
+        StoredObject so = store.getObjectByPath("/My_Folder-0-2/My_Document-1-1", USER);
+        assertTrue(so instanceof Document);
+        assertEquals(2048, ((Document) so).getContent(0, -1).getLength());
+        // the secret folder is visible for the other user only
+        assertEquals(7, store.getRootFolder().getChildren(-1, -1, USER).size());
+
+        Document restoredDoc = (Document) store.getObjectByPath("/doc", USER);
+        assertEquals(doc.getId(), restoredDoc.getId());
+        assertEquals(UnitTestTypeSystemCreator.COMPLEX_TYPE, restoredDoc.getTypeId());
+        assertEquals(doc.getCreatedAt().getTimeInMillis(), restoredDoc.getCreatedAt().getTimeInMillis());
+        Map<String, PropertyData<?>> restoredProps = restoredDoc.getProperties();
+        assertEquals("Hello \u00e4\u00f6\u00fc", restoredProps.get(UnitTestTypeSystemCreator.PROP_ID_STRING)
+                .getFirstValue());
+        assertEquals(BigInteger.valueOf(42), restoredProps.get(UnitTestTypeSystemCreator.PROP_ID_INT)
+                .getFirstValue());
+        GregorianCalendar restoredDate = (GregorianCalendar) restoredProps.get(
+                UnitTestTypeSystemCreator.PROP_ID_DATETIME).getFirstValue();
+        assertEquals(date.getTimeInMillis(), restoredDate.getTimeInMillis());
+        assertEquals(date.getTimeZone().getID(), restoredDate.getTimeZone().getID());
+        assertEquals(Arrays.asList(true, false), restoredProps.get(
+                UnitTestTypeSystemCreator.PROP_ID_BOOLEAN_MULTI_VALUE).getValues());
+        assertEquals("document content", read(restoredDoc.getContent(0, -1)));
+
+        // versions
+        VersionedDocument restoredVersioned = (VersionedDocument) store.getObjectByPath("/versioned", USER);
+        assertEquals(2, restoredVersioned.getAllVersions().size());
+        assertTrue(restoredVersioned.isCheckedOut());
+        assertEquals(USER, restoredVersioned.getCheckedOutBy());
+        DocumentVersion first = restoredVersioned.getAllVersions().get(0);
+        assertEquals(version.getId(), first.getId());
+        assertSame(first, store.getObjectById(version.getId()));
+        assertTrue(first.isMajor());
+        assertEquals("first", first.getCheckinComment());
+        assertEquals("version 1", read(first.getContent(0, -1)));
+        assertEquals("version 2", read(restoredVersioned.getPwc().getContent(0, -1)));
+
+        // ACLs
+        StoredObjectImpl restoredSecret = (StoredObjectImpl) store.getObjectByPath("/secret", USER);
+        int aclId = ((StoredObjectImpl) secret).getAclId();
+        assertEquals(aclId, restoredSecret.getAclId());
+        assertEquals(fStore.getAcl(aclId).getAces().size(), store.getAcl(aclId).getAces().size());
+        assertEquals(OTHER_USER, store.getAcl(aclId).getAces().get(0).getPrincipalId());
+        assertTrue(store.hasReadAccess(OTHER_USER, restoredSecret));
+        assertFalse(store.hasWriteAccess(OTHER_USER, restoredSecret));
+
+        // new objects get new ids
+        Folder folder = store.createFolder("new", createProperties("new", "cmis:folder"), USER, store
+                .getRootFolder(), null, null);
+        folder.persist();
+        assertFalse(fStore.getIds().contains(folder.getId()));
+        assertEquals(folder, store.getObjectByPath("/new", USER));
+
+        // only an empty store can be restored
+        try {
+            restore.restore(fFile);
+            fail("Should not be possible to restore a snapshot into a store that is not empty");
+        } catch (CmisConstraintException e) {
+        }
+    }
+
+    private Map<String, PropertyData<?>> createProperties(String name, String typeId) {
+        Map<String, PropertyData<?>> props = new HashMap<String, PropertyData<?>>();
+        props.put(PropertyIds.NAME, fFactory.createPropertyStringData(PropertyIds.NAME, name));
+        props.put(PropertyIds.OBJECT_TYPE_ID, fFactory.createPropertyIdData(PropertyIds.OBJECT_TYPE_ID, typeId));
+        return props;
+    }
+
+    private static ContentStream createContent(String text) {
+        byte[] bytes = text.getBytes();
+        return new ContentStreamImpl("file.txt", BigInteger.valueOf(bytes.length), "text/plain",
+                new ByteArrayInputStream(bytes));
+    }
+
+    private static String read(ContentStream content) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        InputStream in = content.getStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            bos.write(buffer, 0, n);
+        }
+        in.close();
+        return bos.toString();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
+import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.StoredObject;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Property indexes of the object store for a property id that different types
+ * define with different data types.
+ */
+public class QueryIndexTest {
+
+    private static final String USER = "user";
+    private static final String SHARED_PROP = "SharedProp";
+
+    private final BindingsObjectFactory fFactory = new BindingsObjectFactoryImpl();
+    private ObjectStoreImpl fStore;
+
+    @Before
+    public void setUp() {
+        ConfigurationSettings.init(new HashMap<String, String>());
+        fStore = new ObjectStoreImpl("TestRepositoryId");
+    }
+
+    @Test
+    public void testSortedIndexWithMixedDataTypes() {
+        checkMixedDataTypes(true);
+    }
+
+    @Test
+    public void testHashIndexWithMixedDataTypes() {
+        checkMixedDataTypes(false);
+    }
+
+    private void checkMixedDataTypes(boolean sorted) {
+        fStore.addPropertyIndex(SHARED_PROP, sorted);
+
+        Map<String, PropertyData<?>> props = createProperties("string", "StringType");
+        props.put(SHARED_PROP, fFactory.createPropertyStringData(SHARED_PROP, "b"));
+        Document stringDoc = createDocument(props);
+
+        props = createProperties("other", "StringType");
+        props.put(SHARED_PROP, fFactory.createPropertyStringData(SHARED_PROP, "a"));
+        Document otherDoc = createDocument(props);
+
+        // a single data type is answered by the index
+        assertEquals(Arrays.asList(stringDoc), fStore.getObjectsByPropertyValues(SHARED_PROP, Arrays.asList("b")));
+        if (sorted) {
+            assertEquals(Arrays.<StoredObject> asList(otherDoc, stringDoc), fStore
+                    .getObjectsInPropertyOrder(SHARED_PROP));
+        }
+
+        // storing an integer value of another type must not fail
+        props = createProperties("integer", "IntegerType");
+        props.put(SHARED_PROP, fFactory.createPropertyIntegerData(SHARED_PROP, BigInteger.valueOf(42)));
+        Document intDoc = createDocument(props);
+        assertEquals(3, fStore.getObjectsOfTypes(Arrays.asList("StringType", "IntegerType")).size());
+
+        // the query processor has to look at the objects itself
+        assertNull(fStore.getObjectsByPropertyValues(SHARED_PROP, Arrays.asList("b")));
+        assertNull(fStore.getObjectsByPropertyValues(SHARED_PROP, Arrays.asList(BigInteger.valueOf(42))));
+        assertNull(fStore.getObjectsByPropertyRange(SHARED_PROP, "a", true, "c", true));
+        assertNull(fStore.getObjectsInPropertyOrder(SHARED_PROP));
+
+        // the index is used again once only one data type is left
+        fStore.deleteObject(intDoc.getId(), true, USER);
+        assertEquals(Arrays.asList(stringDoc), fStore.getObjectsByPropertyValues(SHARED_PROP, Arrays.asList("b")));
+    }
+
+    private Document createDocument(Map<String, PropertyData<?>> props) {
+        String name = (String) props.get(PropertyIds.NAME).getFirstValue();
+        Document doc = fStore.createDocument(name, props, USER, fStore.getRootFolder(), null, null);
+        doc.persist();
+        return doc;
+    }
+
+    private Map<String, PropertyData<?>> createProperties(String name, String typeId) {
+        Map<String, PropertyData<?>> props = new HashMap<String, PropertyData<?>>();
+        props.put(PropertyIds.NAME, fFactory.createPropertyStringData(PropertyIds.NAME, name));
+        props.put(PropertyIds.OBJECT_TYPE_ID, fFactory.createPropertyIdData(PropertyIds.OBJECT_TYPE_ID, typeId));
+        return props;
+    }
+}
@@ -29,11 +29,17 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.chemistry.opencmis.commons.PropertyIds;
 import org.apache.chemistry.opencmis.commons.data.ObjectData;
 import org.apache.chemistry.opencmis.commons.data.ObjectList;
 import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
 import org.apache.chemistry.opencmis.inmemory.AbstractServiceTest;
+import org.apache.chemistry.opencmis.inmemory.ConfigConstants;
 import org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,6 +64,12 @@ public class EvalQueryTest extends AbstractServiceTest {
         dataCreator.createBasicTestData();
     }
 
+    @Override
+    protected void addParameters(Map<String, String> parameters) {
+        // sort by walking an index if most matches are needed
+        parameters.put(ConfigConstants.SORTED_INDEX_PROPERTIES, PROP_ID_BOOLEAN);
+    }
+
     @Override
     @After
     public void tearDown() {
@@ -73,6 +85,17 @@ public class EvalQueryTest extends AbstractServiceTest {
         assertFalse(resultContains("jens", res));
     }
 
+    @Test
+    public void testRepeatedQuery() {
+        // the second and third query use the cached parser tree
+        for (int i = 0; i < 3; i++) {
+            String statement = "SELECT * FROM " + COMPLEX_TYPE + "  WHERE " + PROP_ID_INT + (i == 1 ? " =\n 100" : "= 100");
+            ObjectList res = doQuery(statement);
+            assertEquals(1, res.getObjects().size());
+            assertTrue(resultContains("epsilon", res));
+        }
+    }
+
     //////////////////////////////////////////////////////////////////////
     // Boolean tests
 
@@ -475,6 +498,49 @@ public class EvalQueryTest extends AbstractServiceTest {
         assertTrue(resultContainsAtPos("delta", 2, res) || resultContainsAtPos("delta", 1, res) || resultContainsAtPos("delta", 0, res));
 }
 
+    @Test
+    public void testOrderByMultipleColumns() {
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " ORDER BY " + PROP_ID_BOOLEAN + " DESC, " + PROP_ID_INT;
+        ObjectList res = doQuery(statement);
+        assertEquals(5, res.getObjects().size());
+        assertTrue(resultContainsAtPos("alpha", 0, res));
+        assertTrue(resultContainsAtPos("gamma", 1, res));
+        assertTrue(resultContainsAtPos("delta", 2, res));
+        assertTrue(resultContainsAtPos("beta", 3, res));
+        assertTrue(resultContainsAtPos("epsilon", 4, res));
+
+        // a page is selected without sorting all matches
+        res = fDiscSvc.query(fRepositoryId, statement, false, false, IncludeRelationships.NONE, null,
+                BigInteger.valueOf(1), BigInteger.valueOf(1), null);
+        assertEquals(1, res.getObjects().size());
+        assertEquals(BigInteger.valueOf(5), res.getNumItems());
+        assertTrue(res.hasMoreItems());
+        assertTrue(resultContainsAtPos("gamma", 0, res));
+    }
+
+    @Test
+    public void testOrderByTiedValuesPaged() {
+        String[] statements = { "SELECT * FROM " + COMPLEX_TYPE + " ORDER BY " + PROP_ID_BOOLEAN,
+                "SELECT * FROM " + COMPLEX_TYPE + " ORDER BY " + PROP_ID_BOOLEAN + " DESC" };
+
+        for (String statement : statements) {
+            List<String> all = getNames(doQuery(statement));
+            assertEquals(5, all.size());
+
+            // the pages are selected or sorted in different ways, ties must
+            // be ordered the same way anyway
+            for (int pageSize = 1; pageSize <= 3; pageSize++) {
+                List<String> paged = new ArrayList<String>();
+                for (int skip = 0; skip < all.size(); skip += pageSize) {
+                    ObjectList res = fDiscSvc.query(fRepositoryId, statement, false, false, IncludeRelationships.NONE,
+                            null, BigInteger.valueOf(pageSize), BigInteger.valueOf(skip), null);
+                    paged.addAll(getNames(res));
+                }
+                assertEquals(statement + ", page size " + pageSize, all, paged);
+            }
+        }
+    }
+
     @Test
     public void testIsNull() {
         dataCreator.createNullTestDocument();
@@ -651,6 +717,40 @@ public class EvalQueryTest extends AbstractServiceTest {
         assertEquals(0, res.getObjects().size());
     }
 
+    @Test
+    public void testInRepeatedValues() {
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + UnitTestTypeSystemCreator.PROP_ID_STRING + " IN ('Alpha', 'Alpha', 'Beta')";
+        ObjectList res = doQuery(statement);
+        assertEquals(2, res.getObjects().size());
+        assertEquals(BigInteger.valueOf(2), res.getNumItems());
+        assertTrue(resultContains("alpha", res));
+        assertTrue(resultContains("beta", res));
+    }
+
+    @Test
+    public void testObjectIdInRepeatedValues() {
+        String id = getObjectId("alpha");
+
+        String statement = "SELECT * FROM cmis:document WHERE " + PropertyIds.OBJECT_ID + " IN ('" + id + "', '" + id + "')";
+        ObjectList res = doQuery(statement);
+        assertEquals(1, res.getObjects().size());
+        assertEquals(BigInteger.ONE, res.getNumItems());
+        assertTrue(resultContains("alpha", res));
+    }
+
+    @Test
+    public void testInTreeMultiFiled() {
+        dataCreator.createLikeTestDocuments(dataCreator.getFolder11());
+        String id = getObjectId("likedoc1");
+        fMultiSvc.addObjectToFolder(fRepositoryId, id, dataCreator.getFolder1(), true, null);
+
+        String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE IN_TREE('" + dataCreator.getFolder1() + "')";
+        ObjectList res = doQuery(statement);
+        assertEquals(3, res.getObjects().size());
+        assertEquals(BigInteger.valueOf(3), res.getNumItems());
+        assertTrue(resultContains("likedoc1", res));
+    }
+
     @Test
     public void testNotIn() {
         String statement = "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + UnitTestTypeSystemCreator.PROP_ID_STRING + " NOT IN ('Alpha', 'Beta', 'Gamma')";
@@ -835,6 +935,20 @@ public class EvalQueryTest extends AbstractServiceTest {
         return res;
     }
 
+    private static List<String> getNames(ObjectList res) {
+        List<String> names = new ArrayList<String>();
+        for (ObjectData od : res.getObjects()) {
+            names.add((String) od.getProperties().getProperties().get(PropertyIds.NAME).getFirstValue());
+        }
+        return names;
+    }
+
+    private String getObjectId(String name) {
+        ObjectList res = doQuery("SELECT * FROM cmis:document WHERE " + PropertyIds.NAME + " = '" + name + "'");
+        assertEquals(1, res.getObjects().size());
+        return res.getObjects().get(0).getId();
+    }
+
     private static boolean resultContains(String name, String propId, ObjectList results) {
         for (ObjectData od : results.getObjects()) {
             String nameProp = (String) od.getProperties().getProperties().get(propId).getFirstValue();
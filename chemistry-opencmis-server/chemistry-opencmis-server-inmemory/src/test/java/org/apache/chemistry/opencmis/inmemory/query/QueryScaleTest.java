@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.inmemory.query;
+
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.COMPLEX_TYPE;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_INT;
+import static org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator.PROP_ID_STRING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.chemistry.opencmis.commons.PropertyIds;
+import org.apache.chemistry.opencmis.commons.data.ObjectData;
+import org.apache.chemistry.opencmis.commons.data.ObjectList;
+import org.apache.chemistry.opencmis.commons.data.PropertyData;
+import org.apache.chemistry.opencmis.commons.enums.IncludeRelationships;
+import org.apache.chemistry.opencmis.commons.impl.dataobjects.BindingsObjectFactoryImpl;
+import org.apache.chemistry.opencmis.commons.spi.BindingsObjectFactory;
+import org.apache.chemistry.opencmis.inmemory.ConfigurationSettings;
+import org.apache.chemistry.opencmis.inmemory.TypeManagerImpl;
+import org.apache.chemistry.opencmis.inmemory.UnitTestTypeSystemCreator;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Document;
+import org.apache.chemistry.opencmis.inmemory.storedobj.api.Folder;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.FolderImpl;
+import org.apache.chemistry.opencmis.inmemory.storedobj.impl.ObjectStoreImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs queries against a store holding a large number of documents, first by
+ * evaluating all documents of the type and then using property indexes, and
+ * checks that both return the same result. The default of 2000 documents
+ * keeps the unit tests fast, a large run is started with the system property
+ * <code>org.apache.chemistry.opencmis.inmemory.query.scale</code>, for example
+ * <code>-Dorg.apache.chemistry.opencmis.inmemory.query.scale=100000</code>.
+ */
+public class QueryScaleTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryScaleTest.class);
+    private static final String TEST_REPOSITORY_ID = "TestRepositoryId";
+    private static final int DOCUMENTS = Integer.getInteger("org.apache.chemistry.opencmis.inmemory.query.scale",
+            2000);
+    private static final int FOLDERS = 100;
+
+    private TypeManagerImpl fTypeManager;
+    private ObjectStoreImpl fStore;
+    private List<Folder> fFolders;
+
+    @Before
+    public void setUp() {
+        ConfigurationSettings.init(new HashMap<String, String>());
+        fTypeManager = new TypeManagerImpl();
+        fTypeManager.initTypeSystem(new UnitTestTypeSystemCreator().createTypesList());
+        fStore = new ObjectStoreImpl(TEST_REPOSITORY_ID);
+        BindingsObjectFactory factory = new BindingsObjectFactoryImpl();
+
+        long start = System.currentTimeMillis();
+        fFolders = new ArrayList<Folder>();
+        for (int i = 0; i < FOLDERS; i++) {
+            Folder folder = fStore.createFolder("folder-" + i);
+            ((FolderImpl) fStore.getRootFolder()).addChildFolder(folder);
+            folder.persist();
+            fFolders.add(folder);
+        }
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Map<String, PropertyData<?>> properties = new HashMap<String, PropertyData<?>>();
+            properties.put(PropertyIds.OBJECT_TYPE_ID, factory.createPropertyIdData(PropertyIds.OBJECT_TYPE_ID,
+                    COMPLEX_TYPE));
+            properties.put(PropertyIds.NAME, factory.createPropertyStringData(PropertyIds.NAME, "doc-" + i));
+            properties.put(PROP_ID_INT, factory.createPropertyIntegerData(PROP_ID_INT, BigInteger.valueOf(i)));
+            properties.put(PROP_ID_STRING, factory.createPropertyStringData(PROP_ID_STRING, "doc-" + (i % 1000)));
+            Document doc = fStore.createDocument("doc-" + i, properties, ObjectStoreImpl.ADMIN_PRINCIPAL_ID,
+                    fFolders.get(i % FOLDERS), null, null);
+            doc.persist();
+        }
+        LOG.info("Created " + fStore.getObjectCount() + " objects in " + (System.currentTimeMillis() - start)
+                + " ms.");
+    }
+
+    @Test
+    public void testIndexedQueries() {
+        int middle = DOCUMENTS / 2;
+        String[] statements = {
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_INT + " = " + middle,
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_INT + " IN (1, 2, " + middle + ")",
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_INT + " >= " + middle + " AND " + PROP_ID_INT
+                        + " < " + (middle + 100),
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_STRING + " LIKE 'doc-12%'",
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE " + PROP_ID_STRING + " = 'doc-7' OR " + PROP_ID_INT
+                        + " < 10",
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE IN_FOLDER('" + fFolders.get(FOLDERS / 2).getId() + "')",
+                "SELECT * FROM " + COMPLEX_TYPE + " WHERE IN_TREE('" + fStore.getRootFolder().getId() + "') AND "
+                        + PROP_ID_INT + " = 42",
+                "SELECT * FROM " + COMPLEX_TYPE + " ORDER BY " + PROP_ID_INT + " DESC",
+                "SELECT * FROM cmis:document WHERE cmis:name = 'doc-42'" };
+
+        List<ObjectList> scanned = new ArrayList<ObjectList>();
+        long start = System.currentTimeMillis();
+        for (String statement : statements) {
+            scanned.add(query(statement));
+        }
+        LOG.info("Queries without property indexes took " + (System.currentTimeMillis() - start) + " ms.");
+
+        start = System.currentTimeMillis();
+        fStore.addPropertyIndex(PROP_ID_INT, true);
+        fStore.addPropertyIndex(PROP_ID_STRING, true);
+        fStore.addPropertyIndex(PropertyIds.NAME, false);
+        LOG.info("Creating property indexes took " + (System.currentTimeMillis() - start) + " ms.");
+
+        start = System.currentTimeMillis();
+        for (int i = 0; i < statements.length; i++) {
+            ObjectList indexed = query(statements[i]);
+            assertEquals(statements[i], scanned.get(i).getNumItems(), indexed.getNumItems());
+            if (statements[i].contains("ORDER BY")) {
+                assertEquals(statements[i], getIds(scanned.get(i)), getIds(indexed));
+            } else {
+                // without ORDER BY the order depends on the access path
+                assertEquals(statements[i], getSortedIds(scanned.get(i)), getSortedIds(indexed));
+            }
+        }
+        LOG.info("Queries with property indexes took " + (System.currentTimeMillis() - start) + " ms.");
+
+        assertEquals(BigInteger.ONE, scanned.get(0).getNumItems());
+        assertEquals(BigInteger.valueOf(100), scanned.get(2).getNumItems());
+        assertEquals(BigInteger.valueOf(DOCUMENTS / FOLDERS), scanned.get(5).getNumItems());
+        assertTrue(scanned.get(7).hasMoreItems());
+        assertEquals(BigInteger.ONE, scanned.get(8).getNumItems());
+    }
+
+    private ObjectList query(String statement) {
+        // only the first page of a sorted result, the complete result
+        // otherwise
+        BigInteger maxItems = statement.contains("ORDER BY") ? BigInteger.valueOf(10) : null;
+        InMemoryQueryProcessor queryProcessor = new InMemoryQueryProcessor(fStore);
+        ObjectList result = queryProcessor.query(fTypeManager, fStore, ObjectStoreImpl.ADMIN_PRINCIPAL_ID,
+                TEST_REPOSITORY_ID, statement, false, false, IncludeRelationships.NONE, null, maxItems, null);
+        LOG.debug(statement + ": " + queryProcessor.getPlan());
+        return result;
+    }
+
+    private static List<String> getIds(ObjectList objList) {
+        List<String> ids = new ArrayList<String>();
+        for (ObjectData od : objList.getObjects()) {
+            ids.add(od.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> getSortedIds(ObjectList objList) {
+        List<String> ids = getIds(objList);
+        Collections.sort(ids);
+        return ids;
+    }
+}
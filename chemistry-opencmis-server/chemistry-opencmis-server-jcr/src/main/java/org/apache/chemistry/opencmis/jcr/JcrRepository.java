@@ -62,6 +62,7 @@ import org.apache.chemistry.opencmis.jcr.type.JcrDocumentTypeHandler;
 import org.apache.chemistry.opencmis.jcr.type.JcrFolderTypeHandler;
 import org.apache.chemistry.opencmis.jcr.type.JcrTypeHandlerManager;
 import org.apache.chemistry.opencmis.jcr.util.Util;
+import org.apache.chemistry.opencmis.server.support.query.QueryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -96,6 +97,7 @@ public class JcrRepository {
     private final JcrTypeManager typeManager;
     private final PathManager pathManager;
     private final JcrTypeHandlerManager typeHandlerManager;
+    private QueryCache queryCache;
 
     /**
      * Create a new <code>JcrRepository</code> instance backed by a JCR repository.
@@ -112,6 +114,23 @@ public class JcrRepository {
         this.pathManager = pathManager;
     }
 
+    /**
+     * Set the cache for parsed CMIS query statements.
+     *
+     * @param queryCache  the cache or <code>null</code> to parse every statement
+     */
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * @return  the cache for parsed CMIS query statements or <code>null</code> if
+     *   there is none
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     /**
      * Logger into the underlying JCR repository.
      * 
@@ -857,7 +876,7 @@ public class JcrRepository {
             max = Integer.MAX_VALUE;
         }
 
-        QueryTranslator queryTranslator = new QueryTranslator(typeManager) {
+        QueryTranslator queryTranslator = new QueryTranslator(typeManager, queryCache) {
             @Override
             protected String jcrPathFromId(String id) {
                 try {
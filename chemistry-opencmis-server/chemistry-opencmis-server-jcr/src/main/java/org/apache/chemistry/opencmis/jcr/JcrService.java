@@ -55,20 +55,39 @@ import java.util.Map;
  */
 public class JcrService extends AbstractCmisService {
     private final JcrRepository jcrRepository;
+    private final JcrSessionPool sessionPool;
     private final Map<String, Session> sessions = new HashMap<String, Session>();
 
     private CallContext context;
 
     public JcrService(JcrRepository jcrRepository) {
+        this(jcrRepository, null);
+    }
+
+    /**
+     * Create a new <code>JcrService</code> which borrows its sessions from
+     * <code>sessionPool</code> and returns them on {@link #close()}.
+     *
+     * @param jcrRepository
+     * @param sessionPool  session pool or <code>null</code> to log in and out for each service instance
+     */
+    public JcrService(JcrRepository jcrRepository, JcrSessionPool sessionPool) {
         this.jcrRepository = jcrRepository;
+        this.sessionPool = sessionPool;
     }
 
     @Override
     public void close() {
         for (Session session : sessions.values()) {
-            session.logout();
+            if (sessionPool == null) {
+                session.logout();
+            }
+            else {
+                sessionPool.release(session);
+            }
         }
-        
+        sessions.clear();
+
         super.close();
     }
 
@@ -337,11 +356,17 @@ public class JcrService extends AbstractCmisService {
         if (session == null) {
             String userName = context.getUsername();
             String password = context.getPassword();
-            Credentials credentials = userName == null
-                ? null
-                : new SimpleCredentials(userName, password == null ? "".toCharArray() : password.toCharArray());
 
-            session = jcrRepository.login(credentials, workspaceName);
+            if (sessionPool == null) {
+                Credentials credentials = userName == null
+                    ? null
+                    : new SimpleCredentials(userName, password == null ? "".toCharArray() : password.toCharArray());
+
+                session = jcrRepository.login(credentials, workspaceName);
+            }
+            else {
+                session = sessionPool.borrow(userName, password, workspaceName);
+            }
             sessions.put(workspaceName, session);
         }
         return session;
@@ -29,6 +29,7 @@ import org.apache.chemistry.opencmis.jcr.impl.DefaultFolderTypeHandler;
 import org.apache.chemistry.opencmis.jcr.impl.DefaultUnversionedDocumentTypeHandler;
 import org.apache.chemistry.opencmis.jcr.type.JcrTypeHandlerManager;
 import org.apache.chemistry.opencmis.server.support.CmisServiceWrapper;
+import org.apache.chemistry.opencmis.server.support.query.QueryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,16 +53,29 @@ public class JcrServiceFactory extends AbstractServiceFactory {
 
     public static final String MOUNT_PATH_CONFIG = "mount-path";
     public static final String PREFIX_JCR_CONFIG = "jcr.";
+    public static final String SESSION_POOL_MAX_IDLE_PER_USER_CONFIG = "session-pool.max-idle-per-user";
+    public static final String SESSION_POOL_MAX_IDLE_CONFIG = "session-pool.max-idle";
+    public static final String SESSION_POOL_IDLE_TIMEOUT_CONFIG = "session-pool.idle-timeout";
+    public static final String QUERY_CACHE_MAX_SIZE_CONFIG = "query-cache.max-size";
 
     public static final BigInteger DEFAULT_MAX_ITEMS_TYPES = BigInteger.valueOf(50);
     public static final BigInteger DEFAULT_DEPTH_TYPES = BigInteger.valueOf(-1);
     public static final BigInteger DEFAULT_MAX_ITEMS_OBJECTS = BigInteger.valueOf(200);
     public static final BigInteger DEFAULT_DEPTH_OBJECTS = BigInteger.valueOf(10);
+    public static final int DEFAULT_SESSION_POOL_MAX_IDLE_PER_USER = 4;
+    public static final int DEFAULT_SESSION_POOL_MAX_IDLE = 100;
+    public static final long DEFAULT_SESSION_POOL_IDLE_TIMEOUT = 5 * 60 * 1000;
+    public static final int DEFAULT_QUERY_CACHE_MAX_SIZE = QueryCache.DEFAULT_MAX_SIZE;
 
     private JcrTypeManager typeManager;
     private Map<String, String> jcrConfig;
     private String mountPath;
     private JcrRepository jcrRepository;
+    private int sessionPoolMaxIdlePerUser = DEFAULT_SESSION_POOL_MAX_IDLE_PER_USER;
+    private int sessionPoolMaxIdle = DEFAULT_SESSION_POOL_MAX_IDLE;
+    private long sessionPoolIdleTimeout = DEFAULT_SESSION_POOL_IDLE_TIMEOUT;
+    private JcrSessionPool sessionPool;
+    private int queryCacheMaxSize = DEFAULT_QUERY_CACHE_MAX_SIZE;
 
     @Override
     public void init(Map<String, String> parameters) {
@@ -70,10 +84,24 @@ public class JcrServiceFactory extends AbstractServiceFactory {
         PathManager pathManger = new PathManager(mountPath);
         JcrTypeHandlerManager typeHandlerManager = createTypeHandlerManager(pathManger, typeManager);
         jcrRepository = new JcrRepository(acquireJcrRepository(jcrConfig), pathManger, typeManager, typeHandlerManager);
+
+        if (queryCacheMaxSize > 0) {
+            jcrRepository.setQueryCache(new QueryCache(queryCacheMaxSize));
+        }
+
+        if (sessionPoolMaxIdlePerUser > 0 && sessionPoolMaxIdle > 0) {
+            sessionPool = new JcrSessionPool(jcrRepository, sessionPoolMaxIdlePerUser, sessionPoolMaxIdle,
+                    sessionPoolIdleTimeout);
+        }
     }
 
     @Override
     public void destroy() {
+        if (sessionPool != null) {
+            log.debug("Closing session pool: " + sessionPool);
+            sessionPool.close();
+            sessionPool = null;
+        }
         jcrRepository = null;
         typeManager = null;
     }
@@ -133,7 +161,15 @@ public class JcrServiceFactory extends AbstractServiceFactory {
      * @return
      */
     protected JcrService createJcrService(JcrRepository jcrRepository, CallContext context) {
-        return new JcrService(jcrRepository);
+        return new JcrService(jcrRepository, sessionPool);
+    }
+
+    /**
+     * @return  the pool of JCR sessions shared by the <code>JcrService</code> instances or
+     *   <code>null</code> if session pooling is disabled
+     */
+    public JcrSessionPool getSessionPool() {
+        return sessionPool;
     }
 
     protected JcrTypeManager createTypeManager() {
@@ -167,6 +203,26 @@ public class JcrServiceFactory extends AbstractServiceFactory {
                 log.debug("Configuration: " + MOUNT_PATH_CONFIG + '=' + mountPath);
             }
 
+            else if (SESSION_POOL_MAX_IDLE_PER_USER_CONFIG.equals(key)) {
+                sessionPoolMaxIdlePerUser = Integer.parseInt(parameters.get(key).trim());
+                log.debug("Configuration: " + SESSION_POOL_MAX_IDLE_PER_USER_CONFIG + '=' + sessionPoolMaxIdlePerUser);
+            }
+
+            else if (SESSION_POOL_MAX_IDLE_CONFIG.equals(key)) {
+                sessionPoolMaxIdle = Integer.parseInt(parameters.get(key).trim());
+                log.debug("Configuration: " + SESSION_POOL_MAX_IDLE_CONFIG + '=' + sessionPoolMaxIdle);
+            }
+
+            else if (SESSION_POOL_IDLE_TIMEOUT_CONFIG.equals(key)) {
+                sessionPoolIdleTimeout = Long.parseLong(parameters.get(key).trim());
+                log.debug("Configuration: " + SESSION_POOL_IDLE_TIMEOUT_CONFIG + '=' + sessionPoolIdleTimeout);
+            }
+
+            else if (QUERY_CACHE_MAX_SIZE_CONFIG.equals(key)) {
+                queryCacheMaxSize = Integer.parseInt(parameters.get(key).trim());
+                log.debug("Configuration: " + QUERY_CACHE_MAX_SIZE_CONFIG + '=' + queryCacheMaxSize);
+            }
+
             else {
                 log.warn("Configuration: unrecognized key: " + key);
             }
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.jcr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Credentials;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Pool of JCR sessions that are reused across requests. Sessions are pooled
+ * per workspace and credentials, so a session is only ever handed out to a
+ * caller presenting the same user name and password that it was logged in
+ * with.
+ * <p>
+ * Sessions returned to the pool are refreshed, discarding pending changes, so
+ * the next borrower sees the current persistent state. Sessions that are
+ * no longer live are dropped. At most <code>maxIdlePerUser</code> idle
+ * sessions are kept per workspace and credentials and at most
+ * <code>maxIdle</code> idle sessions overall. Sessions that have been idle
+ * for longer than <code>idleTimeout</code> are logged out. The number of
+ * sessions in use is not limited.
+ */
+public class JcrSessionPool {
+    private static final Logger log = LoggerFactory.getLogger(JcrSessionPool.class);
+
+    private final JcrRepository jcrRepository;
+    private final int maxIdlePerUser;
+    private final int maxIdle;
+    private final long idleTimeout;
+
+    private final Map<Key, LinkedList<IdleSession>> idleSessions = new HashMap<Key, LinkedList<IdleSession>>();
+    private final Map<Session, Key> activeSessions = new IdentityHashMap<Session, Key>();
+    private final Timer evictionTimer;
+
+    private int idleCount;
+    private boolean closed;
+
+    private long logins;
+    private long borrows;
+    private long hits;
+    private long evictions;
+
+    /**
+     * Create a new session pool.
+     *
+     * @param jcrRepository  repository to log in to
+     * @param maxIdlePerUser  max. number of idle sessions per workspace and credentials
+     * @param maxIdle  max. number of idle sessions
+     * @param idleTimeout  time in milliseconds after which an idle session is logged out,
+     *   no timeout if less than 1
+     */
+    public JcrSessionPool(JcrRepository jcrRepository, int maxIdlePerUser, int maxIdle, long idleTimeout) {
+        this.jcrRepository = jcrRepository;
+        this.maxIdlePerUser = maxIdlePerUser;
+        this.maxIdle = maxIdle;
+        this.idleTimeout = idleTimeout;
+
+        if (idleTimeout > 0) {
+            long period = Math.max(1000, idleTimeout / 2);
+            evictionTimer = new Timer("JCR session pool eviction", true);
+            evictionTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    evictIdleSessions();
+                }
+            }, period, period);
+        }
+        else {
+            evictionTimer = null;
+        }
+    }
+
+    /**
+     * Borrow a session from the pool or log in if there is no idle session for the
+     * given credentials and workspace.
+     *
+     * @param userName  user name or <code>null</code> for anonymous access
+     * @param password  password
+     * @param workspaceName  workspace or <code>null</code> for the default workspace
+     * @return a live session
+     */
+    public Session borrow(String userName, String password, String workspaceName) {
+        Key key = new Key(userName, password, workspaceName);
+
+        synchronized (this) {
+            borrows++;
+
+            LinkedList<IdleSession> idle = idleSessions.get(key);
+            while (idle != null && !idle.isEmpty()) {
+                Session session = idle.removeFirst().session;
+                idleCount--;
+                if (session.isLive()) {
+                    hits++;
+                    activeSessions.put(session, key);
+                    return session;
+                }
+            }
+        }
+
+        Credentials credentials = userName == null
+            ? null
+            : new SimpleCredentials(userName, password == null ? "".toCharArray() : password.toCharArray());
+
+        Session session = jcrRepository.login(credentials, workspaceName);
+
+        synchronized (this) {
+            logins++;
+            activeSessions.put(session, key);
+        }
+
+        return session;
+    }
+
+    /**
+     * Return a session obtained from {@link #borrow(String, String, String)} to the pool.
+     * Pending changes are discarded. Sessions that don't fit into the pool are logged out.
+     *
+     * @param session  the session
+     */
+    public void release(Session session) {
+        Key key;
+        synchronized (this) {
+            key = activeSessions.remove(session);
+        }
+
+        if (key == null || !session.isLive()) {
+            logout(session);
+            return;
+        }
+
+        try {
+            session.refresh(false);
+        }
+        catch (RepositoryException e) {
+            log.debug("Could not refresh session: " + e.getMessage(), e);
+            logout(session);
+            return;
+        }
+
+        synchronized (this) {
+            if (!closed && idleCount < maxIdle) {
+                LinkedList<IdleSession> idle = idleSessions.get(key);
+                if (idle == null) {
+                    idle = new LinkedList<IdleSession>();
+                    idleSessions.put(key, idle);
+                }
+
+                if (idle.size() < maxIdlePerUser) {
+                    idle.addFirst(new IdleSession(session, System.currentTimeMillis()));
+                    idleCount++;
+                    return;
+                }
+            }
+        }
+
+        logout(session);
+    }
+
+    /**
+     * Log out all sessions that have been idle for longer than the idle timeout.
+     */
+    public void evictIdleSessions() {
+        if (idleTimeout <= 0) {
+            return;
+        }
+
+        LinkedList<Session> expired = new LinkedList<Session>();
+        long threshold = System.currentTimeMillis() - idleTimeout;
+
+        synchronized (this) {
+            for (Iterator<LinkedList<IdleSession>> lists = idleSessions.values().iterator(); lists.hasNext(); ) {
+                LinkedList<IdleSession> idle = lists.next();
+
+                // the least recently returned sessions are at the end
+                while (!idle.isEmpty() && idle.getLast().lastUsed < threshold) {
+                    expired.add(idle.removeLast().session);
+                    idleCount--;
+                    evictions++;
+                }
+
+                if (idle.isEmpty()) {
+                    lists.remove();
+                }
+            }
+        }
+
+        for (Session session : expired) {
+            logout(session);
+        }
+    }
+
+    /**
+     * Log out all idle sessions and stop pooling. Sessions that are still in use
+     * are logged out when they are released.
+     */
+    public void close() {
+        if (evictionTimer != null) {
+            evictionTimer.cancel();
+        }
+
+        LinkedList<Session> idle = new LinkedList<Session>();
+        synchronized (this) {
+            closed = true;
+            for (LinkedList<IdleSession> list : idleSessions.values()) {
+                for (IdleSession idleSession : list) {
+                    idle.add(idleSession.session);
+                }
+            }
+            idleSessions.clear();
+            idleCount = 0;
+        }
+
+        for (Session session : idle) {
+            logout(session);
+        }
+    }
+
+    /**
+     * @return number of sessions created by logging in to the repository
+     */
+    public synchronized long getLoginCount() {
+        return logins;
+    }
+
+    /**
+     * @return number of calls to {@link #borrow(String, String, String)}
+     */
+    public synchronized long getBorrowCount() {
+        return borrows;
+    }
+
+    /**
+     * @return number of borrowed sessions that were served from the pool
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return number of idle sessions logged out because of the idle timeout
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return number of sessions currently in the pool
+     */
+    public synchronized int getIdleCount() {
+        return idleCount;
+    }
+
+    /**
+     * @return number of sessions currently borrowed
+     */
+    public synchronized int getActiveCount() {
+        return activeSessions.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "JcrSessionPool[logins=" + logins + ", borrows=" + borrows + ", hits=" + hits + ", evictions="
+                + evictions + ", idle=" + idleCount + ", active=" + activeSessions.size() + ']';
+    }
+
+    //------------------------------------------< private >---
+
+    private static void logout(Session session) {
+        try {
+            session.logout();
+        }
+        catch (RuntimeException e) {
+            log.debug("Could not log out session: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class IdleSession {
+        final Session session;
+        final long lastUsed;
+
+        IdleSession(Session session, long lastUsed) {
+            this.session = session;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static final class Key {
+        private final String userName;
+        private final String password;
+        private final String workspaceName;
+
+        Key(String userName, String password, String workspaceName) {
+            this.userName = userName;
+            this.password = password;
+            this.workspaceName = workspaceName;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return equal(userName, other.userName) && equal(password, other.password)
+                    && equal(workspaceName, other.workspaceName);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = userName == null ? 0 : userName.hashCode();
+            hash = 31 * hash + (password == null ? 0 : password.hashCode());
+            return 31 * hash + (workspaceName == null ? 0 : workspaceName.hashCode());
+        }
+
+        private static boolean equal(String s1, String s2) {
+            return s1 == null ? s2 == null : s1.equals(s2);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.chemistry.opencmis.commons.definitions.TypeDefinition;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.jcr.JcrTypeManager;
 import org.apache.chemistry.opencmis.server.support.query.CmisQueryWalker;
+import org.apache.chemistry.opencmis.server.support.query.QueryCache;
 import org.apache.chemistry.opencmis.server.support.query.QueryObject;
 import org.apache.chemistry.opencmis.server.support.query.QueryObject.SortSpec;
 import org.apache.chemistry.opencmis.server.support.query.QueryUtil;
@@ -40,6 +41,7 @@ import java.util.List;
 public abstract class QueryTranslator {
     private final JcrTypeManager typeManager;
     private final EvaluatorXPath evaluator;
+    private final QueryCache queryCache;
     private QueryObject queryObject;
 
     /**
@@ -49,7 +51,20 @@ public abstract class QueryTranslator {
      * @param typeManager
      */
     protected QueryTranslator(JcrTypeManager typeManager) {
+        this(typeManager, null);
+    }
+
+    /**
+     * Create a new query translator which uses the provided <code>typeManager</code>
+     * to resolve CMIS type names to CMIS types and looks up parsed statements in
+     * <code>queryCache</code>.
+     *
+     * @param typeManager
+     * @param queryCache  cache of parsed statements or <code>null</code>
+     */
+    protected QueryTranslator(JcrTypeManager typeManager, QueryCache queryCache) {
         this.typeManager = typeManager;
+        this.queryCache = queryCache;
         evaluator = new EvaluatorXPath() {
 
             @Override
@@ -79,7 +94,7 @@ public abstract class QueryTranslator {
      * @return
      */
     public String translateToXPath(String statement) {
-        QueryUtil queryUtil = new QueryUtil();
+        QueryUtil queryUtil = new QueryUtil(queryCache);
         queryObject = new QueryObject(typeManager);
         ParseTreeWalker<XPathBuilder> parseTreeWalker = new ParseTreeWalker<XPathBuilder>(evaluator);
         CmisQueryWalker walker = queryUtil.traverseStatementAndCatchExc(statement, queryObject, parseTreeWalker);
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.jcr;
+
+import org.apache.chemistry.opencmis.commons.server.CallContext;
+import org.apache.chemistry.opencmis.jcr.type.JcrTypeHandlerManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.jcr.Credentials;
+import javax.jcr.Repository;
+import javax.jcr.Session;
+import javax.jcr.SimpleCredentials;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class JcrSessionPoolTest {
+    private static final Logger log = LoggerFactory.getLogger(JcrSessionPoolTest.class);
+    private static final long LOGIN_COST_MILLIS = 2;
+
+    private StubRepository stubRepository;
+    private JcrRepository jcrRepository;
+    private JcrSessionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        stubRepository = new StubRepository();
+        JcrTypeManager typeManager = new JcrTypeManager();
+        PathManager pathManager = new PathManager(PathManager.CMIS_ROOT_PATH);
+        JcrTypeHandlerManager typeHandlerManager = new JcrTypeHandlerManager(pathManager, typeManager);
+        jcrRepository = new JcrRepository(stubRepository.newProxy(), pathManager, typeManager, typeHandlerManager);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testReuse() {
+        pool = new JcrSessionPool(jcrRepository, 2, 10, 0);
+
+        Session session = pool.borrow("user", "secret", "default");
+        assertEquals(1, pool.getActiveCount());
+        pool.release(session);
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(1, stubRepository.refreshCount.get());
+
+        assertSame(session, pool.borrow("user", "secret", "default"));
+        assertEquals(1, pool.getLoginCount());
+        assertEquals(2, pool.getBorrowCount());
+        assertEquals(1, pool.getHitCount());
+    }
+
+    @Test
+    public void testSeparationByCredentials() {
+        pool = new JcrSessionPool(jcrRepository, 2, 10, 0);
+
+        Session session = pool.borrow("user", "secret", "default");
+        pool.release(session);
+
+        assertNotSame(session, pool.borrow("other", "secret", "default"));
+        assertNotSame(session, pool.borrow("user", "wrong", "default"));
+        assertNotSame(session, pool.borrow("user", "secret", "other"));
+        assertNotSame(session, pool.borrow(null, null, "default"));
+        assertEquals(5, pool.getLoginCount());
+        assertEquals(0, pool.getHitCount());
+    }
+
+    @Test
+    public void testBounds() {
+        pool = new JcrSessionPool(jcrRepository, 2, 3, 0);
+
+        Session[] sessions = new Session[4];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = pool.borrow("user", "secret", null);
+        }
+        Session other = pool.borrow("other", "secret", null);
+        Session third = pool.borrow("third", "secret", null);
+
+        // per user bound
+        for (Session session : sessions) {
+            pool.release(session);
+        }
+        assertEquals(2, pool.getIdleCount());
+        assertTrue(sessions[0].isLive() && sessions[1].isLive());
+        assertFalse(sessions[2].isLive() || sessions[3].isLive());
+
+        // overall bound
+        pool.release(other);
+        pool.release(third);
+        assertEquals(3, pool.getIdleCount());
+        assertTrue(other.isLive());
+        assertFalse(third.isLive());
+
+        pool.close();
+        assertEquals(0, pool.getIdleCount());
+        assertFalse(sessions[0].isLive() || sessions[1].isLive() || other.isLive());
+    }
+
+    @Test
+    public void testDeadSessionsAreDropped() {
+        pool = new JcrSessionPool(jcrRepository, 2, 10, 0);
+
+        Session session = pool.borrow("user", "secret", null);
+        session.logout();
+        pool.release(session);
+        assertEquals(0, pool.getIdleCount());
+
+        session = pool.borrow("user", "secret", null);
+        pool.release(session);
+        session.logout();
+        assertNotSame(session, pool.borrow("user", "secret", null));
+        assertEquals(0, pool.getHitCount());
+    }
+
+    @Test
+    public void testEviction() throws InterruptedException {
+        pool = new JcrSessionPool(jcrRepository, 2, 10, 50);
+
+        Session session = pool.borrow("user", "secret", null);
+        pool.release(session);
+        pool.evictIdleSessions();
+        assertEquals(1, pool.getIdleCount());
+
+        Thread.sleep(100);
+        pool.evictIdleSessions();
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(1, pool.getEvictionCount());
+        assertFalse(session.isLive());
+    }
+
+    @Test
+    public void testJcrService() {
+        pool = new JcrSessionPool(jcrRepository, 2, 10, 0);
+
+        for (int i = 0; i < 3; i++) {
+            JcrService service = new JcrService(jcrRepository, pool);
+            service.setCallContext(new StubCallContext("user", "secret"));
+            Session session = service.login("default");
+            assertSame(session, service.login("default"));
+            service.close();
+            assertTrue(session.isLive());
+        }
+
+        assertEquals(1, pool.getLoginCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        int requests = 200;
+        final int threads = 4;
+
+        long unpooled = runRequests(null, requests, threads);
+        pool = new JcrSessionPool(jcrRepository, threads, 100, 0);
+        long pooled = runRequests(pool, requests, threads);
+
+        log.debug("JCR sessions: " + requests * threads + " requests with " + threads + " threads, "
+                + LOGIN_COST_MILLIS + " ms per login: unpooled " + unpooled + " ms, pooled " + pooled + " ms, " + pool);
+
+        // every request borrows a session, at most one login per concurrent thread
+        assertEquals(requests * threads, pool.getBorrowCount());
+        assertTrue(pool.getLoginCount() >= 1);
+        assertTrue(pool.getLoginCount() <= threads);
+        assertEquals(pool.getBorrowCount() - pool.getLoginCount(), pool.getHitCount());
+
+        // all sessions are back in the pool and still usable
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(pool.getLoginCount(), pool.getIdleCount());
+        assertEquals(0, pool.getEvictionCount());
+    }
+
+    //------------------------------------------< private >---
+
+    private long runRequests(final JcrSessionPool sessionPool, final int requests, int threads)
+            throws InterruptedException {
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < requests; i++) {
+                        JcrService service = new JcrService(jcrRepository, sessionPool);
+                        service.setCallContext(new StubCallContext("user", "secret"));
+                        service.login(null);
+                        service.close();
+                    }
+                }
+            };
+        }
+
+        long start = System.currentTimeMillis();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Repository whose sessions only track whether they are live. Logging in takes
+     * {@link JcrSessionPoolTest#LOGIN_COST_MILLIS} to simulate authentication.
+     */
+    private static class StubRepository implements InvocationHandler {
+        final AtomicInteger refreshCount = new AtomicInteger();
+
+        Repository newProxy() {
+            return (Repository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { Repository.class }, this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("login".equals(method.getName())) {
+                Thread.sleep(LOGIN_COST_MILLIS);
+                String userId = null;
+                if (args != null && args.length > 0 && args[0] instanceof SimpleCredentials) {
+                    userId = ((SimpleCredentials) args[0]).getUserID();
+                }
+                else if (args != null && args.length > 0 && args[0] instanceof Credentials) {
+                    throw new IllegalArgumentException();
+                }
+                return newSession(userId);
+            }
+            return defaultValue(method);
+        }
+
+        private Session newSession(final String userId) {
+            return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Session.class },
+                    new InvocationHandler() {
+                        private boolean live = true;
+
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            String name = method.getName();
+                            if ("isLive".equals(name)) {
+                                return live;
+                            }
+                            else if ("logout".equals(name)) {
+                                live = false;
+                                return null;
+                            }
+                            else if ("refresh".equals(name)) {
+                                refreshCount.incrementAndGet();
+                                return null;
+                            }
+                            else if ("getUserID".equals(name)) {
+                                return userId;
+                            }
+                            else if ("equals".equals(name)) {
+                                return proxy == args[0];
+                            }
+                            else if ("hashCode".equals(name)) {
+                                return System.identityHashCode(proxy);
+                            }
+                            return defaultValue(method);
+                        }
+                    });
+        }
+
+        private static Object defaultValue(Method method) {
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) {
+                return false;
+            }
+            else if (type == int.class) {
+                return 0;
+            }
+            else if (type == long.class) {
+                return 0L;
+            }
+            return null;
+        }
+    }
+
+    private static class StubCallContext implements CallContext {
+        private final Map<String, Object> values = new HashMap<String, Object>();
+
+        StubCallContext(String userName, String password) {
+            values.put(USERNAME, userName);
+            values.put(PASSWORD, password);
+        }
+
+        public String getBinding() {
+            return BINDING_ATOMPUB;
+        }
+
+        public boolean isObjectInfoRequired() {
+            return false;
+        }
+
+        public Object get(String key) {
+            return values.get(key);
+        }
+
+        public String getRepositoryId() {
+            return null;
+        }
+
+        public String getUsername() {
+            return (String) values.get(USERNAME);
+        }
+
+        public String getPassword() {
+            return (String) values.get(PASSWORD);
+        }
+
+        public String getLocale() {
+            return null;
+        }
+
+        public BigInteger getOffset() {
+            return null;
+        }
+
+        public BigInteger getLength() {
+            return null;
+        }
+    }
+}
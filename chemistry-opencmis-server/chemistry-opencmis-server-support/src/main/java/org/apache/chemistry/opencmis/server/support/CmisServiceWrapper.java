@@ -51,6 +51,8 @@ import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisRuntimeException;
 import org.apache.chemistry.opencmis.commons.server.CmisService;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidator;
+import org.apache.chemistry.opencmis.commons.server.ContentStreamValidatorHandler;
 import org.apache.chemistry.opencmis.commons.server.ObjectInfo;
 import org.apache.chemistry.opencmis.commons.spi.Holder;
 import org.slf4j.Logger;
@@ -59,7 +61,7 @@ import org.slf4j.LoggerFactory;
 /**
  * Service wrapper.
  */
-public class CmisServiceWrapper<T extends CmisService> implements CmisService {
+public class CmisServiceWrapper<T extends CmisService> implements CmisService, ContentStreamValidatorHandler {
 
     public static final BigInteger MINUS_ONE = BigInteger.valueOf(-1);
 
@@ -465,6 +467,14 @@ public class CmisServiceWrapper<T extends CmisService> implements CmisService {
         return service.getObjectInfo(repositoryId, objectId);
     }
 
+    public ContentStreamValidator getContentStreamValidator(String repositoryId, String objectId, String streamId) {
+        if (service instanceof ContentStreamValidatorHandler) {
+            return ((ContentStreamValidatorHandler) service).getContentStreamValidator(repositoryId, objectId,
+                    streamId);
+        }
+        return null;
+    }
+
     public void close() {
         service.close();
     }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+import org.antlr.runtime.tree.CommonTree;
+import org.antlr.runtime.tree.CommonTreeNodeStream;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.apache.chemistry.opencmis.server.support.query.CmisQlStrictParser_CmisBaseGrammar.query_return;
+
+/**
+ * The result of lexing and parsing a CMIS query statement: the parser tree and
+ * the token stream it refers to.
+ * <p>
+ * A parsed query is never modified after it has been created. The
+ * {@link CmisQueryWalker} only reads the parser tree and builds its own output
+ * tree, so the same parsed query can be walked any number of times and by
+ * several threads at once. This is what makes it possible to keep parsed
+ * queries in a {@link QueryCache}.
+ */
+public class ParsedQuery {
+
+    private final String statement;
+    private final CommonTree parserTree;
+    private final CommonTokenStream tokens;
+    private final int[] parameterTokens;
+
+    private ParsedQuery(String statement, CommonTree parserTree, CommonTokenStream tokens, int[] parameterTokens) {
+        this.statement = statement;
+        this.parserTree = parserTree;
+        this.tokens = tokens;
+        this.parameterTokens = parameterTokens;
+    }
+
+    /**
+     * Lexes and parses a statement.
+     * 
+     * @param statement
+     *            CMIS query statement
+     * @return the parsed query
+     * @throws RecognitionException
+     *             if the statement is not a valid CMIS query
+     */
+    public static ParsedQuery parse(String statement) throws RecognitionException {
+        CharStream input = new ANTLRStringStream(statement);
+        TokenSource lexer = new CmisQlStrictLexer(input);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        CmisQlStrictParser parser = new CmisQlStrictParser(tokens);
+
+        query_return parsedStatement = parser.query();
+        if (parser.hasErrors()) {
+            throw new CmisInvalidArgumentException(parser.getErrorMessages());
+        }
+
+        return new ParsedQuery(statement, (CommonTree) parsedStatement.getTree(), tokens, null);
+    }
+
+    /**
+     * @return the statement this query was parsed from
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return the tree built by the parser, must not be modified
+     */
+    public CommonTree getParserTree() {
+        return parserTree;
+    }
+
+    /**
+     * @return the token stream of the statement, must not be modified
+     */
+    public CommonTokenStream getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Creates a new walker for this query.
+     * 
+     * @return a walker that has not been used yet
+     */
+    public CmisQueryWalker createWalker() {
+        CommonTreeNodeStream nodes = new CommonTreeNodeStream(parserTree);
+        nodes.setTokenStream(tokens);
+        return new CmisQueryWalker(nodes);
+    }
+
+    /**
+     * Marks the literals of this query that are the parameters of a
+     * {@link PreparedQuery}.
+     * 
+     * @param parameterOffsets
+     *            the positions of the parameters in the statement
+     * @return a copy of this query that knows its parameters, or
+     *         <code>null</code> if a parameter is not a literal
+     */
+    ParsedQuery withParameters(int[] parameterOffsets) {
+        int[] parameterTokenIndexes = new int[parameterOffsets.length];
+        for (int i = 0; i < parameterOffsets.length; i++) {
+            parameterTokenIndexes[i] = getLiteralTokenIndex(parameterOffsets[i]);
+            if (parameterTokenIndexes[i] < 0) {
+                return null;
+            }
+        }
+
+        return new ParsedQuery(statement, parserTree, tokens, parameterTokenIndexes);
+    }
+
+    /**
+     * Creates a copy of this query with other parameter values. The structure
+     * of the tree and the token indexes stay the same, so everything a walker
+     * records about the query (column references, type references, sort
+     * specifications) is the same as for this query.
+     * 
+     * @param boundStatement
+     *            the statement with the new parameter values
+     * @param parameterValues
+     *            the new literals, each one must be of the same kind as the
+     *            literal it replaces
+     * @return the copy
+     */
+    ParsedQuery bind(String boundStatement, String[] parameterValues) {
+        Map<Integer, String> literals = new HashMap<Integer, String>();
+        for (int i = 0; i < parameterTokens.length; i++) {
+            literals.put(parameterTokens[i], parameterValues[i]);
+        }
+
+        return new ParsedQuery(boundStatement, copyTree(parserTree, literals), tokens, parameterTokens);
+    }
+
+    private int getLiteralTokenIndex(int charIndex) {
+        for (Object o : tokens.getTokens()) {
+            CommonToken token = (CommonToken) o;
+            if (token.getStartIndex() == charIndex) {
+                return isLiteral(token.getType()) ? token.getTokenIndex() : -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static CommonTree copyTree(CommonTree node, Map<Integer, String> literals) {
+        CommonTree copy;
+        Token token = node.getToken();
+        String text = (token == null ? null : literals.get(token.getTokenIndex()));
+        if (text == null) {
+            copy = new CommonTree(node);
+        } else {
+            CommonToken newToken = new CommonToken(token.getType(), text);
+            newToken.setTokenIndex(token.getTokenIndex());
+            newToken.setLine(token.getLine());
+            newToken.setCharPositionInLine(token.getCharPositionInLine());
+            newToken.setChannel(token.getChannel());
+            copy = new CommonTree(newToken);
+            copy.setTokenStartIndex(node.getTokenStartIndex());
+            copy.setTokenStopIndex(node.getTokenStopIndex());
+        }
+
+        for (int i = 0; i < node.getChildCount(); i++) {
+            copy.addChild(copyTree((CommonTree) node.getChild(i), literals));
+        }
+
+        return copy;
+    }
+
+    private static boolean isLiteral(int tokenType) {
+        return tokenType == CmisQlStrictLexer.STRING_LIT || tokenType == CmisQlStrictLexer.NUM_LIT
+                || tokenType == CmisQlStrictLexer.BOOL_LIT || tokenType == CmisQlStrictLexer.TIME_LIT;
+    }
+
+    @Override
+    public String toString() {
+        return statement;
+    }
+}
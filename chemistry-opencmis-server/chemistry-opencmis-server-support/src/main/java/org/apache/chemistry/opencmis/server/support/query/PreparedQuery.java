@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.antlr.runtime.RecognitionException;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+
+/**
+ * A CMIS query statement with parameters.
+ * <p>
+ * Parameters are marked with a question mark outside of string literals and
+ * stand for a single literal: a string, a number, a boolean or a timestamp.
+ * Type names, property names and lists can't be parameters. For example:
+ * 
+ * <pre>
+ * PreparedQuery query = new PreparedQuery(cache, &quot;SELECT * FROM cmis:document WHERE cmis:name = ? AND size &gt; ?&quot;);
+ * query.setString(1, &quot;report.pdf&quot;);
+ * query.setNumber(2, 1000);
+ * CmisQueryWalker walker = new QueryUtil().traverseStatement(query, queryObj, null);
+ * </pre>
+ * 
+ * The statement is parsed once for each combination of parameter kinds and
+ * the parser tree is kept in the {@link QueryCache}. Binding other values
+ * copies the cached tree and replaces the literals, the statement is not
+ * parsed again. Instances of this class are not thread-safe, but any number
+ * of instances can share a cache.
+ */
+public class PreparedQuery {
+
+    private static final char KIND_STRING = 'S';
+    private static final char KIND_NUMBER = 'N';
+    private static final char KIND_BOOLEAN = 'B';
+    private static final char KIND_DATETIME = 'T';
+
+    private final QueryCache cache;
+    private final String statement;
+    private final List<String> fragments;
+    private final String[] values;
+    private final char[] kinds;
+
+    /**
+     * Creates a prepared query.
+     * 
+     * @param cache
+     *            cache for the parsed statement
+     * @param statement
+     *            CMIS query statement with parameters
+     */
+    public PreparedQuery(QueryCache cache, String statement) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache must be set!");
+        }
+
+        if (statement == null) {
+            throw new IllegalArgumentException("Statement must be set!");
+        }
+
+        this.cache = cache;
+        this.statement = QueryCache.normalize(statement);
+
+        fragments = new ArrayList<String>();
+        boolean inStr = false;
+        int start = 0;
+        for (int i = 0; i < this.statement.length(); i++) {
+            char c = this.statement.charAt(i);
+
+            if (inStr) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '\'') {
+                    inStr = false;
+                }
+            } else if (c == '\'') {
+                inStr = true;
+            } else if (c == '?') {
+                fragments.add(this.statement.substring(start, i));
+                start = i + 1;
+            }
+        }
+        fragments.add(this.statement.substring(start));
+
+        values = new String[fragments.size() - 1];
+        kinds = new char[values.length];
+    }
+
+    /**
+     * @return the statement with the parameter markers
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    /**
+     * @return the number of parameters
+     */
+    public int getParameterCount() {
+        return values.length;
+    }
+
+    /**
+     * Sets a string parameter. Quotes and backslashes are escaped.
+     * 
+     * @param parameterIndex
+     *            index of the parameter, starting at 1
+     * @param str
+     *            the value
+     */
+    public void setString(int parameterIndex, String str) {
+        if (str == null) {
+            throw new IllegalArgumentException("String must be set!");
+        }
+
+        set(parameterIndex, KIND_STRING, escape(str, false));
+    }
+
+    /**
+     * Sets a string parameter that is used in a LIKE predicate. Quotes and
+     * backslashes are escaped, but backslashes in front of '%' and '_' are
+     * preserved.
+     * 
+     * @param parameterIndex
+     *            index of the parameter, starting at 1
+     * @param str
+     *            the value
+     */
+    public void setStringLike(int parameterIndex, String str) {
+        if (str == null) {
+            throw new IllegalArgumentException("String must be set!");
+        }
+
+        set(parameterIndex, KIND_STRING, escape(str, true));
+    }
+
+    /**
+     * Sets an object id parameter.
+     * 
+     * @param parameterIndex
+     *            index of the parameter, starting at 1
+     * @param id
+     *            the object id
+     */
+    public void setId(int parameterIndex, String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must be set!");
+        }
+
+        set(parameterIndex, KIND_STRING, escape(id, false));
+    }
+
+    /**
+     * Sets a number parameter.
+     * 
+     * @param parameterIndex
+     *            index of the parameter, starting at 1
+     * @param num
+     *            the value
+     */
+    public void setNumber(int parameterIndex, Number num) {
+        if (num == null) {
+            throw new IllegalArgumentException("Number must be set!");
+        }
+
+        set(parameterIndex, KIND_NUMBER, num.toString());
+    }
+
+    /**
+     * Sets a boolean parameter.
+     * 
+     * @param parameterIndex
+     *            index of the parameter, starting at 1
+     * @param bool
+     *            the value
+     */
+    public void setBoolean(int parameterIndex, boolean bool) {
+        set(parameterIndex, KIND_BOOLEAN, bool ? "TRUE" : "FALSE");
+    }
+
+    /**
+     * Sets a timestamp parameter.
+     * 
+     * @param parameterIndex
+     *            index of the parameter, starting at 1
+     * @param cal
+     *            the value
+     */
+    public void setDateTime(int parameterIndex, Calendar cal) {
+        if (cal == null) {
+            throw new IllegalArgumentException("DateTime must be set!");
+        }
+
+        set(parameterIndex, KIND_DATETIME, "TIMESTAMP '" + CalendarHelper.toString(cal) + "'");
+    }
+
+    /**
+     * Removes the values of all parameters.
+     */
+    public void clearParameters() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = null;
+            kinds[i] = 0;
+        }
+    }
+
+    /**
+     * @return the statement with the current parameter values
+     */
+    public String toQueryString() {
+        StringBuilder sb = new StringBuilder(fragments.get(0));
+        for (int i = 0; i < values.length; i++) {
+            sb.append(values[i] == null ? "?" : values[i]);
+            sb.append(fragments.get(i + 1));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the parsed statement with the current parameter values. The
+     * statement is only parsed if the cache doesn't hold a parsed statement
+     * for the current kinds of parameters.
+     * 
+     * @return the parsed statement
+     * @throws RecognitionException
+     *             if the statement is not a valid CMIS query
+     */
+    public ParsedQuery getParsedQuery() throws RecognitionException {
+        StringBuilder key = new StringBuilder(statement);
+        key.append('\n');
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new CmisInvalidArgumentException("Parameter " + (i + 1) + " is not set!");
+            }
+            key.append(kinds[i]);
+        }
+
+        int[] offsets = new int[values.length];
+        StringBuilder sb = new StringBuilder(fragments.get(0));
+        for (int i = 0; i < values.length; i++) {
+            offsets[i] = sb.length();
+            sb.append(values[i]);
+            sb.append(fragments.get(i + 1));
+        }
+        String boundStatement = sb.toString();
+
+        ParsedQuery plan = cache.get(key.toString());
+        if (plan != null) {
+            return plan.bind(boundStatement, values);
+        }
+
+        plan = ParsedQuery.parse(boundStatement).withParameters(offsets);
+        if (plan == null) {
+            throw new CmisInvalidArgumentException("Parameters can only be used in place of literals: " + statement);
+        }
+        cache.put(key.toString(), plan);
+
+        return plan;
+    }
+
+    @Override
+    public String toString() {
+        return toQueryString();
+    }
+
+    // --- internal ---
+
+    private void set(int parameterIndex, char kind, String value) {
+        if (parameterIndex < 1 || parameterIndex > values.length) {
+            throw new IllegalArgumentException("Invalid parameter index: " + parameterIndex);
+        }
+
+        values[parameterIndex - 1] = value;
+        kinds[parameterIndex - 1] = kind;
+    }
+
+    private static String escape(String str, boolean like) {
+        StringBuilder sb = new StringBuilder("'");
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+
+            if (c == '\'') {
+                sb.append('\\');
+            } else if (c == '\\') {
+                if (!like || i + 1 >= str.length() || (str.charAt(i + 1) != '%' && str.charAt(i + 1) != '_')) {
+                    sb.append('\\');
+                }
+            }
+
+            sb.append(c);
+        }
+
+        sb.append("'");
+
+        return sb.toString();
+    }
+}
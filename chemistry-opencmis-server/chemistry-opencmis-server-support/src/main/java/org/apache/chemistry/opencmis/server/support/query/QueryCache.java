@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.antlr.runtime.RecognitionException;
+
+/**
+ * Bounded cache of parsed CMIS query statements.
+ * <p>
+ * Lexing and parsing is the most expensive part of processing a query. Many
+ * applications send the same statements over and over again, so the cache
+ * keeps the parser trees of the most recently used statements and only the
+ * walker has to run for a statement that has been seen before. The walker
+ * resolves the types and properties against the current type system on every
+ * run, so the cache never has to be invalidated when types are added or
+ * removed.
+ * <p>
+ * Statements are looked up by their normalized form (see
+ * {@link #normalize(String)}). Statements that cannot be parsed are not
+ * cached. The cache is thread-safe; if the same statement is requested by
+ * several threads at the same time it might be parsed more than once.
+ */
+public class QueryCache {
+
+    public static final int DEFAULT_MAX_SIZE = 500;
+
+    private final int maxSize;
+    private final Map<String, ParsedQuery> cache;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache holding up to {@link #DEFAULT_MAX_SIZE} statements.
+     */
+    public QueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a cache.
+     * 
+     * @param maxSize
+     *            maximum number of parsed statements held by the cache, the
+     *            least recently used statement is dropped if the cache is full
+     */
+    public QueryCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Max size must be positive!");
+        }
+
+        this.maxSize = maxSize;
+        cache = new LinkedHashMap<String, ParsedQuery>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedQuery> eldest) {
+                if (size() > QueryCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed form of a statement, parses the statement if it is
+     * not in the cache.
+     * 
+     * @param statement
+     *            CMIS query statement
+     * @return the parsed statement
+     * @throws RecognitionException
+     *             if the statement is not a valid CMIS query
+     */
+    public ParsedQuery getParsedQuery(String statement) throws RecognitionException {
+        return getParsedQuery(normalize(statement), statement);
+    }
+
+    /**
+     * Returns the parsed query stored under a key, parses the statement if
+     * there is none.
+     */
+    ParsedQuery getParsedQuery(String key, String statement) throws RecognitionException {
+        ParsedQuery query = get(key);
+        if (query == null) {
+            query = ParsedQuery.parse(statement);
+            put(key, query);
+        }
+
+        return query;
+    }
+
+    /**
+     * Returns the parsed query stored under a key and counts the hit or miss.
+     */
+    synchronized ParsedQuery get(String key) {
+        ParsedQuery query = cache.get(key);
+        if (query == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return query;
+    }
+
+    /**
+     * Stores a parsed query under a key.
+     */
+    synchronized void put(String key, ParsedQuery query) {
+        cache.put(key, query);
+    }
+
+    /**
+     * Removes all statements from the cache. The statistics are not reset.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return the maximum number of statements held by the cache
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of statements currently held by the cache
+     */
+    public synchronized int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * @return the number of lookups that found a parsed statement
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that had to parse the statement
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * @return the number of statements that have been dropped because the
+     *         cache was full
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * @return the ratio of hits to lookups or 0 if there have been no lookups
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    /**
+     * Normalizes a statement for cache lookups: leading and trailing white
+     * space is removed and all other white space outside of string literals
+     * is collapsed to a single blank. Statements that only differ in white
+     * space are parsed to the same tree and share one cache entry.
+     * 
+     * @param statement
+     *            CMIS query statement
+     * @return the normalized statement
+     */
+    public static String normalize(String statement) {
+        String trimmed = statement.trim();
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        boolean inStr = false;
+        boolean inWhitespace = false;
+
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+
+            if (inStr) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < trimmed.length()) {
+                    // escaped character
+                    sb.append(trimmed.charAt(++i));
+                } else if (c == '\'') {
+                    inStr = false;
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (!inWhitespace) {
+                    sb.append(' ');
+                    inWhitespace = true;
+                }
+            } else {
+                sb.append(c);
+                inWhitespace = false;
+                if (c == '\'') {
+                    inStr = true;
+                }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryCache [size=" + cache.size() + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+}
@@ -21,18 +21,10 @@ package org.apache.chemistry.opencmis.server.support.query;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 
-import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.BaseRecognizer;
-import org.antlr.runtime.CharStream;
-import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
-import org.antlr.runtime.TokenSource;
-import org.antlr.runtime.TokenStream;
-import org.antlr.runtime.tree.CommonTree;
-import org.antlr.runtime.tree.CommonTreeNodeStream;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisBaseException;
 import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
-import org.apache.chemistry.opencmis.server.support.query.CmisQlStrictParser_CmisBaseGrammar.query_return;
 
 /**
  * Utility class providing convenience methods for parsing CMIS queries. 
@@ -40,36 +32,47 @@ import org.apache.chemistry.opencmis.server.support.query.CmisQlStrictParser_Cmi
  */
 public class QueryUtil {
 
+    private final QueryCache queryCache;
     private CmisQueryWalker walker;
 
+    public QueryUtil() {
+        this(null);
+    }
+
+    /**
+     * @param queryCache
+     *            cache used to look up parsed statements, may be
+     *            <code>null</code> to parse every statement
+     */
+    public QueryUtil(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
     // convenience method because everybody needs this piece of code
     public static CmisQueryWalker getWalker(String statement) throws RecognitionException {
-        
-        CharStream input = new ANTLRStringStream(statement);
-        TokenSource lexer = new CmisQlStrictLexer(input);
-        TokenStream tokens = new CommonTokenStream(lexer);
-        CmisQlStrictParser parser = new CmisQlStrictParser(tokens);
-        CommonTree parserTree; // the ANTLR tree after parsing phase
+        return ParsedQuery.parse(statement).createWalker();
+    }
 
-        query_return parsedStatement = parser.query();
-        if (parser.hasErrors()) {
-            throw new CmisInvalidArgumentException(parser.getErrorMessages());
+    public static CmisQueryWalker getWalker(String statement, QueryCache queryCache) throws RecognitionException {
+        if (queryCache == null) {
+            return getWalker(statement);
         }
-        parserTree = (CommonTree) parsedStatement.getTree();
-
-        CommonTreeNodeStream nodes = new CommonTreeNodeStream(parserTree);
-        nodes.setTokenStream(tokens);
-        CmisQueryWalker walker = new CmisQueryWalker(nodes);
-        return walker;
+        return queryCache.getParsedQuery(statement).createWalker();
     }
 
     public CmisQueryWalker traverseStatement(String statement, QueryObject queryObj, PredicateWalkerBase pw) throws UnsupportedEncodingException, IOException, RecognitionException {
-        walker = getWalker(statement);
+        walker = getWalker(statement, queryCache);
         walker.query(queryObj, pw);
         walker.getWherePredicateTree();
         return walker;        
     }
-    
+
+    public CmisQueryWalker traverseStatement(PreparedQuery query, QueryObject queryObj, PredicateWalkerBase pw) throws RecognitionException {
+        walker = query.getParsedQuery().createWalker();
+        walker.query(queryObj, pw);
+        return walker;
+    }
+
     public CmisQueryWalker traverseStatementAndCatchExc(String statement, QueryObject queryObj, PredicateWalkerBase pw) {
         try {
             return traverseStatement(statement, queryObj, pw);
@@ -83,6 +86,19 @@ public class QueryUtil {
         }
     }
 
+    public CmisQueryWalker traverseStatementAndCatchExc(PreparedQuery query, QueryObject queryObj, PredicateWalkerBase pw) {
+        try {
+            return traverseStatement(query, queryObj, pw);
+        } catch (RecognitionException e) {
+            String errorMsg = queryObj.getErrorMessage();
+            throw new CmisInvalidArgumentException("Walking of statement failed with RecognitionException error: \n   " + errorMsg);
+        } catch (CmisBaseException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CmisInvalidArgumentException("Walking of statement failed with exception: \n   " + e);
+        }
+    }
+
     public String getErrorMessage(RecognitionException e) {
         if (null == walker)
             return e.toString();
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.chemistry.opencmis.server.support.query;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.antlr.runtime.tree.Tree;
+import org.apache.chemistry.opencmis.commons.exceptions.CmisInvalidArgumentException;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class QueryCacheTest {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCacheTest.class);
+
+    private static final String STATEMENT = "SELECT cmis:name FROM cmis:document WHERE cmis:name = 'abc' ORDER BY cmis:name";
+
+    @Test
+    public void testNormalize() {
+        assertEquals("SELECT * FROM cmis:document", QueryCache.normalize("  SELECT *\n\tFROM   cmis:document "));
+        assertEquals("SELECT * FROM d WHERE x = 'a  b'", QueryCache.normalize("SELECT * FROM d WHERE x =  'a  b'"));
+        assertEquals("SELECT * FROM d WHERE x = 'it\\'s  ' AND y = 1",
+                QueryCache.normalize("SELECT * FROM d WHERE x = 'it\\'s  '   AND y = 1"));
+        assertEquals("SELECT * FROM d WHERE x = 'it''s  ' AND y = 1",
+                QueryCache.normalize("SELECT * FROM d WHERE x = 'it''s  '   AND y = 1"));
+    }
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        QueryCache cache = new QueryCache(10);
+
+        ParsedQuery q1 = cache.getParsedQuery(STATEMENT);
+        ParsedQuery q2 = cache.getParsedQuery(STATEMENT.replace(" ", "  "));
+        assertSame(q1, q2);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+        assertEquals(0.5, cache.getHitRatio(), 0.0001);
+
+        // invalid statements are not cached
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.getParsedQuery("SELECT FROM WHERE");
+                fail("Invalid statement should not be parsed");
+            } catch (Exception e) {
+            }
+        }
+        assertEquals(1, cache.getSize());
+        assertEquals(3, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertNotSame(q1, cache.getParsedQuery(STATEMENT));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        QueryCache cache = new QueryCache(3);
+
+        for (int i = 0; i < 5; i++) {
+            cache.getParsedQuery("SELECT * FROM cmis:document WHERE cmis:name = 'doc" + i + "'");
+        }
+        assertEquals(3, cache.getSize());
+        assertEquals(2, cache.getEvictionCount());
+
+        // least recently used is dropped
+        cache.getParsedQuery("SELECT * FROM cmis:document WHERE cmis:name = 'doc2'");
+        cache.getParsedQuery("SELECT * FROM cmis:document WHERE cmis:name = 'doc5'");
+        assertEquals(1, cache.getHitCount());
+        cache.getParsedQuery("SELECT * FROM cmis:document WHERE cmis:name = 'doc2'");
+        assertEquals(2, cache.getHitCount());
+        cache.getParsedQuery("SELECT * FROM cmis:document WHERE cmis:name = 'doc3'");
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    public void testPreparedQuery() throws Exception {
+        QueryCache cache = new QueryCache(10);
+        PreparedQuery query = new PreparedQuery(cache,
+                "SELECT * FROM cmis:document WHERE cmis:name = ? AND size > ? AND flag = ? AND created < ?"
+                        + " AND title = '?'");
+        assertEquals(4, query.getParameterCount());
+
+        try {
+            query.getParsedQuery();
+            fail("Unset parameters should not be accepted");
+        } catch (CmisInvalidArgumentException e) {
+        }
+
+        GregorianCalendar cal = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+        cal.setTimeInMillis(0);
+
+        query.setString(1, "it's");
+        query.setNumber(2, 42);
+        query.setBoolean(3, true);
+        query.setDateTime(4, cal);
+        assertEquals("SELECT * FROM cmis:document WHERE cmis:name = 'it\\'s' AND size > 42 AND flag = TRUE"
+                + " AND created < TIMESTAMP '1970-01-01T00:00:00.000Z' AND title = '?'", query.toQueryString());
+
+        ParsedQuery q1 = query.getParsedQuery();
+        assertEquals(1, cache.getMissCount());
+        assertLiterals(q1, "'it\\'s'", "42", "TRUE", "TIMESTAMP '1970-01-01T00:00:00.000Z'", "'?'");
+
+        cal.setTimeInMillis(86400000L);
+        query.setString(1, "other");
+        query.setNumber(2, -7.5);
+        query.setBoolean(3, false);
+        query.setDateTime(4, cal);
+        ParsedQuery q2 = query.getParsedQuery();
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(query.toQueryString(), q2.getStatement());
+        assertLiterals(q2, "'other'", "-7.5", "FALSE", "TIMESTAMP '1970-01-02T00:00:00.000Z'", "'?'");
+
+        // the cached tree is not changed
+        assertLiterals(q1, "'it\\'s'", "42", "TRUE", "TIMESTAMP '1970-01-01T00:00:00.000Z'", "'?'");
+
+        // another kind of parameter needs another plan
+        query.setString(2, "42");
+        assertLiterals(query.getParsedQuery(), "'other'", "'42'", "FALSE", "TIMESTAMP '1970-01-02T00:00:00.000Z'",
+                "'?'");
+        assertEquals(2, cache.getMissCount());
+        assertNotNull(query.getParsedQuery().createWalker());
+    }
+
+    @Test
+    public void testPreparedQueryWithoutLiteral() throws Exception {
+        PreparedQuery query = new PreparedQuery(new QueryCache(), "SELECT * FROM cmis:document ORDER BY ?");
+        query.setNumber(1, 1);
+        try {
+            query.getParsedQuery();
+            fail("Parameters in place of column references should not be accepted");
+        } catch (Exception e) {
+        }
+
+        try {
+            query.setString(2, "x");
+            fail("Invalid parameter index should not be accepted");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testParseTime() throws Exception {
+        final int count = 2000;
+        QueryCache cache = new QueryCache();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            QueryUtil.getWalker(STATEMENT);
+        }
+        long uncached = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            QueryUtil.getWalker(STATEMENT, cache);
+        }
+        long cached = System.currentTimeMillis() - start;
+
+        log.info("Creating " + count + " walkers took " + uncached + " ms without cache, " + cached
+                + " ms with cache: " + cache);
+        assertEquals(count - 1, cache.getHitCount());
+    }
+
+    private static void assertLiterals(ParsedQuery query, String... expected) {
+        List<String> literals = new ArrayList<String>();
+        collectLiterals(query.getParserTree(), literals);
+        assertEquals(expected.length, literals.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], literals.get(i));
+        }
+        assertTrue(query.getParserTree().getChildCount() > 0);
+    }
+
+    private static void collectLiterals(Tree node, List<String> literals) {
+        int type = node.getType();
+        if (type == CmisQlStrictLexer.STRING_LIT || type == CmisQlStrictLexer.NUM_LIT
+                || type == CmisQlStrictLexer.BOOL_LIT || type == CmisQlStrictLexer.TIME_LIT) {
+            literals.add(node.getText());
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            collectLiterals(node.getChild(i), literals);
+        }
+    }
+}